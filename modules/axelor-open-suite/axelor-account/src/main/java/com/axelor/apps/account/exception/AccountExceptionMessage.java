@@ -1418,6 +1418,16 @@ public final class AccountExceptionMessage {
   public static final String CUT_OFF_BATCH_NO_LINE = /*$$(*/
       "You must select at least one line to validate" /*)*/;
 
+  /** Period balances computation batch */
+  public static final String PERIOD_BALANCES_COMPUTATION_REPORT = /*$$(*/
+      "Period balances computation report :" /*)*/;
+
+  public static final String PERIOD_BALANCES_COMPUTATION_PERIOD_PROCESSED = /*$$(*/
+      "Period(s) processed" /*)*/;
+
+  public static final String PERIOD_BALANCES_COMPUTATION_DIFFERENCE = /*$$(*/
+      "%s stored balance(s) of the period %s did not match the moves and have been recomputed." /*)*/;
+
   public static final String ACCOUNT_TAX_CONFIG_MISSING = /*$$(*/
       "Accounting configuration is missing for Tax: %s (company: %s)" /*)*/;
 
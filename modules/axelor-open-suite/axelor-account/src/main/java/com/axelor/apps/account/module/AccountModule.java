@@ -76,6 +76,8 @@ import com.axelor.apps.account.service.AccountingCloseAnnualService;
 import com.axelor.apps.account.service.AccountingCloseAnnualServiceImpl;
 import com.axelor.apps.account.service.AccountingCutOffService;
 import com.axelor.apps.account.service.AccountingCutOffServiceImpl;
+import com.axelor.apps.account.service.AccountingPeriodBalanceService;
+import com.axelor.apps.account.service.AccountingPeriodBalanceServiceImpl;
 import com.axelor.apps.account.service.AccountingReportDas2CheckService;
 import com.axelor.apps.account.service.AccountingReportDas2CheckServiceImpl;
 import com.axelor.apps.account.service.AccountingReportDas2Service;
@@ -719,5 +721,7 @@ public class AccountModule extends AxelorModule {
     bind(MoveRecordUpdateService.class).to(MoveRecordUpdateServiceImpl.class);
 
     bind(MoveRecordSetService.class).to(MoveRecordSetServiceImpl.class);
+
+    bind(AccountingPeriodBalanceService.class).to(AccountingPeriodBalanceServiceImpl.class);
   }
 }
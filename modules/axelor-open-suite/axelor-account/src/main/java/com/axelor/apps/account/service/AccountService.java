@@ -65,12 +65,16 @@ public class AccountService {
 
   protected AccountRepository accountRepository;
   protected AccountConfigService accountConfigService;
+  protected AccountingPeriodBalanceService accountingPeriodBalanceService;
 
   @Inject
   public AccountService(
-      AccountRepository accountRepository, AccountConfigService accountConfigService) {
+      AccountRepository accountRepository,
+      AccountConfigService accountConfigService,
+      AccountingPeriodBalanceService accountingPeriodBalanceService) {
     this.accountRepository = accountRepository;
     this.accountConfigService = accountConfigService;
+    this.accountingPeriodBalanceService = accountingPeriodBalanceService;
   }
 
   /**
@@ -92,6 +96,28 @@ public class AccountService {
 
   protected BigDecimal computeBalance(
       Account account, AccountType accountType, Year year, int balanceType) {
+    // Closed periods are read from their stored balances, the other ones from the move lines
+    BigDecimal balance = getMoveLineBalance(account, accountType, year);
+    BigDecimal periodBalance = getPeriodBalance(account, accountType, year);
+    if (periodBalance != null) {
+      balance = balance != null ? balance.add(periodBalance) : periodBalance;
+    }
+
+    if (balance != null) {
+
+      if (balanceType == BALANCE_TYPE_CREDIT_BALANCE) {
+        balance = balance.negate();
+      }
+      log.debug("Account balance : {}", balance);
+
+      return balance;
+    } else {
+      return BigDecimal.ZERO;
+    }
+  }
+
+  /** @return the balance of the move lines of the periods without stored balances */
+  protected BigDecimal getMoveLineBalance(Account account, AccountType accountType, Year year) {
     Query balanceQuery =
         JPA.em()
             .createQuery(
@@ -102,29 +128,36 @@ public class AccountService {
                             .join(
                                 Lists.newArrayList(
                                     MoveRepository.STATUS_ACCOUNTED, MoveRepository.STATUS_DAYBOOK))
-                        + ") %s",
+                        + ") and not %s %s",
                     account == null ? ".accountType" : "",
+                    accountingPeriodBalanceService.getComputedPeriodCondition("self.move.period"),
                     year != null ? " and self.move.period.year = :year" : ""));
+    return getBalance(balanceQuery, account, accountType, year);
+  }
+
+  /** @return the stored balance of the closed periods */
+  protected BigDecimal getPeriodBalance(Account account, AccountType accountType, Year year) {
+    Query periodBalanceQuery =
+        JPA.em()
+            .createQuery(
+                String.format(
+                    "select sum(self.debit - self.credit) from AccountingPeriodBalance self where self.account%s = :account "
+                        + "and %s %s",
+                    account == null ? ".accountType" : "",
+                    accountingPeriodBalanceService.getComputedPeriodCondition("self.period"),
+                    year != null ? " and self.period.year = :year" : ""));
+    return getBalance(periodBalanceQuery, account, accountType, year);
+  }
 
-    balanceQuery.setParameter("account", account != null ? account : accountType);
+  protected BigDecimal getBalance(
+      Query query, Account account, AccountType accountType, Year year) {
+    query.setParameter("account", account != null ? account : accountType);
 
     if (year != null) {
-      balanceQuery.setParameter("year", year);
+      query.setParameter("year", year);
     }
 
-    BigDecimal balance = (BigDecimal) balanceQuery.getSingleResult();
-
-    if (balance != null) {
-
-      if (balanceType == BALANCE_TYPE_CREDIT_BALANCE) {
-        balance = balance.negate();
-      }
-      log.debug("Account balance : {}", balance);
-
-      return balance;
-    } else {
-      return BigDecimal.ZERO;
-    }
+    return (BigDecimal) query.getSingleResult();
   }
 
   public List<Long> getAllAccountsSubAccountIncluded(List<Long> accountList) {
@@ -0,0 +1,51 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import com.axelor.apps.base.db.Period;
+
+public interface AccountingPeriodBalanceService {
+
+  /**
+   * Recompute the debit and credit stored by journal and account for the given period from its
+   * daybook and accounted moves, and mark the period as computed.
+   *
+   * @param period a period of a fiscal year
+   * @return the number of journal and account balances that differed from the stored ones
+   */
+  int computePeriodBalances(Period period);
+
+  /**
+   * Get the JPQL condition matching the periods whose balances can be read from the stored balances
+   * instead of the move lines.
+   *
+   * @param periodPath the path of the period in the query, for example <code>self.move.period
+   *     </code>
+   * @return the condition, between parentheses
+   */
+  String getComputedPeriodCondition(String periodPath);
+
+  /**
+   * Stop reading the stored balances of the given period because one of its moves changed, until
+   * they are computed again on closure or by the batch.
+   *
+   * @param period the period of the changed move
+   */
+  void invalidatePeriodBalances(Period period);
+}
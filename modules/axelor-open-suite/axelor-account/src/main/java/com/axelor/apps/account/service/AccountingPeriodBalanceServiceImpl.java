@@ -0,0 +1,166 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import com.axelor.apps.account.db.Account;
+import com.axelor.apps.account.db.AccountingPeriodBalance;
+import com.axelor.apps.account.db.Journal;
+import com.axelor.apps.account.db.repo.AccountingPeriodBalanceRepository;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.base.db.Period;
+import com.axelor.apps.base.db.repo.PeriodRepository;
+import com.axelor.db.JPA;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+
+public class AccountingPeriodBalanceServiceImpl implements AccountingPeriodBalanceService {
+
+  protected AccountingPeriodBalanceRepository accountingPeriodBalanceRepository;
+  protected PeriodRepository periodRepository;
+
+  @Inject
+  public AccountingPeriodBalanceServiceImpl(
+      AccountingPeriodBalanceRepository accountingPeriodBalanceRepository,
+      PeriodRepository periodRepository) {
+    this.accountingPeriodBalanceRepository = accountingPeriodBalanceRepository;
+    this.periodRepository = periodRepository;
+  }
+
+  @Override
+  @Transactional
+  public int computePeriodBalances(Period period) {
+    period = periodRepository.find(period.getId());
+
+    Map<List<Long>, BigDecimal[]> storedBalanceMap = getStoredBalanceMap(period);
+    Map<List<Long>, BigDecimal[]> balanceMap = getMoveLineBalanceMap(period);
+
+    saveBalances(period, balanceMap);
+
+    period.setBalanceComputationDateTime(LocalDateTime.now());
+    periodRepository.save(period);
+
+    return countDifferentBalances(storedBalanceMap, balanceMap);
+  }
+
+  protected void saveBalances(Period period, Map<List<Long>, BigDecimal[]> balanceMap) {
+    JPA.em()
+        .createQuery("DELETE FROM AccountingPeriodBalance self WHERE self.period.id = :periodId")
+        .setParameter("periodId", period.getId())
+        .executeUpdate();
+
+    EntityManager em = JPA.em();
+    for (Map.Entry<List<Long>, BigDecimal[]> entry : balanceMap.entrySet()) {
+      AccountingPeriodBalance accountingPeriodBalance = new AccountingPeriodBalance();
+      accountingPeriodBalance.setPeriod(period);
+      accountingPeriodBalance.setJournal(em.getReference(Journal.class, entry.getKey().get(0)));
+      accountingPeriodBalance.setAccount(em.getReference(Account.class, entry.getKey().get(1)));
+      accountingPeriodBalance.setDebit(entry.getValue()[0]);
+      accountingPeriodBalance.setCredit(entry.getValue()[1]);
+      accountingPeriodBalanceRepository.save(accountingPeriodBalance);
+    }
+  }
+
+  @Override
+  public String getComputedPeriodCondition(String periodPath) {
+    return String.format(
+        "(%1$s.statusSelect = %2$d AND %1$s.balanceComputationDateTime IS NOT NULL)",
+        periodPath, PeriodRepository.STATUS_CLOSED);
+  }
+
+  @Override
+  public void invalidatePeriodBalances(Period period) {
+    if (period != null && period.getBalanceComputationDateTime() != null) {
+      period.setBalanceComputationDateTime(null);
+    }
+  }
+
+  protected Map<List<Long>, BigDecimal[]> getStoredBalanceMap(Period period) {
+    List<?> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.journal.id, self.account.id, self.debit, self.credit "
+                    + "FROM AccountingPeriodBalance self WHERE self.period.id = :periodId")
+            .setParameter("periodId", period.getId())
+            .getResultList();
+    return toBalanceMap(resultList);
+  }
+
+  protected Map<List<Long>, BigDecimal[]> getMoveLineBalanceMap(Period period) {
+    List<?> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.move.journal.id, self.account.id, SUM(self.debit), SUM(self.credit) "
+                    + "FROM MoveLine self WHERE self.move.period.id = :periodId "
+                    + "AND self.move.ignoreInAccountingOk IN ('false', null) "
+                    + "AND self.move.statusSelect IN (:statusList) "
+                    + "GROUP BY self.move.journal.id, self.account.id")
+            .setParameter("periodId", period.getId())
+            .setParameter(
+                "statusList",
+                Arrays.asList(MoveRepository.STATUS_DAYBOOK, MoveRepository.STATUS_ACCOUNTED))
+            .getResultList();
+    return toBalanceMap(resultList);
+  }
+
+  protected Map<List<Long>, BigDecimal[]> toBalanceMap(List<?> resultList) {
+    Map<List<Long>, BigDecimal[]> balanceMap = new HashMap<>();
+    for (Object result : resultList) {
+      Object[] row = (Object[]) result;
+      balanceMap.put(
+          Arrays.asList((Long) row[0], (Long) row[1]),
+          new BigDecimal[] {toBigDecimal(row[2]), toBigDecimal(row[3])});
+    }
+    return balanceMap;
+  }
+
+  protected BigDecimal toBigDecimal(Object value) {
+    return value != null ? new BigDecimal(value.toString()) : BigDecimal.ZERO;
+  }
+
+  /**
+   * Count the journal and account keys whose debit or credit differs between the two maps. A key
+   * missing from one of the maps counts as a zero balance.
+   */
+  protected int countDifferentBalances(
+      Map<List<Long>, BigDecimal[]> storedBalanceMap, Map<List<Long>, BigDecimal[]> balanceMap) {
+    Set<List<Long>> keySet = new HashSet<>(storedBalanceMap.keySet());
+    keySet.addAll(balanceMap.keySet());
+
+    BigDecimal[] zeroBalance = {BigDecimal.ZERO, BigDecimal.ZERO};
+    int differenceCount = 0;
+    for (List<Long> key : keySet) {
+      BigDecimal[] storedBalance = storedBalanceMap.getOrDefault(key, zeroBalance);
+      BigDecimal[] balance = balanceMap.getOrDefault(key, zeroBalance);
+      if (storedBalance[0].compareTo(balance[0]) != 0
+          || storedBalance[1].compareTo(balance[1]) != 0) {
+        differenceCount++;
+      }
+    }
+    return differenceCount;
+  }
+}
@@ -31,10 +31,14 @@ import javax.persistence.Query;
 
 public class JournalService {
   protected JournalRepository journalRepository;
+  protected AccountingPeriodBalanceService accountingPeriodBalanceService;
 
   @Inject
-  public JournalService(JournalRepository journalRepository) {
+  public JournalService(
+      JournalRepository journalRepository,
+      AccountingPeriodBalanceService accountingPeriodBalanceService) {
     this.journalRepository = journalRepository;
+    this.accountingPeriodBalanceService = accountingPeriodBalanceService;
   }
 
   /**
@@ -47,10 +51,13 @@ public class JournalService {
 
     Map<String, BigDecimal> resultMap = new HashMap<>();
 
+    // Closed periods are summed from the balances stored on closure
     String query =
         "select sum(self.debit),sum(self.credit)"
             + " from MoveLine self where self.move.journal.id = :journal "
-            + "and self.move.ignoreInAccountingOk IN ('false', null) and self.move.statusSelect IN (:statusDaybook, :statusValidated) and self.account.accountType MEMBER OF self.move.journal.journalType.accountTypeSet";
+            + "and self.move.ignoreInAccountingOk IN ('false', null) and self.move.statusSelect IN (:statusDaybook, :statusValidated) and self.account.accountType MEMBER OF self.move.journal.journalType.accountTypeSet "
+            + "and not "
+            + accountingPeriodBalanceService.getComputedPeriodCondition("self.move.period");
 
     Query resultQuery = JPA.em().createQuery(query);
 
@@ -60,15 +67,37 @@ public class JournalService {
 
     Object[] resultArr = (Object[]) resultQuery.getResultList().get(0);
 
-    resultMap.put(
-        "debit", resultArr[0] != null ? new BigDecimal(resultArr[0].toString()) : BigDecimal.ZERO);
-    resultMap.put(
-        "credit", resultArr[1] != null ? new BigDecimal(resultArr[1].toString()) : BigDecimal.ZERO);
+    String periodBalanceQuery =
+        "select sum(self.debit),sum(self.credit)"
+            + " from AccountingPeriodBalance self where self.journal.id = :journal "
+            + "and self.account.accountType MEMBER OF self.journal.journalType.accountTypeSet and "
+            + accountingPeriodBalanceService.getComputedPeriodCondition("self.period");
+
+    Object[] periodBalanceResultArr =
+        (Object[])
+            JPA.em()
+                .createQuery(periodBalanceQuery)
+                .setParameter("journal", journal.getId())
+                .getResultList()
+                .get(0);
+
+    resultMap.put("debit", sum(resultArr[0], periodBalanceResultArr[0]));
+    resultMap.put("credit", sum(resultArr[1], periodBalanceResultArr[1]));
     resultMap.put("balance", resultMap.get("debit").subtract(resultMap.get("credit")));
 
     return resultMap;
   }
 
+  protected BigDecimal sum(Object... values) {
+    BigDecimal sum = BigDecimal.ZERO;
+    for (Object value : values) {
+      if (value != null) {
+        sum = sum.add(new BigDecimal(value.toString()));
+      }
+    }
+    return sum;
+  }
+
   @Transactional
   public void toggleStatusSelect(Journal journal) {
     if (journal != null) {
@@ -20,10 +20,8 @@ package com.axelor.apps.account.service;
 
 import com.axelor.apps.account.db.AccountingReport;
 import com.axelor.apps.account.db.AccountingReportType;
-import com.axelor.apps.account.db.Journal;
 import com.axelor.apps.account.db.Move;
 import com.axelor.apps.account.db.MoveLine;
-import com.axelor.apps.account.db.ReconcileGroup;
 import com.axelor.apps.account.db.repo.AccountRepository;
 import com.axelor.apps.account.db.repo.AccountingReportRepository;
 import com.axelor.apps.account.db.repo.JournalRepository;
@@ -42,6 +40,7 @@ import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.PartnerService;
 import com.axelor.apps.base.service.administration.SequenceService;
+import com.axelor.auth.AuthUtils;
 import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
@@ -52,6 +51,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import com.opencsv.CSVWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -61,12 +61,21 @@ import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import org.hibernate.jpa.QueryHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,6 +98,14 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
 
   protected static final String DATE_FORMAT_YYYYMMDD = "yyyyMMdd";
   protected static final String DATE_FORMAT_YYYYMMDDHHMMSS = "yyyyMMddHHmmss";
+  protected static final DateTimeFormatter DATE_FORMATTER_YYYYMMDD =
+      DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD);
+  protected static final Pattern LINE_BREAK_OR_SEPARATOR_PATTERN =
+      Pattern.compile("(\r\n|\n\r|\r|\n|\\|)");
+
+  protected static final int EXPORT_FETCH_SIZE = 1000;
+  protected static final int MOVE_UPDATE_BATCH_SIZE = 1000;
+  protected static final int EXPORT_COLUMN_MOVE_ID = 20;
 
   @Inject
   public MoveLineExportServiceImpl(
@@ -116,46 +133,6 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
     this.appAccountService = appAccountService;
   }
 
-  public void updateMoveList(
-      List<Move> moveList,
-      AccountingReport accountingReport,
-      LocalDate localDate,
-      String exportNumber) {
-
-    int i = 0;
-
-    int moveListSize = moveList.size();
-
-    for (Move move : moveList) {
-
-      this.updateMove(
-          moveRepo.find(move.getId()),
-          accountingReportRepo.find(accountingReport.getId()),
-          localDate,
-          exportNumber);
-
-      if (i % 10 == 0) {
-        JPA.clear();
-      }
-      if (i++ % 100 == 0) {
-        log.debug("Process : {} / {}", i, moveListSize);
-      }
-    }
-  }
-
-  @Transactional
-  public Move updateMove(
-      Move move, AccountingReport accountingReport, LocalDate localDate, String exportNumber) {
-
-    move.setExportNumber(exportNumber);
-    move.setExportDate(localDate);
-    move.setAccountingOk(true);
-    move.setAccountingReport(accountingReport);
-    moveRepo.save(move);
-
-    return move;
-  }
-
   public BigDecimal getSumDebit(String queryFilter, List<? extends Move> moveList) {
 
     Query q =
@@ -332,6 +309,9 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
   /**
    * Méthode réalisant l'export des FEC (Fichiers des écritures Comptables)
    *
+   * <p>Lines are read through a single cursor on the projected columns and written to the file as
+   * they come, so the export does not keep the whole fiscal year in memory.
+   *
    * @throws AxelorException
    * @throws IOException
    */
@@ -341,7 +321,6 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
       throws AxelorException, IOException {
 
     log.info("In Export type 1000 service : ");
-    List<String[]> allMoveLineData = new ArrayList<>();
     Company company = accountingReport.getCompany();
 
     LocalDate interfaceDate = accountingReport.getDate();
@@ -394,108 +373,195 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
       }
     }
 
-    com.axelor.db.Query<MoveLine> moveLineQuery =
-        moveLineRepo
-            .all()
-            .filter(moveLineQueryStr)
-            .order("move.accountingDate")
-            .order("date")
-            .order("name");
-
-    int offset = 0;
-    List<Long> moveLineIdList;
-    List<Move> moveList = new ArrayList<>();
-
-    while (!(moveLineIdList =
-            moveLineQuery
-                .fetchStream(10000, offset)
-                .map(MoveLine::getId)
-                .collect(Collectors.toList()))
-        .isEmpty()) {
-
-      for (Long id : moveLineIdList) {
-        MoveLine moveLine = moveLineRepo.find(id);
-        offset++;
-        allMoveLineData.add(createItemForExportMoveLine(moveLine, moveList));
-      }
-
-      JPA.clear();
+    String fileName = this.setFileName(accountingReport);
+    String filePath = this.getExportFilePath(company);
+
+    long startTime = System.currentTimeMillis();
+    long lineCount = 0;
+    Set<Long> moveIdSet = new HashSet<>();
+    String exportNumber = null;
+
+    try (CSVWriter csvWriter = CsvTool.setCsvFile(filePath, fileName, '|');
+        Stream<Object[]> rowStream =
+            this.createExportMoveLineQuery(moveLineQueryStr).getResultStream()) {
+
+      csvWriter.writeNext(this.createHeaderForJournalEntry());
+
+      Iterator<Object[]> rowIterator = rowStream.iterator();
+      while (rowIterator.hasNext()) {
+        Object[] row = rowIterator.next();
+        this.writeExportMoveLine(csvWriter, row);
+        lineCount++;
+
+        if (!administration
+            && moveIdSet.add((Long) row[EXPORT_COLUMN_MOVE_ID])
+            && moveIdSet.size() >= MOVE_UPDATE_BATCH_SIZE) {
+          if (exportNumber == null) {
+            exportNumber = this.getSaleExportNumber(company);
+          }
+          this.updateMoves(moveIdSet, accountingReport, interfaceDate, exportNumber);
+          moveIdSet.clear();
+        }
 
-      if (!administration) {
-        String exportNumber = this.getSaleExportNumber(company);
-        this.updateMoveList(moveList, accountingReport, interfaceDate, exportNumber);
+        if (lineCount % 100000 == 0) {
+          log.debug("Process : {} lines", lineCount);
+        }
       }
+    }
 
-      moveList.clear();
+    if (!moveIdSet.isEmpty()) {
+      if (exportNumber == null) {
+        exportNumber = this.getSaleExportNumber(company);
+      }
+      this.updateMoves(moveIdSet, accountingReport, interfaceDate, exportNumber);
     }
 
-    accountingReport = accountingReportRepo.find(accountingReport.getId());
+    long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+    log.info(
+        "FEC export : {} lines written in {} ms ({} lines/s)",
+        lineCount,
+        duration,
+        lineCount * 1000 / duration);
 
-    String fileName = this.setFileName(accountingReport);
     accountingReportRepo.save(accountingReport);
-    return writeMoveLineToCsvFile(
-        company, fileName, this.createHeaderForJournalEntry(), allMoveLineData, accountingReport);
+    Path path = Paths.get(filePath, fileName);
+    try (InputStream is = new FileInputStream(path.toFile())) {
+      return Beans.get(MetaFiles.class).attach(is, fileName, accountingReport).getMetaFile();
+    }
+  }
+
+  /**
+   * Create the query reading the columns of the FEC export, in the order expected by {@link
+   * #createItemForExportMoveLine(Object[])}.
+   */
+  protected TypedQuery<Object[]> createExportMoveLineQuery(String moveLineQueryStr) {
+    return JPA.em()
+        .createQuery(
+            "SELECT journal.code, journal.name, move.reference, self.date,"
+                + " account.code, account.name, accountType.isManageSubsidiaryAccount,"
+                + " partner.partnerSeq, partner.name, self.origin, self.originDate,"
+                + " self.description, self.debit, self.credit, reconcileGroup.code,"
+                + " reconcileGroup.statusSelect, reconcileGroup.letteringDateTime,"
+                + " move.accountingDate, self.currencyAmount, currency.codeISO, move.id"
+                + " FROM MoveLine self"
+                + " JOIN self.move move"
+                + " LEFT JOIN move.journal journal"
+                + " LEFT JOIN move.currency currency"
+                + " LEFT JOIN self.account account"
+                + " LEFT JOIN account.accountType accountType"
+                + " LEFT JOIN self.partner partner"
+                + " LEFT JOIN self.reconcileGroup reconcileGroup"
+                + " WHERE "
+                + moveLineQueryStr
+                + " ORDER BY move.accountingDate, self.date, self.name, self.id",
+            Object[].class)
+        .setHint(QueryHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+        .setHint(QueryHints.HINT_READONLY, true);
   }
 
-  protected String[] createItemForExportMoveLine(MoveLine moveLine, List<Move> moveList) {
+  protected void writeExportMoveLine(CSVWriter csvWriter, Object[] row) {
+    csvWriter.writeNext(this.cleanItems(this.createItemForExportMoveLine(row)));
+  }
+
+  /**
+   * Mark the given moves as exported, with a single update. The update bypasses the entity
+   * listeners, so the audit fields are set here.
+   */
+  protected void updateMoves(
+      Collection<Long> moveIds,
+      AccountingReport accountingReport,
+      LocalDate localDate,
+      String exportNumber) {
+    JPA.em()
+        .createQuery(
+            "UPDATE Move self SET self.exportNumber = :exportNumber,"
+                + " self.exportDate = :exportDate, self.accountingOk = true,"
+                + " self.accountingReport = :accountingReport, self.version = self.version + 1,"
+                + " self.updatedOn = :updatedOn, self.updatedBy = :updatedBy"
+                + " WHERE self.id IN (:moveIds)")
+        .setParameter("exportNumber", exportNumber)
+        .setParameter("exportDate", localDate)
+        .setParameter("accountingReport", accountingReport)
+        .setParameter("updatedOn", LocalDateTime.now())
+        .setParameter("updatedBy", AuthUtils.getUser())
+        .setParameter("moveIds", moveIds)
+        .executeUpdate();
+  }
+
+  /**
+   * Create the FEC export line from a row of {@link #createExportMoveLineQuery(String)}.
+   *
+   * @param row the journal code and name, the move reference, the line date, the account code, name
+   *     and subsidiary flag, the partner sequence and name, the line origin, origin date,
+   *     description, debit and credit, the reconcile group code, status and lettering date, the
+   *     move accounting date, the currency amount, the move currency code and the move id
+   */
+  protected String[] createItemForExportMoveLine(Object[] row) {
     String[] items = new String[18];
-    Move move = moveLine.getMove();
-    if (!moveList.contains(move)) {
-      moveList.add(move);
-    }
-    Journal journal = move.getJournal();
-    items[0] = journal.getCode();
-    items[1] = journal.getName();
-    items[2] = moveLine.getMove().getReference();
-    items[3] = moveLine.getDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
-    items[4] = moveLine.getAccount().getCode();
-    items[5] = moveLine.getAccount().getName();
+    items[0] = (String) row[0];
+    items[1] = (String) row[1];
+    items[2] = (String) row[2];
+    items[3] = this.formatExportDate((TemporalAccessor) row[3]);
+    items[4] = (String) row[4];
+    items[5] = (String) row[5];
     items[6] = "";
     items[7] = "";
-    Partner partner = moveLine.getPartner();
-    if (partner != null && moveLine.getAccount().getAccountType().getIsManageSubsidiaryAccount()) {
-      items[6] = partner.getPartnerSeq();
-      items[7] = partner.getName();
+    if (row[7] != null && Boolean.TRUE.equals(row[6])) {
+      items[6] = (String) row[7];
+      items[7] = (String) row[8];
     }
-    String origin = moveLine.getOrigin();
+    String origin = (String) row[9];
     items[8] = Strings.isNullOrEmpty(origin) ? "NA" : origin;
-    if (moveLine.getOriginDate() != null) {
-      items[9] = moveLine.getOriginDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
-    }
-    items[10] = moveLine.getDescription();
-    items[11] = moveLine.getDebit().toString().replace('.', ',');
-    items[12] = moveLine.getCredit().toString().replace('.', ',');
-
-    ReconcileGroup reconcileGroup = moveLine.getReconcileGroup();
-    if (reconcileGroup != null
-        && reconcileGroup.getStatusSelect() == ReconcileGroupRepository.STATUS_FINAL) {
-      items[13] = reconcileGroup.getCode();
-      items[14] =
-          reconcileGroup
-              .getLetteringDateTime()
-              .format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
+    items[9] = this.formatExportDate((TemporalAccessor) row[10]);
+    items[10] = (String) row[11];
+    BigDecimal debit = row[12] == null ? BigDecimal.ZERO : (BigDecimal) row[12];
+    BigDecimal credit = row[13] == null ? BigDecimal.ZERO : (BigDecimal) row[13];
+    items[11] = debit.toString().replace('.', ',');
+    items[12] = credit.toString().replace('.', ',');
+
+    if (Integer.valueOf(ReconcileGroupRepository.STATUS_FINAL).equals(row[15])) {
+      items[13] = (String) row[14];
+      items[14] = this.formatExportDate((TemporalAccessor) row[16]);
     } else {
       items[13] = "";
       items[14] = "";
     }
 
-    if (move.getAccountingDate() != null) {
-      items[15] =
-          move.getAccountingDate().format(DateTimeFormatter.ofPattern(DATE_FORMAT_YYYYMMDD));
-    }
+    items[15] = this.formatExportDate((TemporalAccessor) row[17]);
 
-    items[16] = moveLine.getCurrencyAmount().toString().replace('.', ',');
-    if (moveLine.getCurrencyAmount().compareTo(BigDecimal.ZERO) > 0
-        && moveLine.getCredit().compareTo(BigDecimal.ZERO) > 0) {
+    BigDecimal currencyAmount = row[18] == null ? BigDecimal.ZERO : (BigDecimal) row[18];
+    items[16] = currencyAmount.toString().replace('.', ',');
+    if (currencyAmount.compareTo(BigDecimal.ZERO) > 0 && credit.compareTo(BigDecimal.ZERO) > 0) {
       items[16] = "-" + items[16];
     }
 
-    if (move.getCurrency() != null) {
-      items[17] = move.getCurrency().getCodeISO();
+    items[17] = (String) row[19];
+    return items;
+  }
+
+  protected String formatExportDate(TemporalAccessor date) {
+    return date == null ? null : DATE_FORMATTER_YYYYMMDD.format(date);
+  }
+
+  /** Replace the line breaks and the separator which would break the lines of the file. */
+  protected String[] cleanItems(String[] items) {
+    for (int i = 0; i < items.length; i++) {
+      if (items[i] != null) {
+        items[i] = LINE_BREAK_OR_SEPARATOR_PATTERN.matcher(items[i]).replaceAll(" ");
+      }
     }
     return items;
   }
 
+  protected String getExportFilePath(Company company) throws AxelorException {
+    String filePath = accountConfigService.getAccountConfig(company).getExportPath();
+    String dataExportDir = appAccountService.getDataExportDir();
+
+    filePath = filePath == null ? dataExportDir : dataExportDir + filePath;
+    new File(filePath).mkdirs();
+    return filePath;
+  }
+
   protected MetaFile writeMoveLineToCsvFile(
       Company company,
       String fileName,
@@ -504,20 +570,12 @@ public class MoveLineExportServiceImpl implements MoveLineExportService {
       AccountingReport accountingReport)
       throws AxelorException, IOException {
 
-    String filePath = accountConfigService.getAccountConfig(company).getExportPath();
-    String dataExportDir = appAccountService.getDataExportDir();
+    String filePath = this.getExportFilePath(company);
 
     for (String[] items : allMoveData) {
-      for (int i = 0; i < items.length; i++) {
-        if (items[i] != null) {
-          items[i] = items[i].replaceAll("(\r\n|\n\r|\r|\n|\\|)", " ");
-        }
-      }
+      this.cleanItems(items);
     }
 
-    filePath = filePath == null ? dataExportDir : dataExportDir + filePath;
-    new File(filePath).mkdirs();
-
     log.debug("Full path to export : {}{}", filePath, fileName);
     CsvTool.csvWriter(filePath, fileName, '|', columnHeader, allMoveData);
     Path path = Paths.get(filePath, fileName);
@@ -35,6 +35,7 @@ import com.axelor.auth.db.Role;
 import com.axelor.auth.db.User;
 import com.axelor.db.Query;
 import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
 import javax.inject.Singleton;
 import org.apache.commons.collections.CollectionUtils;
 
@@ -45,6 +46,7 @@ public class PeriodServiceAccountImpl extends PeriodServiceImpl implements Perio
   protected MoveRepository moveRepository;
   protected AccountConfigService accountConfigService;
   protected MoveRemoveService moveRemoveService;
+  protected AccountingPeriodBalanceService accountingPeriodBalanceService;
 
   @Inject
   public PeriodServiceAccountImpl(
@@ -53,12 +55,14 @@ public class PeriodServiceAccountImpl extends PeriodServiceImpl implements Perio
       MoveValidateService moveValidateService,
       MoveRepository moveRepository,
       AccountConfigService accountConfigService,
-      MoveRemoveService moveRemoveService) {
+      MoveRemoveService moveRemoveService,
+      AccountingPeriodBalanceService accountingPeriodBalanceService) {
     super(periodRepo, adjustHistoryService);
     this.moveValidateService = moveValidateService;
     this.moveRepository = moveRepository;
     this.accountConfigService = accountConfigService;
     this.moveRemoveService = moveRemoveService;
+    this.accountingPeriodBalanceService = accountingPeriodBalanceService;
   }
 
   public void close(Period period) throws AxelorException {
@@ -74,6 +78,31 @@ public class PeriodServiceAccountImpl extends PeriodServiceImpl implements Perio
     super.close(period);
   }
 
+  /** Balances are stored in the transaction closing the period, so a closed period has them. */
+  @Override
+  @Transactional
+  protected void updateClosePeriod(Period period) {
+    super.updateClosePeriod(period);
+
+    if (period.getYear().getTypeSelect() == YearRepository.TYPE_FISCAL) {
+      accountingPeriodBalanceService.computePeriodBalances(period);
+    }
+  }
+
+  @Override
+  @Transactional
+  public void adjust(Period period) {
+    super.adjust(period);
+    accountingPeriodBalanceService.invalidatePeriodBalances(periodRepo.find(period.getId()));
+  }
+
+  @Override
+  @Transactional
+  public void openPeriod(Period period) {
+    super.openPeriod(period);
+    accountingPeriodBalanceService.invalidatePeriodBalances(period);
+  }
+
   public Query<Move> getMoveListByPeriodAndStatusQuery(Period period, int status) {
     return moveRepository
         .all()
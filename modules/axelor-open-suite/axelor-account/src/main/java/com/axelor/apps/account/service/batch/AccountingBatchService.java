@@ -90,6 +90,9 @@ public class AccountingBatchService extends AbstractBatchService {
       case AccountingBatchRepository.ACTION_ACCOUNTING_CUT_OFF:
         batch = accountingCutOff(accountingBatch);
         break;
+      case AccountingBatchRepository.ACTION_COMPUTE_PERIOD_BALANCES:
+        batch = computePeriodBalances(accountingBatch);
+        break;
       default:
         throw new AxelorException(
             TraceBackRepository.CATEGORY_INCONSISTENCY,
@@ -195,6 +198,10 @@ public class AccountingBatchService extends AbstractBatchService {
     return Beans.get(BatchAccountingCutOff.class).run(accountingBatch);
   }
 
+  public Batch computePeriodBalances(AccountingBatch accountingBatch) {
+    return Beans.get(BatchComputePeriodBalances.class).run(accountingBatch);
+  }
+
   @Transactional
   public AccountingBatch createNewAccountingBatch(int action, Company company) {
     if (company != null) {
@@ -122,11 +122,9 @@ public class BatchAccountCustomer extends BatchStrategy {
     String comment = "";
     comment = I18n.get(AccountExceptionMessage.BATCH_ACCOUNT_2) + "\n";
     comment +=
-        String.format(
-            "\t" + I18n.get(AccountExceptionMessage.BATCH_ACCOUNT_3) + "\n", batch.getDone());
+        String.format("\t" + I18n.get(AccountExceptionMessage.BATCH_ACCOUNT_3) + "\n", getDone());
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
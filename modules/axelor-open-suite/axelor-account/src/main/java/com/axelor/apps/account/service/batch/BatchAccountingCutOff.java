@@ -199,8 +199,7 @@ public class BatchAccountingCutOff extends BatchStrategy {
         new StringBuilder(
             String.format(
                 "%s\n\t* %s ",
-                I18n.get(AccountExceptionMessage.ACCOUNTING_CUT_OFF_GENERATION_REPORT),
-                batch.getDone()));
+                I18n.get(AccountExceptionMessage.ACCOUNTING_CUT_OFF_GENERATION_REPORT), getDone()));
 
     comment.append(getProcessedMessage());
 
@@ -209,7 +208,7 @@ public class BatchAccountingCutOff extends BatchStrategy {
             "\n\t"
                 + I18n.get(
                     com.axelor.apps.base.exceptions.BaseExceptionMessage.ALARM_ENGINE_BATCH_4),
-            batch.getAnomaly()));
+            getAnomaly()));
 
     super.stop();
     addComment(comment.toString());
@@ -339,16 +339,16 @@ public class BatchCloseAnnualAccounts extends BatchStrategy {
             I18n.get(
                     AccountExceptionMessage.BATCH_CLOSE_OPEN_ANNUAL_ACCOUNT_DONE_SINGULAR,
                     AccountExceptionMessage.BATCH_CLOSE_OPEN_ANNUAL_ACCOUNT_DONE_PLURAL,
-                    batch.getDone())
+                    getDone())
                 + " ",
-            batch.getDone()));
+            getDone()));
     sb.append(
         String.format(
             I18n.get(
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_SINGULAR,
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_PLURAL,
-                batch.getAnomaly()),
-            batch.getAnomaly()));
+                getAnomaly()),
+            getAnomaly()));
     addComment(sb.toString());
     super.stop();
   }
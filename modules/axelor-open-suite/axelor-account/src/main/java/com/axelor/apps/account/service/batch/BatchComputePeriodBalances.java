@@ -0,0 +1,127 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.batch;
+
+import com.axelor.apps.account.db.AccountingBatch;
+import com.axelor.apps.account.exception.AccountExceptionMessage;
+import com.axelor.apps.account.service.AccountingPeriodBalanceService;
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Period;
+import com.axelor.apps.base.db.repo.PeriodRepository;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.db.repo.YearRepository;
+import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.i18n.I18n;
+import com.axelor.utils.StringTool;
+import com.google.inject.Inject;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.collections.CollectionUtils;
+
+public class BatchComputePeriodBalances extends BatchStrategy {
+
+  protected AccountingPeriodBalanceService accountingPeriodBalanceService;
+  protected PeriodRepository periodRepository;
+
+  @Inject
+  public BatchComputePeriodBalances(
+      AccountingPeriodBalanceService accountingPeriodBalanceService,
+      PeriodRepository periodRepository) {
+    this.accountingPeriodBalanceService = accountingPeriodBalanceService;
+    this.periodRepository = periodRepository;
+  }
+
+  @Override
+  protected void process() {
+    List<Long> periodIdList =
+        getPeriodQuery(batch.getAccountingBatch()).fetch().stream()
+            .map(Period::getId)
+            .collect(Collectors.toList());
+
+    for (Long periodId : periodIdList) {
+      Period period = periodRepository.find(periodId);
+      try {
+        boolean alreadyComputed = period.getBalanceComputationDateTime() != null;
+        int differenceCount = accountingPeriodBalanceService.computePeriodBalances(period);
+
+        if (alreadyComputed && differenceCount > 0) {
+          TraceBackService.trace(
+              new AxelorException(
+                  period,
+                  TraceBackRepository.CATEGORY_INCONSISTENCY,
+                  I18n.get(AccountExceptionMessage.PERIOD_BALANCES_COMPUTATION_DIFFERENCE),
+                  differenceCount,
+                  period.getName()),
+              null,
+              batch.getId());
+          incrementAnomaly();
+        } else {
+          incrementDone();
+        }
+      } catch (Exception e) {
+        TraceBackService.trace(e, null, batch.getId());
+        incrementAnomaly();
+      } finally {
+        JPA.clear();
+        findBatch();
+      }
+    }
+  }
+
+  protected Query<Period> getPeriodQuery(AccountingBatch accountingBatch) {
+    String filter =
+        "self.year.company = :company AND self.year.typeSelect = :typeSelect "
+            + "AND self.statusSelect = :statusSelect";
+    if (!CollectionUtils.isEmpty(accountingBatch.getYearSet())) {
+      filter +=
+          " AND self.year.id IN (" + StringTool.getIdListString(accountingBatch.getYearSet()) + ")";
+    }
+
+    return periodRepository
+        .all()
+        .filter(filter)
+        .bind("company", accountingBatch.getCompany())
+        .bind("typeSelect", YearRepository.TYPE_FISCAL)
+        .bind("statusSelect", PeriodRepository.STATUS_CLOSED)
+        .order("fromDate");
+  }
+
+  @Override
+  protected void stop() {
+    StringBuilder comment =
+        new StringBuilder(
+            String.format(
+                "%s\n\t* %s ",
+                I18n.get(AccountExceptionMessage.PERIOD_BALANCES_COMPUTATION_REPORT), getDone()));
+
+    comment.append(I18n.get(AccountExceptionMessage.PERIOD_BALANCES_COMPUTATION_PERIOD_PROCESSED));
+
+    comment.append(
+        String.format(
+            "\n\t"
+                + I18n.get(
+                    com.axelor.apps.base.exceptions.BaseExceptionMessage.ALARM_ENGINE_BATCH_4),
+            getAnomaly()));
+
+    super.stop();
+    addComment(comment.toString());
+  }
+}
@@ -32,6 +32,8 @@ import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.db.repo.PartnerRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.BlockingService;
+import com.axelor.apps.base.service.administration.BatchPartitionProgress;
+import com.axelor.apps.base.service.administration.BatchPartitionWork;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.db.EntityHelper;
 import com.axelor.db.JPA;
@@ -41,8 +43,12 @@ import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.message.db.repo.MessageRepository;
 import com.google.inject.Inject;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.persistence.Table;
 
 public class BatchDebtRecovery extends BatchStrategy {
@@ -112,20 +118,23 @@ public class BatchDebtRecovery extends BatchStrategy {
       }
     }
 
+    String filter =
+        "self.isContact = false "
+            + "AND :_company MEMBER OF self.companySet "
+            + "AND self.accountingSituationList IS NOT EMPTY "
+            + "AND self.isCustomer = true "
+            + "AND self.id NOT IN ("
+            + Beans.get(BlockingService.class)
+                .listOfBlockedPartner(company, BlockingRepository.REMINDER_BLOCKING)
+            + ")";
+
+    if (isPartitionedProcessing()) {
+      debtRecoveryPartnerInPartitions(filter, company, tradingNameSet);
+      return;
+    }
+
     Query<Partner> query =
-        partnerRepository
-            .all()
-            .filter(
-                "self.isContact = false "
-                    + "AND :_company MEMBER OF self.companySet "
-                    + "AND self.accountingSituationList IS NOT EMPTY "
-                    + "AND self.isCustomer = true "
-                    + "AND self.id NOT IN ("
-                    + Beans.get(BlockingService.class)
-                        .listOfBlockedPartner(company, BlockingRepository.REMINDER_BLOCKING)
-                    + ")")
-            .bind("_company", company)
-            .order("id");
+        partnerRepository.all().filter(filter).bind("_company", company).order("id");
 
     int offset = 0;
     List<Partner> partnerList;
@@ -136,81 +145,163 @@ public class BatchDebtRecovery extends BatchStrategy {
       for (Partner partner : partnerList) {
         ++offset;
 
-        boolean remindedOk;
-        // if recovery handled by trading name
-        if (tradingNameSet != null && !tradingNameSet.isEmpty()) {
-          boolean incrementPartner = false;
-          for (TradingName tradingName : tradingNameSet) {
-            try {
-              remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company, tradingName);
-              if (remindedOk) {
-                DebtRecovery debtRecovery =
-                    debtRecoveryService.getDebtRecovery(partner, company, tradingName);
-                addBatchToModel(debtRecovery);
-                incrementPartner = true;
-              }
-              // Catching exceptions
-            } catch (AxelorException e) {
-              TraceBackService.trace(
-                  new AxelorException(
-                      e,
-                      e.getCategory(),
-                      I18n.get("Partner") + " %s, " + I18n.get("Trading name") + " %s",
-                      partner.getName(),
-                      tradingName.getName()),
-                  ExceptionOriginRepository.DEBT_RECOVERY,
-                  batch.getId());
-              incrementAnomaly(partner);
-              break;
-            } catch (Exception e) {
-              TraceBackService.trace(
-                  new Exception(
-                      String.format(
-                          I18n.get("Partner") + " %s, " + I18n.get("Trading name") + " %s",
-                          partner.getName(),
-                          tradingName.getName()),
-                      e),
-                  ExceptionOriginRepository.DEBT_RECOVERY,
-                  batch.getId());
-              incrementAnomaly(partner);
-              break;
-            }
-            // \Catching exceptions
+        if (!debtRecoveryPartner(partner, company, tradingNameSet, getProgress(partner))) {
+          break;
+        }
+      }
+
+      JPA.clear();
+    }
+  }
+
+  /**
+   * Each partner is processed by a worker thread, which loads again the company and the trading
+   * names in its own persistence context.
+   */
+  protected void debtRecoveryPartnerInPartitions(
+      String filter, Company company, Set<TradingName> tradingNameSet) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("_company", company);
+    Long companyId = company.getId();
+    List<Long> tradingNameIdList =
+        tradingNameSet == null
+            ? null
+            : tradingNameSet.stream().map(TradingName::getId).collect(Collectors.toList());
+
+    processInPartitions(
+        new BatchPartitionWork() {
+          @Override
+          public List<Long> fetchNextIds(Long lastId, int limit) {
+            return BatchDebtRecovery.this.fetchNextIds(
+                Partner.class, filter, params, lastId, limit);
           }
-          if (incrementPartner) {
-            incrementDone(partner);
+
+          @Override
+          public void process(Long id, BatchPartitionProgress progress) {
+            Partner partner = partnerRepository.find(id);
+            Set<TradingName> workerTradingNameSet =
+                tradingNameIdList == null
+                    ? null
+                    : tradingNameIdList.stream()
+                        .map(tradingNameId -> JPA.find(TradingName.class, tradingNameId))
+                        .collect(Collectors.toCollection(LinkedHashSet::new));
+
+            debtRecoveryPartner(
+                partner,
+                JPA.find(Company.class, companyId),
+                workerTradingNameSet,
+                new BatchPartitionProgress() {
+                  @Override
+                  public void incrementDone() {
+                    addBatchToModel(partner);
+                    progress.incrementDone();
+                  }
+
+                  @Override
+                  public void incrementAnomaly() {
+                    progress.incrementAnomaly();
+                  }
+                });
           }
-        } else { // if recovery handled by company
-          try {
-            remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company, null);
-            if (remindedOk) {
-              DebtRecovery debtRecovery = debtRecoveryService.getDebtRecovery(partner, company);
-              addBatchToModel(debtRecovery);
-              incrementDone(partner);
-            }
-            // Catching exceptions
-          } catch (AxelorException e) {
-            TraceBackService.trace(
-                new AxelorException(
-                    e, e.getCategory(), I18n.get("Partner") + " %s", partner.getName()),
-                ExceptionOriginRepository.DEBT_RECOVERY,
-                batch.getId());
-            incrementAnomaly(partner);
-            break;
-          } catch (Exception e) {
-            TraceBackService.trace(
-                new Exception(String.format(I18n.get("Partner") + " %s", partner.getName()), e),
-                ExceptionOriginRepository.DEBT_RECOVERY,
-                batch.getId());
-            incrementAnomaly(partner);
-            break;
+        });
+  }
+
+  protected BatchPartitionProgress getProgress(Partner partner) {
+    return new BatchPartitionProgress() {
+      @Override
+      public void incrementDone() {
+        BatchDebtRecovery.this.incrementDone(partner);
+      }
+
+      @Override
+      public void incrementAnomaly() {
+        BatchDebtRecovery.this.incrementAnomaly(partner);
+      }
+    };
+  }
+
+  /**
+   * Generate the debt recovery of a partner.
+   *
+   * @return <code>false</code> if an anomaly occurred on a debt recovery handled by company.
+   */
+  protected boolean debtRecoveryPartner(
+      Partner partner,
+      Company company,
+      Set<TradingName> tradingNameSet,
+      BatchPartitionProgress progress) {
+
+    boolean remindedOk;
+    // if recovery handled by trading name
+    if (tradingNameSet != null && !tradingNameSet.isEmpty()) {
+      boolean incrementPartner = false;
+      for (TradingName tradingName : tradingNameSet) {
+        try {
+          remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company, tradingName);
+          if (remindedOk) {
+            DebtRecovery debtRecovery =
+                debtRecoveryService.getDebtRecovery(partner, company, tradingName);
+            addBatchToModel(debtRecovery);
+            incrementPartner = true;
           }
-          // \Catching exceptions
+          // Catching exceptions
+        } catch (AxelorException e) {
+          TraceBackService.trace(
+              new AxelorException(
+                  e,
+                  e.getCategory(),
+                  I18n.get("Partner") + " %s, " + I18n.get("Trading name") + " %s",
+                  partner.getName(),
+                  tradingName.getName()),
+              ExceptionOriginRepository.DEBT_RECOVERY,
+              batch.getId());
+          progress.incrementAnomaly();
+          break;
+        } catch (Exception e) {
+          TraceBackService.trace(
+              new Exception(
+                  String.format(
+                      I18n.get("Partner") + " %s, " + I18n.get("Trading name") + " %s",
+                      partner.getName(),
+                      tradingName.getName()),
+                  e),
+              ExceptionOriginRepository.DEBT_RECOVERY,
+              batch.getId());
+          progress.incrementAnomaly();
+          break;
         }
+        // \Catching exceptions
       }
-
-      JPA.clear();
+      if (incrementPartner) {
+        progress.incrementDone();
+      }
+    } else { // if recovery handled by company
+      try {
+        remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company, null);
+        if (remindedOk) {
+          DebtRecovery debtRecovery = debtRecoveryService.getDebtRecovery(partner, company);
+          addBatchToModel(debtRecovery);
+          progress.incrementDone();
+        }
+        // Catching exceptions
+      } catch (AxelorException e) {
+        TraceBackService.trace(
+            new AxelorException(e, e.getCategory(), I18n.get("Partner") + " %s", partner.getName()),
+            ExceptionOriginRepository.DEBT_RECOVERY,
+            batch.getId());
+        progress.incrementAnomaly();
+        return false;
+      } catch (Exception e) {
+        TraceBackService.trace(
+            new Exception(String.format(I18n.get("Partner") + " %s", partner.getName()), e),
+            ExceptionOriginRepository.DEBT_RECOVERY,
+            batch.getId());
+        progress.incrementAnomaly();
+        return false;
+      }
+      // \Catching exceptions
     }
+    return true;
   }
 
   protected void incrementDone(Partner partner) {
@@ -251,10 +342,8 @@ public class BatchDebtRecovery extends BatchStrategy {
     String comment = I18n.get(AccountExceptionMessage.BATCH_DEBT_RECOVERY_1);
     comment +=
         String.format(
-            "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_DEBT_RECOVERY_2) + "\n",
-            batch.getDone());
-    comment +=
-        String.format(I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+            "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_DEBT_RECOVERY_2) + "\n", getDone());
+    comment += String.format(I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
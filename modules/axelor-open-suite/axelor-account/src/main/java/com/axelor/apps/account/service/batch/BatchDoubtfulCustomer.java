@@ -259,11 +259,9 @@ public class BatchDoubtfulCustomer extends BatchStrategy {
 
     String comment = I18n.get(AccountExceptionMessage.BATCH_DOUBTFUL_1) + " :\n";
     comment +=
-        String.format(
-            "\t" + I18n.get(AccountExceptionMessage.BATCH_DOUBTFUL_2) + "\n", batch.getDone());
+        String.format("\t" + I18n.get(AccountExceptionMessage.BATCH_DOUBTFUL_2) + "\n", getDone());
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     comment += String.format("\t* ------------------------------- \n");
     comment += String.format("\t* %s ", updateCustomerAccountLog);
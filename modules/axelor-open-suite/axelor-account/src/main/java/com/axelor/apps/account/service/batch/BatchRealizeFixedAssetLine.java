@@ -31,6 +31,8 @@ import com.axelor.apps.account.service.fixedasset.FixedAssetLineService;
 import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.apps.base.service.administration.BatchPartitionProgress;
+import com.axelor.apps.base.service.administration.BatchPartitionWork;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.auth.AuthUtils;
@@ -39,12 +41,14 @@ import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BatchRealizeFixedAssetLine extends AbstractBatch {
 
@@ -56,8 +60,8 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
   protected FixedAssetDerogatoryLineMoveService fixedAssetDerogatoryLineMoveService;
   protected static final int DEROGATORY_TYPE_SELECT = 99;
 
-  protected final Set<FixedAsset> fixedAssetSet = new HashSet<>();
-  protected final Map<Integer, Integer> typeCountMap = new HashMap<>();
+  protected final Set<FixedAsset> fixedAssetSet = Collections.synchronizedSet(new HashSet<>());
+  protected final Map<Integer, Integer> typeCountMap = new ConcurrentHashMap<>();
 
   @Inject
   public BatchRealizeFixedAssetLine(
@@ -77,6 +81,75 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
 
   @Override
   protected void process() {
+    String query = getLineFilter("self");
+    HashMap<String, Object> queryParameters = getLineFilterParameters();
+
+    fixedAssetLineMoveService.setBatch(batch);
+
+    if (isPartitionedProcessing()) {
+      realizeFixedAssetLinesInPartitions(query, queryParameters);
+      return;
+    }
+
+    List<FixedAssetLine> fixedAssetLineList =
+        fixedAssetLineRepo.all().filter(query).bind(queryParameters).fetch();
+    List<FixedAssetDerogatoryLine> fixedAssetDerogatoryLineList =
+        fixedAssetDerogatoryLineRepo.all().filter(query).bind(queryParameters).fetch();
+
+    realizeFixedAssetLineList(fixedAssetLineList, getBatchProgress());
+    realizeFixedAssetDerogatoryLineList(fixedAssetDerogatoryLineList, getBatchProgress());
+  }
+
+  /**
+   * Lines of a fixed asset have to be realized in order, so the work is split by fixed asset: each
+   * worker thread realizes all the lines of the fixed assets it is given.
+   */
+  protected void realizeFixedAssetLinesInPartitions(
+      String query, HashMap<String, Object> queryParameters) {
+    String fixedAssetFilter =
+        String.format(
+            "EXISTS (SELECT line.id FROM FixedAssetLine line WHERE line.fixedAsset = self AND %s) "
+                + "OR EXISTS (SELECT line.id FROM FixedAssetDerogatoryLine line "
+                + "WHERE line.fixedAsset = self AND %s)",
+            getLineFilter("line"), getLineFilter("line"));
+
+    processInPartitions(
+        new BatchPartitionWork() {
+          @Override
+          public List<Long> fetchNextIds(Long lastId, int limit) {
+            return BatchRealizeFixedAssetLine.this.fetchNextIds(
+                FixedAsset.class, fixedAssetFilter, queryParameters, lastId, limit);
+          }
+
+          @Override
+          public void process(Long id, BatchPartitionProgress progress) {
+            String fixedAssetQuery = query + " AND self.fixedAsset.id = :fixedAssetId";
+
+            realizeFixedAssetLineList(
+                fixedAssetLineRepo
+                    .all()
+                    .filter(fixedAssetQuery)
+                    .bind(queryParameters)
+                    .bind("fixedAssetId", id)
+                    .order("depreciationDate")
+                    .order("id")
+                    .fetch(),
+                progress);
+            realizeFixedAssetDerogatoryLineList(
+                fixedAssetDerogatoryLineRepo
+                    .all()
+                    .filter(fixedAssetQuery)
+                    .bind(queryParameters)
+                    .bind("fixedAssetId", id)
+                    .order("depreciationDate")
+                    .order("id")
+                    .fetch(),
+                progress);
+          }
+        });
+  }
+
+  protected String getLineFilter(String alias) {
     String query = "self.statusSelect = :statusSelect AND self.fixedAsset.company.id = :companyId";
     LocalDate startDate = batch.getAccountingBatch().getStartDate();
     LocalDate endDate = batch.getAccountingBatch().getEndDate();
@@ -88,6 +161,12 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
     } else {
       query += " AND self.depreciationDate < :dateNow";
     }
+    return query.replace("self.", alias + ".");
+  }
+
+  protected HashMap<String, Object> getLineFilterParameters() {
+    LocalDate startDate = batch.getAccountingBatch().getStartDate();
+    LocalDate endDate = batch.getAccountingBatch().getEndDate();
     HashMap<String, Object> queryParameters = new HashMap<>();
     queryParameters.put("statusSelect", FixedAssetLineRepository.STATUS_PLANNED);
     queryParameters.put(
@@ -105,17 +184,11 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
                 : Optional.ofNullable(AuthUtils.getUser())
                     .map(User::getActiveCompany)
                     .orElse(null)));
-    List<FixedAssetLine> fixedAssetLineList =
-        fixedAssetLineRepo.all().filter(query).bind(queryParameters).fetch();
-    List<FixedAssetDerogatoryLine> fixedAssetDerogatoryLineList =
-        fixedAssetDerogatoryLineRepo.all().filter(query).bind(queryParameters).fetch();
-
-    fixedAssetLineMoveService.setBatch(batch);
-    realizeFixedAssetLineList(fixedAssetLineList);
-    realizeFixedAssetDerogatoryLineList(fixedAssetDerogatoryLineList);
+    return queryParameters;
   }
 
-  protected void realizeFixedAssetLineList(List<FixedAssetLine> fixedAssetLineList) {
+  protected void realizeFixedAssetLineList(
+      List<FixedAssetLine> fixedAssetLineList, BatchPartitionProgress progress) {
     for (FixedAssetLine fixedAssetLine : fixedAssetLineList) {
       try {
         fixedAssetLine = fixedAssetLineRepo.find(fixedAssetLine.getId());
@@ -124,19 +197,20 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
             && fixedAsset.getStatusSelect() > FixedAssetRepository.STATUS_DRAFT) {
           fixedAssetSet.add(fixedAsset);
           fixedAssetLineMoveService.realize(fixedAssetLine, true, true, false);
-          incrementDone();
+          progress.incrementDone();
           countFixedAssetLineType(fixedAssetLine);
         }
       } catch (Exception e) {
-        incrementAnomaly();
-        TraceBackService.trace(e, null, this.batch.getId());
+        progress.incrementAnomaly();
+        TraceBackService.trace(e, null, getCurrentBatchId());
       }
       JPA.clear();
     }
   }
 
   protected void realizeFixedAssetDerogatoryLineList(
-      List<FixedAssetDerogatoryLine> fixedAssetDerogatoryLineList) {
+      List<FixedAssetDerogatoryLine> fixedAssetDerogatoryLineList,
+      BatchPartitionProgress progress) {
     for (FixedAssetDerogatoryLine fixedAssetDerogatoryLine : fixedAssetDerogatoryLineList) {
       try {
         fixedAssetDerogatoryLine =
@@ -146,11 +220,11 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
             && fixedAsset.getStatusSelect() > FixedAssetRepository.STATUS_DRAFT) {
           fixedAssetSet.add(fixedAsset);
           fixedAssetDerogatoryLineMoveService.realize(fixedAssetDerogatoryLine, true, true);
-          incrementDone();
+          progress.incrementDone();
           countFixedAssetDerogatoryLineType(fixedAssetDerogatoryLine);
         }
       } catch (Exception e) {
-        incrementAnomaly();
+        progress.incrementAnomaly();
         TraceBackService.trace(e);
       }
       JPA.clear();
@@ -158,19 +232,11 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
   }
 
   protected void countFixedAssetLineType(FixedAssetLine fixedAssetLine) {
-    if (typeCountMap.containsKey(fixedAssetLine.getTypeSelect())) {
-      typeCountMap.compute(fixedAssetLine.getTypeSelect(), (k, v) -> ++v);
-    } else {
-      typeCountMap.put(fixedAssetLine.getTypeSelect(), 1);
-    }
+    typeCountMap.merge(fixedAssetLine.getTypeSelect(), 1, Integer::sum);
   }
 
   protected void countFixedAssetDerogatoryLineType(FixedAssetDerogatoryLine fixedAssetLine) {
-    if (typeCountMap.containsKey(DEROGATORY_TYPE_SELECT)) {
-      typeCountMap.compute(DEROGATORY_TYPE_SELECT, (k, v) -> ++v);
-    } else {
-      typeCountMap.put(DEROGATORY_TYPE_SELECT, 1);
-    }
+    typeCountMap.merge(DEROGATORY_TYPE_SELECT, 1, Integer::sum);
   }
 
   @Override
@@ -185,13 +251,12 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
     sbComment.append(
         String.format(
             "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_REALIZED_FIXED_ASSET_LINE) + "\n",
-            batch.getDone()));
+            getDone()));
 
     appendTypeComments(sbComment);
 
     sbComment.append(
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly()));
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly()));
 
     addComment(sbComment.toString());
     super.stop();
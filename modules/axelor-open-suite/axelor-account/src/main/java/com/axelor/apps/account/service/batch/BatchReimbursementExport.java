@@ -404,7 +404,7 @@ public class BatchReimbursementExport extends BatchStrategy {
         comment +=
             String.format(
                 "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_REIMBURSEMENT_3) + "\n",
-                batch.getDone());
+                getDone());
         comment +=
             String.format(
                 "\t* " + I18n.get(AccountExceptionMessage.BATCH_REIMBURSEMENT_10) + " : %s \n",
@@ -417,7 +417,7 @@ public class BatchReimbursementExport extends BatchStrategy {
         comment +=
             String.format(
                 "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_REIMBURSEMENT_5) + "\n",
-                batch.getDone());
+                getDone());
         comment +=
             String.format(
                 "\t* " + I18n.get(AccountExceptionMessage.BATCH_REIMBURSEMENT_10) + " : %s \n",
@@ -432,8 +432,7 @@ public class BatchReimbursementExport extends BatchStrategy {
         break;
     }
 
-    comment +=
-        String.format(I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_5), batch.getAnomaly());
+    comment += String.format(I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_5), getAnomaly());
 
     super.stop();
     addComment(comment);
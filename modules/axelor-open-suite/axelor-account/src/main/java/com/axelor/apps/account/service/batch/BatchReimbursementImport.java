@@ -315,15 +315,13 @@ public class BatchReimbursementImport extends BatchStrategy {
     comment = I18n.get(AccountExceptionMessage.BATCH_REIMBURSEMENT_8) + "\n";
     comment +=
         String.format(
-            "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_REIMBURSEMENT_9) + "\n",
-            batch.getDone());
+            "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_REIMBURSEMENT_9) + "\n", getDone());
     comment +=
         String.format(
             "\t* " + I18n.get(AccountExceptionMessage.BATCH_REIMBURSEMENT_10) + " : %s \n",
             this.totalAmount);
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     comment += String.format("\t* ------------------------------- \n");
     comment += String.format("\t* %s ", updateCustomerAccountLog);
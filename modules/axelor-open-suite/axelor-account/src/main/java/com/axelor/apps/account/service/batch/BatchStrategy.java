@@ -49,6 +49,7 @@ import com.axelor.apps.base.db.repo.CompanyRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
 
@@ -124,63 +125,63 @@ public abstract class BatchStrategy extends AbstractBatch {
 
   protected void updateInvoice(Invoice invoice) {
 
-    invoice.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> invoice.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updateReimbursement(Reimbursement reimbursement) {
 
-    reimbursement.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> reimbursement.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updatePaymentScheduleLine(PaymentScheduleLine paymentScheduleLine) {
 
-    paymentScheduleLine.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> paymentScheduleLine.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updatePaymentVoucher(PaymentVoucher paymentVoucher) {
 
-    paymentVoucher.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> paymentVoucher.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updatePartner(Partner partner) {
 
-    partner.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> partner.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updateAccountingSituation(AccountingSituation accountingSituation) {
 
-    accountingSituation.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> accountingSituation.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updateAccountingReport(AccountingReport accountingReport) {
 
-    accountingReport.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> accountingReport.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updateAccount(Account account) {
 
-    account.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> account.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updateAccountMove(Move move, boolean incrementDone) {
 
-    move.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> move.addBatchSetItem(batchRepo.find(batch.getId())));
 
     if (incrementDone) {
       incrementDone();
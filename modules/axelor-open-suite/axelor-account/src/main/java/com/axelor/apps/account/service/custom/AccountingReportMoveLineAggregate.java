@@ -0,0 +1,211 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.custom;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Debit, credit and analytic amounts of the move lines of an accounting report period, summed by
+ * account. Report cells are computed from these sums instead of loading their move lines.
+ */
+public class AccountingReportMoveLineAggregate {
+
+  protected static class AccountAmount {
+    protected final String accountCode;
+    protected final Long accountTypeId;
+    protected BigDecimal debit = BigDecimal.ZERO;
+    protected BigDecimal credit = BigDecimal.ZERO;
+    protected final Map<Long, BigDecimal> analyticAmountMap = new HashMap<>();
+
+    protected AccountAmount(String accountCode, Long accountTypeId) {
+      this.accountCode = accountCode;
+      this.accountTypeId = accountTypeId;
+    }
+  }
+
+  protected final Map<Long, AccountAmount> accountAmountMap = new HashMap<>();
+  protected final Map<String, Pattern> accountCodePatternMap = new HashMap<>();
+  protected boolean analyticAmountsLoaded;
+
+  public void addAmounts(
+      Long accountId, String accountCode, Long accountTypeId, BigDecimal debit, BigDecimal credit) {
+    AccountAmount accountAmount = this.getAccountAmount(accountId, accountCode, accountTypeId);
+    accountAmount.debit = accountAmount.debit.add(nullToZero(debit));
+    accountAmount.credit = accountAmount.credit.add(nullToZero(credit));
+  }
+
+  public void addAnalyticAmount(
+      Long accountId,
+      String accountCode,
+      Long accountTypeId,
+      Long analyticAccountId,
+      BigDecimal amount) {
+    this.getAccountAmount(accountId, accountCode, accountTypeId)
+        .analyticAmountMap
+        .merge(analyticAccountId, nullToZero(amount), BigDecimal::add);
+  }
+
+  public boolean isAnalyticAmountsLoaded() {
+    return analyticAmountsLoaded;
+  }
+
+  public void setAnalyticAmountsLoaded(boolean analyticAmountsLoaded) {
+    this.analyticAmountsLoaded = analyticAmountsLoaded;
+  }
+
+  /**
+   * Sum the debit minus the credit of the accounts matching the filters.
+   *
+   * @param accountIdSet the accounts, no filter if empty
+   * @param accountTypeIdSet the account types, no filter if empty
+   * @param accountCodeFilterList comma separated account code patterns, the account code must match
+   *     one pattern of every filter
+   */
+  public BigDecimal getDebitMinusCredit(
+      Set<Long> accountIdSet, Set<Long> accountTypeIdSet, List<String> accountCodeFilterList) {
+    BigDecimal result = BigDecimal.ZERO;
+
+    for (Map.Entry<Long, AccountAmount> entry : accountAmountMap.entrySet()) {
+      AccountAmount accountAmount = entry.getValue();
+
+      if (this.matches(
+          entry.getKey(), accountAmount, accountIdSet, accountTypeIdSet, accountCodeFilterList)) {
+        result = result.add(accountAmount.debit).subtract(accountAmount.credit);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Sum the analytic amounts on the given analytic accounts of the accounts matching the filters.
+   *
+   * @see #getDebitMinusCredit(Set, Set, List)
+   */
+  public BigDecimal getAnalyticAmount(
+      Set<Long> accountIdSet,
+      Set<Long> accountTypeIdSet,
+      List<String> accountCodeFilterList,
+      Set<Long> analyticAccountIdSet) {
+    BigDecimal result = BigDecimal.ZERO;
+
+    for (Map.Entry<Long, AccountAmount> entry : accountAmountMap.entrySet()) {
+      AccountAmount accountAmount = entry.getValue();
+
+      if (!this.matches(
+          entry.getKey(), accountAmount, accountIdSet, accountTypeIdSet, accountCodeFilterList)) {
+        continue;
+      }
+
+      for (Long analyticAccountId : analyticAccountIdSet) {
+        result =
+            result.add(
+                accountAmount.analyticAmountMap.getOrDefault(analyticAccountId, BigDecimal.ZERO));
+      }
+    }
+
+    return result;
+  }
+
+  protected AccountAmount getAccountAmount(Long accountId, String accountCode, Long accountTypeId) {
+    return accountAmountMap.computeIfAbsent(
+        accountId, id -> new AccountAmount(accountCode, accountTypeId));
+  }
+
+  protected boolean matches(
+      Long accountId,
+      AccountAmount accountAmount,
+      Set<Long> accountIdSet,
+      Set<Long> accountTypeIdSet,
+      List<String> accountCodeFilterList) {
+    if (isNotEmpty(accountIdSet) && !accountIdSet.contains(accountId)) {
+      return false;
+    }
+
+    if (isNotEmpty(accountTypeIdSet)
+        && (accountAmount.accountTypeId == null
+            || !accountTypeIdSet.contains(accountAmount.accountTypeId))) {
+      return false;
+    }
+
+    if (accountCodeFilterList != null) {
+      for (String accountCodeFilter : accountCodeFilterList) {
+        if (!this.matchesAccountCodeFilter(accountAmount.accountCode, accountCodeFilter)) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  protected boolean matchesAccountCodeFilter(String accountCode, String accountCodeFilter) {
+    if (accountCode == null) {
+      return false;
+    }
+
+    for (String token : accountCodeFilter.split(",")) {
+      if (accountCodePatternMap
+          .computeIfAbsent(token, AccountingReportMoveLineAggregate::likeToPattern)
+          .matcher(accountCode)
+          .matches()) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /** Convert a JPQL LIKE pattern, with the default backslash escape, to a regex pattern. */
+  protected static Pattern likeToPattern(String likePattern) {
+    StringBuilder regex = new StringBuilder();
+    boolean escaped = false;
+
+    for (char c : likePattern.toCharArray()) {
+      if (escaped) {
+        regex.append(Pattern.quote(String.valueOf(c)));
+        escaped = false;
+      } else if (c == '\\') {
+        escaped = true;
+      } else if (c == '%') {
+        regex.append(".*");
+      } else if (c == '_') {
+        regex.append('.');
+      } else {
+        regex.append(Pattern.quote(String.valueOf(c)));
+      }
+    }
+
+    return Pattern.compile(regex.toString(), Pattern.DOTALL);
+  }
+
+  protected static boolean isNotEmpty(Collection<?> collection) {
+    return collection != null && !collection.isEmpty();
+  }
+
+  protected static BigDecimal nullToZero(BigDecimal value) {
+    return value == null ? BigDecimal.ZERO : value;
+  }
+}
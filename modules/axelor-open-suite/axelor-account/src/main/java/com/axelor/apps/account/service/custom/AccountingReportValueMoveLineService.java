@@ -42,4 +42,7 @@ public interface AccountingReportValueMoveLineService {
       LocalDate endDate,
       int analyticCounter)
       throws AxelorException;
+
+  /** Drop the move line amounts kept in memory while computing the values of a report. */
+  void clearMoveLineAggregates();
 }
@@ -57,6 +57,7 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.persistence.TypedQuery;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -66,6 +67,9 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
   protected Set<AnalyticAccount> groupColumnAnalyticAccountSet;
   protected Set<AnalyticAccount> columnAnalyticAccountSet;
   protected Set<AnalyticAccount> lineAnalyticAccountSet;
+  protected Map<List<Object>, AccountingReportMoveLineAggregate> moveLineAggregateMap =
+      new HashMap<>();
+  protected Map<String, Set<Long>> analyticAccountIdSetByCode = new HashMap<>();
 
   @Inject
   public AccountingReportValueMoveLineServiceImpl(
@@ -273,6 +277,12 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     }
   }
 
+  @Override
+  public void clearMoveLineAggregates() {
+    moveLineAggregateMap.clear();
+    analyticAccountIdSetByCode.clear();
+  }
+
   protected void mergeSetsAndCreateValueFromMoveLines(
       AccountingReport accountingReport,
       AccountingReportConfigLine groupColumn,
@@ -460,31 +470,46 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
                 ? null
                 : new HashSet<>(Collections.singletonList(configAnalyticAccount)));
 
-    List<MoveLine> moveLineList =
-        this.getMoveLineQuery(
-                accountingReport,
-                groupColumn,
-                column,
-                line,
-                accountSet,
-                accountTypeSet,
-                resultAnalyticAccountSet,
-                startDate,
-                endDate)
-            .fetch();
-
     BigDecimal result =
-        this.getResultFromMoveLine(
+        this.getResultFromMoveLineAggregate(
             accountingReport,
             groupColumn,
             column,
             line,
-            moveLineList,
+            accountSet,
+            accountTypeSet,
             resultAnalyticAccountSet,
             startDate,
             endDate,
             this.getResultSelect(column, line, groupColumn));
 
+    if (result == null) {
+      List<MoveLine> moveLineList =
+          this.getMoveLineQuery(
+                  accountingReport,
+                  groupColumn,
+                  column,
+                  line,
+                  accountSet,
+                  accountTypeSet,
+                  resultAnalyticAccountSet,
+                  startDate,
+                  endDate)
+              .fetch();
+
+      result =
+          this.getResultFromMoveLine(
+              accountingReport,
+              groupColumn,
+              column,
+              line,
+              moveLineList,
+              resultAnalyticAccountSet,
+              startDate,
+              endDate,
+              this.getResultSelect(column, line, groupColumn));
+    }
+
     this.createReportValue(
         accountingReport,
         column,
@@ -502,6 +527,192 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
         analyticCounter);
   }
 
+  /**
+   * Compute the value of a cell from the move line amounts of the report period summed by account.
+   *
+   * @return the value, or null when the cell filters on several analytic criteria and has to be
+   *     computed from its move lines
+   */
+  protected BigDecimal getResultFromMoveLineAggregate(
+      AccountingReport accountingReport,
+      AccountingReportConfigLine groupColumn,
+      AccountingReportConfigLine column,
+      AccountingReportConfigLine line,
+      Set<Account> accountSet,
+      Set<AccountType> accountTypeSet,
+      Set<AnalyticAccount> analyticAccountSet,
+      LocalDate startDate,
+      LocalDate endDate,
+      int resultSelect) {
+    List<Set<Long>> analyticAccountIdSetList =
+        this.getAnalyticAccountIdSetList(groupColumn, column, line, analyticAccountSet);
+
+    if (analyticAccountIdSetList.size() > 1) {
+      return null;
+    }
+
+    AccountingReportMoveLineAggregate moveLineAggregate =
+        this.getMoveLineAggregate(
+            accountingReport,
+            this.getDates(accountingReport, groupColumn, column, startDate, endDate),
+            !analyticAccountIdSetList.isEmpty());
+
+    Set<Long> accountIdSet = this.getIdSet(accountSet);
+    Set<Long> accountTypeIdSet = this.getIdSet(accountTypeSet);
+    List<String> accountCodeFilterList =
+        Stream.of(
+                groupColumn == null ? null : groupColumn.getAccountCode(),
+                column.getAccountCode(),
+                line.getAccountCode())
+            .filter(StringUtils::notEmpty)
+            .collect(Collectors.toList());
+
+    if (!analyticAccountIdSetList.isEmpty()) {
+      return moveLineAggregate.getAnalyticAmount(
+          accountIdSet, accountTypeIdSet, accountCodeFilterList, analyticAccountIdSetList.get(0));
+    }
+
+    BigDecimal value =
+        moveLineAggregate.getDebitMinusCredit(
+            accountIdSet, accountTypeIdSet, accountCodeFilterList);
+
+    return resultSelect == AccountingReportConfigLineRepository.RESULT_DEBIT_MINUS_CREDIT
+        ? value
+        : value.negate();
+  }
+
+  /**
+   * Get the analytic accounts of each analytic criterion of a cell: the analytic account set and
+   * the analytic account codes of the group column, column and line.
+   */
+  protected List<Set<Long>> getAnalyticAccountIdSetList(
+      AccountingReportConfigLine groupColumn,
+      AccountingReportConfigLine column,
+      AccountingReportConfigLine line,
+      Set<AnalyticAccount> analyticAccountSet) {
+    List<Set<Long>> analyticAccountIdSetList = new ArrayList<>();
+
+    if (CollectionUtils.isNotEmpty(analyticAccountSet)) {
+      analyticAccountIdSetList.add(this.getIdSet(analyticAccountSet));
+    }
+
+    Stream.of(
+            groupColumn == null ? null : groupColumn.getAnalyticAccountCode(),
+            column.getAnalyticAccountCode(),
+            line.getAnalyticAccountCode())
+        .filter(StringUtils::notEmpty)
+        .map(
+            code ->
+                analyticAccountIdSetByCode.computeIfAbsent(
+                    code, it -> this.getIdSet(this.fetchAnalyticAccountsFromCode(it))))
+        .forEach(analyticAccountIdSetList::add);
+
+    return analyticAccountIdSetList;
+  }
+
+  protected <T extends Model> Set<Long> getIdSet(Set<T> set) {
+    if (set == null) {
+      return new HashSet<>();
+    }
+
+    return set.stream().map(Model::getId).collect(Collectors.toSet());
+  }
+
+  protected AccountingReportMoveLineAggregate getMoveLineAggregate(
+      AccountingReport accountingReport,
+      Pair<LocalDate, LocalDate> dates,
+      boolean withAnalyticAmounts) {
+    AccountingReportMoveLineAggregate moveLineAggregate =
+        moveLineAggregateMap.computeIfAbsent(
+            Arrays.asList(accountingReport.getId(), dates.getLeft(), dates.getRight()),
+            key -> this.loadMoveLineAggregate(accountingReport, dates));
+
+    if (withAnalyticAmounts && !moveLineAggregate.isAnalyticAmountsLoaded()) {
+      this.loadAnalyticAmounts(moveLineAggregate, accountingReport, dates);
+    }
+
+    return moveLineAggregate;
+  }
+
+  protected AccountingReportMoveLineAggregate loadMoveLineAggregate(
+      AccountingReport accountingReport, Pair<LocalDate, LocalDate> dates) {
+    AccountingReportMoveLineAggregate moveLineAggregate = new AccountingReportMoveLineAggregate();
+
+    List<Object[]> resultList =
+        this.createMoveLineAggregateQuery(
+                "SELECT account.id, account.code, accountType.id, SUM(self.debit), SUM(self.credit) "
+                    + "FROM MoveLine self "
+                    + "JOIN self.account account "
+                    + "LEFT JOIN account.accountType accountType "
+                    + "WHERE %s "
+                    + "GROUP BY account.id, account.code, accountType.id",
+                accountingReport, dates)
+            .getResultList();
+
+    for (Object[] result : resultList) {
+      moveLineAggregate.addAmounts(
+          (Long) result[0],
+          (String) result[1],
+          (Long) result[2],
+          (BigDecimal) result[3],
+          (BigDecimal) result[4]);
+    }
+
+    return moveLineAggregate;
+  }
+
+  protected void loadAnalyticAmounts(
+      AccountingReportMoveLineAggregate moveLineAggregate,
+      AccountingReport accountingReport,
+      Pair<LocalDate, LocalDate> dates) {
+    List<Object[]> resultList =
+        this.createMoveLineAggregateQuery(
+                "SELECT account.id, account.code, accountType.id, aml.analyticAccount.id, SUM(aml.amount) "
+                    + "FROM AnalyticMoveLine aml "
+                    + "JOIN aml.moveLine self "
+                    + "JOIN self.account account "
+                    + "LEFT JOIN account.accountType accountType "
+                    + "WHERE %s "
+                    + "GROUP BY account.id, account.code, accountType.id, aml.analyticAccount.id",
+                accountingReport, dates)
+            .getResultList();
+
+    for (Object[] result : resultList) {
+      moveLineAggregate.addAnalyticAmount(
+          (Long) result[0],
+          (String) result[1],
+          (Long) result[2],
+          (Long) result[3],
+          (BigDecimal) result[4]);
+    }
+
+    moveLineAggregate.setAnalyticAmountsLoaded(true);
+  }
+
+  protected TypedQuery<Object[]> createMoveLineAggregateQuery(
+      String queryString, AccountingReport accountingReport, Pair<LocalDate, LocalDate> dates) {
+    String filter = String.join(" AND ", this.getReportMoveLineQueryList(accountingReport));
+    TypedQuery<Object[]> query =
+        JPA.em().createQuery(String.format(queryString, filter), Object[].class);
+
+    Map<String, Object> paramMap = new HashMap<>();
+    paramMap.put("statusList", this.getMoveLineStatusList(accountingReport));
+    paramMap.put("dateFrom", dates.getLeft());
+    paramMap.put("dateTo", dates.getRight());
+    paramMap.put("journal", accountingReport.getJournal());
+    paramMap.put("paymentMode", accountingReport.getPaymentMode());
+    paramMap.put("currency", accountingReport.getCurrency());
+    paramMap.put("company", accountingReport.getCompany());
+
+    for (Map.Entry<String, Object> param : paramMap.entrySet()) {
+      if (filter.contains(":" + param.getKey())) {
+        query.setParameter(param.getKey(), param.getValue());
+      }
+    }
+
+    return query;
+  }
+
   protected int getResultSelect(
       AccountingReportConfigLine column,
       AccountingReportConfigLine line,
@@ -619,26 +830,7 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
       AccountingReportConfigLine groupColumn,
       AccountingReportConfigLine column,
       AccountingReportConfigLine line) {
-    List<String> queryList =
-        new ArrayList<>(Collections.singletonList("self.move.statusSelect IN :statusList"));
-
-    this.addDateQueries(queryList, accountingReport);
-
-    if (accountingReport.getJournal() != null) {
-      queryList.add("(self.move.journal IS NULL OR self.move.journal >= :journal)");
-    }
-
-    if (accountingReport.getJournal() != null) {
-      queryList.add("(self.move.paymentMode IS NULL OR self.move.paymentMode >= :paymentMode)");
-    }
-
-    if (accountingReport.getJournal() != null) {
-      queryList.add("(self.move.currency IS NULL OR self.move.currency >= :currency)");
-    }
-
-    if (accountingReport.getJournal() != null) {
-      queryList.add("(self.move.company IS NULL OR self.move.company >= :company)");
-    }
+    List<String> queryList = this.getReportMoveLineQueryList(accountingReport);
 
     queryList.addAll(
         this.getAccountFilters(
@@ -672,6 +864,32 @@ public class AccountingReportValueMoveLineServiceImpl extends AccountingReportVa
     return String.join(" AND ", queryList);
   }
 
+  /** Filters on the move lines that only depend on the report, shared by all the cells. */
+  protected List<String> getReportMoveLineQueryList(AccountingReport accountingReport) {
+    List<String> queryList =
+        new ArrayList<>(Collections.singletonList("self.move.statusSelect IN :statusList"));
+
+    this.addDateQueries(queryList, accountingReport);
+
+    if (accountingReport.getJournal() != null) {
+      queryList.add("(self.move.journal IS NULL OR self.move.journal >= :journal)");
+    }
+
+    if (accountingReport.getJournal() != null) {
+      queryList.add("(self.move.paymentMode IS NULL OR self.move.paymentMode >= :paymentMode)");
+    }
+
+    if (accountingReport.getJournal() != null) {
+      queryList.add("(self.move.currency IS NULL OR self.move.currency >= :currency)");
+    }
+
+    if (accountingReport.getJournal() != null) {
+      queryList.add("(self.move.company IS NULL OR self.move.company >= :company)");
+    }
+
+    return queryList;
+  }
+
   protected void addDateQueries(List<String> queryList, AccountingReport accountingReport) {
     if (accountingReport.getDateFrom() != null) {
       queryList.add("(self.date IS NULL OR self.date >= :dateFrom)");
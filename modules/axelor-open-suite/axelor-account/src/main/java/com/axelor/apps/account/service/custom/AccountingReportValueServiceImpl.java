@@ -110,15 +110,21 @@ public class AccountingReportValueServiceImpl extends AccountingReportValueAbstr
         this.getConfigAnalyticAccountSet(
             accountingReport.getAccountingReportAnalyticConfigLineList());
 
-    if (CollectionUtils.isEmpty(configAnalyticAccountSet)) {
-      this.computeReportValues(accountingReport, null, 0);
-    } else {
-      int analyticCounter = 0;
+    accountingReportValueMoveLineService.clearMoveLineAggregates();
 
-      for (AnalyticAccount configAnalyticAccount :
-          this.getSortedAnalyticAccountSet(configAnalyticAccountSet)) {
-        this.computeReportValues(accountingReport, configAnalyticAccount, analyticCounter++);
+    try {
+      if (CollectionUtils.isEmpty(configAnalyticAccountSet)) {
+        this.computeReportValues(accountingReport, null, 0);
+      } else {
+        int analyticCounter = 0;
+
+        for (AnalyticAccount configAnalyticAccount :
+            this.getSortedAnalyticAccountSet(configAnalyticAccountSet)) {
+          this.computeReportValues(accountingReport, configAnalyticAccount, analyticCounter++);
+        }
       }
+    } finally {
+      accountingReportValueMoveLineService.clearMoveLineAggregates();
     }
   }
 
@@ -23,6 +23,7 @@ import com.axelor.apps.account.db.repo.InvoiceRepository;
 import com.axelor.apps.account.service.invoice.InvoiceService;
 import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.db.JPA;
 import com.google.inject.Inject;
 
 public abstract class BatchStrategy extends AbstractBatch {
@@ -43,7 +44,7 @@ public abstract class BatchStrategy extends AbstractBatch {
 
     if (invoice != null) {
 
-      invoice.addBatchSetItem(batchRepo.find(batch.getId()));
+      JPA.runInTransaction(() -> invoice.addBatchSetItem(batchRepo.find(batch.getId())));
       incrementDone();
     }
   }
@@ -82,11 +82,9 @@ public class BatchValidation extends BatchWkf {
     String comment = I18n.get(AccountExceptionMessage.BATCH_VALIDATION_1) + "\n";
     comment +=
         String.format(
-            "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_VALIDATION_2) + "\n",
-            batch.getDone());
+            "\t* %s " + I18n.get(AccountExceptionMessage.BATCH_VALIDATION_2) + "\n", getDone());
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
@@ -25,6 +25,7 @@ import com.axelor.apps.account.db.repo.MoveLineRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
 import com.axelor.apps.account.service.AccountCustomerService;
+import com.axelor.apps.account.service.AccountingPeriodBalanceService;
 import com.axelor.apps.account.service.AccountingSituationService;
 import com.axelor.apps.account.service.ReconcileService;
 import com.axelor.apps.base.AxelorException;
@@ -53,6 +54,8 @@ public class MoveRemoveServiceImpl implements MoveRemoveService {
 
   protected AccountCustomerService accountCustomerService;
 
+  protected AccountingPeriodBalanceService accountingPeriodBalanceService;
+
   @Inject
   public MoveRemoveServiceImpl(
       MoveRepository moveRepo,
@@ -60,13 +63,15 @@ public class MoveRemoveServiceImpl implements MoveRemoveService {
       ArchivingToolService archivingToolService,
       ReconcileService reconcileService,
       AccountingSituationService accountingSituationService,
-      AccountCustomerService accountCustomerService) {
+      AccountCustomerService accountCustomerService,
+      AccountingPeriodBalanceService accountingPeriodBalanceService) {
     this.moveRepo = moveRepo;
     this.moveLineRepo = moveLineRepo;
     this.archivingToolService = archivingToolService;
     this.reconcileService = reconcileService;
     this.accountingSituationService = accountingSituationService;
     this.accountCustomerService = accountCustomerService;
+    this.accountingPeriodBalanceService = accountingPeriodBalanceService;
   }
 
   @Override
@@ -91,6 +96,7 @@ public class MoveRemoveServiceImpl implements MoveRemoveService {
     }
 
     move.setStatusSelect(MoveRepository.STATUS_CANCELED);
+    accountingPeriodBalanceService.invalidatePeriodBalances(move.getPeriod());
     return move;
   }
 
@@ -229,6 +235,7 @@ public class MoveRemoveServiceImpl implements MoveRemoveService {
   @Override
   @Transactional
   public void deleteMove(Move move) {
+    accountingPeriodBalanceService.invalidatePeriodBalances(move.getPeriod());
     moveRepo.remove(move);
   }
 }
@@ -35,6 +35,7 @@ import com.axelor.apps.account.db.repo.JournalTypeRepository;
 import com.axelor.apps.account.db.repo.MoveLineRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.exception.AccountExceptionMessage;
+import com.axelor.apps.account.service.AccountingPeriodBalanceService;
 import com.axelor.apps.account.service.PeriodServiceAccount;
 import com.axelor.apps.account.service.app.AppAccountService;
 import com.axelor.apps.account.service.config.AccountConfigService;
@@ -95,6 +96,7 @@ public class MoveValidateServiceImpl implements MoveValidateService {
   protected MoveLineTaxService moveLineTaxService;
   protected PeriodServiceAccount periodServiceAccount;
   protected MoveControlService moveControlService;
+  protected AccountingPeriodBalanceService accountingPeriodBalanceService;
 
   @Inject
   public MoveValidateServiceImpl(
@@ -113,7 +115,8 @@ public class MoveValidateServiceImpl implements MoveValidateService {
       FixedAssetGenerationService fixedAssetGenerationService,
       MoveLineTaxService moveLineTaxService,
       PeriodServiceAccount periodServiceAccount,
-      MoveControlService moveControlService) {
+      MoveControlService moveControlService,
+      AccountingPeriodBalanceService accountingPeriodBalanceService) {
 
     this.moveLineControlService = moveLineControlService;
     this.moveLineToolService = moveLineToolService;
@@ -131,6 +134,7 @@ public class MoveValidateServiceImpl implements MoveValidateService {
     this.moveLineTaxService = moveLineTaxService;
     this.periodServiceAccount = periodServiceAccount;
     this.moveControlService = moveControlService;
+    this.accountingPeriodBalanceService = accountingPeriodBalanceService;
   }
 
   /**
@@ -537,6 +541,9 @@ public class MoveValidateServiceImpl implements MoveValidateService {
 
   @Override
   public void updateValidateStatus(Move move, boolean daybook) throws AxelorException {
+    // Closure and opening moves can be validated in a closed period
+    accountingPeriodBalanceService.invalidatePeriodBalances(move.getPeriod());
+
     if (move.getStatusSelect() == MoveRepository.STATUS_DAYBOOK || !daybook) {
       move.setStatusSelect(MoveRepository.STATUS_ACCOUNTED);
       move.setAccountingDate(appBaseService.getTodayDate(move.getCompany()));
@@ -560,6 +567,7 @@ public class MoveValidateServiceImpl implements MoveValidateService {
     partnerList.addAll(partnerSet);
 
     this.freezeFieldsOnMoveLines(move);
+    accountingPeriodBalanceService.invalidatePeriodBalances(move.getPeriod());
     moveRepository.save(move);
 
     moveCustAccountService.updateCustomerAccount(partnerList, move.getCompany());
@@ -26,8 +26,7 @@ import com.axelor.apps.account.db.repo.PaymentSessionRepository;
 import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.repo.PartnerRepository;
 import com.axelor.apps.base.service.administration.AbstractBatch;
-import com.axelor.db.JPA;
-import com.axelor.db.Query;
+import com.axelor.apps.base.service.administration.KeysetPager;
 import com.axelor.message.db.Message;
 import com.axelor.message.db.Template;
 import com.axelor.message.db.repo.MessageRepository;
@@ -70,29 +69,23 @@ public class PaymentSessionEmailServiceImpl implements PaymentSessionEmailServic
       return 0;
     }
 
-    int offset = 0;
     List<InvoiceTerm> invoiceTermList;
-    Query<InvoiceTerm> invoiceTermQuery =
-        invoiceTermRepo
-            .all()
+    KeysetPager<InvoiceTerm> invoiceTermPager =
+        KeysetPager.of(InvoiceTerm.class)
             .filter(
                 "self.paymentSession = :paymentSession "
                     + "AND self.isSelectedOnPaymentSession IS TRUE "
                     + "AND (self.invoice.partner.payNoticeSendingMethodSelect = :paymentNoticeEmail "
                     + "OR self.moveLine.partner.payNoticeSendingMethodSelect = :paymentNoticeEmail)")
             .bind("paymentSession", paymentSession)
-            .bind("paymentNoticeEmail", PartnerRepository.PAYMENT_NOTICE_EMAIL)
-            .order("id");
+            .bind("paymentNoticeEmail", PartnerRepository.PAYMENT_NOTICE_EMAIL);
 
     List<Long> partnerIdList = new ArrayList<>();
 
-    while (!(invoiceTermList = invoiceTermQuery.fetch(AbstractBatch.FETCH_LIMIT, offset))
-        .isEmpty()) {
+    while (!(invoiceTermList = invoiceTermPager.fetchNext(AbstractBatch.FETCH_LIMIT)).isEmpty()) {
       paymentSession = paymentSessionRepo.find(paymentSession.getId());
 
       for (InvoiceTerm invoiceTerm : invoiceTermList) {
-        offset++;
-
         if (invoiceTerm.getInvoice() != null) {
           this.sendEmailToPartner(
               paymentSession, invoiceTerm.getInvoice().getPartner(), partnerIdList);
@@ -103,8 +96,6 @@ public class PaymentSessionEmailServiceImpl implements PaymentSessionEmailServic
               paymentSession, invoiceTerm.getMoveLine().getPartner(), partnerIdList);
         }
       }
-
-      JPA.clear();
     }
 
     if (partnerIdList.size() > 0) {
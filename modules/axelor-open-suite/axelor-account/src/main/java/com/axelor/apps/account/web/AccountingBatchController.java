@@ -193,6 +193,30 @@ public class AccountingBatchController {
     }
   }
 
+  /**
+   * Throw the period balances computation batch
+   *
+   * @param request
+   * @param response
+   */
+  public void computePeriodBalances(ActionRequest request, ActionResponse response) {
+    try {
+      AccountingBatch accountingBatch = request.getContext().asType(AccountingBatch.class);
+      AccountingBatchService accountingBatchService = Beans.get(AccountingBatchService.class);
+      accountingBatchService.setBatchModel(accountingBatch);
+
+      ControllerCallableTool<Batch> batchControllerCallableTool = new ControllerCallableTool<>();
+      Batch batch =
+          batchControllerCallableTool.runInSeparateThread(accountingBatchService, response);
+      if (batch != null) {
+        response.setInfo(batch.getComments());
+      }
+      response.setReload(true);
+    } catch (Exception e) {
+      TraceBackService.trace(response, e);
+    }
+  }
+
   // WS
 
   /**
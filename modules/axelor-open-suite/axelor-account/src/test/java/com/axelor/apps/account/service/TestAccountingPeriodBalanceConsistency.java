@@ -0,0 +1,387 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.account.db.Account;
+import com.axelor.apps.account.db.AccountType;
+import com.axelor.apps.account.db.Move;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.service.move.MoveRemoveServiceImpl;
+import com.axelor.apps.account.service.move.MoveValidateServiceImpl;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Period;
+import com.axelor.apps.base.db.Year;
+import com.axelor.apps.base.db.repo.PeriodRepository;
+import com.axelor.apps.base.db.repo.YearRepository;
+import com.axelor.apps.base.service.AdjustHistoryService;
+import com.axelor.apps.base.service.app.AppBaseService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that account balances read from the stored balances of closed periods are the same as the
+ * balances summed over every move line. The queries are replaced by sums over in memory move lines.
+ */
+public class TestAccountingPeriodBalanceConsistency {
+
+  protected static final Long JOURNAL_ID = 1L;
+
+  protected Period closedPeriod;
+  protected Period openedPeriod;
+  protected Account bankAccount;
+  protected Account customerAccount;
+
+  protected List<TestMoveLine> moveLineList;
+  protected Map<Period, Map<List<Long>, BigDecimal[]>> storedBalanceMap;
+
+  protected AccountingPeriodBalanceServiceImpl accountingPeriodBalanceService;
+  protected PeriodServiceAccountImpl periodService;
+  protected MoveValidateServiceImpl moveValidateService;
+  protected MoveRemoveServiceImpl moveRemoveService;
+  protected AccountService accountService;
+
+  @Before
+  public void prepare() {
+    Year year = new Year();
+    year.setTypeSelect(YearRepository.TYPE_FISCAL);
+    closedPeriod = createPeriod(1L, year);
+    openedPeriod = createPeriod(2L, year);
+    bankAccount = createAccount(10L);
+    customerAccount = createAccount(20L);
+
+    moveLineList = new ArrayList<>();
+    storedBalanceMap = new HashMap<>();
+    addMoveLine(closedPeriod, bankAccount, "100.00", "0.00");
+    addMoveLine(closedPeriod, customerAccount, "0.00", "100.00");
+    addMoveLine(closedPeriod, bankAccount, "0.00", "30.00");
+    addMoveLine(openedPeriod, bankAccount, "45.50", "0.00");
+    addMoveLine(openedPeriod, customerAccount, "0.00", "45.50");
+
+    PeriodRepository periodRepository = mock(PeriodRepository.class);
+    when(periodRepository.find(closedPeriod.getId())).thenReturn(closedPeriod);
+    when(periodRepository.find(openedPeriod.getId())).thenReturn(openedPeriod);
+
+    accountingPeriodBalanceService =
+        new AccountingPeriodBalanceServiceImpl(null, periodRepository) {
+          @Override
+          protected Map<List<Long>, BigDecimal[]> getStoredBalanceMap(Period period) {
+            return storedBalanceMap.getOrDefault(period, new HashMap<>());
+          }
+
+          @Override
+          protected Map<List<Long>, BigDecimal[]> getMoveLineBalanceMap(Period period) {
+            Map<List<Long>, BigDecimal[]> balanceMap = new HashMap<>();
+            for (TestMoveLine moveLine : moveLineList) {
+              if (moveLine.getPeriod() == period && moveLine.isCounted()) {
+                BigDecimal[] balance =
+                    balanceMap.computeIfAbsent(
+                        Arrays.asList(JOURNAL_ID, moveLine.account.getId()),
+                        key -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+                balance[0] = balance[0].add(moveLine.debit);
+                balance[1] = balance[1].add(moveLine.credit);
+              }
+            }
+            return balanceMap;
+          }
+
+          @Override
+          protected void saveBalances(Period period, Map<List<Long>, BigDecimal[]> balanceMap) {
+            storedBalanceMap.put(period, balanceMap);
+          }
+        };
+
+    periodService =
+        new PeriodServiceAccountImpl(
+            periodRepository,
+            mock(AdjustHistoryService.class),
+            null,
+            null,
+            null,
+            null,
+            accountingPeriodBalanceService);
+
+    AppBaseService appBaseService = mock(AppBaseService.class);
+    when(appBaseService.getTodayDate(any())).thenReturn(LocalDate.of(2023, 1, 31));
+    moveValidateService =
+        new MoveValidateServiceImpl(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            appBaseService,
+            null,
+            null,
+            null,
+            null,
+            null,
+            accountingPeriodBalanceService);
+
+    // Only the status change of the archiving is kept
+    moveRemoveService =
+        new MoveRemoveServiceImpl(
+            null, null, null, null, null, null, accountingPeriodBalanceService) {
+          @Override
+          public void checkMoveBeforeRemove(Move move) {}
+
+          @Override
+          protected void cleanMoveToArchived(Move move) {}
+
+          @Override
+          public Move archiveMove(Move move) {
+            return move;
+          }
+
+          @Override
+          protected void updateSystem(Move move) {}
+        };
+
+    accountService =
+        new AccountService(null, null, accountingPeriodBalanceService) {
+          @Override
+          protected BigDecimal getMoveLineBalance(
+              Account account, AccountType accountType, Year year) {
+            BigDecimal balance = null;
+            for (TestMoveLine moveLine : moveLineList) {
+              if (moveLine.account == account
+                  && moveLine.isCounted()
+                  && !isComputedPeriod(moveLine.getPeriod())) {
+                balance = add(balance, moveLine.debit.subtract(moveLine.credit));
+              }
+            }
+            return balance;
+          }
+
+          @Override
+          protected BigDecimal getPeriodBalance(
+              Account account, AccountType accountType, Year year) {
+            BigDecimal balance = null;
+            for (Map.Entry<Period, Map<List<Long>, BigDecimal[]>> entry :
+                storedBalanceMap.entrySet()) {
+              BigDecimal[] storedBalance =
+                  entry.getValue().get(Arrays.asList(JOURNAL_ID, account.getId()));
+              if (isComputedPeriod(entry.getKey()) && storedBalance != null) {
+                balance = add(balance, storedBalance[0].subtract(storedBalance[1]));
+              }
+            }
+            return balance;
+          }
+        };
+  }
+
+  @Test
+  public void testClosedPeriodBalances() {
+    periodService.updateClosePeriod(closedPeriod);
+
+    Assert.assertEquals(PeriodRepository.STATUS_CLOSED, (int) closedPeriod.getStatusSelect());
+    Assert.assertNotNull(closedPeriod.getBalanceComputationDateTime());
+    assertSameBalances();
+  }
+
+  @Test
+  public void testAdjustedPeriodBalances() {
+    periodService.updateClosePeriod(closedPeriod);
+    periodService.adjust(closedPeriod);
+
+    Assert.assertNull(closedPeriod.getBalanceComputationDateTime());
+
+    addMoveLine(closedPeriod, bankAccount, "12.00", "0.00");
+    addMoveLine(closedPeriod, customerAccount, "0.00", "12.00");
+    assertSameBalances();
+
+    periodService.updateClosePeriod(closedPeriod);
+    assertSameBalances();
+  }
+
+  @Test
+  public void testReopenedPeriodBalances() {
+    periodService.updateClosePeriod(closedPeriod);
+    periodService.openPeriod(closedPeriod);
+
+    Assert.assertNull(closedPeriod.getBalanceComputationDateTime());
+
+    addMoveLine(closedPeriod, bankAccount, "0.00", "7.25");
+    assertSameBalances();
+  }
+
+  /**
+   * Validate and archive moves at random, in the opened period and as closure moves in the closed
+   * one, and sometimes compute the balances again as the batch does.
+   */
+  @Test
+  public void testRandomMoveChangesBalances() throws Exception {
+    periodService.updateClosePeriod(closedPeriod);
+    Random random = new Random(20230131L);
+
+    for (int i = 0; i < 500; i++) {
+      int action = random.nextInt(10);
+      if (action < 5) {
+        Move move =
+            random.nextBoolean()
+                ? addMove(openedPeriod, MoveRepository.STATUS_NEW, random)
+                : addClosureMove(closedPeriod, random);
+        moveValidateService.updateValidateStatus(move, random.nextBoolean());
+      } else if (action < 8) {
+        List<Move> daybookMoveList =
+            moveLineList.stream()
+                .map(moveLine -> moveLine.move)
+                .filter(move -> move.getStatusSelect() == MoveRepository.STATUS_DAYBOOK)
+                .distinct()
+                .collect(Collectors.toList());
+        if (!daybookMoveList.isEmpty()) {
+          moveRemoveService.archiveDaybookMove(
+              daybookMoveList.get(random.nextInt(daybookMoveList.size())));
+        }
+      } else if (action < 9) {
+        addMove(openedPeriod, MoveRepository.STATUS_NEW, random);
+      } else {
+        accountingPeriodBalanceService.computePeriodBalances(closedPeriod);
+      }
+      assertSameBalances();
+    }
+  }
+
+  @Test
+  public void testClosureMoveInClosedPeriod() {
+    periodService.updateClosePeriod(closedPeriod);
+    Move move = addClosureMove(closedPeriod, new Random(1L));
+    assertSameBalances();
+
+    moveValidateService.updateValidateStatus(move, false);
+
+    Assert.assertEquals(MoveRepository.STATUS_ACCOUNTED, (int) move.getStatusSelect());
+    Assert.assertNull(closedPeriod.getBalanceComputationDateTime());
+    assertSameBalances();
+
+    accountingPeriodBalanceService.computePeriodBalances(closedPeriod);
+    Assert.assertNotNull(closedPeriod.getBalanceComputationDateTime());
+    assertSameBalances();
+  }
+
+  protected void assertSameBalances() {
+    for (Account account : Arrays.asList(bankAccount, customerAccount)) {
+      BigDecimal balance = BigDecimal.ZERO;
+      for (TestMoveLine moveLine : moveLineList) {
+        if (moveLine.account == account && moveLine.isCounted()) {
+          balance = balance.add(moveLine.debit.subtract(moveLine.credit));
+        }
+      }
+      Assert.assertEquals(
+          0,
+          balance.compareTo(
+              accountService.computeBalance(account, AccountService.BALANCE_TYPE_DEBIT_BALANCE)));
+    }
+  }
+
+  /** Same condition as {@link AccountingPeriodBalanceService#getComputedPeriodCondition}. */
+  protected boolean isComputedPeriod(Period period) {
+    return period.getStatusSelect() == PeriodRepository.STATUS_CLOSED
+        && period.getBalanceComputationDateTime() != null;
+  }
+
+  protected BigDecimal add(BigDecimal sum, BigDecimal value) {
+    return sum != null ? sum.add(value) : value;
+  }
+
+  protected Period createPeriod(Long id, Year year) {
+    Period period = new Period();
+    period.setId(id);
+    period.setYear(year);
+    period.setStatusSelect(PeriodRepository.STATUS_OPENED);
+    return period;
+  }
+
+  protected Account createAccount(Long id) {
+    Account account = new Account();
+    account.setId(id);
+    return account;
+  }
+
+  protected void addMoveLine(Period period, Account account, String debit, String credit) {
+    moveLineList.add(
+        new TestMoveLine(
+            createMove(period, MoveRepository.STATUS_ACCOUNTED), account, debit, credit));
+  }
+
+  protected Move addMove(Period period, int statusSelect, Random random) {
+    Move move = createMove(period, statusSelect);
+    String amount = BigDecimal.valueOf(random.nextInt(100000), 2).toString();
+    moveLineList.add(new TestMoveLine(move, bankAccount, amount, "0.00"));
+    moveLineList.add(new TestMoveLine(move, customerAccount, "0.00", amount));
+    return move;
+  }
+
+  protected Move addClosureMove(Period period, Random random) {
+    Move move = addMove(period, MoveRepository.STATUS_NEW, random);
+    move.setAutoYearClosureMove(true);
+    move.setFunctionalOriginSelect(MoveRepository.FUNCTIONAL_ORIGIN_CLOSURE);
+    return move;
+  }
+
+  protected Move createMove(Period period, int statusSelect) {
+    Move move = new Move();
+    move.setPeriod(period);
+    move.setCompany(new Company());
+    move.setStatusSelect(statusSelect);
+    return move;
+  }
+
+  protected static class TestMoveLine {
+    protected Move move;
+    protected Account account;
+    protected BigDecimal debit;
+    protected BigDecimal credit;
+
+    protected TestMoveLine(Move move, Account account, String debit, String credit) {
+      this.move = move;
+      this.account = account;
+      this.debit = new BigDecimal(debit);
+      this.credit = new BigDecimal(credit);
+    }
+
+    protected Period getPeriod() {
+      return move.getPeriod();
+    }
+
+    /** Same statuses as the balance queries. */
+    protected boolean isCounted() {
+      return move.getStatusSelect() == MoveRepository.STATUS_DAYBOOK
+          || move.getStatusSelect() == MoveRepository.STATUS_ACCOUNTED;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAccountingPeriodBalanceServiceImpl {
+
+  protected AccountingPeriodBalanceServiceImpl accountingPeriodBalanceService;
+  protected Map<List<Long>, BigDecimal[]> storedBalanceMap;
+
+  @Before
+  public void prepare() {
+    accountingPeriodBalanceService = new AccountingPeriodBalanceServiceImpl(null, null);
+    storedBalanceMap = new HashMap<>();
+    storedBalanceMap.put(
+        Arrays.asList(1L, 10L), new BigDecimal[] {new BigDecimal("100.00"), BigDecimal.ZERO});
+    storedBalanceMap.put(
+        Arrays.asList(1L, 20L), new BigDecimal[] {BigDecimal.ZERO, new BigDecimal("100.00")});
+  }
+
+  @Test
+  public void testSameBalances() {
+    Map<List<Long>, BigDecimal[]> balanceMap = new HashMap<>();
+    balanceMap.put(
+        Arrays.asList(1L, 10L), new BigDecimal[] {new BigDecimal("100"), new BigDecimal("0.00")});
+    balanceMap.put(
+        Arrays.asList(1L, 20L), new BigDecimal[] {new BigDecimal("0"), new BigDecimal("100")});
+    Assert.assertEquals(
+        0, accountingPeriodBalanceService.countDifferentBalances(storedBalanceMap, balanceMap));
+  }
+
+  @Test
+  public void testDifferentBalances() {
+    Map<List<Long>, BigDecimal[]> balanceMap = new HashMap<>();
+    balanceMap.put(
+        Arrays.asList(1L, 10L), new BigDecimal[] {new BigDecimal("150.00"), BigDecimal.ZERO});
+    balanceMap.put(
+        Arrays.asList(1L, 20L), new BigDecimal[] {BigDecimal.ZERO, new BigDecimal("100.00")});
+    balanceMap.put(
+        Arrays.asList(2L, 10L), new BigDecimal[] {new BigDecimal("50.00"), BigDecimal.ZERO});
+    Assert.assertEquals(
+        2, accountingPeriodBalanceService.countDifferentBalances(storedBalanceMap, balanceMap));
+  }
+
+  @Test
+  public void testMissingBalanceCountsAsZero() {
+    Map<List<Long>, BigDecimal[]> balanceMap = new HashMap<>();
+    balanceMap.put(
+        Arrays.asList(1L, 10L), new BigDecimal[] {new BigDecimal("100.00"), BigDecimal.ZERO});
+    balanceMap.put(Arrays.asList(3L, 10L), new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+    Assert.assertEquals(
+        1, accountingPeriodBalanceService.countDifferentBalances(storedBalanceMap, balanceMap));
+  }
+}
@@ -0,0 +1,439 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import com.axelor.apps.account.db.Account;
+import com.axelor.apps.account.db.AccountType;
+import com.axelor.apps.account.db.Journal;
+import com.axelor.apps.account.db.Move;
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.ReconcileGroup;
+import com.axelor.apps.account.db.repo.ReconcileGroupRepository;
+import com.axelor.apps.base.db.Currency;
+import com.axelor.apps.base.db.Partner;
+import com.axelor.utils.file.CsvTool;
+import com.google.common.base.Strings;
+import com.opencsv.CSVWriter;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestMoveLineExportServiceImpl {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  protected MoveLineExportServiceImpl moveLineExportService;
+
+  @Before
+  public void prepare() {
+    moveLineExportService =
+        new MoveLineExportServiceImpl(
+            null, null, null, null, null, null, null, null, null, null, null);
+  }
+
+  @Test
+  public void testDebitLineWithPartnerAndLettering() {
+    Object[] row =
+        createRow(
+            true,
+            "C0001",
+            "ACME",
+            null,
+            "Invoice\nline|1",
+            new BigDecimal("120.00"),
+            new BigDecimal("0.00"),
+            ReconcileGroupRepository.STATUS_FINAL,
+            new BigDecimal("120.00"));
+
+    Assert.assertArrayEquals(
+        new String[] {
+          "VEN",
+          "Sales journal",
+          "2023-0001",
+          "20230305",
+          "411000",
+          "Customers",
+          "C0001",
+          "ACME",
+          "NA",
+          "20230301",
+          "Invoice line 1",
+          "120,00",
+          "0,00",
+          "A1",
+          "20230402",
+          "20230306",
+          "120,00",
+          "EUR"
+        },
+        moveLineExportService.cleanItems(moveLineExportService.createItemForExportMoveLine(row)));
+  }
+
+  @Test
+  public void testCreditLineWithoutSubsidiaryAccount() {
+    Object[] row =
+        createRow(
+            false,
+            "C0001",
+            "ACME",
+            "FA-0001",
+            "Payment",
+            new BigDecimal("0.00"),
+            new BigDecimal("100.50"),
+            ReconcileGroupRepository.STATUS_TEMPORARY,
+            new BigDecimal("100.50"));
+
+    Assert.assertArrayEquals(
+        new String[] {
+          "VEN",
+          "Sales journal",
+          "2023-0001",
+          "20230305",
+          "411000",
+          "Customers",
+          "",
+          "",
+          "FA-0001",
+          "20230301",
+          "Payment",
+          "0,00",
+          "100,50",
+          "",
+          "",
+          "20230306",
+          "-100,50",
+          "EUR"
+        },
+        moveLineExportService.cleanItems(moveLineExportService.createItemForExportMoveLine(row)));
+  }
+
+  @Test
+  public void testMissingDatesAreLeftEmpty() {
+    Object[] row =
+        createRow(
+            true,
+            null,
+            null,
+            "",
+            null,
+            new BigDecimal("10.00"),
+            new BigDecimal("0.00"),
+            null,
+            new BigDecimal("-10.00"));
+    row[10] = null;
+    row[17] = null;
+    row[19] = null;
+
+    String[] items = moveLineExportService.createItemForExportMoveLine(row);
+
+    Assert.assertEquals("", items[6]);
+    Assert.assertEquals("", items[7]);
+    Assert.assertEquals("NA", items[8]);
+    Assert.assertNull(items[9]);
+    Assert.assertNull(items[10]);
+    Assert.assertEquals("", items[13]);
+    Assert.assertNull(items[15]);
+    Assert.assertEquals("-10,00", items[16]);
+    Assert.assertNull(items[17]);
+  }
+
+  /**
+   * Writes the same move lines with the entity based export used before the streaming one and with
+   * the streaming one, and compares the two files.
+   */
+  @Test
+  public void testSameFileAsEntityExport() throws Exception {
+    List<MoveLine> moveLineList = createMoveLineList();
+    String filePath = temporaryFolder.getRoot().getAbsolutePath();
+
+    List<String[]> allMoveLineData = new ArrayList<>();
+    for (MoveLine moveLine : moveLineList) {
+      allMoveLineData.add(createLegacyItemForExportMoveLine(moveLine));
+    }
+    for (String[] items : allMoveLineData) {
+      for (int i = 0; i < items.length; i++) {
+        if (items[i] != null) {
+          items[i] = items[i].replaceAll("(\r\n|\n\r|\r|\n|\\|)", " ");
+        }
+      }
+    }
+    CsvTool.csvWriter(
+        filePath,
+        "legacy.csv",
+        '|',
+        moveLineExportService.createHeaderForJournalEntry(),
+        allMoveLineData);
+
+    try (CSVWriter csvWriter = CsvTool.setCsvFile(filePath, "streamed.csv", '|')) {
+      csvWriter.writeNext(moveLineExportService.createHeaderForJournalEntry());
+      for (MoveLine moveLine : moveLineList) {
+        moveLineExportService.writeExportMoveLine(csvWriter, toRow(moveLine));
+      }
+    }
+
+    Assert.assertArrayEquals(
+        Files.readAllBytes(new File(filePath, "legacy.csv").toPath()),
+        Files.readAllBytes(new File(filePath, "streamed.csv").toPath()));
+  }
+
+  /** Export line of a move line as built from the entities before the export was streamed. */
+  protected String[] createLegacyItemForExportMoveLine(MoveLine moveLine) {
+    String[] items = new String[18];
+    Move move = moveLine.getMove();
+    Journal journal = move.getJournal();
+    items[0] = journal.getCode();
+    items[1] = journal.getName();
+    items[2] = moveLine.getMove().getReference();
+    items[3] = moveLine.getDate().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    items[4] = moveLine.getAccount().getCode();
+    items[5] = moveLine.getAccount().getName();
+    items[6] = "";
+    items[7] = "";
+    Partner partner = moveLine.getPartner();
+    if (partner != null && moveLine.getAccount().getAccountType().getIsManageSubsidiaryAccount()) {
+      items[6] = partner.getPartnerSeq();
+      items[7] = partner.getName();
+    }
+    String origin = moveLine.getOrigin();
+    items[8] = Strings.isNullOrEmpty(origin) ? "NA" : origin;
+    if (moveLine.getOriginDate() != null) {
+      items[9] = moveLine.getOriginDate().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    }
+    items[10] = moveLine.getDescription();
+    items[11] = moveLine.getDebit().toString().replace('.', ',');
+    items[12] = moveLine.getCredit().toString().replace('.', ',');
+
+    ReconcileGroup reconcileGroup = moveLine.getReconcileGroup();
+    if (reconcileGroup != null
+        && reconcileGroup.getStatusSelect() == ReconcileGroupRepository.STATUS_FINAL) {
+      items[13] = reconcileGroup.getCode();
+      items[14] =
+          reconcileGroup.getLetteringDateTime().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    } else {
+      items[13] = "";
+      items[14] = "";
+    }
+
+    if (move.getAccountingDate() != null) {
+      items[15] = move.getAccountingDate().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    }
+
+    items[16] = moveLine.getCurrencyAmount().toString().replace('.', ',');
+    if (moveLine.getCurrencyAmount().compareTo(BigDecimal.ZERO) > 0
+        && moveLine.getCredit().compareTo(BigDecimal.ZERO) > 0) {
+      items[16] = "-" + items[16];
+    }
+
+    if (move.getCurrency() != null) {
+      items[17] = move.getCurrency().getCodeISO();
+    }
+    return items;
+  }
+
+  /** Row of the export query for a move line, in the order of its select clause. */
+  protected Object[] toRow(MoveLine moveLine) {
+    Move move = moveLine.getMove();
+    Account account = moveLine.getAccount();
+    Partner partner = moveLine.getPartner();
+    ReconcileGroup reconcileGroup = moveLine.getReconcileGroup();
+    return new Object[] {
+      move.getJournal().getCode(),
+      move.getJournal().getName(),
+      move.getReference(),
+      moveLine.getDate(),
+      account.getCode(),
+      account.getName(),
+      account.getAccountType().getIsManageSubsidiaryAccount(),
+      partner != null ? partner.getPartnerSeq() : null,
+      partner != null ? partner.getName() : null,
+      moveLine.getOrigin(),
+      moveLine.getOriginDate(),
+      moveLine.getDescription(),
+      moveLine.getDebit(),
+      moveLine.getCredit(),
+      reconcileGroup != null ? reconcileGroup.getCode() : null,
+      reconcileGroup != null ? reconcileGroup.getStatusSelect() : null,
+      reconcileGroup != null ? reconcileGroup.getLetteringDateTime() : null,
+      move.getAccountingDate(),
+      moveLine.getCurrencyAmount(),
+      move.getCurrency() != null ? move.getCurrency().getCodeISO() : null,
+      move.getId()
+    };
+  }
+
+  protected List<MoveLine> createMoveLineList() {
+    Journal journal = new Journal();
+    journal.setCode("VEN");
+    journal.setName("Sales journal");
+
+    AccountType receivableType = new AccountType();
+    receivableType.setIsManageSubsidiaryAccount(true);
+    AccountType incomeType = new AccountType();
+    incomeType.setIsManageSubsidiaryAccount(false);
+    Account customerAccount = createAccount("411000", "Customers", receivableType);
+    Account saleAccount = createAccount("706000", "Services | sales", incomeType);
+
+    Partner partner = new Partner();
+    partner.setPartnerSeq("C0001");
+    partner.setName("ACME\r\nLtd");
+
+    Currency currency = new Currency();
+    currency.setCodeISO("EUR");
+
+    ReconcileGroup finalGroup = new ReconcileGroup();
+    finalGroup.setCode("A1");
+    finalGroup.setStatusSelect(ReconcileGroupRepository.STATUS_FINAL);
+    finalGroup.setLetteringDateTime(LocalDateTime.of(2023, 4, 2, 10, 15));
+    ReconcileGroup temporaryGroup = new ReconcileGroup();
+    temporaryGroup.setCode("A2");
+    temporaryGroup.setStatusSelect(ReconcileGroupRepository.STATUS_TEMPORARY);
+
+    Move invoiceMove = createMove(1L, journal, "2023-0001", LocalDate.of(2023, 3, 6), currency);
+    Move paymentMove = createMove(2L, journal, "2023-0002", null, null);
+
+    List<MoveLine> moveLineList = new ArrayList<>();
+    moveLineList.add(
+        createMoveLine(
+            invoiceMove,
+            customerAccount,
+            partner,
+            null,
+            LocalDate.of(2023, 3, 1),
+            "Invoice\nline 1",
+            "120.00",
+            "0.00",
+            finalGroup,
+            "120.00"));
+    moveLineList.add(
+        createMoveLine(
+            invoiceMove,
+            saleAccount,
+            partner,
+            "FA|0001",
+            LocalDate.of(2023, 3, 1),
+            "Services \"March\"; 2023",
+            "0.00",
+            "120.00",
+            null,
+            "120.00"));
+    moveLineList.add(
+        createMoveLine(
+            paymentMove,
+            customerAccount,
+            null,
+            "",
+            null,
+            null,
+            "0.00",
+            "100.50",
+            temporaryGroup,
+            "-100.50"));
+    return moveLineList;
+  }
+
+  protected Account createAccount(String code, String name, AccountType accountType) {
+    Account account = new Account();
+    account.setCode(code);
+    account.setName(name);
+    account.setAccountType(accountType);
+    return account;
+  }
+
+  protected Move createMove(
+      Long id, Journal journal, String reference, LocalDate accountingDate, Currency currency) {
+    Move move = new Move();
+    move.setId(id);
+    move.setJournal(journal);
+    move.setReference(reference);
+    move.setAccountingDate(accountingDate);
+    move.setCurrency(currency);
+    return move;
+  }
+
+  protected MoveLine createMoveLine(
+      Move move,
+      Account account,
+      Partner partner,
+      String origin,
+      LocalDate originDate,
+      String description,
+      String debit,
+      String credit,
+      ReconcileGroup reconcileGroup,
+      String currencyAmount) {
+    MoveLine moveLine = new MoveLine();
+    moveLine.setMove(move);
+    moveLine.setDate(LocalDate.of(2023, 3, 5));
+    moveLine.setAccount(account);
+    moveLine.setPartner(partner);
+    moveLine.setOrigin(origin);
+    moveLine.setOriginDate(originDate);
+    moveLine.setDescription(description);
+    moveLine.setDebit(new BigDecimal(debit));
+    moveLine.setCredit(new BigDecimal(credit));
+    moveLine.setReconcileGroup(reconcileGroup);
+    moveLine.setCurrencyAmount(new BigDecimal(currencyAmount));
+    return moveLine;
+  }
+
+  protected Object[] createRow(
+      boolean isManageSubsidiaryAccount,
+      String partnerSeq,
+      String partnerName,
+      String origin,
+      String description,
+      BigDecimal debit,
+      BigDecimal credit,
+      Integer reconcileGroupStatusSelect,
+      BigDecimal currencyAmount) {
+    return new Object[] {
+      "VEN",
+      "Sales journal",
+      "2023-0001",
+      LocalDate.of(2023, 3, 5),
+      "411000",
+      "Customers",
+      isManageSubsidiaryAccount,
+      partnerSeq,
+      partnerName,
+      origin,
+      LocalDate.of(2023, 3, 1),
+      description,
+      debit,
+      credit,
+      "A1",
+      reconcileGroupStatusSelect,
+      LocalDateTime.of(2023, 4, 2, 10, 15),
+      LocalDate.of(2023, 3, 6),
+      currencyAmount,
+      "EUR",
+      1L
+    };
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.custom;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAccountingReportMoveLineAggregate {
+
+  protected AccountingReportMoveLineAggregate moveLineAggregate;
+
+  @Before
+  public void prepare() {
+    moveLineAggregate = new AccountingReportMoveLineAggregate();
+    moveLineAggregate.addAmounts(1L, "401000", 10L, new BigDecimal("100"), new BigDecimal("30"));
+    moveLineAggregate.addAmounts(2L, "411000", 20L, new BigDecimal("50"), null);
+    moveLineAggregate.addAmounts(3L, "411_10", null, BigDecimal.ZERO, new BigDecimal("5"));
+    moveLineAggregate.addAnalyticAmount(1L, "401000", 10L, 100L, new BigDecimal("40"));
+    moveLineAggregate.addAnalyticAmount(1L, "401000", 10L, 101L, new BigDecimal("30"));
+    moveLineAggregate.addAnalyticAmount(2L, "411000", 20L, 100L, new BigDecimal("50"));
+  }
+
+  @Test
+  public void testWithoutFilter() {
+    Assert.assertEquals(
+        new BigDecimal("115"),
+        moveLineAggregate.getDebitMinusCredit(
+            new HashSet<>(), new HashSet<>(), Collections.emptyList()));
+  }
+
+  @Test
+  public void testAccountAndAccountTypeFilters() {
+    Assert.assertEquals(
+        new BigDecimal("65"),
+        moveLineAggregate.getDebitMinusCredit(
+            new HashSet<>(Arrays.asList(1L, 3L)), new HashSet<>(), Collections.emptyList()));
+    Assert.assertEquals(
+        new BigDecimal("50"),
+        moveLineAggregate.getDebitMinusCredit(
+            new HashSet<>(), new HashSet<>(Arrays.asList(20L, 30L)), Collections.emptyList()));
+  }
+
+  @Test
+  public void testAccountCodeFilters() {
+    Assert.assertEquals(
+        new BigDecimal("45"),
+        moveLineAggregate.getDebitMinusCredit(
+            new HashSet<>(), new HashSet<>(), Collections.singletonList("41%")));
+    Assert.assertEquals(
+        new BigDecimal("115"),
+        moveLineAggregate.getDebitMinusCredit(
+            new HashSet<>(), new HashSet<>(), Collections.singletonList("40%,411%")));
+    Assert.assertEquals(
+        new BigDecimal("-5"),
+        moveLineAggregate.getDebitMinusCredit(
+            new HashSet<>(), new HashSet<>(), Arrays.asList("41%", "411\\_10")));
+    Assert.assertEquals(
+        new BigDecimal("45"),
+        moveLineAggregate.getDebitMinusCredit(
+            new HashSet<>(), new HashSet<>(), Collections.singletonList("411_%")));
+  }
+
+  @Test
+  public void testAnalyticAmount() {
+    Assert.assertEquals(
+        new BigDecimal("90"),
+        moveLineAggregate.getAnalyticAmount(
+            new HashSet<>(),
+            new HashSet<>(),
+            Collections.emptyList(),
+            new HashSet<>(Collections.singletonList(100L))));
+    Assert.assertEquals(
+        new BigDecimal("70"),
+        moveLineAggregate.getAnalyticAmount(
+            new HashSet<>(),
+            new HashSet<>(),
+            Collections.singletonList("40%"),
+            new HashSet<>(Arrays.asList(100L, 101L))));
+  }
+}
@@ -996,38 +996,32 @@ public class BankReconciliationService {
         bankReconciliationLines.stream()
             .filter(line -> line.getMoveLine() == null)
             .collect(Collectors.toList());
-    Context scriptContext;
+    BankStatementQueryMatcher matcher = new BankStatementQueryMatcher(moveLines);
     for (BankStatementQuery bankStatementQuery : bankStatementQueries) {
+      BankStatementQueryCondition condition =
+          BankStatementQueryCondition.of(
+              computeQuery(bankStatementQuery, dateMargin, amountMarginLow, amountMarginHigh));
       for (BankReconciliationLine bankReconciliationLine : bankReconciliationLines) {
         BankStatementLine bankStatementLine = bankReconciliationLine.getBankStatementLine();
-        if (bankReconciliationLine.getMoveLine() != null || bankStatementLine == null) {
+        if (bankReconciliationLine.getMoveLine() != null
+            || bankStatementLine == null
+            || !matcher.hasRemainingMoveLine()) {
           continue;
         }
-        for (MoveLine moveLine : moveLines) {
-          bankStatementLine.setMoveLine(moveLine);
-          scriptContext =
-              new Context(Mapper.toMap(bankStatementLine), BankStatementLineAFB120.class);
-          String query =
-              computeQuery(bankStatementQuery, dateMargin, amountMarginLow, amountMarginHigh);
-          if (Boolean.TRUE.equals(new GroovyScriptHelper(scriptContext).eval(query))) {
-            bankReconciliationLine =
-                updateBankReconciliationLine(bankReconciliationLine, moveLine, bankStatementQuery);
-            boolean isUnderCorrection =
-                bankReconciliation.getStatusSelect()
-                    == BankReconciliationRepository.STATUS_UNDER_CORRECTION;
-            if (isUnderCorrection) {
-              bankReconciliationLine.setIsPosted(true);
-              bankReconciliationLineService.checkAmount(bankReconciliationLine);
-              bankReconciliationLineService.updateBankReconciledAmounts(bankReconciliationLine);
-            }
-            moveLine.setPostedNbr(bankReconciliationLine.getPostedNbr());
-            moveLines.remove(moveLine);
-            break;
+        MoveLine moveLine = matcher.findMatch(condition, bankStatementLine);
+        bankStatementLine.setMoveLine(moveLine);
+        if (moveLine != null) {
+          bankReconciliationLine =
+              updateBankReconciliationLine(bankReconciliationLine, moveLine, bankStatementQuery);
+          boolean isUnderCorrection =
+              bankReconciliation.getStatusSelect()
+                  == BankReconciliationRepository.STATUS_UNDER_CORRECTION;
+          if (isUnderCorrection) {
+            bankReconciliationLine.setIsPosted(true);
+            bankReconciliationLineService.checkAmount(bankReconciliationLine);
+            bankReconciliationLineService.updateBankReconciledAmounts(bankReconciliationLine);
           }
-          bankStatementLine.setMoveLine(null);
-        }
-        if (bankReconciliationLine.getMoveLine() != null) {
-          continue;
+          moveLine.setPostedNbr(bankReconciliationLine.getPostedNbr());
         }
       }
     }
@@ -0,0 +1,333 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.service.bankreconciliation;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.bankpayment.db.BankStatementLine;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Auto reconciliation query with its dynamic parameters replaced, and the conditions of the query
+ * that can be checked without evaluating the script.
+ *
+ * <p>Only the top level conditions of the query (joined with {@code &&}) written like the ones of
+ * the default queries are recognized: equal amounts, amounts within the amount margin and dates
+ * within the date margin. A move line rejected by one of these conditions can not match the query,
+ * any other move line still has to be checked by evaluating the query. Nothing is checked for a
+ * query with a top level {@code ||}.
+ *
+ * <p>Amounts are compared like Groovy {@code ==} does, without taking the scale into account.
+ */
+public class BankStatementQueryCondition {
+
+  protected static final Pattern AMOUNT_EQUALITY_PATTERN =
+      Pattern.compile("moveLine\\??\\.(debit|credit)\\.equals\\((debit|credit)\\)");
+
+  protected static final Pattern AMOUNT_RANGE_PATTERN =
+      Pattern.compile("moveLine\\??\\.(debit|credit)(<=|>=)(debit|credit)\\*(\\d+(\\.\\d+)?)");
+
+  protected static final Pattern DATE_RANGE_PATTERN =
+      Pattern.compile(
+          "moveLine\\??\\.(date|dueDate)(<=|>=)(valueDate|operationDate)\\?\\.(plusDays|minusDays)\\((\\d+)\\)");
+
+  protected String query;
+
+  /** Move line debit has to be equal to the statement line credit. */
+  protected boolean debitEqualsCredit;
+
+  /** Move line credit has to be equal to the statement line debit. */
+  protected boolean creditEqualsDebit;
+
+  /** Factors applied to the statement line credit to bound the move line debit. */
+  protected BigDecimal debitMinFactor;
+
+  protected BigDecimal debitMaxFactor;
+
+  /** Factors applied to the statement line debit to bound the move line credit. */
+  protected BigDecimal creditMinFactor;
+
+  protected BigDecimal creditMaxFactor;
+
+  /** Date ranges, one of them has to contain the move line date or due date. */
+  protected List<DateRange> dateRangeList;
+
+  protected BankStatementQueryCondition(String query) {
+    this.query = query;
+  }
+
+  public static BankStatementQueryCondition of(String query) {
+    BankStatementQueryCondition condition = new BankStatementQueryCondition(query);
+    String expression = unwrap(removeSpaces(query));
+    if (split(expression, "||").size() > 1) {
+      // && binds tighter than ||, so none of the conjuncts is required by the whole query
+      return condition;
+    }
+    for (String conjunct : split(expression, "&&")) {
+      condition.addConjunct(conjunct);
+    }
+    return condition;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public boolean isDebitEqualsCredit() {
+    return debitEqualsCredit;
+  }
+
+  public BigDecimal getDebitMinFactor() {
+    return debitMinFactor;
+  }
+
+  public BigDecimal getDebitMaxFactor() {
+    return debitMaxFactor;
+  }
+
+  /**
+   * Check the recognized conditions of the query. Null values are never rejected, their evaluation
+   * is left to the script.
+   *
+   * @return false if the move line can not match the query
+   */
+  public boolean accept(BankStatementLine bankStatementLine, MoveLine moveLine) {
+    BigDecimal debit = moveLine.getDebit();
+    BigDecimal credit = moveLine.getCredit();
+    BigDecimal lineDebit = bankStatementLine.getDebit();
+    BigDecimal lineCredit = bankStatementLine.getCredit();
+
+    if (debitEqualsCredit
+        && debit != null
+        && lineCredit != null
+        && debit.compareTo(lineCredit) != 0) {
+      return false;
+    }
+    if (creditEqualsDebit
+        && credit != null
+        && lineDebit != null
+        && credit.compareTo(lineDebit) != 0) {
+      return false;
+    }
+    if (!isInRange(debit, lineCredit, debitMinFactor, debitMaxFactor)
+        || !isInRange(credit, lineDebit, creditMinFactor, creditMaxFactor)) {
+      return false;
+    }
+    return dateRangeList == null || isInDateRanges(bankStatementLine, moveLine);
+  }
+
+  protected boolean isInRange(
+      BigDecimal value, BigDecimal reference, BigDecimal minFactor, BigDecimal maxFactor) {
+    if (value == null || reference == null) {
+      return true;
+    }
+    return (minFactor == null || value.compareTo(reference.multiply(minFactor)) >= 0)
+        && (maxFactor == null || value.compareTo(reference.multiply(maxFactor)) <= 0);
+  }
+
+  protected boolean isInDateRanges(BankStatementLine bankStatementLine, MoveLine moveLine) {
+    for (DateRange dateRange : dateRangeList) {
+      LocalDate date = "date".equals(dateRange.field) ? moveLine.getDate() : moveLine.getDueDate();
+      LocalDate reference =
+          "valueDate".equals(dateRange.reference)
+              ? bankStatementLine.getValueDate()
+              : bankStatementLine.getOperationDate();
+      if (date == null
+          || reference == null
+          || (!date.isBefore(reference.minusDays(dateRange.daysBefore))
+              && !date.isAfter(reference.plusDays(dateRange.daysAfter)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  protected void addConjunct(String conjunct) {
+    Matcher matcher = AMOUNT_EQUALITY_PATTERN.matcher(conjunct);
+    if (matcher.matches()) {
+      if ("debit".equals(matcher.group(1)) && "credit".equals(matcher.group(2))) {
+        debitEqualsCredit = true;
+      } else if ("credit".equals(matcher.group(1)) && "debit".equals(matcher.group(2))) {
+        creditEqualsDebit = true;
+      }
+      return;
+    }
+
+    matcher = AMOUNT_RANGE_PATTERN.matcher(conjunct);
+    if (matcher.matches()) {
+      addAmountRange(matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4));
+      return;
+    }
+
+    List<DateRange> dateRanges = parseDateRanges(conjunct);
+    if (dateRanges != null && dateRangeList == null) {
+      dateRangeList = dateRanges;
+    }
+  }
+
+  protected void addAmountRange(String field, String operator, String reference, String factor) {
+    BigDecimal value = new BigDecimal(factor);
+    boolean isMin = ">=".equals(operator);
+    if ("debit".equals(field) && "credit".equals(reference)) {
+      if (isMin) {
+        debitMinFactor = value;
+      } else {
+        debitMaxFactor = value;
+      }
+    } else if ("credit".equals(field) && "debit".equals(reference)) {
+      if (isMin) {
+        creditMinFactor = value;
+      } else {
+        creditMaxFactor = value;
+      }
+    }
+  }
+
+  /**
+   * Parse a condition like {@code ((moveLine?.date <= valueDate?.plusDays(3) && moveLine?.date >=
+   * valueDate?.minusDays(3)) || ...)}.
+   *
+   * @return the date ranges, or null if the condition is not written this way
+   */
+  protected List<DateRange> parseDateRanges(String conjunct) {
+    List<DateRange> dateRanges = new ArrayList<>();
+    for (String disjunct : split(unwrap(conjunct), "||")) {
+      List<String> bounds = split(unwrap(disjunct), "&&");
+      if (bounds.size() != 2) {
+        return null;
+      }
+      Matcher first = DATE_RANGE_PATTERN.matcher(bounds.get(0));
+      Matcher second = DATE_RANGE_PATTERN.matcher(bounds.get(1));
+      if (!first.matches()
+          || !second.matches()
+          || !first.group(1).equals(second.group(1))
+          || !first.group(3).equals(second.group(3))) {
+        return null;
+      }
+      Matcher upper = "<=".equals(first.group(2)) ? first : second;
+      Matcher lower = upper == first ? second : first;
+      if (!"<=".equals(upper.group(2))
+          || !">=".equals(lower.group(2))
+          || !"plusDays".equals(upper.group(4))
+          || !"minusDays".equals(lower.group(4))) {
+        return null;
+      }
+      dateRanges.add(
+          new DateRange(
+              first.group(1),
+              first.group(3),
+              Long.parseLong(lower.group(5)),
+              Long.parseLong(upper.group(5))));
+    }
+    return dateRanges;
+  }
+
+  protected static String removeSpaces(String query) {
+    StringBuilder sb = new StringBuilder();
+    char quote = 0;
+    for (char c : query.toCharArray()) {
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (Character.isWhitespace(c)) {
+        continue;
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  /** Remove the parentheses enclosing the whole expression. */
+  protected static String unwrap(String expression) {
+    while (expression.startsWith("(")
+        && closingParenthesisIndex(expression) == expression.length() - 1) {
+      expression = expression.substring(1, expression.length() - 1);
+    }
+    return expression;
+  }
+
+  protected static int closingParenthesisIndex(String expression) {
+    int depth = 0;
+    char quote = 0;
+    for (int i = 0; i < expression.length(); i++) {
+      char c = expression.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Split an expression on an operator, ignoring operators in parentheses and strings. */
+  protected static List<String> split(String expression, String operator) {
+    List<String> parts = new ArrayList<>();
+    int depth = 0;
+    char quote = 0;
+    int start = 0;
+    for (int i = 0; i < expression.length(); i++) {
+      char c = expression.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && expression.startsWith(operator, i)) {
+        parts.add(expression.substring(start, i));
+        i += operator.length() - 1;
+        start = i + 1;
+      }
+    }
+    parts.add(expression.substring(start));
+    return parts;
+  }
+
+  protected static class DateRange {
+    protected String field;
+    protected String reference;
+    protected long daysBefore;
+    protected long daysAfter;
+
+    protected DateRange(String field, String reference, long daysBefore, long daysAfter) {
+      this.field = field;
+      this.reference = reference;
+      this.daysBefore = daysBefore;
+      this.daysAfter = daysAfter;
+    }
+  }
+}
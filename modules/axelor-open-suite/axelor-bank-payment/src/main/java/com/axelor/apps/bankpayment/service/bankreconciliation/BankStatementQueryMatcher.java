@@ -0,0 +1,158 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.service.bankreconciliation;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.bankpayment.db.BankStatementLine;
+import com.axelor.apps.bankpayment.db.BankStatementLineAFB120;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.rpc.Context;
+import com.axelor.script.GroovyScriptHelper;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Finds the move line matching a bank statement line for an auto reconciliation query.
+ *
+ * <p>Candidate move lines are indexed by debit so that queries requiring an equal amount or an
+ * amount within the margin only evaluate plausible candidates. Candidates are always evaluated in
+ * the order of the given move line list, and a matched move line is not proposed again, so the
+ * result is the same as evaluating the query on every move line.
+ */
+public class BankStatementQueryMatcher {
+
+  protected List<MoveLine> moveLineList;
+  protected boolean[] matched;
+  protected int remainingCount;
+
+  /** Move lines by debit without trailing zeros, so that 10.00 and 10.0 share the same key. */
+  protected Map<BigDecimal, List<Integer>> debitIndex = new HashMap<>();
+
+  protected NavigableMap<BigDecimal, List<Integer>> sortedDebitIndex = new TreeMap<>();
+  protected List<Integer> noDebitList = new ArrayList<>();
+
+  protected Map<BankStatementLine, Map<String, Object>> bankStatementLineValuesMap =
+      new IdentityHashMap<>();
+
+  public BankStatementQueryMatcher(List<MoveLine> moveLineList) {
+    this.moveLineList = moveLineList;
+    this.matched = new boolean[moveLineList.size()];
+    this.remainingCount = moveLineList.size();
+
+    for (int i = 0; i < moveLineList.size(); i++) {
+      BigDecimal debit = moveLineList.get(i).getDebit();
+      if (debit == null) {
+        noDebitList.add(i);
+        continue;
+      }
+      debitIndex.computeIfAbsent(debit.stripTrailingZeros(), key -> new ArrayList<>()).add(i);
+      sortedDebitIndex.computeIfAbsent(debit, key -> new ArrayList<>()).add(i);
+    }
+  }
+
+  public boolean hasRemainingMoveLine() {
+    return remainingCount > 0;
+  }
+
+  /**
+   * Find the first move line not matched yet for which the query is true.
+   *
+   * @return the matching move line, or null if there is none
+   */
+  public MoveLine findMatch(
+      BankStatementQueryCondition condition, BankStatementLine bankStatementLine) {
+
+    for (int index : getCandidateIndexes(condition, bankStatementLine)) {
+      if (matched[index]) {
+        continue;
+      }
+      MoveLine moveLine = moveLineList.get(index);
+      if (condition.accept(bankStatementLine, moveLine)
+          && evaluate(condition, bankStatementLine, moveLine)) {
+        matched[index] = true;
+        remainingCount--;
+        return moveLine;
+      }
+    }
+
+    return null;
+  }
+
+  protected int[] getCandidateIndexes(
+      BankStatementQueryCondition condition, BankStatementLine bankStatementLine) {
+    BigDecimal lineCredit = bankStatementLine.getCredit();
+
+    if (lineCredit != null && condition.isDebitEqualsCredit()) {
+      return toSortedArray(
+          debitIndex.getOrDefault(lineCredit.stripTrailingZeros(), new ArrayList<>()));
+    }
+
+    BigDecimal minFactor = condition.getDebitMinFactor();
+    BigDecimal maxFactor = condition.getDebitMaxFactor();
+    if (lineCredit != null && minFactor != null && maxFactor != null) {
+      BigDecimal min = lineCredit.multiply(minFactor);
+      BigDecimal max = lineCredit.multiply(maxFactor);
+      if (min.compareTo(max) > 0) {
+        return new int[0];
+      }
+      List<Integer> indexList = new ArrayList<>();
+      sortedDebitIndex.subMap(min, true, max, true).values().forEach(indexList::addAll);
+      return toSortedArray(indexList);
+    }
+
+    int[] indexes = new int[moveLineList.size()];
+    for (int i = 0; i < indexes.length; i++) {
+      indexes[i] = i;
+    }
+    return indexes;
+  }
+
+  /** Add the move lines without debit, which can not be rejected, and sort by list order. */
+  protected int[] toSortedArray(Collection<Integer> indexList) {
+    int[] indexes = new int[indexList.size() + noDebitList.size()];
+    int i = 0;
+    for (int index : indexList) {
+      indexes[i++] = index;
+    }
+    for (int index : noDebitList) {
+      indexes[i++] = index;
+    }
+    Arrays.sort(indexes);
+    return indexes;
+  }
+
+  protected boolean evaluate(
+      BankStatementQueryCondition condition,
+      BankStatementLine bankStatementLine,
+      MoveLine moveLine) {
+    Map<String, Object> values =
+        new HashMap<>(bankStatementLineValuesMap.computeIfAbsent(bankStatementLine, Mapper::toMap));
+    values.put("moveLine", moveLine);
+    Context scriptContext = new Context(values, BankStatementLineAFB120.class);
+    return Boolean.TRUE.equals(new GroovyScriptHelper(scriptContext).eval(condition.getQuery()));
+  }
+}
@@ -23,6 +23,7 @@ import com.axelor.apps.account.db.repo.InterbankCodeLineRepository;
 import com.axelor.apps.account.db.repo.InterbankCodeRepository;
 import com.axelor.apps.bankpayment.db.BankStatementLineAFB120;
 import com.axelor.apps.bankpayment.db.repo.BankStatementLineAFB120Repository;
+import com.axelor.apps.bankpayment.exception.BankPaymentExceptionMessage;
 import com.axelor.apps.bankpayment.service.bankstatement.BankStatementService;
 import com.axelor.apps.bankpayment.service.bankstatement.file.BankStatementFileService;
 import com.axelor.apps.bankpayment.service.cfonb.CfonbToolService;
@@ -32,22 +33,29 @@ import com.axelor.apps.base.db.Currency;
 import com.axelor.apps.base.db.repo.BankDetailsRepository;
 import com.axelor.apps.base.db.repo.CurrencyRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.common.ObjectUtils;
 import com.axelor.db.JPA;
+import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
-import com.axelor.utils.file.FileTool;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,8 +75,16 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
   protected static final String COMPLEMENT_MOVEMENT_OPERATION_CODE = "05";
   protected static final String NEW_BALANCE_OPERATION_CODE = "07";
 
+  protected static final int RECORD_LENGTH = 120;
+  protected static final int LINE_BATCH_SIZE = 100;
+
   private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("ddMMyy");
 
+  /* Lookups of the file being processed, the same accounts and codes being found on most lines */
+  protected Map<String, Currency> currencyMap;
+  protected Map<List<String>, BankDetails> bankDetailsMap;
+  protected Map<String, InterbankCodeLine> interbankCodeLineMap;
+
   @Inject
   public BankStatementFileAFB120Service(BankStatementService bankStatementService) {
 
@@ -83,25 +99,109 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
     this.bankStatementLineAFB120Repository = Beans.get(BankStatementLineAFB120Repository.class);
   }
 
+  /**
+   * Reads the whole file a first time to check its records, so that a wrong file creates no line.
+   * Then reads it again and creates the statement lines by batches, each batch being saved in its
+   * own transaction.
+   */
   @Override
   public void process() throws IOException, AxelorException {
     super.process();
 
-    List<Map<String, Object>> structuredContentFile = readFile();
+    currencyMap = new HashMap<>();
+    bankDetailsMap = new HashMap<>();
+    interbankCodeLineMap = new HashMap<>();
+
+    readLines(structuredContentLine -> {});
 
-    int sequence = 0;
     findBankStatement();
 
-    for (Map<String, Object> structuredContentLine : structuredContentFile) {
-      try {
-        createBankStatementLine(structuredContentLine, sequence++);
-      } catch (Exception e) {
-        TraceBackService.trace(
-            new Exception(String.format("Line %s : %s", sequence, e), e),
-            ExceptionOriginRepository.IMPORT);
-        findBankStatement();
-      } finally {
-        if (sequence % 10 == 0) {
+    List<Map<String, Object>> structuredContentLines = new ArrayList<>();
+    AtomicInteger sequence = new AtomicInteger();
+    readLines(
+        structuredContentLine -> {
+          structuredContentLines.add(structuredContentLine);
+          if (structuredContentLines.size() == LINE_BATCH_SIZE) {
+            sequence.set(createBankStatementLines(structuredContentLines, sequence.get()));
+            structuredContentLines.clear();
+          }
+        });
+    createBankStatementLines(structuredContentLines, sequence.get());
+
+    JPA.clear();
+  }
+
+  /**
+   * Reads the file record after record and gives each statement line to the consumer once it is
+   * complete, that is once the next line is read.
+   *
+   * @throws AxelorException if a record is wrong or incomplete
+   */
+  protected void readLines(Consumer<Map<String, Object>> lineConsumer)
+      throws IOException, AxelorException {
+    Map<String, Object> structuredContentLine = null;
+    int lineNumber = 0;
+
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath())) {
+      String lineContent;
+      while ((lineContent = reader.readLine()) != null) {
+        lineNumber++;
+        log.debug("Read line : {}", lineContent);
+
+        if (lineContent.length() % RECORD_LENGTH != 0) {
+          throw new AxelorException(
+              TraceBackRepository.CATEGORY_INCONSISTENCY,
+              I18n.get(BankPaymentExceptionMessage.BANK_STATEMENT_FILE_INCOMPLETE_RECORD),
+              lineNumber,
+              lineContent.length() % RECORD_LENGTH,
+              RECORD_LENGTH);
+        }
+
+        for (int i = 0; i < lineContent.length(); i += RECORD_LENGTH) {
+          Map<String, Object> record =
+              readRecord(lineContent.substring(i, i + RECORD_LENGTH), structuredContentLine);
+          if (record == null) {
+            continue;
+          }
+          if (structuredContentLine != null) {
+            lineConsumer.accept(structuredContentLine);
+          }
+          structuredContentLine = record;
+        }
+      }
+    }
+
+    if (structuredContentLine != null) {
+      lineConsumer.accept(structuredContentLine);
+    }
+  }
+
+  /**
+   * Creates the statement lines in one transaction. If one of them fails, the lines are created one
+   * after the other so that only the wrong ones are skipped.
+   *
+   * @return the sequence of the next line
+   */
+  protected int createBankStatementLines(
+      List<Map<String, Object>> structuredContentLines, int sequence) {
+    if (structuredContentLines.isEmpty()) {
+      return sequence;
+    }
+
+    try {
+      createBankStatementLinesInTransaction(structuredContentLines, sequence);
+    } catch (Exception batchException) {
+      JPA.clear();
+      findBankStatement();
+
+      int lineSequence = sequence;
+      for (Map<String, Object> structuredContentLine : structuredContentLines) {
+        try {
+          createBankStatementLine(structuredContentLine, lineSequence++);
+        } catch (Exception e) {
+          TraceBackService.trace(
+              new Exception(String.format("Line %s : %s", lineSequence, e), e),
+              ExceptionOriginRepository.IMPORT);
           JPA.clear();
           findBankStatement();
         }
@@ -109,6 +209,16 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
     }
 
     JPA.clear();
+    findBankStatement();
+    return sequence + structuredContentLines.size();
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createBankStatementLinesInTransaction(
+      List<Map<String, Object>> structuredContentLines, int sequence) {
+    for (Map<String, Object> structuredContentLine : structuredContentLines) {
+      createBankStatementLine(structuredContentLine, sequence++);
+    }
   }
 
   @Transactional
@@ -200,62 +310,49 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
     return bankStatementLineAFB120Repository.save(bankStatementLineAFB120);
   }
 
-  protected List<Map<String, Object>> readFile() throws IOException, AxelorException {
-
-    List<Map<String, Object>> structuredContent = Lists.newArrayList();
-
-    List<String> fileContent = FileTool.reader(file.getPath());
-
-    for (String lineContent : fileContent) {
-      log.info("Read line : {}", lineContent);
-      String lineData = null;
-      int i = 0;
-
-      while (i < lineContent.length()) {
+  /**
+   * Reads a record of 120 characters.
+   *
+   * @param lineData the record
+   * @param previousLine the line of the previous record, completed by a complement record
+   * @return the line of the record, or null if the record completes the previous line or is not
+   *     handled
+   */
+  protected Map<String, Object> readRecord(String lineData, Map<String, Object> previousLine)
+      throws AxelorException {
 
-        lineData = lineContent.substring(i, i + 120);
+    // Code enregistrement
+    String operationCode =
+        cfonbToolService.readZone(
+            "Record code",
+            lineData,
+            cfonbToolService.STATUS_MANDATORY,
+            cfonbToolService.FORMAT_NUMERIC,
+            1,
+            2);
 
-        // Code enregistrement
-        String operationCode =
-            cfonbToolService.readZone(
-                "Record code",
-                lineData,
-                cfonbToolService.STATUS_MANDATORY,
-                cfonbToolService.FORMAT_NUMERIC,
-                1,
-                2);
-
-        switch (operationCode) {
-          case PREVIOUS_BALANCE_OPERATION_CODE:
-            structuredContent.add(readPreviousBalanceRecord(lineData));
-            break;
-          case MOVEMENT_OPERATION_CODE:
-            structuredContent.add(readMovementRecord(lineData));
-            break;
-          case COMPLEMENT_MOVEMENT_OPERATION_CODE:
-            Map<String, Object> movementLine = structuredContent.get(structuredContent.size() - 1);
-            String additionalInformation = "";
-            if (movementLine.containsKey("additionalInformation")) {
-              additionalInformation = (String) movementLine.get("additionalInformation") + "\n";
-            }
-            additionalInformation +=
-                (String) readAdditionalMovementRecord(lineData).get("additionalInformation");
-
-            movementLine.put("additionalInformation", additionalInformation);
-
-            break;
-          case NEW_BALANCE_OPERATION_CODE:
-            structuredContent.add(readNewBalanceRecord(lineData));
-            break;
-          default:
-            break;
+    switch (operationCode) {
+      case PREVIOUS_BALANCE_OPERATION_CODE:
+        return readPreviousBalanceRecord(lineData);
+      case MOVEMENT_OPERATION_CODE:
+        return readMovementRecord(lineData);
+      case COMPLEMENT_MOVEMENT_OPERATION_CODE:
+        if (previousLine != null) {
+          String additionalInformation = "";
+          if (previousLine.containsKey("additionalInformation")) {
+            additionalInformation = (String) previousLine.get("additionalInformation") + "\n";
+          }
+          additionalInformation +=
+              (String) readAdditionalMovementRecord(lineData).get("additionalInformation");
+
+          previousLine.put("additionalInformation", additionalInformation);
         }
-
-        i = i + 120;
-      }
+        return null;
+      case NEW_BALANCE_OPERATION_CODE:
+        return readNewBalanceRecord(lineData);
+      default:
+        return null;
     }
-
-    return structuredContent;
   }
 
   protected Map<String, Object> readPreviousBalanceRecord(String lineContent)
@@ -791,20 +888,36 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
   }
 
   protected Currency getCurrency(String isoCode) {
+    if (currencyMap != null && currencyMap.containsKey(isoCode)) {
+      return currencyMap.get(isoCode);
+    }
 
-    return currencyRepository.findByCode(isoCode);
+    Currency currency = currencyRepository.findByCode(isoCode);
+    if (currencyMap != null) {
+      currencyMap.put(isoCode, currency);
+    }
+    return currency;
   }
 
   protected BankDetails getBankDetails(String accountNumber, String bankCode, String sortCode) {
+    List<String> key = Arrays.asList(accountNumber, bankCode, sortCode);
+    if (bankDetailsMap != null && bankDetailsMap.containsKey(key)) {
+      return bankDetailsMap.get(key);
+    }
 
-    return bankDetailsRepository
-        .all()
-        .filter(
-            "self.accountNbr = ?1 and self.bankCode = ?2 and self.sortCode = ?3 and self.company is not null and active is true",
-            accountNumber,
-            bankCode,
-            sortCode)
-        .fetchOne();
+    BankDetails bankDetails =
+        bankDetailsRepository
+            .all()
+            .filter(
+                "self.accountNbr = ?1 and self.bankCode = ?2 and self.sortCode = ?3 and self.company is not null and active is true",
+                accountNumber,
+                bankCode,
+                sortCode)
+            .fetchOne();
+    if (bankDetailsMap != null) {
+      bankDetailsMap.put(key, bankDetails);
+    }
+    return bankDetails;
   }
 
   protected LocalDate getDate(String date) {
@@ -927,11 +1040,20 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
   }
 
   protected InterbankCodeLine getInterbankCodeLine(String code) {
-    return interbankCodeLineRepository
-        .all()
-        .filter("self.code = :code AND self.interbankCode.typeSelect = :type")
-        .bind("code", code)
-        .bind("type", InterbankCodeRepository.TYPE_OPERATION_CODE)
-        .fetchOne();
+    if (interbankCodeLineMap != null && interbankCodeLineMap.containsKey(code)) {
+      return interbankCodeLineMap.get(code);
+    }
+
+    InterbankCodeLine interbankCodeLine =
+        interbankCodeLineRepository
+            .all()
+            .filter("self.code = :code AND self.interbankCode.typeSelect = :type")
+            .bind("code", code)
+            .bind("type", InterbankCodeRepository.TYPE_OPERATION_CODE)
+            .fetchOne();
+    if (interbankCodeLineMap != null) {
+      interbankCodeLineMap.put(code, interbankCodeLine);
+    }
+    return interbankCodeLine;
   }
 }
@@ -119,16 +119,16 @@ public class BatchBankStatement extends AbstractBatch {
             I18n.get(
                 BaseExceptionMessage.ABSTRACT_BATCH_DONE_SINGULAR,
                 BaseExceptionMessage.ABSTRACT_BATCH_DONE_PLURAL,
-                batch.getDone()),
-            batch.getDone()));
+                getDone()),
+            getDone()));
     sb.append(" ");
     sb.append(
         String.format(
             I18n.get(
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_SINGULAR,
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_PLURAL,
-                batch.getAnomaly()),
-            batch.getAnomaly()));
+                getAnomaly()),
+            getAnomaly()));
     sb.append("\n");
     sb.append(
         String.format(
@@ -354,16 +354,16 @@ public class BatchBillOfExchange extends AbstractBatch {
             I18n.get(
                     BaseExceptionMessage.ABSTRACT_BATCH_DONE_SINGULAR,
                     BaseExceptionMessage.ABSTRACT_BATCH_DONE_PLURAL,
-                    batch.getDone())
+                    getDone())
                 + " ",
-            batch.getDone()));
+            getDone()));
     sb.append(
         String.format(
             I18n.get(
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_SINGULAR,
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_PLURAL,
-                batch.getAnomaly()),
-            batch.getAnomaly()));
+                getAnomaly()),
+            getAnomaly()));
     addComment(sb.toString());
     super.stop();
   }
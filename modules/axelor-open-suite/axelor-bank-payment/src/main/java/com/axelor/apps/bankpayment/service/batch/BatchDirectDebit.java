@@ -54,16 +54,16 @@ public abstract class BatchDirectDebit extends com.axelor.apps.account.service.b
             I18n.get(
                     BaseExceptionMessage.ABSTRACT_BATCH_DONE_SINGULAR,
                     BaseExceptionMessage.ABSTRACT_BATCH_DONE_PLURAL,
-                    batch.getDone())
+                    getDone())
                 + " ",
-            batch.getDone()));
+            getDone()));
     sb.append(
         String.format(
             I18n.get(
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_SINGULAR,
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_PLURAL,
-                batch.getAnomaly()),
-            batch.getAnomaly()));
+                getAnomaly()),
+            getAnomaly()));
     addComment(sb.toString());
     super.stop();
   }
@@ -226,14 +226,14 @@ public class BatchDirectDebitPaymentSchedule extends BatchDirectDebit {
   }
 
   protected void incrementDone(PaymentScheduleLine paymentScheduleLine) {
-    paymentScheduleLine.addBatchSetItem(batch);
+    JPA.runInTransaction(() -> paymentScheduleLine.addBatchSetItem(findBatch()));
     _incrementDone();
   }
 
   protected void incrementAnomaly(PaymentScheduleLine paymentScheduleLine) {
-    findBatch();
-    paymentScheduleLine = paymentScheduleLineRepo.find(paymentScheduleLine.getId());
-    paymentScheduleLine.addBatchSetItem(batch);
+    PaymentScheduleLine anomalyPaymentScheduleLine =
+        paymentScheduleLineRepo.find(paymentScheduleLine.getId());
+    JPA.runInTransaction(() -> anomalyPaymentScheduleLine.addBatchSetItem(findBatch()));
     _incrementAnomaly();
   }
 }
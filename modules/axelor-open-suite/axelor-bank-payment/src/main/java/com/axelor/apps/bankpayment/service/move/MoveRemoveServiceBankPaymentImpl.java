@@ -22,6 +22,7 @@ import com.axelor.apps.account.db.MoveLine;
 import com.axelor.apps.account.db.repo.MoveLineRepository;
 import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.service.AccountCustomerService;
+import com.axelor.apps.account.service.AccountingPeriodBalanceService;
 import com.axelor.apps.account.service.AccountingSituationService;
 import com.axelor.apps.account.service.ReconcileService;
 import com.axelor.apps.account.service.move.MoveRemoveServiceImpl;
@@ -50,6 +51,7 @@ public class MoveRemoveServiceBankPaymentImpl extends MoveRemoveServiceImpl {
       ReconcileService reconcileService,
       AccountingSituationService accountingSituationService,
       AccountCustomerService accountCustomerService,
+      AccountingPeriodBalanceService accountingPeriodBalanceService,
       BankStatementLineAFB120Repository bankStatementLineAFB120Repository) {
     super(
         moveRepo,
@@ -57,7 +59,8 @@ public class MoveRemoveServiceBankPaymentImpl extends MoveRemoveServiceImpl {
         archivingToolService,
         reconcileService,
         accountingSituationService,
-        accountCustomerService);
+        accountCustomerService,
+        accountingPeriodBalanceService);
     this.bankStatementLineAFB120Repository = bankStatementLineAFB120Repository;
   }
 
@@ -0,0 +1,144 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.service.bankreconciliation;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.bankpayment.db.BankStatementLine;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBankStatementQueryCondition {
+
+  protected static final String EQUAL_AMOUNT_QUERY =
+      "moveLine?.debit.equals(credit) && moveLine?.credit.equals(debit)";
+
+  protected static final String AMOUNT_AND_DATE_RANGE_QUERY =
+      "moveLine?.debit >= credit * 0.95 && moveLine?.debit <= credit * 1 "
+          + "&& moveLine?.credit >= debit * 0.95 && moveLine?.credit <= debit * 1 "
+          + "&& ((moveLine?.dueDate <= valueDate?.plusDays(3) && moveLine?.dueDate >=valueDate?.minusDays(3)) "
+          + "|| (moveLine?.date <= operationDate?.plusDays(3) && moveLine?.date >=operationDate?.minusDays(3)))";
+
+  @Test
+  public void testEqualAmount() {
+    BankStatementQueryCondition condition = BankStatementQueryCondition.of(EQUAL_AMOUNT_QUERY);
+    BankStatementLine bankStatementLine = createBankStatementLine("0.00", "150.00", null);
+
+    Assert.assertTrue(condition.isDebitEqualsCredit());
+    Assert.assertTrue(
+        condition.accept(bankStatementLine, createMoveLine("150.00", "0.00", null, null)));
+    Assert.assertFalse(
+        condition.accept(bankStatementLine, createMoveLine("149.99", "0.00", null, null)));
+    Assert.assertFalse(
+        condition.accept(bankStatementLine, createMoveLine("150.00", "1.00", null, null)));
+  }
+
+  @Test
+  public void testAmountAndDateRange() {
+    BankStatementQueryCondition condition =
+        BankStatementQueryCondition.of(AMOUNT_AND_DATE_RANGE_QUERY);
+    BankStatementLine bankStatementLine =
+        createBankStatementLine("0.00", "100.00", LocalDate.of(2023, 5, 10));
+
+    Assert.assertFalse(condition.isDebitEqualsCredit());
+    Assert.assertEquals(new BigDecimal("0.95"), condition.getDebitMinFactor());
+    Assert.assertEquals(new BigDecimal("1"), condition.getDebitMaxFactor());
+    Assert.assertTrue(
+        condition.accept(
+            bankStatementLine,
+            createMoveLine("96.00", "0.00", LocalDate.of(2023, 5, 13), LocalDate.of(2023, 1, 1))));
+    Assert.assertTrue(
+        condition.accept(
+            bankStatementLine,
+            createMoveLine("100.00", "0.00", LocalDate.of(2023, 1, 1), LocalDate.of(2023, 5, 7))));
+    Assert.assertFalse(
+        condition.accept(
+            bankStatementLine,
+            createMoveLine("94.00", "0.00", LocalDate.of(2023, 5, 10), LocalDate.of(2023, 5, 10))));
+    Assert.assertFalse(
+        condition.accept(
+            bankStatementLine,
+            createMoveLine("100.00", "0.00", LocalDate.of(2023, 5, 14), LocalDate.of(2023, 5, 6))));
+  }
+
+  @Test
+  public void testNullValuesAreNotRejected() {
+    BankStatementQueryCondition condition =
+        BankStatementQueryCondition.of(AMOUNT_AND_DATE_RANGE_QUERY);
+    BankStatementLine bankStatementLine = createBankStatementLine("0.00", "100.00", null);
+
+    Assert.assertTrue(
+        condition.accept(
+            bankStatementLine,
+            createMoveLine("100.00", "0.00", LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 1))));
+  }
+
+  @Test
+  public void testUnknownConditionsAreNotChecked() {
+    BankStatementQueryCondition condition =
+        BankStatementQueryCondition.of(
+            "description?.contains('a && b') && (moveLine?.debit > 0 || origin != null)");
+    BankStatementLine bankStatementLine = createBankStatementLine("0.00", "100.00", null);
+
+    Assert.assertTrue(
+        condition.accept(bankStatementLine, createMoveLine("5.00", "3.00", null, null)));
+  }
+
+  @Test
+  public void testEqualAmountIgnoresScale() {
+    BankStatementQueryCondition condition = BankStatementQueryCondition.of(EQUAL_AMOUNT_QUERY);
+    BankStatementLine bankStatementLine = createBankStatementLine("0", "150.0", null);
+
+    Assert.assertTrue(
+        condition.accept(bankStatementLine, createMoveLine("150.00", "0.00", null, null)));
+  }
+
+  @Test
+  public void testTopLevelOrIsNotChecked() {
+    BankStatementQueryCondition condition =
+        BankStatementQueryCondition.of(
+            "(moveLine?.debit.equals(credit) && moveLine?.credit.equals(debit) || origin != null)");
+    BankStatementLine bankStatementLine = createBankStatementLine("0.00", "100.00", null);
+
+    Assert.assertFalse(condition.isDebitEqualsCredit());
+    Assert.assertTrue(
+        condition.accept(bankStatementLine, createMoveLine("5.00", "3.00", null, null)));
+  }
+
+  protected BankStatementLine createBankStatementLine(
+      String debit, String credit, LocalDate valueDate) {
+    BankStatementLine bankStatementLine = new BankStatementLine();
+    bankStatementLine.setDebit(new BigDecimal(debit));
+    bankStatementLine.setCredit(new BigDecimal(credit));
+    bankStatementLine.setValueDate(valueDate);
+    bankStatementLine.setOperationDate(valueDate);
+    return bankStatementLine;
+  }
+
+  protected MoveLine createMoveLine(
+      String debit, String credit, LocalDate dueDate, LocalDate date) {
+    MoveLine moveLine = new MoveLine();
+    moveLine.setDebit(new BigDecimal(debit));
+    moveLine.setCredit(new BigDecimal(credit));
+    moveLine.setDueDate(dueDate);
+    moveLine.setDate(date);
+    return moveLine;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.service.bankreconciliation;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.bankpayment.db.BankStatementLine;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBankStatementQueryMatcher {
+
+  @Test
+  public void testEqualAmountCandidatesIgnoreScale() {
+    BankStatementQueryMatcher matcher =
+        new BankStatementQueryMatcher(
+            Arrays.asList(createMoveLine("10.00"), createMoveLine("20.00"), createMoveLine("10")));
+    BankStatementQueryCondition condition =
+        BankStatementQueryCondition.of(
+            "moveLine?.debit.equals(credit) && moveLine?.credit.equals(debit)");
+    BankStatementLine bankStatementLine = new BankStatementLine();
+    bankStatementLine.setDebit(BigDecimal.ZERO);
+    bankStatementLine.setCredit(new BigDecimal("10.0"));
+
+    Assert.assertArrayEquals(
+        new int[] {0, 2}, matcher.getCandidateIndexes(condition, bankStatementLine));
+  }
+
+  protected MoveLine createMoveLine(String debit) {
+    MoveLine moveLine = new MoveLine();
+    moveLine.setDebit(new BigDecimal(debit));
+    moveLine.setCredit(BigDecimal.ZERO);
+    return moveLine;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.db.repo;
+
+import com.axelor.apps.base.db.CurrencyConversionLine;
+import com.axelor.apps.base.service.CurrencyService;
+import com.axelor.db.JPA;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.transaction.Synchronization;
+import org.hibernate.Session;
+
+public class CurrencyConversionLineListener {
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  protected void invalidateRateIndex(CurrencyConversionLine currencyConversionLine) {
+    CurrencyService.invalidateRateIndex();
+
+    // The index could be rebuilt by another request before this transaction completes, so it is
+    // dropped again once the changes are visible, or rolled back.
+    JPA.em()
+        .unwrap(Session.class)
+        .getTransaction()
+        .registerSynchronization(
+            new Synchronization() {
+              @Override
+              public void beforeCompletion() {}
+
+              @Override
+              public void afterCompletion(int status) {
+                CurrencyService.invalidateRateIndex();
+              }
+            });
+  }
+}
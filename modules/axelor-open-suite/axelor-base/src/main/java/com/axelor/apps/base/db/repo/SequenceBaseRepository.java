@@ -19,6 +19,8 @@
 package com.axelor.apps.base.db.repo;
 
 import com.axelor.apps.base.db.Sequence;
+import com.axelor.apps.base.service.administration.SequenceService;
+import com.axelor.inject.Beans;
 
 public class SequenceBaseRepository extends SequenceRepository {
 
@@ -31,4 +33,10 @@ public class SequenceBaseRepository extends SequenceRepository {
 
     return copy;
   }
+
+  @Override
+  public Sequence save(Sequence sequence) {
+    Beans.get(SequenceService.class).releaseNumberBlocks(sequence);
+    return super.save(sequence);
+  }
 }
@@ -539,4 +539,7 @@ public final class BaseExceptionMessage {
 
   public static final String SWAGGER_NO_RESOURCE_PACKAGES = /*$$(*/
       "Swagger is enabled but not resource packages is specified." /*)*/;
+
+  public static final String GLOBAL_TRACKING_LOG_WRITER_STATUS = /*$$(*/
+      "Logs waiting to be written: %d / %d<br/>Logs saved in the transaction because too many were waiting: %d<br/>Logs written: %d<br/>Logs which could not be written: %d" /*)*/;
 }
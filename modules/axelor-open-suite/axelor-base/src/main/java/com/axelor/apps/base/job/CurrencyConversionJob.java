@@ -19,6 +19,7 @@
 package com.axelor.apps.base.job;
 
 import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.service.CurrencyService;
 import com.axelor.apps.base.service.currency.CurrencyConversionFactory;
 import com.google.inject.Inject;
 import org.quartz.Job;
@@ -35,6 +36,8 @@ public class CurrencyConversionJob implements Job {
       currencyConversionFactory.getCurrencyConversionService().updateCurrencyConverion();
     } catch (AxelorException e) {
       throw new JobExecutionException(e);
+    } finally {
+      CurrencyService.invalidateRateIndex();
     }
   }
 }
@@ -34,9 +34,9 @@ import com.axelor.apps.base.db.repo.ProductRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.report.IReport;
+import com.axelor.apps.base.service.administration.KeysetPager;
 import com.axelor.apps.base.service.administration.SequenceService;
 import com.axelor.apps.report.engine.ReportSettings;
-import com.axelor.db.JPA;
 import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.utils.StringTool;
@@ -199,24 +199,18 @@ public class ABCAnalysisServiceImpl implements ABCAnalysisService {
   }
 
   protected void createAllABCAnalysisLine(ABCAnalysis abcAnalysis) throws AxelorException {
-    int offset = 0;
-
     List<Product> productList;
-    Query<Product> productQuery =
-        productRepository
-            .all()
+    KeysetPager<Product> productPager =
+        KeysetPager.of(Product.class)
             .filter("self.id IN (" + StringTool.getIdListString(getProductSet(abcAnalysis)) + ")");
 
-    while (!(productList = productQuery.fetch(FETCH_LIMIT, offset)).isEmpty()) {
+    while (!(productList = productPager.fetchNext(FETCH_LIMIT)).isEmpty()) {
       abcAnalysis = abcAnalysisRepository.find(abcAnalysis.getId());
-      offset += productList.size();
 
       for (Product product : productList) {
         product = productRepository.find(product.getId());
         createABCAnalysisLineForEachProduct(abcAnalysis, product);
       }
-
-      JPA.clear();
     }
   }
 
@@ -258,19 +252,14 @@ public class ABCAnalysisServiceImpl implements ABCAnalysisService {
 
   protected void doAnalysis(ABCAnalysis abcAnalysis) {
     List<ABCAnalysisLine> abcAnalysisLineList;
-    int offset = 0;
-    Query<ABCAnalysisLine> query =
-        abcAnalysisLineRepository
-            .all()
+    KeysetPager<ABCAnalysisLine> abcAnalysisLinePager =
+        KeysetPager.of(ABCAnalysisLine.class)
             .filter("self.abcAnalysis.id = :abcAnalysisId")
             .bind("abcAnalysisId", abcAnalysis.getId())
-            .order("-decimalWorth")
-            .order("id");
+            .order("-decimalWorth");
 
-    while (!(abcAnalysisLineList = query.fetch(FETCH_LIMIT, offset)).isEmpty()) {
-      offset += abcAnalysisLineList.size();
+    while (!(abcAnalysisLineList = abcAnalysisLinePager.fetchNext(FETCH_LIMIT)).isEmpty()) {
       abcAnalysisLineList.forEach(this::analyzeLine);
-      JPA.clear();
     }
   }
 
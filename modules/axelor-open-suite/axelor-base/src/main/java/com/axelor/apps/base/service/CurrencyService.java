@@ -25,6 +25,8 @@ import com.axelor.apps.base.db.repo.CurrencyConversionLineRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.currency.CurrencyConversionRateIndex;
+import com.axelor.apps.base.service.currency.CurrencyConversionRateIndex.RatePeriod;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
 import com.axelor.i18n.I18n;
@@ -36,6 +38,7 @@ import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -52,6 +55,13 @@ public class CurrencyService {
 
   private LocalDate today;
 
+  /**
+   * Shared by every instance, including the ones created outside of the injector. It is dropped
+   * whenever a currency conversion line changes, and rebuilt once expired to follow the changes
+   * made on other servers.
+   */
+  private static volatile CurrencyConversionRateIndex rateIndex;
+
   @Inject
   public CurrencyService(
       AppBaseService appBaseService, CurrencyConversionLineRepository currencyConversionLineRepo) {
@@ -83,6 +93,11 @@ public class CurrencyService {
     if (startCurrency != null && endCurrency != null && !startCurrency.equals(endCurrency)) {
 
       LocalDate dateToConvert = this.getDateToConvert(date);
+
+      if (startCurrency.getId() != null && endCurrency.getId() != null) {
+        return this.getIndexedCurrencyConversionRate(startCurrency, endCurrency, dateToConvert);
+      }
+
       boolean isInverse = true;
       BigDecimal exchangeRate = null;
 
@@ -124,6 +139,93 @@ public class CurrencyService {
     return BigDecimal.ONE;
   }
 
+  protected BigDecimal getIndexedCurrencyConversionRate(
+      Currency startCurrency, Currency endCurrency, LocalDate dateToConvert)
+      throws AxelorException {
+
+    CurrencyConversionRateIndex index = this.getRateIndex();
+    boolean isInverse = false;
+
+    RatePeriod ratePeriod =
+        index.findRatePeriod(startCurrency.getId(), endCurrency.getId(), dateToConvert);
+
+    if (ratePeriod == null) {
+      ratePeriod = index.findRatePeriod(endCurrency.getId(), startCurrency.getId(), dateToConvert);
+      isInverse = true;
+
+      if (ratePeriod == null) {
+        throw new AxelorException(
+            TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+            I18n.get(BaseExceptionMessage.CURRENCY_1),
+            startCurrency.getName(),
+            endCurrency.getName(),
+            dateToConvert);
+      }
+    }
+
+    BigDecimal exchangeRate = ratePeriod.getExchangeRate();
+
+    if (exchangeRate == null || exchangeRate.compareTo(BigDecimal.ZERO) == 0) {
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+          I18n.get(BaseExceptionMessage.CURRENCY_2),
+          startCurrency.getName(),
+          endCurrency.getName(),
+          dateToConvert);
+    }
+
+    return isInverse ? BigDecimal.ONE.divide(exchangeRate, 10, RoundingMode.HALF_UP) : exchangeRate;
+  }
+
+  protected CurrencyConversionRateIndex getRateIndex() {
+
+    CurrencyConversionRateIndex index = rateIndex;
+
+    if (index == null || index.isExpired()) {
+      synchronized (CurrencyService.class) {
+        index = rateIndex;
+        if (index == null || index.isExpired()) {
+          index = this.buildRateIndex();
+          rateIndex = index;
+        }
+      }
+    }
+
+    return index;
+  }
+
+  protected CurrencyConversionRateIndex buildRateIndex() {
+
+    CurrencyConversionRateIndex.Builder builder = CurrencyConversionRateIndex.builder();
+    List<CurrencyConversionLine> currencyConversionLineList =
+        appBaseService.getCurrencyConfigurationLineList();
+
+    if (currencyConversionLineList != null) {
+      for (CurrencyConversionLine ccl : currencyConversionLineList) {
+        builder.add(
+            ccl.getStartCurrency() != null ? ccl.getStartCurrency().getId() : null,
+            ccl.getEndCurrency() != null ? ccl.getEndCurrency().getId() : null,
+            ccl.getFromDate(),
+            ccl.getToDate(),
+            ccl.getExchangeRate());
+      }
+    }
+
+    log.debug(
+        "Currency conversion rate index built from {} lines",
+        currencyConversionLineList != null ? currencyConversionLineList.size() : 0);
+
+    return builder.build();
+  }
+
+  /**
+   * Drop the cached conversion rates, they will be read again from the currency conversion lines on
+   * the next conversion.
+   */
+  public static void invalidateRateIndex() {
+    rateIndex = null;
+  }
+
   protected CurrencyConversionLine getCurrencyConversionLine(
       Currency startCurrency, Currency endCurrency, LocalDate localDate) {
 
@@ -182,6 +284,36 @@ public class CurrencyService {
     return amount;
   }
 
+  /**
+   * Convert all the amounts in start currency into the end currency according to the date to
+   * convert. The exchange rate is only looked up once.
+   *
+   * @param startCurrency
+   * @param endCurrency
+   * @param amountList
+   * @param date
+   * @return the converted amounts, in the same order as the given ones
+   * @throws AxelorException
+   */
+  public List<BigDecimal> getAmountsCurrencyConvertedAtDate(
+      Currency startCurrency, Currency endCurrency, List<BigDecimal> amountList, LocalDate date)
+      throws AxelorException {
+
+    if (startCurrency == null || endCurrency == null || startCurrency.equals(endCurrency)) {
+      return new ArrayList<>(amountList);
+    }
+
+    BigDecimal exchangeRate = this.getCurrencyConversionRate(startCurrency, endCurrency, date);
+    List<BigDecimal> convertedAmountList = new ArrayList<>(amountList.size());
+
+    for (BigDecimal amount : amountList) {
+      convertedAmountList.add(
+          this.getAmountCurrencyConvertedUsingExchangeRate(amount, exchangeRate));
+    }
+
+    return convertedAmountList;
+  }
+
   /**
    * Convert the amount in start currency into the end currency according to the exchange rate
    *
@@ -24,7 +24,9 @@ import com.axelor.apps.base.db.DataBackup;
 import com.axelor.apps.base.db.repo.AnonymizerLineRepository;
 import com.axelor.apps.base.db.repo.DataBackupRepository;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.service.administration.KeysetPager;
 import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.AuditableModel;
 import com.axelor.common.StringUtils;
 import com.axelor.common.csv.CSVFile;
@@ -38,6 +40,7 @@ import com.axelor.db.Query;
 import com.axelor.db.internal.DBHelper;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
+import com.axelor.inject.Beans;
 import com.axelor.meta.MetaFiles;
 import com.axelor.meta.db.MetaFile;
 import com.axelor.meta.db.MetaJsonField;
@@ -49,6 +52,9 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
 import com.thoughtworks.xstream.XStream;
 import java.io.BufferedInputStream;
 import java.io.File;
@@ -68,16 +74,26 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import javax.naming.NamingException;
 import org.apache.commons.csv.CSVPrinter;
+import org.apache.shiro.subject.Subject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -174,79 +190,43 @@ public class DataBackupCreateService {
       salt = anonymizeService.getSalt();
     }
 
-    if (errorsCount == 0) {
-      for (MetaModel metaModel : metaModelList) {
-
-        try {
-          List<String> subClasses = subClassesMap.get(metaModel.getFullName());
-          long totalRecord = getMetaModelDataCount(metaModel, subClasses);
-          if (!dataBackup.getIsProcessEmptyTable() && totalRecord < 1) {
-            continue;
-          }
-
-          LOG.debug("Exporting Model : " + metaModel.getFullName());
-          notNullReferenceFlag = false;
-          referenceFlag = false;
-
-          File templateFile = new File(tempDirectoryPath, metaModel.getName() + ".csv");
-          CSVFile csvFormat =
-              CSVFile.DEFAULT.withDelimiter(SEPARATOR).withQuoteAll().withFirstRecordAsHeader();
-          CSVPrinter printer = csvFormat.write(templateFile);
-          CSVInput csvInput =
-              writeCSVData(
-                  metaModel, printer, dataBackup, totalRecord, subClasses, tempDirectoryPath, salt);
-          printer.close();
+    // The files of each model are added to the archive as soon as the model is exported
+    File zippedFile = new File(tempDirectoryPath, getZipFileName());
+    try (ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(zippedFile))) {
+      if (errorsCount == 0) {
+        List<DataBackupModelExport> modelExportList;
+        if (dataBackup.getThreadCount() > 1) {
+          modelExportList =
+              exportMetaModelsInParallel(
+                  dataBackup, metaModelList, subClassesMap, tempDirectoryPath, salt, zipOut);
+        } else {
+          modelExportList =
+              exportMetaModels(
+                  dataBackup, metaModelList, subClassesMap, tempDirectoryPath, salt, zipOut);
+        }
 
-          if (notNullReferenceFlag) {
-            notNullReferenceCsvs.add(csvInput);
-          } else if (referenceFlag) {
-            refernceCsvs.add(csvInput);
-            CSVInput temcsv = new CSVInput();
-            temcsv.setFileName(csvInput.getFileName());
-            temcsv.setTypeName(csvInput.getTypeName());
-
-            if (dataBackup.getIsRelativeDate()) {
-              temcsv.setBindings(new ArrayList<>());
-              getCsvInputForDateorDateTime(metaModel, temcsv);
-            }
-            if (AutoImportModelMap.containsKey(csvInput.getTypeName())) {
-              temcsv.setSearch(AutoImportModelMap.get(csvInput.getTypeName()).toString());
-            }
-            if (Class.forName(metaModel.getFullName()).getSuperclass() == App.class) {
-              temcsv.setSearch("self.code = :code");
-            }
-            if (!AutoImportModelMap.containsKey(csvInput.getTypeName())
-                && !((Class.forName(metaModel.getFullName()).getSuperclass()).equals(App.class))) {
-              temcsv.setSearch("self.importId = :importId");
-            }
-            simpleCsvs.add(temcsv);
+        for (DataBackupModelExport modelExport : modelExportList) {
+          if (modelExport.getError() != null) {
+            errorsCount++;
+          } else if (modelExport.isNotNullReference()) {
+            notNullReferenceCsvs.add(modelExport.getCsvInput());
+          } else if (modelExport.getReferenceCsvInput() != null) {
+            refernceCsvs.add(modelExport.getCsvInput());
+            simpleCsvs.add(modelExport.getReferenceCsvInput());
           } else {
-            simpleCsvs.add(csvInput);
+            simpleCsvs.add(modelExport.getCsvInput());
           }
-
-          fileNameList.add(metaModel.getName() + ".csv");
-        } catch (ClassNotFoundException | IOException e) {
-          TraceBackService.trace(e, DataBackupService.class.getName());
-        } catch (Exception e) {
-          JPA.em().getTransaction().rollback();
-          if (!dataBackup.getCheckAllErrorFirst()) {
-            sb.append("\nError occured while processing model : " + metaModel.getFullName() + "\n");
-            sb.append(e.getMessage() + "\n");
-          }
-          JPA.em().getTransaction().begin();
-          dataBackup = dataBackupRepository.find(dataBackup.getId());
-          errorsCount++;
         }
-      }
 
-      CSVConfig csvConfig = new CSVConfig();
-      csvConfig.setInputs(simpleCsvs);
-      csvConfig.getInputs().addAll(notNullReferenceCsvs);
-      csvConfig.getInputs().addAll(refernceCsvs);
-      csvConfig.getInputs().addAll(notNullReferenceCsvs);
-      generateConfig(tempDirectoryPath, csvConfig);
+        CSVConfig csvConfig = new CSVConfig();
+        csvConfig.setInputs(simpleCsvs);
+        csvConfig.getInputs().addAll(notNullReferenceCsvs);
+        csvConfig.getInputs().addAll(refernceCsvs);
+        csvConfig.getInputs().addAll(notNullReferenceCsvs);
+        generateConfig(tempDirectoryPath, csvConfig);
 
-      fileNameList.add(DataBackupServiceImpl.CONFIG_FILE_NAME);
+        addToZIP(zipOut, tempDirectoryPath, DataBackupServiceImpl.CONFIG_FILE_NAME);
+      }
     }
 
     try {
@@ -266,9 +246,9 @@ public class DataBackupCreateService {
       }
 
       if (errorsCount == 0) {
-        File zippedFile = generateZIP(tempDirectoryPath, fileNameList);
         dataBackup.setBackupMetaFile(metaFiles.upload(zippedFile));
       } else {
+        Files.deleteIfExists(zippedFile.toPath());
         dataBackup.setStatusSelect(DataBackupRepository.DATA_BACKUP_STATUS_ERROR);
       }
     } catch (IOException e) {
@@ -278,6 +258,228 @@ public class DataBackupCreateService {
     return dataBackup;
   }
 
+  /* Export the MetaModels one after the other, in the current transaction */
+  protected List<DataBackupModelExport> exportMetaModels(
+      DataBackup dataBackup,
+      List<MetaModel> metaModelList,
+      Map<String, List<String>> subClassesMap,
+      String tempDirectoryPath,
+      byte[] salt,
+      ZipOutputStream zipOut) {
+    List<DataBackupModelExport> modelExportList = new ArrayList<>();
+
+    for (MetaModel metaModel : metaModelList) {
+      try {
+        DataBackupModelExport modelExport =
+            exportMetaModel(
+                metaModel,
+                dataBackup,
+                subClassesMap.get(metaModel.getFullName()),
+                tempDirectoryPath,
+                salt);
+        if (modelExport != null) {
+          addToZIP(zipOut, tempDirectoryPath, modelExport.getFileNameList());
+          modelExportList.add(modelExport);
+        }
+      } catch (ClassNotFoundException | IOException e) {
+        TraceBackService.trace(e, DataBackupService.class.getName());
+      } catch (Exception e) {
+        JPA.em().getTransaction().rollback();
+        if (!dataBackup.getCheckAllErrorFirst()) {
+          sb.append("\nError occured while processing model : " + metaModel.getFullName() + "\n");
+          sb.append(e.getMessage() + "\n");
+        }
+        JPA.em().getTransaction().begin();
+        dataBackup = dataBackupRepository.find(dataBackup.getId());
+        modelExportList.add(new DataBackupModelExport(metaModel, e));
+      }
+    }
+
+    return modelExportList;
+  }
+
+  /*
+   * Export the MetaModels on a pool of threads, each of them using its own instance of this service
+   * and its own persistence context. The exports are returned in the order of the MetaModels so
+   * that the generated config does not depend on which model was exported first.
+   */
+  protected List<DataBackupModelExport> exportMetaModelsInParallel(
+      DataBackup dataBackup,
+      List<MetaModel> metaModelList,
+      Map<String, List<String>> subClassesMap,
+      String tempDirectoryPath,
+      byte[] salt,
+      ZipOutputStream zipOut)
+      throws IOException {
+    final Long dataBackupId = dataBackup.getId();
+    final Subject subject = AuthUtils.getSubject();
+    Map<Future<DataBackupModelExport>, Integer> indexMap = new HashMap<>();
+    DataBackupModelExport[] modelExports = new DataBackupModelExport[metaModelList.size()];
+
+    ExecutorService executor = Executors.newFixedThreadPool(dataBackup.getThreadCount());
+    CompletionService<DataBackupModelExport> completionService =
+        new ExecutorCompletionService<>(executor);
+    try {
+      for (int i = 0; i < metaModelList.size(); i++) {
+        final String metaModelName = metaModelList.get(i).getName();
+        final List<String> subClasses = subClassesMap.get(metaModelList.get(i).getFullName());
+        Callable<DataBackupModelExport> task =
+            () ->
+                exportMetaModelInWorkerContext(
+                    metaModelName, dataBackupId, subClasses, tempDirectoryPath, salt);
+        indexMap.put(
+            completionService.submit(subject != null ? subject.associateWith(task) : task), i);
+      }
+
+      for (int i = 0; i < metaModelList.size(); i++) {
+        Future<DataBackupModelExport> future = completionService.take();
+        DataBackupModelExport modelExport = future.get();
+        if (modelExport == null) {
+          continue;
+        }
+
+        if (modelExport.getError() == null) {
+          addToZIP(zipOut, tempDirectoryPath, modelExport.getFileNameList());
+        } else if (modelExport.getError() instanceof ClassNotFoundException
+            || modelExport.getError() instanceof IOException) {
+          TraceBackService.trace(modelExport.getError(), DataBackupService.class.getName());
+          continue;
+        } else if (!dataBackup.getCheckAllErrorFirst()) {
+          synchronized (sb) {
+            sb.append(
+                "\nError occured while processing model : "
+                    + modelExport.getMetaModelFullName()
+                    + "\n");
+            sb.append(modelExport.getError().getMessage() + "\n");
+          }
+        }
+        modelExports[indexMap.get(future)] = modelExport;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    List<DataBackupModelExport> modelExportList = new ArrayList<>();
+    for (DataBackupModelExport modelExport : modelExports) {
+      if (modelExport != null) {
+        modelExportList.add(modelExport);
+      }
+    }
+    return modelExportList;
+  }
+
+  protected DataBackupModelExport exportMetaModelInWorkerContext(
+      String metaModelName,
+      Long dataBackupId,
+      List<String> subClasses,
+      String tempDirectoryPath,
+      byte[] salt) {
+    RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      DataBackupCreateService workerService = Beans.get(DataBackupCreateService.class);
+      MetaModel metaModel = metaModelRepo.findByName(metaModelName);
+      DataBackupModelExport modelExport;
+      try {
+        modelExport =
+            workerService.exportMetaModel(
+                metaModel,
+                dataBackupRepository.find(dataBackupId),
+                subClasses,
+                tempDirectoryPath,
+                salt);
+      } catch (Exception e) {
+        modelExport = new DataBackupModelExport(metaModel, e);
+      }
+      synchronized (sb) {
+        sb.append(workerService.sb);
+      }
+      return modelExport;
+    } finally {
+      Beans.get(UnitOfWork.class).end();
+    }
+  }
+
+  /**
+   * Export the data of the MetaModel into its csv file.
+   *
+   * @return the export of the MetaModel, or null if its table is empty and empty tables are not
+   *     processed
+   */
+  protected DataBackupModelExport exportMetaModel(
+      MetaModel metaModel,
+      DataBackup dataBackup,
+      List<String> subClasses,
+      String tempDirectoryPath,
+      byte[] salt)
+      throws Exception {
+    long startTime = System.currentTimeMillis();
+    long totalRecord = getMetaModelDataCount(metaModel, subClasses);
+    if (!dataBackup.getIsProcessEmptyTable() && totalRecord < 1) {
+      return null;
+    }
+
+    LOG.debug("Exporting Model : " + metaModel.getFullName());
+    notNullReferenceFlag = false;
+    referenceFlag = false;
+    fileNameList = new ArrayList<>();
+
+    File templateFile = new File(tempDirectoryPath, metaModel.getName() + ".csv");
+    CSVFile csvFormat =
+        CSVFile.DEFAULT.withDelimiter(SEPARATOR).withQuoteAll().withFirstRecordAsHeader();
+    CSVPrinter printer = csvFormat.write(templateFile);
+    CSVInput csvInput;
+    try {
+      csvInput =
+          writeCSVData(
+              metaModel, printer, dataBackup, totalRecord, subClasses, tempDirectoryPath, salt);
+    } finally {
+      printer.close();
+    }
+
+    DataBackupModelExport modelExport = new DataBackupModelExport(metaModel, csvInput);
+    modelExport.setNotNullReference(notNullReferenceFlag);
+
+    if (!notNullReferenceFlag && referenceFlag) {
+      CSVInput temcsv = new CSVInput();
+      temcsv.setFileName(csvInput.getFileName());
+      temcsv.setTypeName(csvInput.getTypeName());
+
+      if (dataBackup.getIsRelativeDate()) {
+        temcsv.setBindings(new ArrayList<>());
+        getCsvInputForDateorDateTime(metaModel, temcsv);
+      }
+      if (AutoImportModelMap.containsKey(csvInput.getTypeName())) {
+        temcsv.setSearch(AutoImportModelMap.get(csvInput.getTypeName()).toString());
+      }
+      if (Class.forName(metaModel.getFullName()).getSuperclass() == App.class) {
+        temcsv.setSearch("self.code = :code");
+      }
+      if (!AutoImportModelMap.containsKey(csvInput.getTypeName())
+          && !((Class.forName(metaModel.getFullName()).getSuperclass()).equals(App.class))) {
+        temcsv.setSearch("self.importId = :importId");
+      }
+      modelExport.setReferenceCsvInput(temcsv);
+    }
+
+    fileNameList.add(0, metaModel.getName() + ".csv");
+    modelExport.setFileNameList(fileNameList);
+
+    long duration = System.currentTimeMillis() - startTime;
+    LOG.info(
+        "Model {} exported : {} records in {} ms ({} records/s)",
+        metaModel.getFullName(),
+        totalRecord,
+        duration,
+        duration > 0 ? totalRecord * 1000 / duration : totalRecord);
+
+    return modelExport;
+  }
+
   protected void getCsvInputForDateorDateTime(MetaModel metaModel, CSVInput csvInput) {
     try {
       Mapper metaModelMapper = Mapper.of(Class.forName(metaModel.getFullName()));
@@ -353,6 +555,19 @@ public class DataBackupCreateService {
     return null;
   }
 
+  /* Get a pager over all data of specific MetaModel */
+  @SuppressWarnings("unchecked")
+  protected KeysetPager<Model> getMetaModelDataPager(MetaModel metaModel, List<String> subClasses)
+      throws ClassNotFoundException {
+
+    if (getQuery(metaModel, subClasses) == null) {
+      return null;
+    }
+
+    return KeysetPager.of((Class<Model>) Class.forName(metaModel.getFullName()))
+        .filter(getSubClassesFilter(subClasses));
+  }
+
   protected long getMetaModelDataCount(MetaModel metaModel, List<String> subClasses)
       throws ClassNotFoundException {
     Query<Model> query = getQuery(metaModel, subClasses);
@@ -365,13 +580,7 @@ public class DataBackupCreateService {
 
   protected Query<Model> getQuery(MetaModel metaModel, List<String> subClasses)
       throws ClassNotFoundException {
-    StringBuilder whereStr = new StringBuilder();
-    if (subClasses != null && !subClasses.isEmpty()) {
-      for (String subClassName : subClasses) {
-        whereStr.append(whereStr.length() > 0 ? " AND " : "");
-        whereStr.append("id NOT IN (select id from ").append(subClassName).append(")");
-      }
-    }
+    String whereStr = getSubClassesFilter(subClasses);
     @SuppressWarnings("unchecked")
     Class<Model> klass = (Class<Model>) Class.forName(metaModel.getFullName());
     JpaRepository<Model> model = null;
@@ -383,8 +592,8 @@ public class DataBackupCreateService {
     }
     if (model != null) {
       query = JpaRepository.of(klass).all();
-      if (StringUtils.notEmpty(whereStr.toString())) {
-        query.filter(whereStr.toString());
+      if (StringUtils.notEmpty(whereStr)) {
+        query.filter(whereStr);
       }
 
       try {
@@ -424,6 +633,17 @@ public class DataBackupCreateService {
     return query;
   }
 
+  protected String getSubClassesFilter(List<String> subClasses) {
+    StringBuilder whereStr = new StringBuilder();
+    if (subClasses != null && !subClasses.isEmpty()) {
+      for (String subClassName : subClasses) {
+        whereStr.append(whereStr.length() > 0 ? " AND " : "");
+        whereStr.append("self.id NOT IN (select id from ").append(subClassName).append(")");
+      }
+    }
+    return whereStr.toString();
+  }
+
   protected CSVInput writeCSVData(
       MetaModel metaModel,
       CSVPrinter printer,
@@ -451,12 +671,15 @@ public class DataBackupCreateService {
       csvInput.setTypeName(metaModel.getFullName());
       csvInput.setBindings(new ArrayList<>());
 
+      KeysetPager<Model> pager =
+          totalRecord > 0 ? getMetaModelDataPager(metaModel, subClasses) : null;
+
       if (totalRecord > 0) {
-        for (int i = 0; i < totalRecord; i = i + fetchLimit) {
+        for (int i = 0; i < totalRecord && pager != null; i = i + fetchLimit) {
 
-          dataList = getMetaModelDataList(metaModel, i, fetchLimit, subClasses);
+          dataList = pager.fetchNext(fetchLimit);
 
-          if (dataList != null && !dataList.isEmpty()) {
+          if (!dataList.isEmpty()) {
             dataBackup = dataBackupRepository.find(dataBackup.getId());
             for (Object dataObject : dataList) {
               dataArr = new ArrayList<>();
@@ -502,6 +725,11 @@ public class DataBackupCreateService {
             }
           }
           JPA.clear();
+          LOG.debug(
+              "Model {} : {}/{} records exported",
+              metaModel.getName(),
+              Math.min(i + fetchLimit, totalRecord),
+              totalRecord);
         }
       } else {
         for (Property property : pro) {
@@ -796,31 +1024,9 @@ public class DataBackupCreateService {
 
   protected File generateZIP(String dirPath, List<String> fileNameList) {
 
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-    String backupZipFileName = "DataBackup_" + LocalDateTime.now().format(formatter) + ".zip";
-    File zipFile = new File(dirPath, backupZipFileName);
+    File zipFile = new File(dirPath, getZipFileName());
     try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
-
-      for (String fileName : fileNameList) {
-        ZipEntry e = new ZipEntry(fileName);
-        out.putNextEntry(e);
-        File file = new File(dirPath, fileName);
-        try (BufferedInputStream bin = new BufferedInputStream(new FileInputStream(file))) {
-          byte[] data;
-          while (bin.available() > 0) {
-            if (bin.available() < BUFFER_SIZE) {
-              data = new byte[bin.available()];
-            } else {
-              data = new byte[BUFFER_SIZE];
-            }
-            bin.read(data, 0, data.length);
-            out.write(data, 0, data.length);
-          }
-          out.closeEntry();
-
-          file.delete();
-        }
-      }
+      addToZIP(out, dirPath, fileNameList);
     } catch (IOException e) {
       TraceBackService.trace(e, "Error From DataBackupCreateService - generateZIP()");
     }
@@ -828,6 +1034,35 @@ public class DataBackupCreateService {
     return zipFile;
   }
 
+  protected String getZipFileName() {
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    return "DataBackup_" + LocalDateTime.now().format(formatter) + ".zip";
+  }
+
+  /* Add the files to the archive, then delete them */
+  protected void addToZIP(ZipOutputStream out, String dirPath, String... fileNames)
+      throws IOException {
+    addToZIP(out, dirPath, Arrays.asList(fileNames));
+  }
+
+  protected void addToZIP(ZipOutputStream out, String dirPath, List<String> fileNameList)
+      throws IOException {
+    for (String fileName : fileNameList) {
+      ZipEntry e = new ZipEntry(fileName);
+      out.putNextEntry(e);
+      File file = new File(dirPath, fileName);
+      try (BufferedInputStream bin = new BufferedInputStream(new FileInputStream(file))) {
+        byte[] data = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = bin.read(data)) > 0) {
+          out.write(data, 0, length);
+        }
+        out.closeEntry();
+      }
+      file.delete();
+    }
+  }
+
   /* Generate XML File from CSVConfig */
   protected void generateConfig(String dirPath, CSVConfig csvConfig) {
 
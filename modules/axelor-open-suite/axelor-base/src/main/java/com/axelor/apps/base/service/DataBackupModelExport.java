@@ -0,0 +1,83 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.data.csv.CSVInput;
+import com.axelor.meta.db.MetaModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/** The result of the export of a MetaModel by {@link DataBackupCreateService}. */
+public class DataBackupModelExport {
+
+  protected String metaModelFullName;
+  protected CSVInput csvInput;
+  protected CSVInput referenceCsvInput;
+  protected boolean notNullReference;
+  protected List<String> fileNameList = new ArrayList<>();
+  protected Exception error;
+
+  public DataBackupModelExport(MetaModel metaModel, CSVInput csvInput) {
+    this.metaModelFullName = metaModel.getFullName();
+    this.csvInput = csvInput;
+  }
+
+  public DataBackupModelExport(MetaModel metaModel, Exception error) {
+    this.metaModelFullName = metaModel.getFullName();
+    this.error = error;
+  }
+
+  public String getMetaModelFullName() {
+    return metaModelFullName;
+  }
+
+  public CSVInput getCsvInput() {
+    return csvInput;
+  }
+
+  /** @return the input updating the references of the records, imported after all the others */
+  public CSVInput getReferenceCsvInput() {
+    return referenceCsvInput;
+  }
+
+  public void setReferenceCsvInput(CSVInput referenceCsvInput) {
+    this.referenceCsvInput = referenceCsvInput;
+  }
+
+  public boolean isNotNullReference() {
+    return notNullReference;
+  }
+
+  public void setNotNullReference(boolean notNullReference) {
+    this.notNullReference = notNullReference;
+  }
+
+  /** @return the csv file of the model followed by its binary files */
+  public List<String> getFileNameList() {
+    return fileNameList;
+  }
+
+  public void setFileNameList(List<String> fileNameList) {
+    this.fileNameList = fileNameList;
+  }
+
+  public Exception getError() {
+    return error;
+  }
+}
@@ -20,6 +20,7 @@ package com.axelor.apps.base.service;
 
 import static com.axelor.common.StringUtils.isBlank;
 
+import com.axelor.app.AppSettings;
 import com.axelor.apps.base.db.MailTemplateAssociation;
 import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.db.repo.PartnerRepository;
@@ -59,8 +60,11 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.Inject;
 import java.io.File;
 import java.io.IOException;
@@ -68,16 +72,20 @@ import java.io.UnsupportedEncodingException;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Singleton;
 import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import org.slf4j.Logger;
@@ -88,7 +96,34 @@ public class MailServiceBaseImpl extends MailServiceMessageImpl {
 
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-  private ExecutorService executor = Executors.newCachedThreadPool();
+  protected static final String MAIL_SENDER_THREADS = "aos.mail.sender.threads";
+  protected static final String MAIL_SENDER_QUEUE_SIZE = "aos.mail.sender.queue-size";
+  protected static final String MAIL_SENDER_RATE = "aos.mail.sender.rate";
+
+  protected static final int SEND_ATTEMPTS = 3;
+  protected static final long SEND_RETRY_DELAY_MILLIS = 1000;
+
+  /*
+   * Parsed groovy templates by template id, version and text, the same templates being rendered for
+   * every message of a model. String templates are not cached as rendering adds the context to the
+   * parsed template.
+   */
+  protected static final Cache<List<Object>, com.axelor.text.Template> PARSED_TEMPLATE_CACHE =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  /* Senders by email account id and version */
+  protected static final Cache<List<Object>, MailSender> MAIL_SENDER_CACHE =
+      CacheBuilder.newBuilder().maximumSize(100).build();
+
+  /*
+   * Emails are sent by a bounded pool of threads. When its queue is full, the email is sent by the
+   * calling thread, which slows down the mass sendings instead of creating more threads.
+   */
+  private final ThreadPoolExecutor executor;
+  private final RateLimiter rateLimiter;
+
+  private final AtomicLong sentCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
 
   protected Template messageTemplate = null;
   protected Map<String, Object> templatesContext;
@@ -101,6 +136,28 @@ public class MailServiceBaseImpl extends MailServiceMessageImpl {
   public MailServiceBaseImpl(MailAccountService mailAccountService, AppBaseService appBaseService) {
     super(mailAccountService);
     this.appBaseService = appBaseService;
+
+    AppSettings settings = AppSettings.get();
+    this.executor =
+        createExecutor(
+            settings.getInt(MAIL_SENDER_THREADS, 4), settings.getInt(MAIL_SENDER_QUEUE_SIZE, 1000));
+
+    int rate = settings.getInt(MAIL_SENDER_RATE, 0);
+    this.rateLimiter = rate > 0 ? RateLimiter.create(rate) : null;
+  }
+
+  protected static ThreadPoolExecutor createExecutor(int threadCount, int queueSize) {
+    threadCount = Math.max(1, threadCount);
+    ThreadPoolExecutor threadPoolExecutor =
+        new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(Math.max(1, queueSize)),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    threadPoolExecutor.allowCoreThreadTimeOut(true);
+    return threadPoolExecutor;
   }
 
   @Override
@@ -305,7 +362,7 @@ public class MailServiceBaseImpl extends MailServiceMessageImpl {
     Preconditions.checkNotNull(message, "mail message can't be null");
 
     final Model related = findEntity(message);
-    final MailSender sender = getMailSender(emailAccount);
+    final MailSender sender = getCachedMailSender(emailAccount);
 
     final Set<String> recipients = recipients(message, related);
     if (recipients.isEmpty()) {
@@ -345,14 +402,92 @@ public class MailServiceBaseImpl extends MailServiceMessageImpl {
     }
 
     // send email using a separate process to void thread blocking
-    executor.submit(
-        new Callable<Boolean>() {
-          @Override
-          public Boolean call() throws Exception {
-            send(sender, email);
-            return true;
-          }
-        });
+    executor.execute(() -> sendWithRetry(sender, email));
+  }
+
+  protected MailSender getCachedMailSender(EmailAccount emailAccount) {
+    if (emailAccount.getId() == null) {
+      return getMailSender(emailAccount);
+    }
+    try {
+      return MAIL_SENDER_CACHE.get(
+          Arrays.asList(emailAccount.getId(), emailAccount.getVersion()),
+          () -> getMailSender(emailAccount));
+    } catch (ExecutionException e) {
+      throw new MailException(e.getCause());
+    }
+  }
+
+  /**
+   * Sends the email, trying again after a growing delay when the sending fails, except when some
+   * recipients are rejected.
+   */
+  protected void sendWithRetry(MailSender sender, MimeMessage email) {
+    long startTime = System.currentTimeMillis();
+    long retryDelay = getSendRetryDelayMillis();
+
+    for (int attempt = 1; attempt <= SEND_ATTEMPTS; attempt++) {
+      if (rateLimiter != null) {
+        rateLimiter.acquire();
+      }
+      try {
+        send(sender, email);
+        sentCount.incrementAndGet();
+        log.debug(
+            "Email sent in {} ms, {} emails waiting, {} sent, {} failed",
+            System.currentTimeMillis() - startTime,
+            executor.getQueue().size(),
+            sentCount.get(),
+            failedCount.get());
+        return;
+      } catch (Exception e) {
+        if (attempt == SEND_ATTEMPTS || e instanceof SendFailedException) {
+          failedCount.incrementAndGet();
+          onSendFailure(e);
+          return;
+        }
+        log.debug("Email sending failed, new attempt in {} ms : {}", retryDelay, e.getMessage());
+        try {
+          Thread.sleep(retryDelay);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          failedCount.incrementAndGet();
+          return;
+        }
+        retryDelay *= 2;
+      }
+    }
+  }
+
+  protected long getSendRetryDelayMillis() {
+    return SEND_RETRY_DELAY_MILLIS;
+  }
+
+  protected void onSendFailure(Exception e) {
+    TraceBackService.trace(e);
+  }
+
+  protected long getSentCount() {
+    return sentCount.get();
+  }
+
+  protected long getFailedCount() {
+    return failedCount.get();
+  }
+
+  protected com.axelor.text.Template parseTemplate(String text) {
+    if (messageTemplate == null
+        || messageTemplate.getId() == null
+        || !(templates instanceof GroovyTemplates)) {
+      return templates.fromText(text);
+    }
+    try {
+      return PARSED_TEMPLATE_CACHE.get(
+          Arrays.asList(messageTemplate.getId(), messageTemplate.getVersion(), text),
+          () -> templates.fromText(text));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
   }
 
   @Override
@@ -361,7 +496,7 @@ public class MailServiceBaseImpl extends MailServiceMessageImpl {
       return super.template(message, entity);
     }
 
-    return templates.fromText(messageTemplate.getContent()).make(templatesContext).render();
+    return parseTemplate(messageTemplate.getContent()).make(templatesContext).render();
   }
 
   @Override
@@ -376,7 +511,7 @@ public class MailServiceBaseImpl extends MailServiceMessageImpl {
 
     String subject =
         message.getSubject() != null ? message.getSubject() : messageTemplate.getSubject();
-    return templates.fromText(subject).make(templatesContext).render();
+    return parseTemplate(subject).make(templatesContext).render();
   }
 
   void updateTemplateAndContext(MailMessage message, Model entity) {
@@ -487,8 +622,7 @@ public class MailServiceBaseImpl extends MailServiceMessageImpl {
 
   protected String[] getRecipients(String recipients) {
     if (StringUtils.notBlank(recipients)) {
-      return templates
-          .fromText(recipients)
+      return parseTemplate(recipients)
           .make(templatesContext)
           .render()
           .split(RECIPIENTS_SPLIT_REGEX);
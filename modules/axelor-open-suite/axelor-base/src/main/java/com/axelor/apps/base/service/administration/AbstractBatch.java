@@ -24,6 +24,7 @@ import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.AuditableModel;
 import com.axelor.common.StringUtils;
 import com.axelor.db.EntityHelper;
@@ -31,20 +32,29 @@ import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
+import com.axelor.inject.Beans;
+import com.axelor.studio.db.AppBase;
 import com.axelor.utils.MetaSelectTool;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.inject.persist.Transactional;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import javax.inject.Inject;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.shiro.subject.Subject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,6 +63,8 @@ public abstract class AbstractBatch {
 
   public static final int FETCH_LIMIT = 10;
 
+  protected static final int PARTITION_CHUNK_SIZE = 100;
+
   @Inject protected AppBaseService appBaseService;
   @Inject protected MetaSelectTool metaSelectTool;
 
@@ -66,6 +78,8 @@ public abstract class AbstractBatch {
   private int done;
   private int anomaly;
 
+  protected BatchProgressTracker progressTracker;
+
   protected AbstractBatch() {
     this.batch = new Batch();
 
@@ -77,6 +91,8 @@ public abstract class AbstractBatch {
     this.batch.setDone(this.done);
     this.batch.setAnomaly(this.anomaly);
 
+    this.progressTracker = new BatchProgressTracker(1, 0);
+
     JPA.runInTransaction(() -> batch = JPA.persist(batch));
   }
 
@@ -194,9 +210,25 @@ public abstract class AbstractBatch {
 
     model.setArchived(true);
     associateModel();
+    progressTracker = createProgressTracker();
     checkPoint();
   }
 
+  /**
+   * Progress is saved according to the app configuration, batches for which saving after each
+   * record is too costly or not needed can override this.
+   */
+  protected BatchProgressTracker createProgressTracker() {
+    AppBase appBase = appBaseService.getAppBase();
+
+    if (appBase == null) {
+      return new BatchProgressTracker(1, 0);
+    }
+
+    return new BatchProgressTracker(
+        appBase.getBatchProgressRecordInterval(), appBase.getBatchProgressTimeInterval());
+  }
+
   /**
    * As {@code batch} entity can be detached from the session, call {@code Batch.find()} get the
    * entity in the persistant context. Warning : {@code batch} entity have to be saved before.
@@ -213,31 +245,173 @@ public abstract class AbstractBatch {
   }
 
   protected void incrementDone() {
-    findBatch();
     _incrementDone();
   }
 
   protected void _incrementDone() {
     done += 1;
-    batch.setDone(done);
-    checkPoint();
+    recordProgress();
 
     LOG.debug("Done ::: {}", done);
   }
 
   protected void incrementAnomaly() {
-    findBatch();
     _incrementAnomaly();
   }
 
   protected void _incrementAnomaly() {
     anomaly += 1;
-    batch.setAnomaly(anomaly);
-    checkPoint();
+    recordProgress();
 
     LOG.debug("Anomaly ::: {}", anomaly);
   }
 
+  /**
+   * Counters on {@code batch} are only up to date after a check point, comments written before
+   * {@link #stop()} have to use these ones.
+   *
+   * @return the number of records done so far
+   */
+  protected int getDone() {
+    return done;
+  }
+
+  /** @return the number of anomalies so far */
+  protected int getAnomaly() {
+    return anomaly;
+  }
+
+  /**
+   * Counters are kept in memory and only written on the batch by {@link #checkPoint()} when the
+   * progress tracker asks for it, {@link #stop()} always saves them.
+   *
+   * <p>The check point is no longer done after each record, so batches changing the processed
+   * record outside of a transaction have to commit these changes themselves.
+   */
+  protected void recordProgress() {
+    if (progressTracker.record()) {
+      checkPoint();
+    }
+  }
+
+  /** @return the number of records processed per second since the batch started. */
+  public BigDecimal getThroughput() {
+    return progressTracker.getThroughput();
+  }
+
+  /**
+   * Whether the batches supporting it should process their records with {@link
+   * #processInPartitions(BatchPartitionWork)}.
+   */
+  protected boolean isPartitionedProcessing() {
+    return getWorkerThreadCount() > 1;
+  }
+
+  protected int getWorkerThreadCount() {
+    AppBase appBase = appBaseService.getAppBase();
+    return appBase != null ? appBase.getBatchWorkerThreadCount() : 1;
+  }
+
+  /**
+   * Process the records of the given work on several threads, each of them using its own
+   * persistence context. Outcomes are counted on this batch and uncaught exceptions are traced as
+   * anomalies of this batch.
+   *
+   * @param work the records to process
+   */
+  protected void processInPartitions(BatchPartitionWork work) {
+    findBatch();
+
+    final long batchId = batch.getId();
+    final Subject subject = AuthUtils.getSubject();
+
+    BatchPartitionWork tracedWork =
+        new BatchPartitionWork() {
+          @Override
+          public List<Long> fetchNextIds(Long lastId, int limit) {
+            return work.fetchNextIds(lastId, limit);
+          }
+
+          @Override
+          public void process(Long id, BatchPartitionProgress progress) {
+            try {
+              work.process(id, progress);
+            } catch (Exception e) {
+              TraceBackService.trace(e, null, batchId);
+              progress.incrementAnomaly();
+            } finally {
+              JPA.clear();
+            }
+          }
+
+          @Override
+          public Object getPartitionKey(Long id) {
+            return work.getPartitionKey(id);
+          }
+        };
+
+    try {
+      new BatchPartitionExecutor(getWorkerThreadCount(), PARTITION_CHUNK_SIZE)
+          .execute(
+              tracedWork,
+              getBatchProgress(),
+              worker -> {
+                Runnable workerInContext = () -> runInWorkerContext(batchId, worker);
+                return subject != null ? subject.associateWith(workerInContext) : workerInContext;
+              });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** @return a progress counting the records on this batch, from the batch thread only. */
+  protected BatchPartitionProgress getBatchProgress() {
+    return new BatchPartitionProgress() {
+      @Override
+      public void incrementDone() {
+        AbstractBatch.this.incrementDone();
+      }
+
+      @Override
+      public void incrementAnomaly() {
+        AbstractBatch.this.incrementAnomaly();
+      }
+    };
+  }
+
+  protected void runInWorkerContext(long batchId, Runnable worker) {
+    RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      threadBatchId.set(batchId);
+      worker.run();
+    } finally {
+      threadBatchId.remove();
+      Beans.get(UnitOfWork.class).end();
+    }
+  }
+
+  /**
+   * Fetch the next ids of the records matching the filter, to be used by {@link
+   * BatchPartitionWork#fetchNextIds(Long, int)}. Records are paginated on their id, so records
+   * updated by the batch do not shift the next pages.
+   *
+   * @param modelClass the class of the records
+   * @param filter a JPQL condition on <code>self</code>
+   * @param params the named parameters of the filter, the ones not used by the filter are ignored
+   * @param lastId the greatest id returned so far, <code>null</code> for the first chunk
+   * @param limit the maximum number of ids to return
+   * @return the ids, in ascending order
+   */
+  protected List<Long> fetchNextIds(
+      Class<? extends Model> modelClass,
+      String filter,
+      Map<String, Object> params,
+      Long lastId,
+      int limit) {
+    return KeysetPager.of(modelClass).filter(filter).bind(params).fetchIdsAfter(lastId, limit);
+  }
+
   protected void addComment(String comment) {
     findBatch();
 
@@ -248,7 +422,15 @@ public abstract class AbstractBatch {
 
   @Transactional
   protected Batch checkPoint() {
-    return findBatch();
+    findBatch();
+
+    batch.setDone(done);
+    batch.setAnomaly(anomaly);
+    batch.setLastProgressDate(ZonedDateTime.now());
+    batch.setThroughput(progressTracker.getThroughput());
+    progressTracker.saved();
+
+    return batch;
   }
 
   @Transactional
@@ -295,6 +477,9 @@ public abstract class AbstractBatch {
   protected Batch findBatch() {
     if (!JPA.em().contains(batch)) {
       batch = JPA.find(Batch.class, batch.getId());
+      // Counters may not have been saved yet
+      batch.setDone(done);
+      batch.setAnomaly(anomaly);
     }
 
     return batch;
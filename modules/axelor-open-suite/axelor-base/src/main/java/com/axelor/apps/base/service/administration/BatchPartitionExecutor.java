@@ -0,0 +1,199 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a {@link BatchPartitionWork} on several worker threads.
+ *
+ * <p>Ids are fetched on the calling thread and dispatched to the workers according to their
+ * partition key. Outcomes reported by the workers are queued and handed to the given progress on
+ * the calling thread, so the batch itself is never accessed concurrently.
+ */
+public class BatchPartitionExecutor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected static final Object END_OF_WORK = new Object();
+  protected static final long POLL_TIMEOUT_MILLIS = 100;
+
+  protected final int threadCount;
+  protected final int chunkSize;
+
+  protected final BlockingQueue<Boolean> outcomeQueue = new LinkedBlockingQueue<>();
+
+  public BatchPartitionExecutor(int threadCount, int chunkSize) {
+    this.threadCount = Math.max(threadCount, 1);
+    this.chunkSize = Math.max(chunkSize, 1);
+  }
+
+  /**
+   * Process every record of the work.
+   *
+   * @param work the work to process
+   * @param progress receives the outcome of the records, always called from the current thread
+   * @param workerDecorator wraps the loop of each worker thread, to set up and clean up the context
+   *     it runs in
+   * @throws InterruptedException
+   */
+  public void execute(
+      BatchPartitionWork work,
+      BatchPartitionProgress progress,
+      UnaryOperator<Runnable> workerDecorator)
+      throws InterruptedException {
+
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    List<BlockingQueue<Object>> idQueueList = new ArrayList<>();
+    List<Future<?>> futureList = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < threadCount; i++) {
+        BlockingQueue<Object> idQueue = new LinkedBlockingQueue<>(chunkSize * 2);
+        idQueueList.add(idQueue);
+        futureList.add(
+            executorService.submit(workerDecorator.apply(() -> processQueue(work, idQueue))));
+      }
+
+      Long lastId = null;
+      List<Long> idList;
+
+      while (!(idList = work.fetchNextIds(lastId, chunkSize)).isEmpty()) {
+        for (Long id : idList) {
+          dispatch(idQueueList.get(getQueueIndex(work, id)), id, futureList, progress);
+        }
+        lastId = idList.get(idList.size() - 1);
+        drainOutcomes(progress);
+      }
+
+      for (BlockingQueue<Object> idQueue : idQueueList) {
+        dispatch(idQueue, END_OF_WORK, futureList, progress);
+      }
+
+      for (Future<?> future : futureList) {
+        waitFor(future, progress);
+      }
+
+      drainOutcomes(progress);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  protected int getQueueIndex(BatchPartitionWork work, Long id) {
+    Object partitionKey = work.getPartitionKey(id);
+    return Math.floorMod(partitionKey != null ? partitionKey.hashCode() : 0, threadCount);
+  }
+
+  protected void processQueue(BatchPartitionWork work, BlockingQueue<Object> idQueue) {
+
+    BatchPartitionProgress workerProgress =
+        new BatchPartitionProgress() {
+          @Override
+          public void incrementDone() {
+            outcomeQueue.add(Boolean.TRUE);
+          }
+
+          @Override
+          public void incrementAnomaly() {
+            outcomeQueue.add(Boolean.FALSE);
+          }
+        };
+
+    try {
+      Object item;
+      while ((item = idQueue.take()) != END_OF_WORK) {
+        try {
+          work.process((Long) item, workerProgress);
+        } catch (Exception e) {
+          LOG.error(e.getMessage(), e);
+          workerProgress.incrementAnomaly();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Queue the item for a worker, without waiting forever on a worker which stopped. */
+  protected void dispatch(
+      BlockingQueue<Object> idQueue,
+      Object item,
+      List<Future<?>> futureList,
+      BatchPartitionProgress progress)
+      throws InterruptedException {
+
+    while (!idQueue.offer(item, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+      drainOutcomes(progress);
+      for (Future<?> future : futureList) {
+        if (future.isDone()) {
+          getResult(future);
+          throw new IllegalStateException("A batch worker thread stopped unexpectedly");
+        }
+      }
+    }
+  }
+
+  protected void waitFor(Future<?> future, BatchPartitionProgress progress)
+      throws InterruptedException {
+
+    while (true) {
+      try {
+        future.get(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        return;
+      } catch (TimeoutException e) {
+        drainOutcomes(progress);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  protected void getResult(Future<?> future) throws InterruptedException {
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  protected void drainOutcomes(BatchPartitionProgress progress) {
+    Boolean outcome;
+    while ((outcome = outcomeQueue.poll()) != null) {
+      if (outcome) {
+        progress.incrementDone();
+      } else {
+        progress.incrementAnomaly();
+      }
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.util.List;
+
+/**
+ * Work of a batch which can be split between several threads: the records to process are given by
+ * their ids, fetched by chunks in ascending order, and each of them is processed independently.
+ */
+public interface BatchPartitionWork {
+
+  /**
+   * Fetch the ids of the next records to process.
+   *
+   * @param lastId the greatest id returned so far, <code>null</code> for the first chunk
+   * @param limit the maximum number of ids to return
+   * @return ids greater than <code>lastId</code>, in ascending order, or an empty list once every
+   *     record has been returned
+   */
+  List<Long> fetchNextIds(Long lastId, int limit);
+
+  /**
+   * Process a record. This is called from a worker thread, with its own persistence context, so
+   * entities have to be loaded again from the given id.
+   *
+   * @param id the id of the record
+   * @param progress where to report processed records and anomalies
+   * @throws Exception counted as an anomaly on the record
+   */
+  void process(Long id, BatchPartitionProgress progress) throws Exception;
+
+  /**
+   * Records sharing the same partition key are processed by the same thread, in the order of their
+   * ids. Override this when records depend on each other.
+   *
+   * @param id the id of the record
+   * @return the partition key, the id itself by default
+   */
+  default Object getPartitionKey(Long id) {
+    return id;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps track of the records processed by a batch and tells when its progress has to be saved,
+ * either after a given number of records or after a given time since the last save.
+ */
+public class BatchProgressTracker {
+
+  protected final int recordInterval;
+  protected final long timeIntervalNanos;
+  protected final LongSupplier nanoClock;
+
+  protected final long startTime;
+  protected long lastSaveTime;
+  protected int processedCount;
+  protected int pendingCount;
+
+  public BatchProgressTracker(int recordInterval, int timeIntervalSeconds) {
+    this(recordInterval, timeIntervalSeconds, System::nanoTime);
+  }
+
+  protected BatchProgressTracker(
+      int recordInterval, int timeIntervalSeconds, LongSupplier nanoClock) {
+    this.recordInterval = Math.max(recordInterval, 1);
+    this.timeIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(timeIntervalSeconds, 0));
+    this.nanoClock = nanoClock;
+    this.startTime = nanoClock.getAsLong();
+    this.lastSaveTime = startTime;
+  }
+
+  /**
+   * Record a processed record.
+   *
+   * @return <code>true</code> if the progress has to be saved now.
+   */
+  public boolean record() {
+    processedCount++;
+    pendingCount++;
+    return isSaveNeeded();
+  }
+
+  public boolean isSaveNeeded() {
+    if (pendingCount == 0) {
+      return false;
+    }
+    return pendingCount >= recordInterval
+        || (timeIntervalNanos > 0 && nanoClock.getAsLong() - lastSaveTime >= timeIntervalNanos);
+  }
+
+  /** To be called once the progress has been saved. */
+  public void saved() {
+    pendingCount = 0;
+    lastSaveTime = nanoClock.getAsLong();
+  }
+
+  public int getProcessedCount() {
+    return processedCount;
+  }
+
+  public int getPendingCount() {
+    return pendingCount;
+  }
+
+  /**
+   * @return the number of records processed per second since the tracker was created, or zero if no
+   *     time has elapsed yet.
+   */
+  public BigDecimal getThroughput() {
+    long elapsedNanos = nanoClock.getAsLong() - startTime;
+
+    if (elapsedNanos <= 0) {
+      return BigDecimal.ZERO;
+    }
+
+    return BigDecimal.valueOf(processedCount)
+        .multiply(BigDecimal.valueOf(TimeUnit.SECONDS.toNanos(1)))
+        .divide(BigDecimal.valueOf(elapsedNanos), 2, RoundingMode.HALF_UP);
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import com.axelor.common.StringUtils;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.axelor.db.Query;
+import com.axelor.db.mapper.Mapper;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Fetch the records matching a filter chunk by chunk, seeking each chunk after the last record of
+ * the previous one instead of using an offset.
+ *
+ * <p>Compared to <code>query.fetch(limit, offset)</code>, the database does not have to read again
+ * all the skipped records for each chunk, and records updated by the caller so that they do not
+ * match the filter anymore do not shift the next chunks.
+ *
+ * <p>Records are sorted by id, optionally after a first order field which must not be null, for
+ * example:
+ *
+ * <pre>
+ * KeysetPager&lt;Product&gt; pager =
+ *     KeysetPager.of(Product.class).filter("self.productTypeSelect = :type").bind("type", type);
+ * List&lt;Product&gt; productList;
+ * while (!(productList = pager.fetchNext(FETCH_LIMIT)).isEmpty()) {
+ *   ...
+ * }
+ * </pre>
+ *
+ * By default, the persistence context is cleared before fetching a chunk, except the first one.
+ *
+ * @param <T> the type of the records
+ */
+public class KeysetPager<T extends Model> {
+
+  protected static final String LAST_ID_PARAM = "_keysetLastId";
+  protected static final String LAST_VALUE_PARAM = "_keysetLastValue";
+
+  protected final Class<T> modelClass;
+  protected String filter;
+  protected final Map<String, Object> params = new HashMap<>();
+  protected String orderField;
+  protected boolean descending;
+  protected boolean clearBetweenChunks = true;
+
+  protected Long lastId;
+  protected Object lastValue;
+  protected boolean started;
+
+  protected KeysetPager(Class<T> modelClass) {
+    this.modelClass = modelClass;
+  }
+
+  public static <T extends Model> KeysetPager<T> of(Class<T> modelClass) {
+    return new KeysetPager<>(modelClass);
+  }
+
+  /** @param filter a JPQL condition on <code>self</code>, using named parameters only */
+  public KeysetPager<T> filter(String filter) {
+    this.filter = filter;
+    return this;
+  }
+
+  public KeysetPager<T> bind(String name, Object value) {
+    params.put(name, value);
+    return this;
+  }
+
+  public KeysetPager<T> bind(Map<String, Object> params) {
+    this.params.putAll(params);
+    return this;
+  }
+
+  /**
+   * Sort records on the given field before their id.
+   *
+   * @param orderField the field name, prefixed by <code>-</code> for a descending order. Its value
+   *     must not be null on any record.
+   */
+  public KeysetPager<T> order(String orderField) {
+    this.descending = orderField.startsWith("-");
+    this.orderField = descending ? orderField.substring(1) : orderField;
+    return this;
+  }
+
+  public KeysetPager<T> clearBetweenChunks(boolean clearBetweenChunks) {
+    this.clearBetweenChunks = clearBetweenChunks;
+    return this;
+  }
+
+  /**
+   * Fetch the next chunk of records.
+   *
+   * @param limit the maximum number of records
+   * @return the records, or an empty list once all of them have been fetched
+   */
+  public List<T> fetchNext(int limit) {
+    prepareNextChunk();
+
+    List<T> recordList = buildQuery().fetch(limit);
+
+    if (!recordList.isEmpty()) {
+      T lastRecord = recordList.get(recordList.size() - 1);
+      lastId = lastRecord.getId();
+      if (orderField != null) {
+        lastValue = Mapper.of(modelClass).get(lastRecord, orderField);
+      }
+    }
+
+    return recordList;
+  }
+
+  /**
+   * Fetch the ids of the next chunk of records, without loading them.
+   *
+   * @param limit the maximum number of ids
+   * @return the ids, or an empty list once all of them have been fetched
+   */
+  public List<Long> fetchNextIds(int limit) {
+    prepareNextChunk();
+
+    Query<T>.Selector selector =
+        orderField != null ? buildQuery().select("id", orderField) : buildQuery().select("id");
+    List<Map> valueList = selector.fetch(limit, 0);
+
+    if (!valueList.isEmpty()) {
+      Map lastValues = valueList.get(valueList.size() - 1);
+      lastId = (Long) lastValues.get("id");
+      if (orderField != null) {
+        lastValue = lastValues.get(orderField);
+      }
+    }
+
+    return valueList.stream().map(values -> (Long) values.get("id")).collect(Collectors.toList());
+  }
+
+  /**
+   * Fetch the ids following the given one, regardless of the chunks fetched so far. Not available
+   * with an order field.
+   *
+   * @param lastId the greatest id already fetched, <code>null</code> to start from the beginning
+   * @param limit the maximum number of ids
+   * @return the ids, in ascending order
+   */
+  public List<Long> fetchIdsAfter(Long lastId, int limit) {
+    if (orderField != null) {
+      throw new IllegalStateException("Ids can not be fetched after an id with an order field");
+    }
+    this.lastId = lastId;
+    this.started = false;
+    return fetchNextIds(limit);
+  }
+
+  protected void prepareNextChunk() {
+    if (started && clearBetweenChunks) {
+      JPA.clear();
+    }
+    started = true;
+  }
+
+  protected Query<T> buildQuery() {
+    StringBuilder queryFilter = new StringBuilder();
+    if (StringUtils.notBlank(filter)) {
+      queryFilter.append("(").append(filter).append(")");
+    }
+
+    if (lastId != null) {
+      if (queryFilter.length() > 0) {
+        queryFilter.append(" AND ");
+      }
+      if (orderField == null) {
+        queryFilter.append(String.format("self.id > :%s", LAST_ID_PARAM));
+      } else {
+        queryFilter.append(
+            String.format(
+                "(self.%1$s %2$s :%3$s OR (self.%1$s = :%3$s AND self.id > :%4$s))",
+                orderField, descending ? "<" : ">", LAST_VALUE_PARAM, LAST_ID_PARAM));
+      }
+    }
+
+    Query<T> query = JPA.all(modelClass);
+    if (queryFilter.length() > 0) {
+      query.filter(queryFilter.toString());
+    }
+    query.bind(params);
+
+    if (lastId != null) {
+      query.bind(LAST_ID_PARAM, lastId);
+      if (orderField != null) {
+        query.bind(LAST_VALUE_PARAM, lastValue);
+      }
+    }
+
+    if (orderField != null) {
+      query.order((descending ? "-" : "") + orderField);
+    }
+    return query.order("id");
+  }
+}
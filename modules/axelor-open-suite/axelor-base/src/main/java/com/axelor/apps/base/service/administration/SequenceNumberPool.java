@@ -0,0 +1,100 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory pool of sequence numbers reserved by blocks, shared by all the threads of the node.
+ *
+ * <p>Each sequence version has its own block. When a block is exhausted, a new one is reserved with
+ * the given {@link BlockReserver}; callers of the same version wait during the reservation, callers
+ * of other versions are not blocked.
+ */
+public class SequenceNumberPool {
+
+  @FunctionalInterface
+  public interface BlockReserver {
+
+    /**
+     * Reserve a block of numbers.
+     *
+     * @param sequenceVersionId the sequence version to reserve numbers from
+     * @param count the quantity to add to the next number of the version
+     * @return the first reserved number
+     */
+    long reserve(Long sequenceVersionId, long count);
+  }
+
+  protected final Map<Long, NumberBlock> blockMap = new ConcurrentHashMap<>();
+
+  /**
+   * Get the next number of a sequence version, reserving a new block if needed.
+   *
+   * @param sequenceVersionId the sequence version id
+   * @param blockSize the quantity of numbers to reserve at once
+   * @param increment the increment between two numbers
+   * @param reserver called to reserve a new block
+   * @return the next number
+   */
+  public long next(Long sequenceVersionId, int blockSize, int increment, BlockReserver reserver) {
+    NumberBlock block = blockMap.computeIfAbsent(sequenceVersionId, id -> new NumberBlock());
+    synchronized (block) {
+      if (block.isExhausted() || block.increment != increment) {
+        long count = (long) blockSize * increment;
+        long first = reserver.reserve(sequenceVersionId, count);
+        block.reset(first, first + count, increment);
+      }
+      return block.take();
+    }
+  }
+
+  /** Drop the block of a sequence version, its remaining numbers are lost. */
+  public void release(Long sequenceVersionId) {
+    blockMap.remove(sequenceVersionId);
+  }
+
+  /** Drop every block, their remaining numbers are lost. */
+  public void releaseAll() {
+    blockMap.clear();
+  }
+
+  protected static class NumberBlock {
+    protected long next;
+    protected long end;
+    protected int increment;
+
+    protected boolean isExhausted() {
+      return next >= end;
+    }
+
+    protected void reset(long next, long end, int increment) {
+      this.next = next;
+      this.end = end;
+      this.increment = increment;
+    }
+
+    protected long take() {
+      long number = next;
+      next += increment;
+      return number;
+    }
+  }
+}
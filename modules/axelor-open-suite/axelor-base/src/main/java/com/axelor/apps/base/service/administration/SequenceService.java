@@ -47,6 +47,8 @@ import java.time.temporal.ChronoField;
 import java.time.temporal.IsoFields;
 import java.util.List;
 import javax.annotation.concurrent.ThreadSafe;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
 import javax.persistence.FlushModeType;
 import javax.persistence.LockModeType;
 import org.apache.commons.collections.CollectionUtils;
@@ -79,6 +81,8 @@ public class SequenceService {
 
   protected final SequenceRepository sequenceRepo;
 
+  protected final SequenceNumberPool sequenceNumberPool = new SequenceNumberPool();
+
   @Inject
   public SequenceService(
       SequenceVersionRepository sequenceVersionRepository,
@@ -187,6 +191,16 @@ public class SequenceService {
   public String getSequenceNumber(
       Sequence sequence, LocalDate refDate, Class objectClass, String fieldName)
       throws AxelorException {
+    if (isBlockAllocation(sequence)) {
+      String nextSeq = getBlockAllocatedSequenceNumber(sequence, refDate);
+      if (appBaseService.getAppBase().getCheckExistingSequenceOnGeneration()
+          && objectClass != null
+          && !Strings.isNullOrEmpty(fieldName)) {
+        this.isSequenceAlreadyExisting(objectClass, fieldName, nextSeq, sequence);
+      }
+      return nextSeq;
+    }
+
     Sequence seq =
         JPA.em()
             .createQuery("SELECT self FROM Sequence self WHERE id = :id", Sequence.class)
@@ -210,6 +224,134 @@ public class SequenceService {
     return nextSeq;
   }
 
+  protected boolean isBlockAllocation(Sequence sequence) {
+    return sequence.getNumberBlockSize() > 1
+        && sequence.getSequenceTypeSelect() == SequenceTypeSelect.NUMBERS;
+  }
+
+  /**
+   * Get the next number from the blocks reserved by this node. A new block is reserved in its own
+   * transaction when the current one is exhausted, so the sequence is only locked during the
+   * reservation and not until the end of the caller transaction. A missing sequence version is also
+   * created in its own transaction: creating it in the caller transaction would keep the sequence
+   * locked, and the next reservation of the same transaction would wait on that lock.
+   *
+   * @param sequence
+   * @param refDate
+   * @return the next sequence number
+   */
+  protected String getBlockAllocatedSequenceNumber(Sequence sequence, LocalDate refDate) {
+    Long sequenceId = sequence.getId();
+    SequenceVersion sequenceVersion = sequenceVersionRepository.findByDate(sequence, refDate);
+    Long sequenceVersionId =
+        sequenceVersion != null
+            ? sequenceVersion.getId()
+            : createBlockAllocatedSequenceVersion(sequence, refDate);
+
+    long nextNum =
+        sequenceNumberPool.next(
+            sequenceVersionId,
+            sequence.getNumberBlockSize(),
+            sequence.getToBeAdded(),
+            (versionId, count) -> reserveNumberBlock(sequenceId, versionId, count));
+
+    return computeNextSeq(nextNum, sequence, refDate);
+  }
+
+  /**
+   * Create the sequence version of the given date in a transaction independent from the current
+   * one, unless another node created it meanwhile.
+   *
+   * @return the id of the sequence version
+   */
+  protected Long createBlockAllocatedSequenceVersion(Sequence sequence, LocalDate refDate) {
+    EntityManager em = JPA.em().getEntityManagerFactory().createEntityManager();
+    EntityTransaction transaction = em.getTransaction();
+    try {
+      transaction.begin();
+      Sequence seq =
+          em.createQuery("SELECT self FROM Sequence self WHERE id = :id", Sequence.class)
+              .setParameter("id", sequence.getId())
+              .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+              .getSingleResult();
+      SequenceVersion sequenceVersion =
+          em
+              .createQuery(
+                  "SELECT self FROM SequenceVersion self WHERE self.sequence = :sequence"
+                      + " AND self.startDate <= :date"
+                      + " AND (self.endDate IS NULL OR self.endDate >= :date)"
+                      + " ORDER BY self.startDate DESC",
+                  SequenceVersion.class)
+              .setParameter("sequence", seq).setParameter("date", refDate).setMaxResults(1)
+              .getResultList().stream()
+              .findFirst()
+              .orElse(null);
+      if (sequenceVersion == null) {
+        sequenceVersion = sequenceVersionGeneratorService.createNewSequenceVersion(seq, refDate);
+        sequenceVersion.setSequence(seq);
+        em.persist(sequenceVersion);
+        log.debug("Sequence version created for sequence {}", seq.getId());
+      }
+      transaction.commit();
+      return sequenceVersion.getId();
+    } catch (RuntimeException e) {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+      throw e;
+    } finally {
+      em.close();
+    }
+  }
+
+  /**
+   * Reserve a block of numbers in a transaction independent from the current one.
+   *
+   * @return the first reserved number
+   */
+  protected long reserveNumberBlock(Long sequenceId, Long sequenceVersionId, long count) {
+    EntityManager em = JPA.em().getEntityManagerFactory().createEntityManager();
+    EntityTransaction transaction = em.getTransaction();
+    try {
+      transaction.begin();
+      em.createQuery("SELECT self FROM Sequence self WHERE id = :id", Sequence.class)
+          .setParameter("id", sequenceId)
+          .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+          .getSingleResult();
+      SequenceVersion sequenceVersion = em.find(SequenceVersion.class, sequenceVersionId);
+      long firstNum = sequenceVersion.getNextNum();
+      sequenceVersion.setNextNum(firstNum + count);
+      transaction.commit();
+      log.debug(
+          "Numbers {} to {} reserved for sequence version {}",
+          firstNum,
+          firstNum + count - 1,
+          sequenceVersionId);
+      return firstNum;
+    } catch (RuntimeException e) {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+      throw e;
+    } finally {
+      em.close();
+    }
+  }
+
+  /**
+   * Drop the numbers reserved by this node for the given sequence. They will never be used.
+   *
+   * @param sequence
+   */
+  public void releaseNumberBlocks(Sequence sequence) {
+    if (sequence.getSequenceVersionList() == null) {
+      return;
+    }
+    for (SequenceVersion sequenceVersion : sequence.getSequenceVersionList()) {
+      sequenceNumberPool.release(sequenceVersion.getId());
+    }
+  }
+
   protected void isSequenceAlreadyExisting(
       Class objectClass, String fieldName, String nextSeq, Sequence seq) throws AxelorException {
     String table = objectClass.getSimpleName();
@@ -235,17 +377,23 @@ public class SequenceService {
   protected String computeNextSeq(
       SequenceVersion sequenceVersion, Sequence sequence, LocalDate refDate) {
 
-    String seqPrefixe = StringUtils.defaultString(sequence.getPrefixe(), "");
-    String seqSuffixe = StringUtils.defaultString(sequence.getSuffixe(), "");
-    String sequenceValue;
-
     if (sequence.getSequenceTypeSelect() == SequenceTypeSelect.NUMBERS) {
-      sequenceValue =
-          StringUtils.leftPad(
-              sequenceVersion.getNextNum().toString(), sequence.getPadding(), PADDING_STRING);
-    } else {
-      sequenceValue = findNextLetterSequence(sequenceVersion);
+      return computeNextSeq(sequenceVersion.getNextNum(), sequence, refDate);
     }
+    return computeNextSeq(findNextLetterSequence(sequenceVersion), sequence, refDate);
+  }
+
+  protected String computeNextSeq(long nextNum, Sequence sequence, LocalDate refDate) {
+    return computeNextSeq(
+        StringUtils.leftPad(Long.toString(nextNum), sequence.getPadding(), PADDING_STRING),
+        sequence,
+        refDate);
+  }
+
+  protected String computeNextSeq(String sequenceValue, Sequence sequence, LocalDate refDate) {
+
+    String seqPrefixe = StringUtils.defaultString(sequence.getPrefixe(), "");
+    String seqSuffixe = StringUtils.defaultString(sequence.getSuffixe(), "");
     String nextSeq =
         (seqPrefixe + sequenceValue + seqSuffixe)
             .replace(PATTERN_FULL_YEAR, Integer.toString(refDate.get(ChronoField.YEAR_OF_ERA)))
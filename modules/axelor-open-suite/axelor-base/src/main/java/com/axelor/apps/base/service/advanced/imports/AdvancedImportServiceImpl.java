@@ -829,6 +829,7 @@ public class AdvancedImportServiceImpl implements AdvancedImportService {
 
     modelRepo.all().filter("self.id IN (" + ids + ")").delete();
     fileTab.setAttrs(null);
+    fileTab.setImportedLineCount(0);
 
     LOG.debug("Reset imported data : {}", modelKlass.getSimpleName());
   }
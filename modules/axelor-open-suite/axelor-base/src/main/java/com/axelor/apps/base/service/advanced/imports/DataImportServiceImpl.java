@@ -24,6 +24,7 @@ import com.axelor.apps.base.db.FileField;
 import com.axelor.apps.base.db.FileTab;
 import com.axelor.apps.base.db.ImportHistory;
 import com.axelor.apps.base.db.repo.FileFieldRepository;
+import com.axelor.apps.base.db.repo.FileTabRepository;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.base.service.imports.listener.ImporterListener;
 import com.axelor.auth.AuthUtils;
@@ -40,6 +41,7 @@ import com.axelor.data.csv.CSVInput;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
+import com.axelor.inject.Beans;
 import com.axelor.meta.MetaFiles;
 import com.axelor.meta.db.MetaFile;
 import com.axelor.meta.db.MetaModel;
@@ -55,6 +57,10 @@ import com.axelor.utils.service.TranslationService;
 import com.google.common.base.Strings;
 import com.google.common.io.Files;
 import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
 import com.thoughtworks.xstream.XStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -65,17 +71,26 @@ import java.lang.invoke.MethodHandles;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.io.FileUtils;
+import org.apache.shiro.subject.Subject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -104,6 +119,7 @@ public class DataImportServiceImpl implements DataImportService {
   private Map<String, Object> fieldMap;
   private Map<String, Object> titleMap;
   private Map<String, DataAdapter> adapterMap;
+  private Map<List<Object>, String> selectionValueMap;
 
   private List<String> ifList;
 
@@ -130,12 +146,16 @@ public class DataImportServiceImpl implements DataImportService {
 
   @Inject private MetaSelectRepository metaSelectRepo;
 
+  @Inject private FileTabRepository fileTabRepo;
+
   @Override
   public ImportHistory importData(AdvancedImport advancedImport)
       throws IOException, AxelorException, ClassNotFoundException {
 
     adapterMap = new HashMap<String, DataAdapter>();
+    selectionValueMap = new HashMap<>();
     importContext = new HashMap<String, Object>();
+    importContext.put("customObjectModels", ConcurrentHashMap.newKeySet());
     language = advancedImport.getLanguageSelect();
     dataDir = Files.createTempDir();
 
@@ -144,18 +164,24 @@ public class DataImportServiceImpl implements DataImportService {
     DataReaderService reader = dataReaderFactory.getDataReader(extension);
     reader.initialize(advancedImport.getImportFile(), advancedImport.getFileSeparator());
 
-    List<CSVInput> inputs = this.process(reader, advancedImport);
+    List<FileTabImport> fileTabImportList = this.process(reader, advancedImport);
 
     if (advancedImport.getAttachment() != null) {
       this.processAttachments(advancedImport.getAttachment());
     }
 
-    MetaFile logFile = this.importData(inputs);
+    MetaFile logFile = this.importData(advancedImport, fileTabImportList);
     FileUtils.forceDelete(dataDir);
+    this.resetImportedLineCounts(advancedImport);
     return addImportHistory(advancedImport, logFile);
   }
 
-  private List<CSVInput> process(DataReaderService reader, AdvancedImport advancedImport)
+  /**
+   * Writes the lines of each file tab into csv files of at most {@link
+   * AdvancedImport#getChunkSize()} lines, skipping the lines already imported by a previous import
+   * of the file.
+   */
+  private List<FileTabImport> process(DataReaderService reader, AdvancedImport advancedImport)
       throws AxelorException, IOException, ClassNotFoundException {
 
     String[] sheets = reader.getSheetNames();
@@ -163,7 +189,8 @@ public class DataImportServiceImpl implements DataImportService {
     boolean isConfig = advancedImport.getIsConfigInFile();
     int linesToIgnore = advancedImport.getNbOfFirstLineIgnore();
     boolean isTabConfig = advancedImport.getIsFileTabConfigAdded();
-    List<CSVInput> inputList = new ArrayList<CSVInput>();
+    int chunkSize = advancedImport.getChunkSize();
+    List<FileTabImport> fileTabImportList = new ArrayList<>();
 
     validatorService.sortFileTabList(advancedImport.getFileTabList());
 
@@ -178,23 +205,25 @@ public class DataImportServiceImpl implements DataImportService {
       csvInput = this.createCSVInput(fileTab, fileName);
       ifList = new ArrayList<String>();
 
-      File tempFile = new File(dataDir, fileName);
-      CSVFile csvFormat =
-          CSVFile.DEFAULT.withDelimiter(CSV_SEPRATOR).withQuoteAll().withFirstRecordAsHeader();
-      CSVPrinter printer = csvFormat.write(tempFile);
-
       int totalLines = reader.getTotalLines(fileTab.getName());
       if (totalLines == 0) {
         continue;
       }
 
       Mapper mapper = advancedImportService.getMapper(fileTab.getMetaModel().getFullName());
-      List<String[]> allLines = new ArrayList<String[]>();
       int startIndex = isConfig ? 1 : linesToIgnore;
 
       String[] row = reader.read(fileTab.getName(), startIndex, 0);
       String[] headers = this.createHeader(row, fileTab, isConfig, mapper);
-      allLines.add(headers);
+
+      FileTabImport fileTabImport =
+          new FileTabImport(
+              fileTab.getId(),
+              fileTab.getName(),
+              csvInput,
+              fileTab.getImportedLineCount(),
+              StringUtils.notBlank(fileTab.getActions()));
+      this.addModels(fileTabImport, fileTab, mapper);
 
       int tabConfigRowCount = 0;
       if (isTabConfig) {
@@ -208,27 +237,111 @@ public class DataImportServiceImpl implements DataImportService {
               ? tabConfigRowCount + 3
               : fileTab.getAdvancedImport().getIsHeader() ? linesToIgnore + 1 : linesToIgnore;
 
-      for (int line = startIndex; line < totalLines; line++) {
-        String[] dataRow = reader.read(fileTab.getName(), line, row.length);
-        if (dataRow == null || Arrays.stream(dataRow).allMatch(StringUtils::isBlank)) {
-          continue;
+      headers = Arrays.copyOf(headers, headers.length + 1);
+      headers[headers.length - 1] = ImportedLineTracker.LINE_NUMBER_COLUMN;
+
+      CSVPrinter printer = null;
+      try {
+        for (int line = startIndex; line < totalLines; line++) {
+          String[] dataRow = reader.read(fileTab.getName(), line, row.length);
+          if (dataRow == null || Arrays.stream(dataRow).allMatch(StringUtils::isBlank)) {
+            continue;
+          }
+          if (!fileTabImport.nextDataLine()) {
+            continue;
+          }
+          if (fileTabImport.isNewChunkNeeded(chunkSize)) {
+            if (printer != null) {
+              printer.close();
+            }
+            String chunkFileName = createChunkFileName(fileName, fileTabImport.getChunkCount());
+            printer = this.createChunkPrinter(chunkFileName, headers);
+            fileTabImport.addChunk(chunkFileName);
+          }
+          String[] data = this.createData(dataRow, fileTab, isConfig, mapper);
+          data = Arrays.copyOf(data, data.length + 1);
+          data[data.length - 1] = String.valueOf(fileTabImport.getDataLineCount());
+          printer.printRecord((Object[]) data);
+          fileTabImport.addChunkLine();
+        }
+      } finally {
+        if (printer != null) {
+          printer.close();
         }
-        String[] data = this.createData(dataRow, fileTab, isConfig, mapper);
-        allLines.add(data);
       }
-      printer.printRecords(allLines);
-      printer.close();
 
-      inputList.add(csvInput);
+      if (fileTabImport.getChunkCount() == 0) {
+        continue;
+      }
+
+      fileTabImportList.add(fileTabImport);
       importContext.put("ifConditions" + fileTab.getId(), ifList);
-      importContext.put("jsonContextValues" + fileTab.getId(), createJsonContext(fileTab));
+      Map<String, Object> jsonContextValues = createJsonContext(fileTab);
+      Map<String, List<Object>> importedRecordMap = new HashMap<>();
+      importContext.put("jsonContextValues" + fileTab.getId(), jsonContextValues);
       importContext.put("actionsToApply" + fileTab.getId(), fileTab.getActions());
+      importContext.put("importedRecords" + fileTab.getId(), importedRecordMap);
+      importContext.put(
+          "importedLines" + fileTab.getId(),
+          new ImportedLineTracker(
+              fileTab.getId(),
+              fileTabImport.getImportedLineCount(),
+              importedRecordMap,
+              jsonContextValues));
 
       XStream stream = XStreamUtils.createXStream();
       stream.processAnnotations(CSVConfig.class);
       LOG.debug("CSV Config created :" + "\n" + stream.toXML(csvInput));
     }
-    return inputList;
+    return fileTabImportList;
+  }
+
+  protected String createChunkFileName(String fileName, int chunkIndex) {
+    return Files.getNameWithoutExtension(fileName) + "-" + chunkIndex + ".csv";
+  }
+
+  protected CSVPrinter createChunkPrinter(String chunkFileName, String[] headers)
+      throws IOException {
+    CSVFile csvFormat =
+        CSVFile.DEFAULT.withDelimiter(CSV_SEPRATOR).withQuoteAll().withFirstRecordAsHeader();
+    CSVPrinter printer = csvFormat.write(new File(dataDir, chunkFileName));
+    printer.printRecord((Object[]) headers);
+    return printer;
+  }
+
+  /**
+   * Adds the model of the file tab and the models targeted by its fields. Models of sub fields
+   * created by the import are written, the other ones are only searched.
+   */
+  protected void addModels(FileTabImport fileTabImport, FileTab fileTab, Mapper mapper)
+      throws ClassNotFoundException {
+    fileTabImport.addModel(fileTab.getMetaModel().getFullName(), true);
+
+    for (FileField fileField : fileTab.getFileFieldList()) {
+      if (fileField.getImportField() == null) {
+        continue;
+      }
+      Property prop = mapper.getProperty(fileField.getImportField().getName());
+      if (prop == null || prop.getTarget() == null) {
+        continue;
+      }
+
+      boolean written =
+          !Strings.isNullOrEmpty(fileField.getSubImportField())
+              && fileField.getImportType() != FileFieldRepository.IMPORT_TYPE_FIND;
+      fileTabImport.addModel(prop.getTarget().getName(), written);
+
+      if (Strings.isNullOrEmpty(fileField.getSubImportField())) {
+        continue;
+      }
+      for (String subField : fileField.getSubImportField().split("\\.")) {
+        prop = advancedImportService.getMapper(prop.getTarget().getName()).getProperty(subField);
+        if (prop == null || prop.getTarget() == null) {
+          break;
+        }
+        fileTabImport.addModel(prop.getTarget().getName(), written);
+      }
+    }
   }
 
   protected void initializeVariables() {
@@ -408,6 +521,22 @@ public class DataImportServiceImpl implements DataImportService {
 
   protected String getSelectionValue(String selection, String value, int forSelectUse) {
 
+    if (forSelectUse != FileFieldRepository.SELECT_USE_VALUES) {
+      // The same values are found on many lines
+      List<Object> key = Arrays.asList(selection, value, forSelectUse);
+      if (selectionValueMap.containsKey(key)) {
+        return selectionValueMap.get(key);
+      }
+      String selectionValue = this.findSelectionValue(selection, value, forSelectUse);
+      selectionValueMap.put(key, selectionValue);
+      return selectionValue;
+    } else {
+      return value;
+    }
+  }
+
+  protected String findSelectionValue(String selection, String value, int forSelectUse) {
+
     if (forSelectUse != FileFieldRepository.SELECT_USE_VALUES) {
       String title = null;
       if (forSelectUse == FileFieldRepository.SELECT_USE_TRANSLATED_TITLES) {
@@ -910,28 +1039,135 @@ public class DataImportServiceImpl implements DataImportService {
     }
   }
 
-  protected MetaFile importData(List<CSVInput> inputs) throws IOException {
-    if (CollectionUtils.isEmpty(inputs)) {
+  protected MetaFile importData(AdvancedImport advancedImport, List<FileTabImport> fileTabImports)
+      throws IOException {
+    if (CollectionUtils.isEmpty(fileTabImports)) {
       return null;
     }
 
-    CSVConfig config = new CSVConfig();
-    config.setInputs(inputs);
-    if (!CollectionUtils.isEmpty(adapterMap.values())) {
-      config.getAdapters().addAll(adapterMap.values());
+    List<ImporterListener> listenerList = new ArrayList<>();
+    for (List<FileTabImport> fileTabImportGroup : this.groupIndependentFileTabs(fileTabImports)) {
+      if (advancedImport.getThreadCount() > 1 && fileTabImportGroup.size() > 1) {
+        listenerList.addAll(
+            this.importFileTabsInParallel(fileTabImportGroup, advancedImport.getThreadCount()));
+      } else {
+        for (FileTabImport fileTabImport : fileTabImportGroup) {
+          listenerList.add(this.importFileTab(fileTabImport));
+        }
+      }
     }
 
-    CSVImporter importer = new CSVImporter(config, dataDir.getAbsolutePath());
-    ImporterListener listener = new ImporterListener("importData");
-    importer.addListener(listener);
-    importer.setContext(importContext);
-    importer.run();
+    if (listenerList.stream().allMatch(ImporterListener::isImported)) {
+      return null;
+    }
+    return this.createImportLogFile(
+        listenerList.stream()
+            .map(ImporterListener::getImportLog)
+            .collect(Collectors.joining("\n")));
+  }
 
-    if (!listener.isImported()) {
-      MetaFile logFile = this.createImportLogFile(listener);
-      return logFile;
+  /**
+   * Groups the consecutive file tabs which do not depend on each other, so that the tabs of a group
+   * can be imported at the same time.
+   */
+  protected List<List<FileTabImport>> groupIndependentFileTabs(List<FileTabImport> fileTabImports) {
+    List<List<FileTabImport>> groupList = new ArrayList<>();
+    List<FileTabImport> group = null;
+
+    for (FileTabImport fileTabImport : fileTabImports) {
+      if (group == null || group.stream().anyMatch(fileTabImport::dependsOn)) {
+        group = new ArrayList<>();
+        groupList.add(group);
+      }
+      group.add(fileTabImport);
+    }
+    return groupList;
+  }
+
+  /**
+   * Imports the file tabs on a pool of threads, each of them with its own persistence context.
+   *
+   * @return the listeners of the file tabs, in the order of the file tabs
+   */
+  protected List<ImporterListener> importFileTabsInParallel(
+      List<FileTabImport> fileTabImports, int threadCount) throws IOException {
+    final Subject subject = AuthUtils.getSubject();
+    List<Future<ImporterListener>> futureList = new ArrayList<>();
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(threadCount, fileTabImports.size()));
+    try {
+      for (FileTabImport fileTabImport : fileTabImports) {
+        Callable<ImporterListener> task = () -> importFileTabInWorkerContext(fileTabImport);
+        futureList.add(executor.submit(subject != null ? subject.associateWith(task) : task));
+      }
+
+      List<ImporterListener> listenerList = new ArrayList<>();
+      for (Future<ImporterListener> future : futureList) {
+        listenerList.add(future.get());
+      }
+      return listenerList;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  protected ImporterListener importFileTabInWorkerContext(FileTabImport fileTabImport)
+      throws IOException {
+    RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      return this.importFileTab(fileTabImport);
+    } finally {
+      Beans.get(UnitOfWork.class).end();
+    }
+  }
+
+  /**
+   * Imports the chunks of the file tab one after the other. The number of imported lines is saved
+   * with the imported lines by {@link ImportedLineTracker}, so that a failed import is resumed
+   * after the last committed line.
+   */
+  protected ImporterListener importFileTab(FileTabImport fileTabImport) throws IOException {
+    ImporterListener listener = new ImporterListener(fileTabImport.getFileTabName());
+    CSVInput input = fileTabImport.getCsvInput();
+    ImportedLineTracker importedLineTracker =
+        (ImportedLineTracker) importContext.get("importedLines" + fileTabImport.getFileTabId());
+
+    for (int chunk = 0; chunk < fileTabImport.getChunkCount(); chunk++) {
+      input.setFileName(fileTabImport.getChunkFileName(chunk));
+
+      CSVConfig config = new CSVConfig();
+      config.setInputs(new ArrayList<>(Collections.singletonList(input)));
+      if (!CollectionUtils.isEmpty(adapterMap.values())) {
+        config.getAdapters().addAll(adapterMap.values());
+      }
+
+      CSVImporter importer = new CSVImporter(config, dataDir.getAbsolutePath());
+      importer.addListener(listener);
+      importer.setContext(new HashMap<>(importContext));
+      importer.run();
+
+      LOG.debug(
+          "File tab {} : {} lines imported",
+          fileTabImport.getFileTabName(),
+          importedLineTracker.getImportedLineCount());
+    }
+    return listener;
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected void resetImportedLineCounts(AdvancedImport advancedImport) {
+    for (FileTab fileTab : advancedImport.getFileTabList()) {
+      fileTabRepo.find(fileTab.getId()).setImportedLineCount(0);
     }
-    return null;
   }
 
   protected void setImportIf(Property prop, CSVBind bind, String column) {
@@ -941,10 +1177,14 @@ public class DataImportServiceImpl implements DataImportService {
   }
 
   protected MetaFile createImportLogFile(ImporterListener listener) throws IOException {
+    return this.createImportLogFile(listener.getImportLog());
+  }
+
+  protected MetaFile createImportLogFile(String importLog) throws IOException {
 
     MetaFile logMetaFile =
         metaFiles.upload(
-            new ByteArrayInputStream(listener.getImportLog().getBytes()),
+            new ByteArrayInputStream(importLog.getBytes()),
             "importLog-" + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()) + ".log");
 
     return logMetaFile;
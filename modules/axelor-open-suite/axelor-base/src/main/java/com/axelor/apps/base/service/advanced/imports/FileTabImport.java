@@ -0,0 +1,156 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.advanced.imports;
+
+import com.axelor.data.csv.CSVInput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The data of a file tab to import: its csv input, the csv files holding its lines by chunks and
+ * the models it reads or writes.
+ */
+public class FileTabImport {
+
+  protected final Long fileTabId;
+  protected final String fileTabName;
+  protected final CSVInput csvInput;
+  protected final int importedLineCount;
+  protected final boolean isolated;
+
+  protected int dataLineCount;
+
+  protected final List<String> chunkFileNameList = new ArrayList<>();
+  protected final List<Integer> chunkLineCountList = new ArrayList<>();
+  protected final Set<String> writtenModelSet = new HashSet<>();
+  protected final Set<String> readModelSet = new HashSet<>();
+
+  /**
+   * @param fileTabId the id of the file tab
+   * @param fileTabName the name of the file tab
+   * @param csvInput the csv input of the file tab, its file name is set for each chunk
+   * @param importedLineCount the number of lines imported by a previous import
+   * @param isolated whether the file tab must not be imported at the same time as another one
+   */
+  public FileTabImport(
+      Long fileTabId,
+      String fileTabName,
+      CSVInput csvInput,
+      int importedLineCount,
+      boolean isolated) {
+    this.fileTabId = fileTabId;
+    this.fileTabName = fileTabName;
+    this.csvInput = csvInput;
+    this.importedLineCount = importedLineCount;
+    this.isolated = isolated;
+  }
+
+  public Long getFileTabId() {
+    return fileTabId;
+  }
+
+  public String getFileTabName() {
+    return fileTabName;
+  }
+
+  public CSVInput getCsvInput() {
+    return csvInput;
+  }
+
+  public int getImportedLineCount() {
+    return importedLineCount;
+  }
+
+  /**
+   * Counts a data line of the file tab.
+   *
+   * @return false if the line was imported by a previous import
+   */
+  public boolean nextDataLine() {
+    return ++dataLineCount > importedLineCount;
+  }
+
+  /** @return the number of the last counted data line */
+  public int getDataLineCount() {
+    return dataLineCount;
+  }
+
+  /** @return true if the next line has to be written in a new chunk of at most chunkSize lines */
+  public boolean isNewChunkNeeded(int chunkSize) {
+    return chunkFileNameList.isEmpty() || (chunkSize > 0 && getLastChunkLineCount() >= chunkSize);
+  }
+
+  public void addChunk(String fileName) {
+    chunkFileNameList.add(fileName);
+    chunkLineCountList.add(0);
+  }
+
+  /** Counts a line written in the last chunk. */
+  public void addChunkLine() {
+    int lastIndex = chunkLineCountList.size() - 1;
+    chunkLineCountList.set(lastIndex, chunkLineCountList.get(lastIndex) + 1);
+  }
+
+  public int getChunkCount() {
+    return chunkFileNameList.size();
+  }
+
+  public String getChunkFileName(int index) {
+    return chunkFileNameList.get(index);
+  }
+
+  public int getChunkLineCount(int index) {
+    return chunkLineCountList.get(index);
+  }
+
+  /** @return the line count of the last chunk, or -1 if there is no chunk yet */
+  public int getLastChunkLineCount() {
+    return chunkLineCountList.isEmpty()
+        ? -1
+        : chunkLineCountList.get(chunkLineCountList.size() - 1);
+  }
+
+  public void addModel(String modelName, boolean written) {
+    if (written) {
+      writtenModelSet.add(modelName);
+    } else {
+      readModelSet.add(modelName);
+    }
+  }
+
+  /**
+   * @return true if one of the two file tabs writes a model read or written by the other one, so
+   *     that they have to be imported one after the other
+   */
+  public boolean dependsOn(FileTabImport other) {
+    return isolated
+        || other.isolated
+        || intersects(writtenModelSet, other.writtenModelSet)
+        || intersects(writtenModelSet, other.readModelSet)
+        || intersects(readModelSet, other.writtenModelSet);
+  }
+
+  protected boolean intersects(Collection<String> models, Collection<String> otherModels) {
+    return !Collections.disjoint(models, otherModels);
+  }
+}
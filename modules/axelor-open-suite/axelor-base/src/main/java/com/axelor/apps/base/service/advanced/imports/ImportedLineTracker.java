@@ -0,0 +1,106 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.advanced.imports;
+
+import com.axelor.apps.base.db.FileTab;
+import com.axelor.db.JPA;
+import com.axelor.rpc.Context;
+import com.axelor.rpc.JsonContext;
+import java.util.List;
+import java.util.Map;
+import javax.transaction.Synchronization;
+import org.hibernate.Session;
+
+/**
+ * Saves the number of imported lines of a file tab and the records it imported in the transactions
+ * of the importer, just before they are committed. A resumed import starts right after the last
+ * committed line, without importing a committed line again.
+ */
+public class ImportedLineTracker {
+
+  /** Column added to the chunk files, holding the number of the line in the file tab. */
+  public static final String LINE_NUMBER_COLUMN = "_importLineNumber";
+
+  protected final Long fileTabId;
+  protected final Map<String, List<Object>> importedRecordMap;
+  protected final JsonContext jsonContext;
+  protected final Context context;
+
+  protected int importedLineCount;
+  protected boolean registered;
+
+  /**
+   * @param fileTabId the id of the file tab
+   * @param importedLineCount the number of lines imported by a previous import
+   * @param importedRecordMap the records imported by the file tab, by field of its attributes
+   * @param jsonContextValues the json context of the attributes of the file tab
+   */
+  public ImportedLineTracker(
+      Long fileTabId,
+      int importedLineCount,
+      Map<String, List<Object>> importedRecordMap,
+      Map<String, Object> jsonContextValues) {
+    this.fileTabId = fileTabId;
+    this.importedLineCount = importedLineCount;
+    this.importedRecordMap = importedRecordMap;
+    this.jsonContext =
+        jsonContextValues == null ? null : (JsonContext) jsonContextValues.get("jsonContext");
+    this.context = jsonContextValues == null ? null : (Context) jsonContextValues.get("context");
+  }
+
+  public int getImportedLineCount() {
+    return importedLineCount;
+  }
+
+  /** Counts the line as imported once the current transaction of the importer is committed. */
+  public void addLine(int lineNumber) {
+    importedLineCount = Math.max(importedLineCount, lineNumber);
+    if (registered) {
+      return;
+    }
+    registered = true;
+    this.registerSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {
+            saveImportedLines();
+          }
+
+          @Override
+          public void afterCompletion(int status) {
+            registered = false;
+          }
+        });
+  }
+
+  protected void registerSynchronization(Synchronization synchronization) {
+    JPA.em().unwrap(Session.class).getTransaction().registerSynchronization(synchronization);
+  }
+
+  /** Saves the imported records and the number of imported lines in the current transaction. */
+  protected void saveImportedLines() {
+    FileTab fileTab = JPA.find(FileTab.class, fileTabId);
+    if (!importedRecordMap.isEmpty()) {
+      importedRecordMap.forEach(jsonContext::put);
+      fileTab.setAttrs(context.get("attrs").toString());
+    }
+    fileTab.setImportedLineCount(importedLineCount);
+    JPA.flush();
+  }
+}
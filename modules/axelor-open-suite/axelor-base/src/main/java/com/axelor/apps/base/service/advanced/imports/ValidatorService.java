@@ -173,6 +173,7 @@ public class ValidatorService {
       if (fileTab.getValidationLog() != null) {
         fileTab.setValidationLog(null);
       }
+      fileTab.setImportedLineCount(0);
 
       if (logService.isLogGenerated()) {
         logService.write();
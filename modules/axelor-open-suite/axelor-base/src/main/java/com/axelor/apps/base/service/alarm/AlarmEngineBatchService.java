@@ -87,11 +87,9 @@ public class AlarmEngineBatchService extends AbstractBatch {
 
     String comment = I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_2) + "\n";
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_3) + "\n", batch.getDone());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_3) + "\n", getDone());
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
@@ -65,13 +65,9 @@ public abstract class AbstractImportBatch extends AbstractBatch {
 
     StringBuilder comment = new StringBuilder();
     comment.append(
-        "\t"
-            + String.format(
-                I18n.get(ITranslation.BASE_IMPORT_BATCH_FILES_IMPORTED), batch.getDone()));
+        "\t" + String.format(I18n.get(ITranslation.BASE_IMPORT_BATCH_FILES_IMPORTED), getDone()));
     comment.append(
-        "\t"
-            + String.format(
-                I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly()));
+        "\t" + String.format(I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly()));
     addComment(comment.toString());
     super.stop();
   }
@@ -38,10 +38,9 @@ public class BatchReminderMail extends AbstractBatch {
   @Override
   protected void stop() {
 
-    String comment = String.format("\t* %s Emails sent \n", batch.getDone());
+    String comment = String.format("\t* %s Emails sent \n", getDone());
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
@@ -0,0 +1,241 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable lookup structure for currency conversion rates.
+ *
+ * <p>Rates are grouped by (start currency id, end currency id) and each group is sorted by start
+ * date, so that the rate applicable at a given date is found with a binary search instead of a scan
+ * of the whole conversion line list. When several periods of a group cover the same date, the one
+ * added first wins, which is the behaviour of the sequential scan it replaces.
+ *
+ * <p>An index is considered expired {@link #TIME_TO_LIVE_MINUTES} minutes after it was built, so
+ * that the rates changed on other servers are followed.
+ */
+public class CurrencyConversionRateIndex {
+
+  protected static final long TIME_TO_LIVE_MINUTES = 1;
+
+  protected final Map<CurrencyPair, RatePeriod[]> periodMap;
+  protected final long loadNanoTime;
+
+  protected CurrencyConversionRateIndex(Map<CurrencyPair, RatePeriod[]> periodMap) {
+    this.periodMap = periodMap;
+    this.loadNanoTime = System.nanoTime();
+  }
+
+  /**
+   * Find the period giving the rate to convert from the start currency to the end currency at the
+   * given date.
+   *
+   * @param startCurrencyId
+   * @param endCurrencyId
+   * @param date
+   * @return the matching period, or <code>null</code> if no period of this currency pair covers the
+   *     date.
+   */
+  public RatePeriod findRatePeriod(Long startCurrencyId, Long endCurrencyId, LocalDate date) {
+
+    RatePeriod[] periods = periodMap.get(new CurrencyPair(startCurrencyId, endCurrencyId));
+
+    if (periods == null || date == null) {
+      return null;
+    }
+
+    RatePeriod found = null;
+
+    // Periods starting after the date can not match, and walking back from the last period
+    // starting on or before it can stop as soon as no earlier period ends after the date.
+    for (int i = lastStartingOnOrBefore(periods, date);
+        i >= 0 && !periods[i].maxToDate.isBefore(date);
+        i--) {
+      RatePeriod period = periods[i];
+      if (period.covers(date) && (found == null || period.position < found.position)) {
+        found = period;
+      }
+    }
+
+    return found;
+  }
+
+  public boolean isEmpty() {
+    return periodMap.isEmpty();
+  }
+
+  public boolean isExpired() {
+    return System.nanoTime() - loadNanoTime > TimeUnit.MINUTES.toNanos(TIME_TO_LIVE_MINUTES);
+  }
+
+  protected int lastStartingOnOrBefore(RatePeriod[] periods, LocalDate date) {
+
+    int low = 0;
+    int high = periods.length - 1;
+    int result = -1;
+
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (periods[middle].fromDate.isAfter(date)) {
+        high = middle - 1;
+      } else {
+        result = middle;
+        low = middle + 1;
+      }
+    }
+
+    return result;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    protected final Map<CurrencyPair, List<RatePeriod>> periodListMap = new HashMap<>();
+
+    protected int position;
+
+    protected Builder() {}
+
+    /**
+     * Add a conversion period. Periods missing a currency or a start date are ignored, as they can
+     * never be matched.
+     */
+    public Builder add(
+        Long startCurrencyId,
+        Long endCurrencyId,
+        LocalDate fromDate,
+        LocalDate toDate,
+        BigDecimal exchangeRate) {
+
+      int currentPosition = position++;
+
+      if (startCurrencyId == null || endCurrencyId == null || fromDate == null) {
+        return this;
+      }
+
+      periodListMap
+          .computeIfAbsent(
+              new CurrencyPair(startCurrencyId, endCurrencyId), key -> new ArrayList<>())
+          .add(new RatePeriod(fromDate, toDate, exchangeRate, currentPosition));
+
+      return this;
+    }
+
+    public CurrencyConversionRateIndex build() {
+
+      Map<CurrencyPair, RatePeriod[]> periodMap = new HashMap<>();
+
+      for (Map.Entry<CurrencyPair, List<RatePeriod>> entry : periodListMap.entrySet()) {
+        RatePeriod[] periods = entry.getValue().toArray(new RatePeriod[0]);
+        Arrays.sort(
+            periods,
+            Comparator.comparing((RatePeriod period) -> period.fromDate)
+                .thenComparingInt(period -> period.position));
+
+        LocalDate maxToDate = LocalDate.MIN;
+        for (RatePeriod period : periods) {
+          LocalDate toDate = period.toDate == null ? LocalDate.MAX : period.toDate;
+          maxToDate = toDate.isAfter(maxToDate) ? toDate : maxToDate;
+          period.maxToDate = maxToDate;
+        }
+
+        periodMap.put(entry.getKey(), periods);
+      }
+
+      return new CurrencyConversionRateIndex(periodMap);
+    }
+  }
+
+  public static class RatePeriod {
+
+    protected final LocalDate fromDate;
+    protected final LocalDate toDate;
+    protected final BigDecimal exchangeRate;
+    protected final int position;
+
+    /** Latest end date among this period and all the periods sorted before it. */
+    protected LocalDate maxToDate;
+
+    protected RatePeriod(
+        LocalDate fromDate, LocalDate toDate, BigDecimal exchangeRate, int position) {
+      this.fromDate = fromDate;
+      this.toDate = toDate;
+      this.exchangeRate = exchangeRate;
+      this.position = position;
+    }
+
+    public LocalDate getFromDate() {
+      return fromDate;
+    }
+
+    public LocalDate getToDate() {
+      return toDate;
+    }
+
+    public BigDecimal getExchangeRate() {
+      return exchangeRate;
+    }
+
+    protected boolean covers(LocalDate date) {
+      return !fromDate.isAfter(date) && (toDate == null || !toDate.isBefore(date));
+    }
+  }
+
+  protected static class CurrencyPair {
+
+    protected final Long startCurrencyId;
+    protected final Long endCurrencyId;
+
+    protected CurrencyPair(Long startCurrencyId, Long endCurrencyId) {
+      this.startCurrencyId = startCurrencyId;
+      this.endCurrencyId = endCurrencyId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof CurrencyPair)) {
+        return false;
+      }
+      CurrencyPair other = (CurrencyPair) obj;
+      return Objects.equals(startCurrencyId, other.startCurrencyId)
+          && Objects.equals(endCurrencyId, other.endCurrencyId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(startCurrencyId, endCurrencyId);
+    }
+  }
+}
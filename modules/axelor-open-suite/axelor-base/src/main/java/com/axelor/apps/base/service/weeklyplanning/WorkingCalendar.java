@@ -0,0 +1,172 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.weeklyplanning;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * The working time of each day of a year, according to a weekly planning and a public holiday
+ * planning.
+ *
+ * <p>Values are accumulated day after day, so that the working days or hours between two dates are
+ * found without iterating over the days.
+ */
+public class WorkingCalendar {
+
+  protected final int year;
+  protected final LocalDate firstDate;
+  protected final int dayCount;
+  protected final BitSet publicHolidays;
+
+  /* Sums from the first day of the year up to the day before the index, in half days */
+  protected final int[] cumulativeHalfDays;
+  protected final int[] cumulativeHolidayHalfDays;
+  /* Sums from the first day of the year up to the day before the index, in hundredths of hour */
+  protected final long[] cumulativeHundredthHours;
+
+  /**
+   * @param year the year of the calendar
+   * @param weekDayValues the working value in days of each day of the week, indexed by {@link
+   *     DayOfWeek#ordinal()}: 0, 0.5 or 1
+   * @param weekDayHours the working hours of each day of the week, indexed by {@link
+   *     DayOfWeek#ordinal()}
+   * @param publicHolidayDates the public holidays, the ones of other years are ignored
+   */
+  public WorkingCalendar(
+      int year,
+      double[] weekDayValues,
+      BigDecimal[] weekDayHours,
+      Collection<LocalDate> publicHolidayDates) {
+    this.year = year;
+    this.firstDate = LocalDate.of(year, 1, 1);
+    this.dayCount = firstDate.lengthOfYear();
+    this.publicHolidays = new BitSet(dayCount);
+
+    for (LocalDate date : publicHolidayDates) {
+      if (date.getYear() == year) {
+        publicHolidays.set(date.getDayOfYear() - 1);
+      }
+    }
+
+    cumulativeHalfDays = new int[dayCount + 1];
+    cumulativeHolidayHalfDays = new int[dayCount + 1];
+    cumulativeHundredthHours = new long[dayCount + 1];
+
+    for (int i = 0; i < dayCount; i++) {
+      int dayOfWeek = firstDate.plusDays(i).getDayOfWeek().ordinal();
+      int halfDays = (int) Math.round(weekDayValues[dayOfWeek] * 2);
+      long hundredthHours =
+          weekDayHours[dayOfWeek] != null
+              ? weekDayHours[dayOfWeek].movePointRight(2).longValue()
+              : 0;
+      boolean publicHoliday = publicHolidays.get(i);
+
+      cumulativeHalfDays[i + 1] = cumulativeHalfDays[i] + (publicHoliday ? 0 : halfDays);
+      cumulativeHolidayHalfDays[i + 1] =
+          cumulativeHolidayHalfDays[i] + (publicHoliday ? halfDays : 0);
+      cumulativeHundredthHours[i + 1] =
+          cumulativeHundredthHours[i] + (publicHoliday ? 0 : hundredthHours);
+    }
+  }
+
+  public int getYear() {
+    return year;
+  }
+
+  public boolean isPublicHoliday(LocalDate date) {
+    return publicHolidays.get(getIndex(date));
+  }
+
+  /**
+   * @return the working days between the two dates included, public holidays excepted. Dates
+   *     outside of the year of the calendar are ignored.
+   */
+  public BigDecimal getWorkingDays(LocalDate fromDate, LocalDate toDate) {
+    return sumHalfDays(cumulativeHalfDays, fromDate, toDate);
+  }
+
+  /**
+   * @return the working days of the weekly planning falling on a public holiday between the two
+   *     dates included. Dates outside of the year of the calendar are ignored.
+   */
+  public BigDecimal getPublicHolidayDays(LocalDate fromDate, LocalDate toDate) {
+    return sumHalfDays(cumulativeHolidayHalfDays, fromDate, toDate);
+  }
+
+  /**
+   * @return the working hours between the two dates included, public holidays excepted. Dates
+   *     outside of the year of the calendar are ignored.
+   */
+  public BigDecimal getWorkingHours(LocalDate fromDate, LocalDate toDate) {
+    int fromIndex = getClampedIndex(fromDate);
+    int toIndex = getClampedIndex(toDate.plusDays(1));
+    if (toIndex <= fromIndex) {
+      return BigDecimal.ZERO.setScale(2);
+    }
+    return BigDecimal.valueOf(
+        cumulativeHundredthHours[toIndex] - cumulativeHundredthHours[fromIndex], 2);
+  }
+
+  /**
+   * @return the first date from the given date included having some working time and not being a
+   *     public holiday, or null if there is none until the end of the year
+   */
+  public LocalDate getNextWorkingDay(LocalDate date) {
+    for (int i = getClampedIndex(date); i < dayCount; i++) {
+      if (cumulativeHalfDays[i + 1] > cumulativeHalfDays[i]) {
+        return firstDate.plusDays(i);
+      }
+    }
+    return null;
+  }
+
+  protected BigDecimal sumHalfDays(
+      int[] cumulativeHalfDayValues, LocalDate fromDate, LocalDate toDate) {
+    int fromIndex = getClampedIndex(fromDate);
+    int toIndex = getClampedIndex(toDate.plusDays(1));
+    if (toIndex <= fromIndex) {
+      return BigDecimal.ZERO.setScale(1);
+    }
+    return BigDecimal.valueOf(
+        (cumulativeHalfDayValues[toIndex] - cumulativeHalfDayValues[fromIndex]) * 5L, 1);
+  }
+
+  protected int getIndex(LocalDate date) {
+    if (date.getYear() != year) {
+      throw new IllegalArgumentException(
+          String.format("The date %s is not in the year %s of the calendar", date, year));
+    }
+    return date.getDayOfYear() - 1;
+  }
+
+  /* The index of the date, bounded to the days of the year, the day after the last one included */
+  protected int getClampedIndex(LocalDate date) {
+    if (date.getYear() < year) {
+      return 0;
+    }
+    if (date.getYear() > year) {
+      return dayCount;
+    }
+    return date.getDayOfYear() - 1;
+  }
+}
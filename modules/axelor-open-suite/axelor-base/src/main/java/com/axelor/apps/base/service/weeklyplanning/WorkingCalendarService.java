@@ -0,0 +1,70 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.weeklyplanning;
+
+import com.axelor.apps.base.db.EventsPlanning;
+import com.axelor.apps.base.db.WeeklyPlanning;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Working time computations over date ranges, using {@link WorkingCalendar} kept in memory for each
+ * weekly planning, public holiday planning and year.
+ *
+ * <p>A null weekly planning has no working time and a null public holiday planning has no public
+ * holiday.
+ */
+public interface WorkingCalendarService {
+
+  WorkingCalendar getWorkingCalendar(
+      WeeklyPlanning weeklyPlanning, EventsPlanning publicHolidayPlanning, int year);
+
+  boolean isPublicHoliday(EventsPlanning publicHolidayPlanning, LocalDate date);
+
+  /** @return the working days between the two dates included, public holidays excepted */
+  BigDecimal getWorkingDays(
+      WeeklyPlanning weeklyPlanning,
+      EventsPlanning publicHolidayPlanning,
+      LocalDate fromDate,
+      LocalDate toDate);
+
+  /** @return the working hours between the two dates included, public holidays excepted */
+  BigDecimal getWorkingHours(
+      WeeklyPlanning weeklyPlanning,
+      EventsPlanning publicHolidayPlanning,
+      LocalDate fromDate,
+      LocalDate toDate);
+
+  /**
+   * @return the working days of the weekly planning falling on a public holiday between the two
+   *     dates included
+   */
+  BigDecimal getPublicHolidayDays(
+      WeeklyPlanning weeklyPlanning,
+      EventsPlanning publicHolidayPlanning,
+      LocalDate fromDate,
+      LocalDate toDate);
+
+  /**
+   * @return the first working day from the given date included, or null if there is none in the
+   *     following year
+   */
+  LocalDate getNextWorkingDay(
+      WeeklyPlanning weeklyPlanning, EventsPlanning publicHolidayPlanning, LocalDate date);
+}
@@ -0,0 +1,200 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.weeklyplanning;
+
+import com.axelor.apps.base.db.EventsPlanning;
+import com.axelor.apps.base.db.EventsPlanningLine;
+import com.axelor.apps.base.db.WeeklyPlanning;
+import com.axelor.db.JPA;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class WorkingCalendarServiceImpl implements WorkingCalendarService {
+
+  protected static final long WORKING_CALENDAR_CACHE_SIZE = 1000;
+  protected static final long WORKING_CALENDAR_CACHE_DURATION_MINUTES = 1;
+
+  /*
+   * Calendars by weekly planning id, public holiday planning id and year. They are dropped by
+   * WorkingCalendarListener when a day planning or a public holiday is changed, and expire a minute
+   * after being built to follow the changes made on other servers.
+   */
+  protected static final Cache<List<Object>, WorkingCalendar> WORKING_CALENDAR_CACHE =
+      CacheBuilder.newBuilder()
+          .maximumSize(WORKING_CALENDAR_CACHE_SIZE)
+          .expireAfterWrite(WORKING_CALENDAR_CACHE_DURATION_MINUTES, TimeUnit.MINUTES)
+          .build();
+
+  protected WeeklyPlanningService weeklyPlanningService;
+
+  @Inject
+  public WorkingCalendarServiceImpl(WeeklyPlanningService weeklyPlanningService) {
+    this.weeklyPlanningService = weeklyPlanningService;
+  }
+
+  public static void invalidateWorkingCalendars() {
+    WORKING_CALENDAR_CACHE.invalidateAll();
+  }
+
+  @Override
+  public WorkingCalendar getWorkingCalendar(
+      WeeklyPlanning weeklyPlanning, EventsPlanning publicHolidayPlanning, int year) {
+    // Plannings being edited are not cached
+    if ((weeklyPlanning != null && weeklyPlanning.getId() == null)
+        || (publicHolidayPlanning != null && publicHolidayPlanning.getId() == null)) {
+      return createWorkingCalendar(weeklyPlanning, publicHolidayPlanning, year);
+    }
+
+    List<Object> key =
+        Arrays.asList(
+            weeklyPlanning != null ? weeklyPlanning.getId() : null,
+            publicHolidayPlanning != null ? publicHolidayPlanning.getId() : null,
+            year);
+    WorkingCalendar workingCalendar = WORKING_CALENDAR_CACHE.getIfPresent(key);
+    if (workingCalendar == null) {
+      workingCalendar = createWorkingCalendar(weeklyPlanning, publicHolidayPlanning, year);
+      WORKING_CALENDAR_CACHE.put(key, workingCalendar);
+    }
+    return workingCalendar;
+  }
+
+  protected WorkingCalendar createWorkingCalendar(
+      WeeklyPlanning weeklyPlanning, EventsPlanning publicHolidayPlanning, int year) {
+    double[] weekDayValues = new double[DayOfWeek.values().length];
+    BigDecimal[] weekDayHours = new BigDecimal[DayOfWeek.values().length];
+
+    if (weeklyPlanning != null) {
+      LocalDate date =
+          LocalDate.of(year, 1, 1).with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+      for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+        LocalDate weekDate = date.with(TemporalAdjusters.nextOrSame(dayOfWeek));
+        weekDayValues[dayOfWeek.ordinal()] =
+            weeklyPlanningService.getWorkingDayValueInDays(weeklyPlanning, weekDate);
+        weekDayHours[dayOfWeek.ordinal()] =
+            weeklyPlanningService.getWorkingDayValueInHours(weeklyPlanning, weekDate, null, null);
+      }
+    }
+
+    List<LocalDate> publicHolidayDates = new ArrayList<>();
+    if (publicHolidayPlanning != null && publicHolidayPlanning.getId() != null) {
+      publicHolidayDates =
+          JPA.em()
+              .createQuery(
+                  "SELECT self.date FROM EventsPlanningLine self "
+                      + "WHERE self.eventsPlanning.id = :eventsPlanningId "
+                      + "AND self.date BETWEEN :fromDate AND :toDate",
+                  LocalDate.class)
+              .setParameter("eventsPlanningId", publicHolidayPlanning.getId())
+              .setParameter("fromDate", LocalDate.of(year, 1, 1))
+              .setParameter("toDate", LocalDate.of(year, 12, 31))
+              .getResultList();
+    } else if (publicHolidayPlanning != null
+        && publicHolidayPlanning.getEventsPlanningLineList() != null) {
+      for (EventsPlanningLine eventsPlanningLine :
+          publicHolidayPlanning.getEventsPlanningLineList()) {
+        if (eventsPlanningLine.getDate() != null) {
+          publicHolidayDates.add(eventsPlanningLine.getDate());
+        }
+      }
+    }
+
+    return new WorkingCalendar(year, weekDayValues, weekDayHours, publicHolidayDates);
+  }
+
+  @Override
+  public boolean isPublicHoliday(EventsPlanning publicHolidayPlanning, LocalDate date) {
+    if (publicHolidayPlanning == null) {
+      return false;
+    }
+    return getWorkingCalendar(null, publicHolidayPlanning, date.getYear()).isPublicHoliday(date);
+  }
+
+  @Override
+  public BigDecimal getWorkingDays(
+      WeeklyPlanning weeklyPlanning,
+      EventsPlanning publicHolidayPlanning,
+      LocalDate fromDate,
+      LocalDate toDate) {
+    BigDecimal workingDays = BigDecimal.ZERO;
+    for (int year = fromDate.getYear(); year <= toDate.getYear(); year++) {
+      workingDays =
+          workingDays.add(
+              getWorkingCalendar(weeklyPlanning, publicHolidayPlanning, year)
+                  .getWorkingDays(fromDate, toDate));
+    }
+    return workingDays;
+  }
+
+  @Override
+  public BigDecimal getWorkingHours(
+      WeeklyPlanning weeklyPlanning,
+      EventsPlanning publicHolidayPlanning,
+      LocalDate fromDate,
+      LocalDate toDate) {
+    BigDecimal workingHours = BigDecimal.ZERO;
+    for (int year = fromDate.getYear(); year <= toDate.getYear(); year++) {
+      workingHours =
+          workingHours.add(
+              getWorkingCalendar(weeklyPlanning, publicHolidayPlanning, year)
+                  .getWorkingHours(fromDate, toDate));
+    }
+    return workingHours;
+  }
+
+  @Override
+  public BigDecimal getPublicHolidayDays(
+      WeeklyPlanning weeklyPlanning,
+      EventsPlanning publicHolidayPlanning,
+      LocalDate fromDate,
+      LocalDate toDate) {
+    BigDecimal publicHolidayDays = BigDecimal.ZERO;
+    if (publicHolidayPlanning == null) {
+      return publicHolidayDays;
+    }
+    for (int year = fromDate.getYear(); year <= toDate.getYear(); year++) {
+      publicHolidayDays =
+          publicHolidayDays.add(
+              getWorkingCalendar(weeklyPlanning, publicHolidayPlanning, year)
+                  .getPublicHolidayDays(fromDate, toDate));
+    }
+    return publicHolidayDays;
+  }
+
+  @Override
+  public LocalDate getNextWorkingDay(
+      WeeklyPlanning weeklyPlanning, EventsPlanning publicHolidayPlanning, LocalDate date) {
+    for (int year = date.getYear(); year <= date.getYear() + 1; year++) {
+      LocalDate nextWorkingDay =
+          getWorkingCalendar(weeklyPlanning, publicHolidayPlanning, year).getNextWorkingDay(date);
+      if (nextWorkingDay != null) {
+        return nextWorkingDay;
+      }
+    }
+    return null;
+  }
+}
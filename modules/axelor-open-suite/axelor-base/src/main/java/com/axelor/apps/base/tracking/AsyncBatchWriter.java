@@ -0,0 +1,156 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.tracking;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write items by batches on a background thread.
+ *
+ * <p>The number of items waiting to be written is bounded: room has to be reserved with {@link
+ * #tryReserve(int)} before submitting items, and callers are expected to write the items themselves
+ * when no room is left. The number of such refusals is the backpressure metric of the writer.
+ *
+ * @param <T> the type of the items
+ */
+public class AsyncBatchWriter<T> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected final String name;
+  protected final int capacity;
+  protected final int batchSize;
+  protected final Consumer<List<T>> batchWriter;
+
+  protected final Semaphore permits;
+  protected final BlockingQueue<T> queue = new LinkedBlockingQueue<>();
+  protected Thread thread;
+
+  protected final AtomicLong writtenCount = new AtomicLong();
+  protected final AtomicLong failedCount = new AtomicLong();
+  protected final AtomicLong refusedCount = new AtomicLong();
+
+  /**
+   * @param name the name of the background thread
+   * @param capacity the maximum number of items reserved and not written yet
+   * @param batchSize the maximum number of items given at once to the batch writer
+   * @param batchWriter writes a batch of items, from the background thread
+   */
+  public AsyncBatchWriter(String name, int capacity, int batchSize, Consumer<List<T>> batchWriter) {
+    this.name = name;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.batchWriter = batchWriter;
+    this.permits = new Semaphore(capacity);
+  }
+
+  /**
+   * Reserve room for items to be submitted later.
+   *
+   * @param count the number of items
+   * @return false if there is not enough room left, in which case nothing is reserved
+   */
+  public boolean tryReserve(int count) {
+    if (permits.tryAcquire(count)) {
+      return true;
+    }
+    refusedCount.incrementAndGet();
+    return false;
+  }
+
+  /** Give back room reserved for items which will not be submitted. */
+  public void cancel(int count) {
+    permits.release(count);
+  }
+
+  /** Queue items for which room has been reserved. */
+  public void submit(Collection<T> items) {
+    if (items.isEmpty()) {
+      return;
+    }
+    ensureStarted();
+    queue.addAll(items);
+  }
+
+  protected synchronized void ensureStarted() {
+    if (thread != null && thread.isAlive()) {
+      return;
+    }
+    thread = new Thread(this::writeLoop, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  protected void writeLoop() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        List<T> batch = new ArrayList<>(batchSize);
+        batch.add(queue.take());
+        queue.drainTo(batch, batchSize - 1);
+        writeBatch(batch);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  protected void writeBatch(List<T> batch) {
+    try {
+      batchWriter.accept(batch);
+      writtenCount.addAndGet(batch.size());
+    } catch (RuntimeException e) {
+      failedCount.addAndGet(batch.size());
+      LOG.error("{}: {} items could not be written", name, batch.size(), e);
+    } finally {
+      permits.release(batch.size());
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** @return the number of items reserved or queued, and not written yet. */
+  public int getPendingCount() {
+    return capacity - permits.availablePermits();
+  }
+
+  public long getWrittenCount() {
+    return writtenCount.get();
+  }
+
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /** @return the number of reservations refused because the writer was full. */
+  public long getRefusedCount() {
+    return refusedCount.get();
+  }
+}
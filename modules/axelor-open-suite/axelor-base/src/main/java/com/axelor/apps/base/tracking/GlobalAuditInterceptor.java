@@ -96,6 +96,7 @@ public class GlobalAuditInterceptor extends AuditInterceptor {
 
   @Override
   public void afterTransactionCompletion(Transaction tx) {
+    globalTracker.get().afterComplete(tx);
     globalTracker.get().clear();
     globalTracker.remove();
     super.afterTransactionCompletion(tx);
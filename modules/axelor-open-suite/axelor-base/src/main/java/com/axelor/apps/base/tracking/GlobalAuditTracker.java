@@ -18,11 +18,11 @@
  */
 package com.axelor.apps.base.tracking;
 
-import com.axelor.apps.base.db.GlobalTrackingConfigurationLine;
 import com.axelor.apps.base.db.GlobalTrackingLog;
 import com.axelor.apps.base.db.GlobalTrackingLogLine;
-import com.axelor.apps.base.db.repo.GlobalTrackingConfigurationLineRepository;
 import com.axelor.apps.base.db.repo.GlobalTrackingLogRepository;
+import com.axelor.apps.base.tracking.GlobalTrackingConfiguration.FieldConfiguration;
+import com.axelor.apps.base.tracking.GlobalTrackingConfiguration.ModelConfiguration;
 import com.axelor.auth.AuditInterceptor;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.AuditableModel;
@@ -32,11 +32,13 @@ import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.inject.Beans;
-import com.axelor.meta.db.repo.MetaFieldRepository;
-import com.axelor.meta.db.repo.MetaModelRepository;
+import com.axelor.meta.db.MetaField;
+import com.axelor.meta.db.MetaModel;
 import com.axelor.script.GroovyScriptHelper;
 import com.axelor.script.ScriptBindings;
+import com.axelor.script.ScriptHelper;
 import com.google.common.base.Strings;
+import com.google.inject.persist.UnitOfWork;
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
@@ -51,16 +53,31 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
 import org.apache.commons.collections.CollectionUtils;
 import org.hibernate.Transaction;
 import org.hibernate.collection.internal.AbstractPersistentCollection;
 import org.hibernate.collection.internal.PersistentBag;
 import org.hibernate.collection.internal.PersistentSet;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
 
 public class GlobalAuditTracker {
 
   private static final ThreadLocal<List<GlobalTrackingLog>> LOGS = new ThreadLocal<>();
 
+  protected static final int LOG_WRITER_CAPACITY = 10000;
+  protected static final int LOG_WRITER_BATCH_SIZE = 100;
+
+  private static final AsyncBatchWriter<GlobalTrackingLog> LOG_WRITER =
+      new AsyncBatchWriter<>(
+          "global-tracking-log-writer",
+          LOG_WRITER_CAPACITY,
+          LOG_WRITER_BATCH_SIZE,
+          GlobalAuditTracker::writeLogs);
+
+  /** Logs to hand over to the background writer once the transaction is committed. */
+  protected final List<GlobalTrackingLog> pendingLogs = new ArrayList<>();
+
   /**
    * This method should be called from {@link
    * AuditInterceptor#beforeTransactionCompletion(Transaction)} method to finish change recording.
@@ -76,93 +93,147 @@ public class GlobalAuditTracker {
       return;
     }
 
-    MetaModelRepository modelRepo = Beans.get(MetaModelRepository.class);
-    MetaFieldRepository fieldRepo = Beans.get(MetaFieldRepository.class);
-    GlobalTrackingLogRepository logRepo = Beans.get(GlobalTrackingLogRepository.class);
-    GlobalTrackingConfigurationLineRepository configLineRepo =
-        Beans.get(GlobalTrackingConfigurationLineRepository.class);
-    GlobalTrackingConfigurationLine configLine;
-    List<GlobalTrackingConfigurationLine> configLineList;
-    ScriptBindings bindings;
+    GlobalTrackingConfiguration configuration = GlobalTrackingConfiguration.get();
 
     for (GlobalTrackingLog log : logList) {
 
-      configLineList =
-          configLineRepo.all().filter("self.metaModel.name = ?", log.getMetaModelName()).fetch();
+      ModelConfiguration modelConfiguration =
+          configuration.getModelConfiguration(log.getMetaModelName());
 
-      if (configLineList.isEmpty()) {
+      if (modelConfiguration == null) {
         continue;
       }
 
-      log.setMetaModel(modelRepo.findByName(log.getMetaModelName()));
-
-      List<GlobalTrackingLogLine> logLinesToSave = new ArrayList<>();
+      log.setMetaModel(JPA.em().getReference(MetaModel.class, modelConfiguration.getMetaModelId()));
 
-      if ((CollectionUtils.isNotEmpty(log.getGlobalTrackingLogLineList()))) {
-        try {
-          bindings =
-              new ScriptBindings(
-                  this.getContext(
-                      JPA.find(
-                          (Class<Model>) Class.forName(log.getMetaModel().getFullName()),
-                          log.getRelatedId())));
-        } catch (Exception e) {
-          continue;
-        }
-        for (GlobalTrackingLogLine line : log.getGlobalTrackingLogLineList()) {
-
-          configLine =
-              configLineList.stream()
-                  .filter(l -> l.getMetaField().getName().equals(line.getMetaFieldName()))
-                  .findFirst()
-                  .orElse(null);
-
-          if (configLine == null
-              || !this.canTrack(configLine, log.getTypeSelect())
-              || (!Strings.isNullOrEmpty(configLine.getTrackingCondition())
-                  && !Boolean.TRUE.equals(
-                      new GroovyScriptHelper(bindings).eval(configLine.getTrackingCondition())))) {
-            continue;
-          }
-
-          line.setMetaField(
-              fieldRepo
-                  .all()
-                  .filter(
-                      "self.metaModel.id = ? AND self.name = ?",
-                      log.getMetaModel().getId(),
-                      line.getMetaFieldName())
-                  .fetchOne());
-          logLinesToSave.add(line);
-        }
+      List<GlobalTrackingLogLine> logLinesToSave;
+      try {
+        logLinesToSave = this.getLogLinesToSave(log, modelConfiguration);
+      } catch (Exception e) {
+        continue;
       }
+
       if (!logLinesToSave.isEmpty()
           || (GlobalTrackingLogRepository.TYPE_DELETE == log.getTypeSelect()
-              && configLineList.stream()
-                  .anyMatch(l -> Boolean.TRUE.equals(l.getTrackDeletion())))) {
+              && modelConfiguration.isTrackDeletion())) {
         log.getGlobalTrackingLogLineList().stream().forEach(l -> l.setGlobalTrackingLog(null));
+        log.setGlobalTrackingLogLineList(logLinesToSave);
         logLinesToSave.stream().forEach(l -> l.setGlobalTrackingLog(log));
         log.setUser(user);
-        logRepo.save(log);
+        this.saveLog(log, configuration);
       }
     }
   }
 
-  protected boolean canTrack(GlobalTrackingConfigurationLine confLine, int typeSelect) {
-
-    switch (typeSelect) {
-      case GlobalTrackingLogRepository.TYPE_CREATE:
-        return confLine.getTrackCreation();
-      case GlobalTrackingLogRepository.TYPE_READ:
-        return confLine.getTrackReading();
-      case GlobalTrackingLogRepository.TYPE_UPDATE:
-        return confLine.getTrackUpdate();
-      case GlobalTrackingLogRepository.TYPE_DELETE:
-        return confLine.getTrackDeletion();
-      case GlobalTrackingLogRepository.TYPE_EXPORT:
-        return confLine.getTrackExport();
-      default:
-        return false;
+  /**
+   * This method should be called from {@link
+   * AuditInterceptor#afterTransactionCompletion(Transaction)} method to hand the logs to write
+   * after the transaction over to the background writer.
+   *
+   * @param tx the completed transaction
+   */
+  protected void afterComplete(Transaction tx) {
+    if (pendingLogs.isEmpty()) {
+      return;
+    }
+    if (tx.getStatus() == TransactionStatus.COMMITTED) {
+      LOG_WRITER.submit(pendingLogs);
+    } else {
+      LOG_WRITER.cancel(pendingLogs.size());
+    }
+    pendingLogs.clear();
+  }
+
+  /**
+   * @return the lines of the log on tracked fields and matching their tracking condition
+   * @throws Exception if the record could not be loaded to evaluate a tracking condition
+   */
+  @SuppressWarnings("unchecked")
+  protected List<GlobalTrackingLogLine> getLogLinesToSave(
+      GlobalTrackingLog log, ModelConfiguration modelConfiguration) throws Exception {
+
+    List<GlobalTrackingLogLine> logLinesToSave = new ArrayList<>();
+
+    if (CollectionUtils.isEmpty(log.getGlobalTrackingLogLineList())) {
+      return logLinesToSave;
+    }
+
+    ScriptHelper scriptHelper = null;
+    // Fields of a record often share the same tracking condition
+    Map<String, Boolean> trackingConditionResults = new HashMap<>();
+
+    for (GlobalTrackingLogLine line : log.getGlobalTrackingLogLineList()) {
+
+      FieldConfiguration fieldConfiguration =
+          modelConfiguration.getFieldConfiguration(line.getMetaFieldName());
+
+      if (fieldConfiguration == null || !fieldConfiguration.isTrack(log.getTypeSelect())) {
+        continue;
+      }
+
+      String trackingCondition = fieldConfiguration.getTrackingCondition();
+      if (!Strings.isNullOrEmpty(trackingCondition)) {
+        if (scriptHelper == null) {
+          scriptHelper =
+              new GroovyScriptHelper(
+                  new ScriptBindings(
+                      this.getContext(
+                          JPA.find(
+                              (Class<Model>) Class.forName(modelConfiguration.getModelFullName()),
+                              log.getRelatedId()))));
+        }
+        ScriptHelper conditionScriptHelper = scriptHelper;
+        if (!trackingConditionResults.computeIfAbsent(
+            trackingCondition,
+            condition -> Boolean.TRUE.equals(conditionScriptHelper.eval(condition)))) {
+          continue;
+        }
+      }
+
+      line.setMetaField(
+          JPA.em().getReference(MetaField.class, fieldConfiguration.getMetaFieldId()));
+      logLinesToSave.add(line);
+    }
+
+    return logLinesToSave;
+  }
+
+  /**
+   * Save the log in the current transaction, or hand it over to the background writer after the
+   * transaction when configured so and if the writer is not full.
+   */
+  protected void saveLog(GlobalTrackingLog log, GlobalTrackingConfiguration configuration) {
+    if (configuration.isWriteAfterTransaction() && LOG_WRITER.tryReserve(1)) {
+      pendingLogs.add(log);
+    } else {
+      Beans.get(GlobalTrackingLogRepository.class).save(log);
+    }
+  }
+
+  /** @return the background writer of the logs, to monitor it. */
+  public static AsyncBatchWriter<GlobalTrackingLog> getLogWriter() {
+    return LOG_WRITER;
+  }
+
+  protected static void writeLogs(List<GlobalTrackingLog> logList) {
+    try {
+      JPA.runInTransaction(
+          () -> {
+            EntityManager em = JPA.em();
+            for (GlobalTrackingLog log : logList) {
+              // References were loaded by the sessions which tracked the changes
+              if (log.getUser() != null) {
+                log.setUser(em.getReference(User.class, log.getUser().getId()));
+              }
+              log.setMetaModel(em.getReference(MetaModel.class, log.getMetaModel().getId()));
+              for (GlobalTrackingLogLine line : log.getGlobalTrackingLogLineList()) {
+                line.setMetaField(em.getReference(MetaField.class, line.getMetaField().getId()));
+              }
+              em.persist(log);
+            }
+          });
+    } finally {
+      Beans.get(UnitOfWork.class).end();
     }
   }
 
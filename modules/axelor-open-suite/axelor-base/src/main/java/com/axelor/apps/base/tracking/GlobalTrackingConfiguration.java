@@ -0,0 +1,214 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.tracking;
+
+import com.axelor.apps.base.db.repo.GlobalTrackingLogRepository;
+import com.axelor.db.JPA;
+import com.axelor.studio.db.repo.AppBaseRepository;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In memory copy of the global tracking configuration lines, with the meta model and meta field ids
+ * they refer to, so that tracked changes do not query them on every transaction.
+ *
+ * <p>The copy is dropped when a configuration line is modified, and reloaded at least every {@link
+ * #TIME_TO_LIVE_MINUTES} minutes to follow the app configuration and the changes made on other
+ * servers.
+ */
+public class GlobalTrackingConfiguration {
+
+  protected static final long TIME_TO_LIVE_MINUTES = 1;
+
+  private static volatile GlobalTrackingConfiguration instance;
+
+  protected final Map<String, ModelConfiguration> modelConfigurations;
+  protected final int writeModeSelect;
+  protected final long loadNanoTime;
+
+  protected GlobalTrackingConfiguration(
+      Map<String, ModelConfiguration> modelConfigurations, int writeModeSelect) {
+    this.modelConfigurations = modelConfigurations;
+    this.writeModeSelect = writeModeSelect;
+    this.loadNanoTime = System.nanoTime();
+  }
+
+  public static GlobalTrackingConfiguration get() {
+    GlobalTrackingConfiguration configuration = instance;
+    if (configuration == null || configuration.isExpired()) {
+      configuration = load();
+      instance = configuration;
+    }
+    return configuration;
+  }
+
+  public static void invalidate() {
+    instance = null;
+  }
+
+  protected boolean isExpired() {
+    return System.nanoTime() - loadNanoTime > TimeUnit.MINUTES.toNanos(TIME_TO_LIVE_MINUTES);
+  }
+
+  protected static GlobalTrackingConfiguration load() {
+    List<Object[]> rows =
+        JPA.em()
+            .createQuery(
+                "SELECT metaModel.name, metaModel.id, metaModel.fullName,"
+                    + " metaField.name, metaField.id, self.trackCreation, self.trackReading, self.trackUpdate,"
+                    + " self.trackDeletion, self.trackExport, self.trackingCondition"
+                    + " FROM GlobalTrackingConfigurationLine self"
+                    + " JOIN self.metaModel metaModel"
+                    + " JOIN self.metaField metaField",
+                Object[].class)
+            .getResultList();
+
+    Map<String, ModelConfiguration> modelConfigurations = new HashMap<>();
+    for (Object[] row : rows) {
+      ModelConfiguration modelConfiguration =
+          modelConfigurations.computeIfAbsent(
+              (String) row[0], name -> new ModelConfiguration((Long) row[1], (String) row[2]));
+      modelConfiguration.fieldConfigurations.put(
+          (String) row[3],
+          new FieldConfiguration(
+              (Long) row[4],
+              (Boolean) row[5],
+              (Boolean) row[6],
+              (Boolean) row[7],
+              (Boolean) row[8],
+              (Boolean) row[9],
+              (String) row[10]));
+    }
+
+    List<Integer> writeModeSelectList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.globalTrackingLogWriteModeSelect FROM AppBase self", Integer.class)
+            .setMaxResults(1)
+            .getResultList();
+    int writeModeSelect =
+        writeModeSelectList.isEmpty() || writeModeSelectList.get(0) == null
+            ? AppBaseRepository.GLOBAL_TRACKING_LOG_WRITE_IN_TRANSACTION
+            : writeModeSelectList.get(0);
+
+    return new GlobalTrackingConfiguration(modelConfigurations, writeModeSelect);
+  }
+
+  /** @return the configuration of the model with the given simple name, or null if not tracked. */
+  public ModelConfiguration getModelConfiguration(String modelName) {
+    return modelConfigurations.get(modelName);
+  }
+
+  public boolean isWriteAfterTransaction() {
+    return writeModeSelect == AppBaseRepository.GLOBAL_TRACKING_LOG_WRITE_AFTER_TRANSACTION;
+  }
+
+  public static class ModelConfiguration {
+
+    protected final Long metaModelId;
+    protected final String modelFullName;
+    protected final Map<String, FieldConfiguration> fieldConfigurations = new HashMap<>();
+
+    protected ModelConfiguration(Long metaModelId, String modelFullName) {
+      this.metaModelId = metaModelId;
+      this.modelFullName = modelFullName;
+    }
+
+    public Long getMetaModelId() {
+      return metaModelId;
+    }
+
+    public String getModelFullName() {
+      return modelFullName;
+    }
+
+    /** @return the configuration of the given field, or null if not tracked. */
+    public FieldConfiguration getFieldConfiguration(String fieldName) {
+      return fieldConfigurations.get(fieldName);
+    }
+
+    public Map<String, FieldConfiguration> getFieldConfigurations() {
+      return Collections.unmodifiableMap(fieldConfigurations);
+    }
+
+    public boolean isTrackDeletion() {
+      return fieldConfigurations.values().stream().anyMatch(FieldConfiguration::isTrackDeletion);
+    }
+  }
+
+  public static class FieldConfiguration {
+
+    protected final Long metaFieldId;
+    protected final boolean trackCreation;
+    protected final boolean trackReading;
+    protected final boolean trackUpdate;
+    protected final boolean trackDeletion;
+    protected final boolean trackExport;
+    protected final String trackingCondition;
+
+    protected FieldConfiguration(
+        Long metaFieldId,
+        Boolean trackCreation,
+        Boolean trackReading,
+        Boolean trackUpdate,
+        Boolean trackDeletion,
+        Boolean trackExport,
+        String trackingCondition) {
+      this.metaFieldId = metaFieldId;
+      this.trackCreation = Boolean.TRUE.equals(trackCreation);
+      this.trackReading = Boolean.TRUE.equals(trackReading);
+      this.trackUpdate = Boolean.TRUE.equals(trackUpdate);
+      this.trackDeletion = Boolean.TRUE.equals(trackDeletion);
+      this.trackExport = Boolean.TRUE.equals(trackExport);
+      this.trackingCondition = trackingCondition;
+    }
+
+    public Long getMetaFieldId() {
+      return metaFieldId;
+    }
+
+    public boolean isTrack(int typeSelect) {
+      switch (typeSelect) {
+        case GlobalTrackingLogRepository.TYPE_CREATE:
+          return trackCreation;
+        case GlobalTrackingLogRepository.TYPE_READ:
+          return trackReading;
+        case GlobalTrackingLogRepository.TYPE_UPDATE:
+          return trackUpdate;
+        case GlobalTrackingLogRepository.TYPE_DELETE:
+          return trackDeletion;
+        case GlobalTrackingLogRepository.TYPE_EXPORT:
+          return trackExport;
+        default:
+          return false;
+      }
+    }
+
+    public boolean isTrackDeletion() {
+      return trackDeletion;
+    }
+
+    public String getTrackingCondition() {
+      return trackingCondition;
+    }
+  }
+}
@@ -18,9 +18,14 @@
  */
 package com.axelor.apps.base.web;
 
+import com.axelor.apps.base.db.GlobalTrackingLog;
+import com.axelor.apps.base.exceptions.BaseExceptionMessage;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.base.tracking.AsyncBatchWriter;
+import com.axelor.apps.base.tracking.GlobalAuditTracker;
 import com.axelor.apps.base.tracking.GlobalTrackingLogService;
+import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
@@ -35,4 +40,20 @@ public class GlobalTrackingConfigController {
       TraceBackService.trace(response, e);
     }
   }
+
+  public void showLogWriterStatus(ActionRequest request, ActionResponse response) {
+    try {
+      AsyncBatchWriter<GlobalTrackingLog> logWriter = GlobalAuditTracker.getLogWriter();
+      response.setInfo(
+          String.format(
+              I18n.get(BaseExceptionMessage.GLOBAL_TRACKING_LOG_WRITER_STATUS),
+              logWriter.getPendingCount(),
+              logWriter.getCapacity(),
+              logWriter.getRefusedCount(),
+              logWriter.getWrittenCount(),
+              logWriter.getFailedCount()));
+    } catch (Exception e) {
+      TraceBackService.trace(response, e);
+    }
+  }
 }
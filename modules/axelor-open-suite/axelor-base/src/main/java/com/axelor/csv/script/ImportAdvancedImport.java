@@ -21,6 +21,7 @@ package com.axelor.csv.script;
 import com.axelor.apps.base.db.FileTab;
 import com.axelor.apps.base.db.repo.FileTabRepository;
 import com.axelor.apps.base.service.advanced.imports.ActionService;
+import com.axelor.apps.base.service.advanced.imports.ImportedLineTracker;
 import com.axelor.apps.base.service.advanced.imports.ValidatorService;
 import com.axelor.common.Inflector;
 import com.axelor.common.ObjectUtils;
@@ -31,7 +32,6 @@ import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
 import com.axelor.meta.MetaFiles;
 import com.axelor.meta.db.MetaFile;
-import com.axelor.rpc.Context;
 import com.axelor.rpc.JsonContext;
 import com.axelor.script.GroovyScriptHelper;
 import com.axelor.script.ScriptBindings;
@@ -46,6 +46,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -69,6 +70,13 @@ public class ImportAdvancedImport {
 
     FileTab fileTab = fileTabRepo.find(Long.valueOf(values.get("fileTabId").toString()));
 
+    ImportedLineTracker importedLineTracker =
+        (ImportedLineTracker) values.get("importedLines" + fileTab.getId());
+    Object lineNumber = values.get(ImportedLineTracker.LINE_NUMBER_COLUMN);
+    if (importedLineTracker != null && lineNumber != null) {
+      importedLineTracker.addLine(Integer.parseInt(lineNumber.toString()));
+    }
+
     ScriptHelper scriptHelper = new GroovyScriptHelper(new ScriptBindings(values));
 
     List<String> exprs = (List<String>) values.get("ifConditions" + fileTab.getId());
@@ -83,13 +91,16 @@ public class ImportAdvancedImport {
       JPA.save((Model) bean);
       this.addJsonObjectRecord(bean, fileTab, fileTab.getMetaModel().getName(), values);
 
+      Set<String> customObjectModelSet = (Set<String>) values.get("customObjectModels");
       int fieldSeq = 2;
       int btnSeq = 3;
       for (Property prop : propList) {
-        validatorService.createCustomObjectSet(
-            fileTab.getClass().getName(), prop.getTarget().getName(), fieldSeq);
-        validatorService.createCustomButton(
-            fileTab.getClass().getName(), prop.getTarget().getName(), btnSeq);
+        if (customObjectModelSet.add(prop.getTarget().getName())) {
+          validatorService.createCustomObjectSet(
+              fileTab.getClass().getName(), prop.getTarget().getName(), fieldSeq);
+          validatorService.createCustomButton(
+              fileTab.getClass().getName(), prop.getTarget().getName(), btnSeq);
+        }
 
         this.addJsonObjectRecord(
             prop.get(bean),
@@ -123,43 +134,48 @@ public class ImportAdvancedImport {
     return propList;
   }
 
+  /**
+   * Adds the record to the list of records imported by the file tab. The lists are kept in the
+   * import context and saved in the attributes of the file tab by {@link ImportedLineTracker}
+   * before the transaction of the importer is committed.
+   */
   @SuppressWarnings("unchecked")
   protected void addJsonObjectRecord(
       Object bean, FileTab fileTab, String fieldName, Map<String, Object> values) {
 
     String field = Inflector.getInstance().camelize(fieldName, true) + "Set";
-    List<Object> recordList;
 
     Map<String, Object> recordMap = new HashMap<String, Object>();
     recordMap.put("id", ((Model) bean).getId());
 
+    Map<String, List<Object>> importedRecordMap =
+        (Map<String, List<Object>>) values.get("importedRecords" + fileTab.getId());
     Map<String, Object> jsonContextValues =
         (Map<String, Object>) values.get("jsonContextValues" + fileTab.getId());
-
     JsonContext jsonContext = (JsonContext) jsonContextValues.get("jsonContext");
-    Context context = (Context) jsonContextValues.get("context");
 
+    importedRecordMap
+        .computeIfAbsent(field, key -> this.getRecordList(jsonContext, key))
+        .add(recordMap);
+  }
+
+  @SuppressWarnings("unchecked")
+  protected List<Object> getRecordList(JsonContext jsonContext, String field) {
     if (!jsonContext.containsKey(field)) {
-      recordList = new ArrayList<Object>();
-    } else {
-      recordList =
-          ((List<Object>) jsonContext.get(field))
-              .stream()
-                  .map(
-                      obj -> {
-                        if (Mapper.toMap(EntityHelper.getEntity(obj)).get("id") != null) {
-                          Map<String, Object> idMap = new HashMap<String, Object>();
-                          idMap.put("id", Mapper.toMap(EntityHelper.getEntity(obj)).get("id"));
-                          return idMap;
-                        }
-                        return obj;
-                      })
-                  .collect(Collectors.toList());
+      return new ArrayList<Object>();
     }
-    recordList.add(recordMap);
-    jsonContext.put(field, recordList);
-
-    fileTab.setAttrs(context.get("attrs").toString());
+    return ((List<Object>) jsonContext.get(field))
+        .stream()
+            .map(
+                obj -> {
+                  if (Mapper.toMap(EntityHelper.getEntity(obj)).get("id") != null) {
+                    Map<String, Object> idMap = new HashMap<String, Object>();
+                    idMap.put("id", Mapper.toMap(EntityHelper.getEntity(obj)).get("id"));
+                    return idMap;
+                  }
+                  return obj;
+                })
+            .collect(Collectors.toList());
   }
 
   public Object importPicture(String value, String pathVal) throws IOException {
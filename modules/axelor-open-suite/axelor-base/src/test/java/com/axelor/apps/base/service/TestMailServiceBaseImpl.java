@@ -0,0 +1,145 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service;
+
+import com.axelor.mail.MailSender;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMailServiceBaseImpl {
+
+  private MailServiceStub mailService;
+  private MimeMessage email;
+
+  @Before
+  public void prepare() {
+    mailService = new MailServiceStub();
+    email = new MimeMessage((Session) null);
+  }
+
+  @Test
+  public void testSendingIsRetriedAfterFailure() {
+    mailService.failures.add(new MessagingException("connection refused"));
+
+    mailService.sendWithRetry(null, email);
+
+    Assert.assertEquals(2, mailService.attempts);
+    Assert.assertEquals(1, mailService.getSentCount());
+    Assert.assertEquals(0, mailService.getFailedCount());
+    Assert.assertTrue(mailService.tracedFailures.isEmpty());
+  }
+
+  @Test
+  public void testSendingStopsAfterLastAttempt() {
+    for (int i = 0; i < MailServiceBaseImpl.SEND_ATTEMPTS + 1; i++) {
+      mailService.failures.add(new MessagingException("connection refused"));
+    }
+
+    mailService.sendWithRetry(null, email);
+
+    Assert.assertEquals(MailServiceBaseImpl.SEND_ATTEMPTS, mailService.attempts);
+    Assert.assertEquals(0, mailService.getSentCount());
+    Assert.assertEquals(1, mailService.getFailedCount());
+    Assert.assertEquals(1, mailService.tracedFailures.size());
+  }
+
+  @Test
+  public void testRejectedRecipientsAreNotRetried() {
+    mailService.failures.add(new SendFailedException("recipient rejected"));
+
+    mailService.sendWithRetry(null, email);
+
+    Assert.assertEquals(1, mailService.attempts);
+    Assert.assertEquals(1, mailService.getFailedCount());
+    Assert.assertTrue(mailService.tracedFailures.get(0) instanceof SendFailedException);
+  }
+
+  @Test
+  public void testCallingThreadSendsWhenQueueIsFull() throws InterruptedException {
+    ThreadPoolExecutor executor = MailServiceBaseImpl.createExecutor(1, 1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    try {
+      executor.execute(
+          () -> {
+            blocked.countDown();
+            await(release);
+          });
+      Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+      executor.execute(() -> {});
+      executor.execute(() -> threads.add(Thread.currentThread()));
+
+      Assert.assertEquals(1, threads.size());
+      Assert.assertSame(Thread.currentThread(), threads.get(0));
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+    Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  protected static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Mail service sending to a fake server failing with the given exceptions. */
+  protected static class MailServiceStub extends MailServiceBaseImpl {
+
+    protected final List<MessagingException> failures = new ArrayList<>();
+    protected final List<Exception> tracedFailures = new ArrayList<>();
+    protected int attempts;
+
+    public MailServiceStub() {
+      super(null, null);
+    }
+
+    @Override
+    protected void send(MailSender sender, MimeMessage email) throws MessagingException {
+      attempts++;
+      if (!failures.isEmpty()) {
+        throw failures.remove(0);
+      }
+    }
+
+    @Override
+    protected long getSendRetryDelayMillis() {
+      return 1;
+    }
+
+    @Override
+    protected void onSendFailure(Exception e) {
+      tracedFailures.add(e);
+    }
+  }
+}
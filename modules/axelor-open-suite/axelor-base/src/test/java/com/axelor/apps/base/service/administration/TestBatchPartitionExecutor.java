@@ -0,0 +1,169 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBatchPartitionExecutor {
+
+  private final AtomicInteger done = new AtomicInteger();
+  private final AtomicInteger anomaly = new AtomicInteger();
+  private final List<Thread> progressThreads = new CopyOnWriteArrayList<>();
+
+  private final BatchPartitionProgress progress =
+      new BatchPartitionProgress() {
+        @Override
+        public void incrementDone() {
+          progressThreads.add(Thread.currentThread());
+          done.incrementAndGet();
+        }
+
+        @Override
+        public void incrementAnomaly() {
+          progressThreads.add(Thread.currentThread());
+          anomaly.incrementAndGet();
+        }
+      };
+
+  @Test
+  public void testEveryRecordIsProcessedOnce() throws InterruptedException {
+    Map<Long, Integer> processCountMap = new ConcurrentHashMap<>();
+    TestWork work =
+        new TestWork(1000) {
+          @Override
+          public void process(Long id, BatchPartitionProgress progress) {
+            processCountMap.merge(id, 1, Integer::sum);
+            progress.incrementDone();
+          }
+        };
+
+    new BatchPartitionExecutor(4, 30).execute(work, progress, UnaryOperator.identity());
+
+    Assert.assertEquals(1000, processCountMap.size());
+    Assert.assertTrue(processCountMap.values().stream().allMatch(count -> count == 1));
+    Assert.assertEquals(1000, done.get());
+    Assert.assertEquals(0, anomaly.get());
+  }
+
+  @Test
+  public void testOutcomesAreReportedOnCallingThread() throws InterruptedException {
+    TestWork work =
+        new TestWork(200) {
+          @Override
+          public void process(Long id, BatchPartitionProgress progress) throws Exception {
+            if (id % 10 == 0) {
+              throw new Exception("Anomaly on " + id);
+            }
+            progress.incrementDone();
+          }
+        };
+
+    new BatchPartitionExecutor(3, 7).execute(work, progress, UnaryOperator.identity());
+
+    Assert.assertEquals(180, done.get());
+    Assert.assertEquals(20, anomaly.get());
+    Assert.assertTrue(progressThreads.stream().allMatch(Thread.currentThread()::equals));
+  }
+
+  @Test
+  public void testRecordsOfSamePartitionAreProcessedInOrder() throws InterruptedException {
+    Map<Long, List<Long>> processedByKey = new ConcurrentHashMap<>();
+    Map<Long, String> threadByKey = new ConcurrentHashMap<>();
+    List<String> partitionErrors = Collections.synchronizedList(new ArrayList<>());
+    TestWork work =
+        new TestWork(500) {
+          @Override
+          public Object getPartitionKey(Long id) {
+            return id % 7;
+          }
+
+          @Override
+          public void process(Long id, BatchPartitionProgress progress) {
+            Long key = id % 7;
+            String threadName = Thread.currentThread().getName();
+            if (!threadName.equals(threadByKey.computeIfAbsent(key, k -> threadName))) {
+              partitionErrors.add("Key " + key + " processed by several threads");
+            }
+            processedByKey.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(id);
+            progress.incrementDone();
+          }
+        };
+
+    new BatchPartitionExecutor(4, 16).execute(work, progress, UnaryOperator.identity());
+
+    Assert.assertEquals(Collections.emptyList(), partitionErrors);
+    for (List<Long> idList : processedByKey.values()) {
+      Assert.assertEquals(idList.stream().sorted().collect(Collectors.toList()), idList);
+    }
+    Assert.assertEquals(500, done.get());
+  }
+
+  @Test
+  public void testWorkerDecoratorWrapsEachWorker() throws InterruptedException {
+    AtomicInteger decoratedCount = new AtomicInteger();
+    TestWork work =
+        new TestWork(10) {
+          @Override
+          public void process(Long id, BatchPartitionProgress progress) {
+            progress.incrementDone();
+          }
+        };
+
+    new BatchPartitionExecutor(3, 5)
+        .execute(
+            work,
+            progress,
+            worker ->
+                () -> {
+                  decoratedCount.incrementAndGet();
+                  worker.run();
+                });
+
+    Assert.assertEquals(3, decoratedCount.get());
+    Assert.assertEquals(10, done.get());
+  }
+
+  private abstract static class TestWork implements BatchPartitionWork {
+
+    private final List<Long> idList;
+
+    TestWork(int count) {
+      idList = LongStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Long> fetchNextIds(Long lastId, int limit) {
+      return idList.stream()
+          .filter(id -> lastId == null || id > lastId)
+          .limit(limit)
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBatchProgressTracker {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  public void testSaveAfterEachRecordByDefault() {
+    BatchProgressTracker tracker = new BatchProgressTracker(1, 0, clock::get);
+
+    Assert.assertTrue(tracker.record());
+    tracker.saved();
+    Assert.assertTrue(tracker.record());
+  }
+
+  @Test
+  public void testSaveEveryRecordInterval() {
+    BatchProgressTracker tracker = new BatchProgressTracker(3, 0, clock::get);
+
+    Assert.assertFalse(tracker.record());
+    Assert.assertFalse(tracker.record());
+    Assert.assertTrue(tracker.record());
+    tracker.saved();
+
+    Assert.assertEquals(0, tracker.getPendingCount());
+    Assert.assertEquals(3, tracker.getProcessedCount());
+    Assert.assertFalse(tracker.record());
+  }
+
+  @Test
+  public void testSaveAfterTimeInterval() {
+    BatchProgressTracker tracker = new BatchProgressTracker(1000, 10, clock::get);
+
+    Assert.assertFalse(tracker.record());
+    advanceSeconds(9);
+    Assert.assertFalse(tracker.record());
+    advanceSeconds(1);
+    Assert.assertTrue(tracker.record());
+    tracker.saved();
+
+    advanceSeconds(20);
+    Assert.assertFalse(tracker.isSaveNeeded());
+    Assert.assertTrue(tracker.record());
+  }
+
+  @Test
+  public void testThroughput() {
+    BatchProgressTracker tracker = new BatchProgressTracker(1, 0, clock::get);
+
+    Assert.assertEquals(BigDecimal.ZERO, tracker.getThroughput());
+
+    for (int i = 0; i < 25; i++) {
+      tracker.record();
+    }
+    advanceSeconds(10);
+
+    Assert.assertEquals(new BigDecimal("2.50"), tracker.getThroughput());
+  }
+
+  private void advanceSeconds(long seconds) {
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.administration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSequenceNumberPool {
+
+  private static final long VERSION_ID = 1L;
+
+  private SequenceNumberPool sequenceNumberPool;
+  private AtomicLong nextNum;
+  private AtomicInteger reservationCount;
+
+  @Before
+  public void prepare() {
+    sequenceNumberPool = new SequenceNumberPool();
+    nextNum = new AtomicLong(1);
+    reservationCount = new AtomicInteger();
+  }
+
+  @Test
+  public void testNumbersAreConsecutiveInsideABlock() {
+    Assert.assertEquals(1, next(10, 1));
+    Assert.assertEquals(2, next(10, 1));
+    Assert.assertEquals(3, next(10, 1));
+    Assert.assertEquals(1, reservationCount.get());
+    Assert.assertEquals(11, nextNum.get());
+  }
+
+  @Test
+  public void testNewBlockIsReservedWhenExhausted() {
+    for (int i = 0; i < 5; i++) {
+      next(5, 2);
+    }
+    Assert.assertEquals(1, reservationCount.get());
+    Assert.assertEquals(11, next(5, 2));
+    Assert.assertEquals(2, reservationCount.get());
+    Assert.assertEquals(21, nextNum.get());
+  }
+
+  @Test
+  public void testReleasedNumbersAreLost() {
+    Assert.assertEquals(1, next(10, 1));
+    sequenceNumberPool.release(VERSION_ID);
+    Assert.assertEquals(11, next(10, 1));
+  }
+
+  @Test
+  public void testParallelNumbersAreUnique() throws Exception {
+    int threadCount = 32;
+    int numbersPerThread = 2000;
+    Set<Long> numbers = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int thread = 0; thread < threadCount; thread++) {
+        Callable<Void> task =
+            () -> {
+              for (int i = 0; i < numbersPerThread; i++) {
+                Assert.assertTrue(numbers.add(next(50, 1)));
+              }
+              return null;
+            };
+        futures.add(executor.submit(task));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    Assert.assertEquals(threadCount * numbersPerThread, numbers.size());
+    Assert.assertEquals(threadCount * numbersPerThread / 50, reservationCount.get());
+  }
+
+  private long next(int blockSize, int increment) {
+    return sequenceNumberPool.next(
+        VERSION_ID,
+        blockSize,
+        increment,
+        (sequenceVersionId, count) -> {
+          reservationCount.incrementAndGet();
+          return nextNum.getAndAdd(count);
+        });
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.advanced.imports;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestFileTabImport {
+
+  protected static final String PARTNER = "com.axelor.apps.base.db.Partner";
+  protected static final String ADDRESS = "com.axelor.apps.base.db.Address";
+  protected static final String COUNTRY = "com.axelor.apps.base.db.Country";
+  protected static final String PRODUCT = "com.axelor.apps.base.db.Product";
+
+  protected FileTabImport createFileTabImport(String model, boolean isolated) {
+    FileTabImport fileTabImport = new FileTabImport(1L, model, null, 0, isolated);
+    fileTabImport.addModel(model, true);
+    return fileTabImport;
+  }
+
+  @Test
+  public void testIndependentFileTabs() {
+    FileTabImport partnerImport = createFileTabImport(PARTNER, false);
+    partnerImport.addModel(COUNTRY, false);
+    FileTabImport productImport = createFileTabImport(PRODUCT, false);
+    productImport.addModel(COUNTRY, false);
+
+    Assert.assertFalse(partnerImport.dependsOn(productImport));
+    Assert.assertFalse(productImport.dependsOn(partnerImport));
+  }
+
+  @Test
+  public void testFileTabUsingAnImportedModel() {
+    FileTabImport countryImport = createFileTabImport(COUNTRY, false);
+    FileTabImport partnerImport = createFileTabImport(PARTNER, false);
+    partnerImport.addModel(COUNTRY, false);
+
+    Assert.assertTrue(partnerImport.dependsOn(countryImport));
+    Assert.assertTrue(countryImport.dependsOn(partnerImport));
+  }
+
+  @Test
+  public void testFileTabsCreatingTheSameModel() {
+    FileTabImport partnerImport = createFileTabImport(PARTNER, false);
+    partnerImport.addModel(ADDRESS, true);
+    FileTabImport productImport = createFileTabImport(PRODUCT, false);
+    productImport.addModel(ADDRESS, true);
+
+    Assert.assertTrue(partnerImport.dependsOn(productImport));
+  }
+
+  @Test
+  public void testIsolatedFileTab() {
+    FileTabImport partnerImport = createFileTabImport(PARTNER, true);
+    FileTabImport productImport = createFileTabImport(PRODUCT, false);
+
+    Assert.assertTrue(partnerImport.dependsOn(productImport));
+    Assert.assertTrue(productImport.dependsOn(partnerImport));
+  }
+
+  @Test
+  public void testChunks() {
+    FileTabImport partnerImport = createFileTabImport(PARTNER, false);
+    Assert.assertEquals(-1, partnerImport.getLastChunkLineCount());
+
+    partnerImport.addChunk("partner1-0.csv");
+    partnerImport.addChunkLine();
+    partnerImport.addChunkLine();
+    partnerImport.addChunk("partner1-1.csv");
+    partnerImport.addChunkLine();
+
+    Assert.assertEquals(2, partnerImport.getChunkCount());
+    Assert.assertEquals("partner1-1.csv", partnerImport.getChunkFileName(1));
+    Assert.assertEquals(2, partnerImport.getChunkLineCount(0));
+    Assert.assertEquals(1, partnerImport.getLastChunkLineCount());
+  }
+
+  @Test
+  public void testResumedImportSkipsImportedLines() {
+    FileTabImport partnerImport = new FileTabImport(1L, PARTNER, null, 3, false);
+    StringBuilder chunks = new StringBuilder();
+
+    for (int line = 0; line < 8; line++) {
+      if (!partnerImport.nextDataLine()) {
+        continue;
+      }
+      if (partnerImport.isNewChunkNeeded(2)) {
+        partnerImport.addChunk("partner1-" + partnerImport.getChunkCount() + ".csv");
+        chunks.append("|");
+      }
+      partnerImport.addChunkLine();
+      chunks.append(partnerImport.getDataLineCount()).append(" ");
+    }
+
+    Assert.assertEquals("|4 5 |6 7 |8 ", chunks.toString());
+    Assert.assertEquals(3, partnerImport.getChunkCount());
+    Assert.assertEquals(1, partnerImport.getLastChunkLineCount());
+  }
+
+  @Test
+  public void testFullyImportedFileTabHasNoChunk() {
+    FileTabImport partnerImport = new FileTabImport(1L, PARTNER, null, 3, false);
+
+    for (int line = 0; line < 3; line++) {
+      Assert.assertFalse(partnerImport.nextDataLine());
+    }
+    Assert.assertEquals(0, partnerImport.getChunkCount());
+  }
+
+  @Test
+  public void testWithoutChunkSizeAllLinesAreInOneChunk() {
+    FileTabImport partnerImport = createFileTabImport(PARTNER, false);
+
+    for (int line = 0; line < 5; line++) {
+      Assert.assertTrue(partnerImport.nextDataLine());
+      if (partnerImport.isNewChunkNeeded(0)) {
+        partnerImport.addChunk("partner1-" + partnerImport.getChunkCount() + ".csv");
+      }
+      partnerImport.addChunkLine();
+    }
+    Assert.assertEquals(1, partnerImport.getChunkCount());
+    Assert.assertEquals(5, partnerImport.getChunkLineCount(0));
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.advanced.imports;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestImportedLineTracker {
+
+  protected ImportedLineTrackerStub tracker;
+
+  @Before
+  public void prepare() {
+    tracker = new ImportedLineTrackerStub(3);
+  }
+
+  @Test
+  public void testCountIsSavedBeforeCommit() {
+    tracker.addLine(4);
+    tracker.addLine(5);
+    Assert.assertEquals(1, tracker.synchronizations.size());
+    Assert.assertTrue(tracker.savedCounts.isEmpty());
+
+    tracker.complete(Status.STATUS_COMMITTED);
+
+    Assert.assertEquals(Arrays.asList(5), tracker.savedCounts);
+  }
+
+  @Test
+  public void testEachTransactionSavesItsCount() {
+    tracker.addLine(4);
+    tracker.complete(Status.STATUS_COMMITTED);
+    tracker.addLine(5);
+    tracker.addLine(6);
+    tracker.complete(Status.STATUS_COMMITTED);
+
+    Assert.assertEquals(2, tracker.synchronizations.size());
+    Assert.assertEquals(Arrays.asList(4, 6), tracker.savedCounts);
+    Assert.assertEquals(6, tracker.getImportedLineCount());
+  }
+
+  @Test
+  public void testRolledBackLinesAreNotSaved() {
+    tracker.addLine(4);
+    tracker.complete(Status.STATUS_COMMITTED);
+    tracker.addLine(5);
+    tracker.complete(Status.STATUS_ROLLEDBACK);
+
+    Assert.assertEquals(Arrays.asList(4), tracker.savedCounts);
+
+    tracker.addLine(6);
+    tracker.complete(Status.STATUS_COMMITTED);
+
+    Assert.assertEquals(3, tracker.synchronizations.size());
+    Assert.assertEquals(Arrays.asList(4, 6), tracker.savedCounts);
+  }
+
+  @Test
+  public void testCountNeverDecreases() {
+    tracker.addLine(2);
+    tracker.complete(Status.STATUS_COMMITTED);
+
+    Assert.assertEquals(Arrays.asList(3), tracker.savedCounts);
+  }
+
+  /** Tracker of a fake transaction, completed by the test. */
+  protected static class ImportedLineTrackerStub extends ImportedLineTracker {
+
+    protected final List<Synchronization> synchronizations = new ArrayList<>();
+    protected final List<Integer> savedCounts = new ArrayList<>();
+
+    public ImportedLineTrackerStub(int importedLineCount) {
+      super(1L, importedLineCount, new HashMap<>(), null);
+    }
+
+    @Override
+    protected void registerSynchronization(Synchronization synchronization) {
+      synchronizations.add(synchronization);
+    }
+
+    @Override
+    protected void saveImportedLines() {
+      savedCounts.add(importedLineCount);
+    }
+
+    protected void complete(int status) {
+      Synchronization synchronization = synchronizations.get(synchronizations.size() - 1);
+      if (status == Status.STATUS_COMMITTED) {
+        synchronization.beforeCompletion();
+      }
+      synchronization.afterCompletion(status);
+    }
+  }
+}
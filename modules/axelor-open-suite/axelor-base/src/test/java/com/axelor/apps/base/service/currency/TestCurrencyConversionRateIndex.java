@@ -0,0 +1,118 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCurrencyConversionRateIndex {
+
+  private static final Long EUR = 1L;
+  private static final Long USD = 2L;
+  private static final Long GBP = 3L;
+
+  @Test
+  public void testRateIsFoundInClosedAndOpenPeriods() {
+    CurrencyConversionRateIndex index =
+        CurrencyConversionRateIndex.builder()
+            .add(EUR, USD, date(2023, 1, 1), date(2023, 1, 31), new BigDecimal("1.05"))
+            .add(EUR, USD, date(2023, 2, 1), date(2023, 2, 28), new BigDecimal("1.08"))
+            .add(EUR, USD, date(2023, 3, 1), null, new BigDecimal("1.10"))
+            .build();
+
+    Assert.assertEquals(new BigDecimal("1.05"), rate(index, EUR, USD, date(2023, 1, 1)));
+    Assert.assertEquals(new BigDecimal("1.05"), rate(index, EUR, USD, date(2023, 1, 31)));
+    Assert.assertEquals(new BigDecimal("1.08"), rate(index, EUR, USD, date(2023, 2, 15)));
+    Assert.assertEquals(new BigDecimal("1.10"), rate(index, EUR, USD, date(2030, 6, 1)));
+  }
+
+  @Test
+  public void testNoRateOutsideOfPeriodsOrForOtherPairs() {
+    CurrencyConversionRateIndex index =
+        CurrencyConversionRateIndex.builder()
+            .add(EUR, USD, date(2023, 1, 1), date(2023, 1, 31), new BigDecimal("1.05"))
+            .add(EUR, USD, date(2023, 3, 1), date(2023, 3, 31), new BigDecimal("1.10"))
+            .build();
+
+    Assert.assertNull(index.findRatePeriod(EUR, USD, date(2022, 12, 31)));
+    Assert.assertNull(index.findRatePeriod(EUR, USD, date(2023, 2, 15)));
+    Assert.assertNull(index.findRatePeriod(EUR, USD, date(2023, 4, 1)));
+    Assert.assertNull(index.findRatePeriod(USD, EUR, date(2023, 1, 15)));
+    Assert.assertNull(index.findRatePeriod(EUR, GBP, date(2023, 1, 15)));
+  }
+
+  @Test
+  public void testFirstAddedPeriodWinsWhenPeriodsOverlap() {
+    CurrencyConversionRateIndex index =
+        CurrencyConversionRateIndex.builder()
+            .add(EUR, USD, date(2023, 1, 1), null, new BigDecimal("1.01"))
+            .add(EUR, USD, date(2023, 2, 1), date(2023, 2, 28), new BigDecimal("1.02"))
+            .add(EUR, USD, date(2023, 2, 10), date(2023, 2, 20), new BigDecimal("1.03"))
+            .build();
+
+    Assert.assertEquals(new BigDecimal("1.01"), rate(index, EUR, USD, date(2023, 2, 15)));
+
+    index =
+        CurrencyConversionRateIndex.builder()
+            .add(EUR, USD, date(2023, 2, 10), date(2023, 2, 20), new BigDecimal("1.03"))
+            .add(EUR, USD, date(2023, 1, 1), null, new BigDecimal("1.01"))
+            .build();
+
+    Assert.assertEquals(new BigDecimal("1.03"), rate(index, EUR, USD, date(2023, 2, 15)));
+    Assert.assertEquals(new BigDecimal("1.01"), rate(index, EUR, USD, date(2023, 2, 21)));
+  }
+
+  @Test
+  public void testIncompleteLinesAreIgnored() {
+    CurrencyConversionRateIndex index =
+        CurrencyConversionRateIndex.builder()
+            .add(null, USD, date(2023, 1, 1), null, BigDecimal.ONE)
+            .add(EUR, USD, null, null, BigDecimal.ONE)
+            .build();
+
+    Assert.assertTrue(index.isEmpty());
+  }
+
+  @Test
+  public void testLookupAmongManyDailyRates() {
+    CurrencyConversionRateIndex.Builder builder = CurrencyConversionRateIndex.builder();
+    LocalDate start = date(2000, 1, 1);
+    for (int day = 0; day < 10000; day++) {
+      LocalDate fromDate = start.plusDays(day);
+      builder.add(EUR, USD, fromDate, fromDate, BigDecimal.valueOf(day));
+    }
+    CurrencyConversionRateIndex index = builder.build();
+
+    Assert.assertEquals(BigDecimal.valueOf(0), rate(index, EUR, USD, start));
+    Assert.assertEquals(BigDecimal.valueOf(4321), rate(index, EUR, USD, start.plusDays(4321)));
+    Assert.assertEquals(BigDecimal.valueOf(9999), rate(index, EUR, USD, start.plusDays(9999)));
+    Assert.assertNull(index.findRatePeriod(EUR, USD, start.plusDays(10000)));
+  }
+
+  private BigDecimal rate(
+      CurrencyConversionRateIndex index, Long startId, Long endId, LocalDate date) {
+    return index.findRatePeriod(startId, endId, date).getExchangeRate();
+  }
+
+  private LocalDate date(int year, int month, int day) {
+    return LocalDate.of(year, month, day);
+  }
+}
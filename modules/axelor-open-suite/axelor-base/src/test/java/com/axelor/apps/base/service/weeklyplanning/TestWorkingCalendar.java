@@ -0,0 +1,124 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.weeklyplanning;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestWorkingCalendar {
+
+  protected WorkingCalendar workingCalendar;
+
+  @Before
+  public void prepare() {
+    // Monday to Thursday full days of 8 hours, Friday morning of 4 hours
+    double[] weekDayValues = {1, 1, 1, 1, 0.5, 0, 0};
+    BigDecimal[] weekDayHours = {
+      new BigDecimal("8.00"),
+      new BigDecimal("8.00"),
+      new BigDecimal("8.00"),
+      new BigDecimal("8.00"),
+      new BigDecimal("4.00"),
+      BigDecimal.ZERO,
+      BigDecimal.ZERO
+    };
+    workingCalendar =
+        new WorkingCalendar(
+            2024,
+            weekDayValues,
+            weekDayHours,
+            Arrays.asList(
+                LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 5, 1),
+                LocalDate.of(2024, 5, 4),
+                LocalDate.of(2025, 1, 1)));
+  }
+
+  @Test
+  public void testIsPublicHoliday() {
+    Assert.assertTrue(workingCalendar.isPublicHoliday(LocalDate.of(2024, 5, 1)));
+    Assert.assertFalse(workingCalendar.isPublicHoliday(LocalDate.of(2024, 5, 2)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIsPublicHolidayOtherYear() {
+    workingCalendar.isPublicHoliday(LocalDate.of(2025, 1, 1));
+  }
+
+  @Test
+  public void testGetWorkingDays() {
+    // Week from Monday 2024-04-29 to Sunday 2024-05-05, Wednesday being a public holiday
+    Assert.assertEquals(
+        new BigDecimal("3.5"),
+        workingCalendar.getWorkingDays(LocalDate.of(2024, 4, 29), LocalDate.of(2024, 5, 5)));
+    Assert.assertEquals(
+        new BigDecimal("0.5"),
+        workingCalendar.getWorkingDays(LocalDate.of(2024, 5, 3), LocalDate.of(2024, 5, 3)));
+  }
+
+  @Test
+  public void testGetWorkingDaysOutsideYear() {
+    // Only the first week of 2024 is counted, the first of January being a public holiday
+    Assert.assertEquals(
+        new BigDecimal("3.5"),
+        workingCalendar.getWorkingDays(LocalDate.of(2023, 12, 1), LocalDate.of(2024, 1, 7)));
+    Assert.assertEquals(
+        new BigDecimal("0.0"),
+        workingCalendar.getWorkingDays(LocalDate.of(2024, 5, 5), LocalDate.of(2024, 5, 4)));
+  }
+
+  @Test
+  public void testGetPublicHolidayDays() {
+    // The public holiday falling on a Saturday is not a working day
+    Assert.assertEquals(
+        new BigDecimal("1.0"),
+        workingCalendar.getPublicHolidayDays(LocalDate.of(2024, 4, 29), LocalDate.of(2024, 5, 5)));
+  }
+
+  @Test
+  public void testGetWorkingHours() {
+    Assert.assertEquals(
+        new BigDecimal("28.00"),
+        workingCalendar.getWorkingHours(LocalDate.of(2024, 4, 29), LocalDate.of(2024, 5, 5)));
+  }
+
+  @Test
+  public void testGetNextWorkingDay() {
+    Assert.assertEquals(
+        LocalDate.of(2024, 5, 2), workingCalendar.getNextWorkingDay(LocalDate.of(2024, 5, 1)));
+    Assert.assertEquals(
+        LocalDate.of(2024, 5, 6), workingCalendar.getNextWorkingDay(LocalDate.of(2024, 5, 4)));
+    Assert.assertEquals(
+        LocalDate.of(2024, 1, 2), workingCalendar.getNextWorkingDay(LocalDate.of(2023, 12, 30)));
+    Assert.assertNull(workingCalendar.getNextWorkingDay(LocalDate.of(2025, 1, 2)));
+  }
+
+  @Test
+  public void testGetNextWorkingDayWithoutWorkingDay() {
+    WorkingCalendar emptyCalendar =
+        new WorkingCalendar(
+            2024, new double[7], new BigDecimal[7], Collections.<LocalDate>emptyList());
+    Assert.assertNull(emptyCalendar.getNextWorkingDay(LocalDate.of(2024, 1, 1)));
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAsyncBatchWriter {
+
+  @Test
+  public void testWriteSubmittedItemsByBatches() throws InterruptedException {
+    List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    AsyncBatchWriter<Integer> writer = new AsyncBatchWriter<>("test-writer", 10, 2, batches::add);
+
+    Assert.assertTrue(writer.tryReserve(3));
+    writer.submit(Arrays.asList(1, 2, 3));
+    awaitWritten(writer, 3);
+
+    List<Integer> written = new ArrayList<>();
+    batches.forEach(
+        batch -> {
+          Assert.assertTrue(batch.size() <= 2);
+          written.addAll(batch);
+        });
+    Assert.assertEquals(Arrays.asList(1, 2, 3), written);
+    Assert.assertEquals(0, writer.getPendingCount());
+  }
+
+  @Test
+  public void testRefuseReservationWhenFull() throws InterruptedException {
+    CountDownLatch blockWriter = new CountDownLatch(1);
+    AsyncBatchWriter<Integer> writer =
+        new AsyncBatchWriter<>(
+            "test-writer",
+            2,
+            10,
+            batch -> {
+              try {
+                blockWriter.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+
+    Assert.assertTrue(writer.tryReserve(2));
+    writer.submit(Arrays.asList(1, 2));
+    Assert.assertFalse(writer.tryReserve(1));
+    Assert.assertEquals(1, writer.getRefusedCount());
+    Assert.assertEquals(2, writer.getPendingCount());
+
+    blockWriter.countDown();
+    awaitWritten(writer, 2);
+    Assert.assertTrue(writer.tryReserve(1));
+  }
+
+  @Test
+  public void testCancelReleasesRoom() {
+    AsyncBatchWriter<Integer> writer = new AsyncBatchWriter<>("test-writer", 2, 10, batch -> {});
+
+    Assert.assertTrue(writer.tryReserve(2));
+    writer.cancel(2);
+    Assert.assertEquals(0, writer.getPendingCount());
+    Assert.assertTrue(writer.tryReserve(2));
+  }
+
+  @Test
+  public void testFailedBatchReleasesRoom() throws InterruptedException {
+    AsyncBatchWriter<Integer> writer =
+        new AsyncBatchWriter<>(
+            "test-writer",
+            1,
+            10,
+            batch -> {
+              throw new IllegalStateException();
+            });
+
+    Assert.assertTrue(writer.tryReserve(1));
+    writer.submit(Collections.singletonList(1));
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (writer.getFailedCount() < 1 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(1, writer.getFailedCount());
+    Assert.assertTrue(writer.tryReserve(1));
+  }
+
+  private void awaitWritten(AsyncBatchWriter<?> writer, long count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (writer.getWrittenCount() < count && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(count, writer.getWrittenCount());
+  }
+}
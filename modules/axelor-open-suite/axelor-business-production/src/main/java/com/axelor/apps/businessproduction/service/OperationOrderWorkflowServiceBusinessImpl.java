@@ -19,6 +19,7 @@
 package com.axelor.apps.businessproduction.service;
 
 import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendarService;
 import com.axelor.apps.hr.db.TimesheetLine;
 import com.axelor.apps.hr.service.timesheet.TimesheetLineService;
 import com.axelor.apps.production.db.OperationOrder;
@@ -45,7 +46,8 @@ public class OperationOrderWorkflowServiceBusinessImpl extends OperationOrderWor
       AppProductionService appProductionService,
       MachineToolRepository machineToolRepo,
       WeeklyPlanningService weeklyPlanningService,
-      ProdProcessLineService prodProcessLineService) {
+      ProdProcessLineService prodProcessLineService,
+      WorkingCalendarService workingCalendarService) {
     super(
         operationOrderStockMoveService,
         operationOrderRepo,
@@ -53,7 +55,8 @@ public class OperationOrderWorkflowServiceBusinessImpl extends OperationOrderWor
         appProductionService,
         machineToolRepo,
         weeklyPlanningService,
-        prodProcessLineService);
+        prodProcessLineService,
+        workingCalendarService);
   }
 
   /**
@@ -110,11 +110,10 @@ public class BatchInvoicingProjectService extends AbstractBatch {
     String comment =
         String.format(
             "\t* %s " + I18n.get(BusinessProjectExceptionMessage.BATCH_INVOICING_PROJECT_2) + "\n",
-            batch.getDone());
+            getDone());
 
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     addComment(comment);
     super.stop();
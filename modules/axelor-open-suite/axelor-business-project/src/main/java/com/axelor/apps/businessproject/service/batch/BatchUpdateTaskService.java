@@ -210,8 +210,7 @@ public class BatchUpdateTaskService extends AbstractBatch {
     String comment = I18n.get(BusinessProjectExceptionMessage.BATCH_TASK_UPDATION_2);
 
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
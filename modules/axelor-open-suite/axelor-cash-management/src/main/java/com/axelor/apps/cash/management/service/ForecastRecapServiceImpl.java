@@ -33,6 +33,7 @@ import com.axelor.apps.base.db.BankDetails;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.CurrencyService;
+import com.axelor.apps.base.service.administration.KeysetPager;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.cash.management.db.Forecast;
 import com.axelor.apps.cash.management.db.ForecastRecap;
@@ -56,7 +57,6 @@ import com.axelor.apps.supplychain.db.repo.TimetableRepository;
 import com.axelor.common.ObjectUtils;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
-import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.utils.StringTool;
 import com.google.inject.Inject;
@@ -170,36 +170,32 @@ public class ForecastRecapServiceImpl implements ForecastRecapService {
   public void populate(ForecastRecap forecastRecap) throws AxelorException {
     this.reset(forecastRecapRepo.find(forecastRecap.getId()));
 
-    Query<ForecastRecapLineType> forecastRecapLineTypeQuery = forecastRecapLineTypeRepo.all();
+    KeysetPager<ForecastRecapLineType> forecastRecapLineTypePager =
+        KeysetPager.of(ForecastRecapLineType.class);
     if (forecastRecap.getOpportunitiesTypeSelect() == null
         || forecastRecap.getOpportunitiesTypeSelect()
             <= ForecastRecapRepository.OPPORTUNITY_TYPE_NO) {
       // filter out opportunities
-      forecastRecapLineTypeQuery
+      forecastRecapLineTypePager
           .filter("self.elementSelect != :opportunityElement")
           .bind("opportunityElement", ForecastRecapLineTypeRepository.ELEMENT_OPPORTUNITY);
     }
 
-    forecastRecapLineTypeQuery.order("id");
-
     final int FETCH_LIMIT = 1;
-    int offset = 0;
 
     List<ForecastRecapLineType> forecastRecapLineTypeList;
 
-    while (!(forecastRecapLineTypeList = forecastRecapLineTypeQuery.fetch(FETCH_LIMIT, offset))
+    while (!(forecastRecapLineTypeList = forecastRecapLineTypePager.fetchNext(FETCH_LIMIT))
         .isEmpty()) {
+      forecastRecap = forecastRecapRepo.find(forecastRecap.getId());
       boolean manageMultiBanks =
           appBaseService.getAppBase() != null
               ? appBaseService.getAppBase().getManageMultiBanks()
               : false;
       for (ForecastRecapLineType forecastRecapLineType : forecastRecapLineTypeList) {
-        offset++;
         populateWithTimetables(forecastRecap, forecastRecapLineType, manageMultiBanks);
         populateWithForecastLineType(forecastRecap, forecastRecapLineType, manageMultiBanks);
       }
-      JPA.clear();
-      forecastRecap = forecastRecapRepo.find(forecastRecap.getId());
     }
 
     this.finish(forecastRecapRepo.find(forecastRecap.getId()));
@@ -229,8 +225,8 @@ public class ForecastRecapServiceImpl implements ForecastRecapService {
       journalIdList.add((long) 0);
     }
 
-    Query<? extends Model> modelQuery =
-        JPA.all(getModel(forecastRecapLineType))
+    KeysetPager<? extends Model> modelPager =
+        KeysetPager.of(getModel(forecastRecapLineType))
             .filter(getFilter(forecastRecapLineType, manageMultiBanks))
             .bind("company", forecastRecap.getCompany())
             .bind("fromDate", forecastRecap.getFromDate())
@@ -250,21 +246,17 @@ public class ForecastRecapServiceImpl implements ForecastRecapService {
                 "toDateMinusDuration",
                 forecastRecap.getToDate().minusDays(forecastRecapLineType.getEstimatedDuration()))
             .bind("journalIds", journalIdList)
-            .bind("functionalOrigin", functionalOriginList)
-            .order("id");
+            .bind("functionalOrigin", functionalOriginList);
 
     final int FETCH_LIMIT = 10;
-    int offset = 0;
     List<? extends Model> modelList;
 
-    while (!(modelList = modelQuery.fetch(FETCH_LIMIT, offset)).isEmpty()) {
+    while (!(modelList = modelPager.fetchNext(FETCH_LIMIT)).isEmpty()) {
+      forecastRecap = forecastRecapRepo.find(forecastRecap.getId());
+      forecastRecapLineType = forecastRecapLineTypeRepo.find(forecastRecapLineType.getId());
       for (Model model : modelList) {
-        offset++;
         createForecastRecapLines(forecastRecap, model, forecastRecapLineType);
       }
-      JPA.clear();
-      forecastRecap = forecastRecapRepo.find(forecastRecap.getId());
-      forecastRecapLineType = forecastRecapLineTypeRepo.find(forecastRecapLineType.getId());
     }
   }
 
@@ -90,14 +90,13 @@ public class BatchContract extends BatchStrategy {
   }
 
   protected void incrementDone(Contract contract) {
-    contract.addBatchSetItem(batch);
+    JPA.runInTransaction(() -> contract.addBatchSetItem(findBatch()));
     super.incrementDone();
   }
 
   protected void incrementAnomaly(Contract contract) {
-    findBatch();
-    contract = repository.find(contract.getId());
-    contract.addBatchSetItem(batch);
+    Contract anomalyContract = repository.find(contract.getId());
+    JPA.runInTransaction(() -> anomalyContract.addBatchSetItem(findBatch()));
     super.incrementAnomaly();
   }
 
@@ -106,9 +105,7 @@ public class BatchContract extends BatchStrategy {
     super.stop();
     addComment(
         String.format(
-            I18n.get(ITranslation.CONTRACT_BATCH_EXECUTION_RESULT),
-            batch.getDone(),
-            batch.getAnomaly()));
+            I18n.get(ITranslation.CONTRACT_BATCH_EXECUTION_RESULT), getDone(), getAnomaly()));
   }
 
   protected void setBatchTypeSelect() {
@@ -20,6 +20,8 @@ package com.axelor.apps.contract.service;
 
 import com.axelor.apps.base.db.Product;
 import com.axelor.apps.contract.db.ConsumptionLine;
+import com.axelor.apps.contract.db.Contract;
+import java.util.List;
 
 public interface ConsumptionLineService {
 
@@ -31,4 +33,13 @@ public interface ConsumptionLineService {
    * @return ConsumptionLine filled with Product information.
    */
   ConsumptionLine fill(ConsumptionLine line, Product product);
+
+  /**
+   * Add new consumption lines to the contract without loading its consumption lines. The lines are
+   * saved by batches, each batch in its own transaction.
+   *
+   * @param contract to add the lines to.
+   * @param consumptionLineList new lines, with at least their product and quantity.
+   */
+  void addConsumptionLines(Contract contract, List<ConsumptionLine> consumptionLineList);
 }
@@ -24,21 +24,35 @@ import com.axelor.apps.contract.db.ConsumptionLine;
 import com.axelor.apps.contract.db.Contract;
 import com.axelor.apps.contract.db.ContractLine;
 import com.axelor.apps.contract.db.ContractVersion;
+import com.axelor.apps.contract.db.repo.ConsumptionLineRepository;
 import com.axelor.apps.contract.exception.ContractExceptionMessage;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
+import com.axelor.db.EntityHelper;
+import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import javax.persistence.Query;
+import javax.persistence.Table;
 
 public class ConsumptionLineServiceImpl implements ConsumptionLineService {
 
+  protected static final int CONSUMPTION_LINE_BATCH_SIZE = 500;
+
   protected AppBaseService appBaseService;
+  protected ConsumptionLineRepository consumptionLineRepo;
 
   @Inject
-  public ConsumptionLineServiceImpl(AppBaseService appBaseService) {
+  public ConsumptionLineServiceImpl(
+      AppBaseService appBaseService, ConsumptionLineRepository consumptionLineRepo) {
     this.appBaseService = appBaseService;
+    this.consumptionLineRepo = consumptionLineRepo;
   }
 
   @Override
@@ -59,4 +73,57 @@ public class ConsumptionLineServiceImpl implements ConsumptionLineService {
     line.setUnit(product.getUnit());
     return line;
   }
+
+  @Override
+  public void addConsumptionLines(Contract contract, List<ConsumptionLine> consumptionLineList) {
+    Preconditions.checkNotNull(contract.getId());
+    String tableName = getConsumptionLineListTableName(contract);
+    LocalDate todayDate = appBaseService.getTodayDate(contract.getCompany());
+
+    for (List<ConsumptionLine> lines :
+        Lists.partition(consumptionLineList, CONSUMPTION_LINE_BATCH_SIZE)) {
+      addConsumptionLineBatch(contract.getId(), lines, tableName, todayDate);
+    }
+  }
+
+  @Transactional
+  protected void addConsumptionLineBatch(
+      Long contractId, List<ConsumptionLine> lines, String tableName, LocalDate todayDate) {
+    for (ConsumptionLine line : lines) {
+      Product product = line.getProduct();
+      Preconditions.checkNotNull(
+          product, I18n.get(ContractExceptionMessage.CONTRACT_EMPTY_PRODUCT));
+      if (line.getLineDate() == null) {
+        line.setLineDate(todayDate);
+      }
+      if (line.getReference() == null) {
+        line.setReference(product.getName());
+      }
+      if (line.getUnit() == null) {
+        line.setUnit(product.getUnit());
+      }
+      consumptionLineRepo.save(line);
+    }
+    JPA.flush();
+
+    // Insert using native query so that the consumption lines of the contract are not loaded.
+    StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableName).append(" VALUES ");
+    for (int i = 0; i < lines.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append("(:contractId, :line").append(i).append(")");
+    }
+    Query query = JPA.em().createNativeQuery(sql.toString());
+    query.setParameter("contractId", contractId);
+    for (int i = 0; i < lines.size(); i++) {
+      query.setParameter("line" + i, lines.get(i).getId());
+    }
+    query.executeUpdate();
+
+    lines.forEach(JPA.em()::detach);
+  }
+
+  protected String getConsumptionLineListTableName(Contract contract) {
+    String contractTableName =
+        EntityHelper.getEntityClass(contract).getAnnotation(Table.class).name();
+    return contractTableName + "_CONSUMPTION_LINE_LIST";
+  }
 }
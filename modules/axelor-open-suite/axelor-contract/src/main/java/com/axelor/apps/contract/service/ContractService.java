@@ -20,15 +20,14 @@ package com.axelor.apps.contract.service;
 
 import com.axelor.apps.account.db.Invoice;
 import com.axelor.apps.base.AxelorException;
-import com.axelor.apps.contract.db.ConsumptionLine;
 import com.axelor.apps.contract.db.Contract;
 import com.axelor.apps.contract.db.ContractLine;
 import com.axelor.apps.contract.db.ContractTemplate;
 import com.axelor.apps.contract.db.ContractVersion;
-import com.google.common.collect.Multimap;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public interface ContractService {
 
@@ -138,12 +137,13 @@ public interface ContractService {
 
   /**
    * Take each consumption line and convert it to contract line if a associate consumption contract
-   * line is present in contract.
+   * line is present in contract. The quantity of each contract line is increased by the total
+   * quantity of its consumption lines.
    *
    * @param contract contain consumption and contract lines.
-   * @return Multimap of consumption lines successfully converted to contract lines.
+   * @return contract lines with consumption lines successfully converted.
    */
-  Multimap<ContractLine, ConsumptionLine> mergeConsumptionLines(Contract contract);
+  Set<ContractLine> mergeConsumptionLines(Contract contract);
 
   default List<ContractVersion> getVersions(Contract contract) {
     List<ContractVersion> versions = contract.getVersionHistory();
@@ -28,7 +28,6 @@ import com.axelor.apps.account.db.repo.AnalyticMoveLineRepository;
 import com.axelor.apps.account.db.repo.InvoiceLineRepository;
 import com.axelor.apps.account.db.repo.InvoiceRepository;
 import com.axelor.apps.account.service.FiscalPositionAccountService;
-import com.axelor.apps.account.service.invoice.InvoiceLineService;
 import com.axelor.apps.account.service.invoice.InvoiceService;
 import com.axelor.apps.account.service.invoice.InvoiceServiceImpl;
 import com.axelor.apps.account.service.invoice.generator.InvoiceGenerator;
@@ -53,11 +52,10 @@ import com.axelor.apps.contract.db.repo.ContractVersionRepository;
 import com.axelor.apps.contract.exception.ContractExceptionMessage;
 import com.axelor.apps.contract.generator.InvoiceGeneratorContract;
 import com.axelor.auth.AuthUtils;
+import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.utils.date.DateTool;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
@@ -65,12 +63,17 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import javax.persistence.TypedQuery;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,6 +82,8 @@ public class ContractServiceImpl extends ContractRepository implements ContractS
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  protected static final int CONSUMPTION_LINE_FETCH_LIMIT = 1000;
+
   protected AppBaseService appBaseService;
   protected ContractVersionService versionService;
   protected ContractLineService contractLineService;
@@ -473,14 +478,11 @@ public class ContractServiceImpl extends ContractRepository implements ContractS
     }
 
     // Compute all consumption lines
-    Multimap<ContractLine, ConsumptionLine> consLines = mergeConsumptionLines(contract);
-    for (Entry<ContractLine, Collection<ConsumptionLine>> entries : consLines.asMap().entrySet()) {
-      ContractLine line = entries.getKey();
+    Map<ContractLine, InvoiceLine> consumptionInvoiceLineMap = new HashMap<>();
+    for (ContractLine line : mergeConsumptionLines(contract)) {
       InvoiceLine invoiceLine = generate(invoice, line);
       invoiceLine.setContractLine(line);
-      entries.getValue().stream()
-          .peek(cons -> cons.setInvoiceLine(invoiceLine))
-          .forEach(cons -> cons.setIsInvoiced(true));
+      consumptionInvoiceLineMap.put(line, invoiceLine);
       line.setQty(BigDecimal.ZERO);
       contractLineService.computeTotal(line);
     }
@@ -493,7 +495,29 @@ public class ContractServiceImpl extends ContractRepository implements ContractS
     // Increase invoice period date
     increaseInvoiceDates(contract);
 
-    return invoiceRepository.save(invoice);
+    invoice = invoiceRepository.save(invoice);
+
+    if (!consumptionInvoiceLineMap.isEmpty()) {
+      JPA.flush();
+      for (Entry<ContractLine, InvoiceLine> entry : consumptionInvoiceLineMap.entrySet()) {
+        setConsumptionLinesInvoiced(entry.getKey(), entry.getValue());
+      }
+    }
+
+    return invoice;
+  }
+
+  /** Link the consumption lines converted to the contract line to its invoice line. */
+  protected void setConsumptionLinesInvoiced(ContractLine contractLine, InvoiceLine invoiceLine) {
+    JPA.em()
+        .createQuery(
+            "UPDATE ConsumptionLine self SET self.invoiceLine = :invoiceLine, "
+                + "self.isInvoiced = true, self.version = self.version + 1 "
+                + "WHERE self.contractLine = :contractLine AND self.isError = false "
+                + "AND (self.isInvoiced IS NULL OR self.isInvoiced = false)")
+        .setParameter("invoiceLine", invoiceLine)
+        .setParameter("contractLine", contractLine)
+        .executeUpdate();
   }
 
   public Invoice generateInvoice(Contract contract) throws AxelorException {
@@ -503,47 +527,138 @@ public class ContractServiceImpl extends ContractRepository implements ContractS
     return invoice;
   }
 
+  /**
+   * The consumption lines are read by pages without being loaded in the contract, and updated with
+   * bulk queries. The quantities are summed by contract line before computing their totals.
+   */
   @Override
-  public Multimap<ContractLine, ConsumptionLine> mergeConsumptionLines(Contract contract) {
-    Multimap<ContractLine, ConsumptionLine> mergedLines = HashMultimap.create();
+  @Transactional
+  public Set<ContractLine> mergeConsumptionLines(Contract contract) {
+    Map<ContractLine, BigDecimal> qtyMap = new LinkedHashMap<>();
+    Map<LocalDate, ContractVersion> versionMap = new HashMap<>();
+    Map<List<Object>, ContractLine> contractLineMap = new HashMap<>();
+    Set<ContractVersion> indexedVersionSet = new HashSet<>();
+
+    boolean isFullProrated = isFullProrated(contract);
+    LocalDate endDate =
+        contract.getCurrentContractVersion().getIsConsumptionBeforeEndDate()
+            ? contract.getInvoicePeriodEndDate()
+            : null;
+
+    long lastId = 0;
+    List<Object[]> rowList;
+    do {
+      rowList = fetchConsumptionLineRows(contract, endDate, lastId);
+      List<Long> errorIdList = new ArrayList<>();
+      Map<ContractLine, List<Long>> convertedIdMap = new HashMap<>();
+
+      for (Object[] row : rowList) {
+        lastId = (Long) row[0];
+        LocalDate lineDate = (LocalDate) row[1];
+        BigDecimal qty = row[4] != null ? (BigDecimal) row[4] : BigDecimal.ZERO;
+
+        ContractVersion version = contract.getCurrentContractVersion();
+        if (isFullProrated) {
+          if (!versionMap.containsKey(lineDate)) {
+            versionMap.put(lineDate, versionService.getContractVersion(contract, lineDate));
+          }
+          version = versionMap.get(lineDate);
+        }
 
-    Stream<ConsumptionLine> lineStream =
-        contract.getConsumptionLineList().stream().filter(c -> !c.getIsInvoiced());
+        ContractLine matchLine = null;
+        if (version != null) {
+          if (indexedVersionSet.add(version)) {
+            indexConsumptionContractLines(version, contractLineMap);
+          }
+          matchLine = contractLineMap.get(Arrays.asList(version, row[2], row[3]));
+        }
 
-    if (contract.getCurrentContractVersion().getIsConsumptionBeforeEndDate()) {
-      lineStream =
-          lineStream.filter(
-              line -> line.getLineDate().isBefore(contract.getInvoicePeriodEndDate()));
-    }
+        if (matchLine == null) {
+          errorIdList.add(lastId);
+        } else {
+          qtyMap.merge(matchLine, qty, BigDecimal::add);
+          convertedIdMap.computeIfAbsent(matchLine, key -> new ArrayList<>()).add(lastId);
+        }
+      }
 
-    lineStream.forEach(
-        line -> {
-          ContractVersion version = contract.getCurrentContractVersion();
+      updateConsumptionLines(errorIdList, convertedIdMap);
+    } while (rowList.size() == CONSUMPTION_LINE_FETCH_LIMIT);
 
-          if (isFullProrated(contract)) {
-            version = versionService.getContractVersion(contract, line.getLineDate());
-          }
+    for (Entry<ContractLine, BigDecimal> entry : qtyMap.entrySet()) {
+      ContractLine contractLine = entry.getKey();
+      contractLine.setQty(contractLine.getQty().add(entry.getValue()));
+      contractLineService.computeTotal(contractLine);
+    }
+    return qtyMap.keySet();
+  }
 
-          if (version == null) {
-            line.setIsError(true);
-          } else {
-            ContractLine matchLine =
-                contractLineRepo.findOneBy(version, line.getProduct(), line.getReference(), true);
-            if (matchLine == null) {
-              line.setIsError(true);
-            } else {
-              matchLine.setQty(matchLine.getQty().add(line.getQty()));
-              contractLineService.computeTotal(matchLine);
-              line.setIsError(false);
-              line.setContractLine(matchLine);
-              mergedLines.put(matchLine, line);
-            }
-          }
-        });
-    return mergedLines;
+  /**
+   * Fetch the id, date, product id, reference and quantity of the next consumption lines of the
+   * contract to invoice.
+   */
+  protected List<Object[]> fetchConsumptionLineRows(
+      Contract contract, LocalDate endDate, long lastId) {
+    TypedQuery<Object[]> query =
+        JPA.em()
+            .createQuery(
+                "SELECT line.id, line.lineDate, line.product.id, line.reference, line.qty "
+                    + "FROM Contract self JOIN self.consumptionLineList line "
+                    + "WHERE self.id = :contractId AND line.id > :lastId "
+                    + "AND (line.isInvoiced IS NULL OR line.isInvoiced = false) "
+                    + (endDate != null ? "AND line.lineDate < :endDate " : "")
+                    + "ORDER BY line.id",
+                Object[].class)
+            .setParameter("contractId", contract.getId())
+            .setParameter("lastId", lastId)
+            .setMaxResults(CONSUMPTION_LINE_FETCH_LIMIT);
+    if (endDate != null) {
+      query.setParameter("endDate", endDate);
+    }
+    return query.getResultList();
+  }
+
+  /**
+   * Index the consumption contract lines of the version by product id and product name, as the
+   * reference of a consumption line matches the product name of its contract line.
+   */
+  protected void indexConsumptionContractLines(
+      ContractVersion version, Map<List<Object>, ContractLine> contractLineMap) {
+    if (version.getContractLineList() == null) {
+      return;
+    }
+    for (ContractLine contractLine : version.getContractLineList()) {
+      if (contractLine.getIsConsumptionLine()
+          && contractLine.getProduct() != null
+          && contractLine.getProductName() != null) {
+        contractLineMap.putIfAbsent(
+            Arrays.asList(
+                version, contractLine.getProduct().getId(), contractLine.getProductName()),
+            contractLine);
+      }
+    }
   }
 
-  InvoiceLineService invoiceLineService = Beans.get(InvoiceLineService.class);
+  protected void updateConsumptionLines(
+      List<Long> errorIdList, Map<ContractLine, List<Long>> convertedIdMap) {
+    if (!errorIdList.isEmpty()) {
+      JPA.em()
+          .createQuery(
+              "UPDATE ConsumptionLine self SET self.isError = true, "
+                  + "self.version = self.version + 1 WHERE self.id IN (:ids)")
+          .setParameter("ids", errorIdList)
+          .executeUpdate();
+    }
+    for (Entry<ContractLine, List<Long>> entry : convertedIdMap.entrySet()) {
+      JPA.em()
+          .createQuery(
+              "UPDATE ConsumptionLine self SET self.isError = false, "
+                  + "self.contractLine = :contractLine, self.version = self.version + 1 "
+                  + "WHERE self.id IN (:ids)")
+          .setParameter("contractLine", entry.getKey())
+          .setParameter("ids", entry.getValue())
+          .executeUpdate();
+    }
+  }
 
   public InvoiceLine generate(Invoice invoice, ContractLine line) throws AxelorException {
 
@@ -0,0 +1,244 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.contract.service;
+
+import static org.mockito.Mockito.mock;
+
+import com.axelor.apps.account.db.InvoiceLine;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.contract.db.ConsumptionLine;
+import com.axelor.apps.contract.db.Contract;
+import com.axelor.apps.contract.db.ContractLine;
+import com.axelor.apps.contract.db.ContractVersion;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Invoice the consumption lines of a contract, the queries on the consumption lines being applied
+ * to the lines of the contract instead of the database.
+ */
+public class TestContractServiceImpl {
+
+  protected static final LocalDate INVOICE_PERIOD_END_DATE = LocalDate.of(2023, 6, 30);
+
+  protected ContractServiceImpl contractService;
+  protected Contract contract;
+  protected ContractVersion contractVersion;
+  protected ContractLine callContractLine;
+  protected ContractLine smsContractLine;
+  protected Product callProduct;
+  protected Product dataProduct;
+  protected Map<ContractLine, InvoiceLine> invoiceLineMap;
+
+  @Before
+  public void prepare() {
+    callProduct = createProduct(1L);
+    dataProduct = createProduct(2L);
+
+    callContractLine = createContractLine(callProduct, "Calls");
+    smsContractLine = createContractLine(callProduct, "SMS");
+    contractVersion = new ContractVersion();
+    contractVersion.setIsConsumptionBeforeEndDate(true);
+    contractVersion.setContractLineList(
+        new ArrayList<>(Arrays.asList(callContractLine, smsContractLine)));
+
+    contract = new Contract();
+    contract.setCurrentContractVersion(contractVersion);
+    contract.setInvoicePeriodEndDate(INVOICE_PERIOD_END_DATE);
+    contract.setConsumptionLineList(new ArrayList<>());
+
+    invoiceLineMap = new HashMap<>();
+    contractService =
+        new ContractServiceImpl(
+            null, null, mock(ContractLineService.class), null, null, null, null, null) {
+
+          @Override
+          protected List<Object[]> fetchConsumptionLineRows(
+              Contract contract, LocalDate endDate, long lastId) {
+            return contract.getConsumptionLineList().stream()
+                .filter(
+                    consumptionLine ->
+                        consumptionLine.getId() > lastId
+                            && !consumptionLine.getIsInvoiced()
+                            && (endDate == null || consumptionLine.getLineDate().isBefore(endDate)))
+                .sorted((line1, line2) -> line1.getId().compareTo(line2.getId()))
+                .limit(CONSUMPTION_LINE_FETCH_LIMIT)
+                .map(
+                    consumptionLine ->
+                        new Object[] {
+                          consumptionLine.getId(),
+                          consumptionLine.getLineDate(),
+                          consumptionLine.getProduct().getId(),
+                          consumptionLine.getReference(),
+                          consumptionLine.getQty()
+                        })
+                .collect(Collectors.toList());
+          }
+
+          @Override
+          protected void updateConsumptionLines(
+              List<Long> errorIdList, Map<ContractLine, List<Long>> convertedIdMap) {
+            for (ConsumptionLine consumptionLine : contract.getConsumptionLineList()) {
+              if (errorIdList.contains(consumptionLine.getId())) {
+                consumptionLine.setIsError(true);
+              }
+              for (Map.Entry<ContractLine, List<Long>> entry : convertedIdMap.entrySet()) {
+                if (entry.getValue().contains(consumptionLine.getId())) {
+                  consumptionLine.setIsError(false);
+                  consumptionLine.setContractLine(entry.getKey());
+                }
+              }
+            }
+          }
+
+          @Override
+          protected void setConsumptionLinesInvoiced(
+              ContractLine contractLine, InvoiceLine invoiceLine) {
+            for (ConsumptionLine consumptionLine : contract.getConsumptionLineList()) {
+              if (consumptionLine.getContractLine() == contractLine
+                  && !consumptionLine.getIsError()
+                  && !consumptionLine.getIsInvoiced()) {
+                consumptionLine.setInvoiceLine(invoiceLine);
+                consumptionLine.setIsInvoiced(true);
+              }
+            }
+          }
+        };
+  }
+
+  @Test
+  public void testInvoiceMatchedLinesBeforeEndDate() {
+    ConsumptionLine call1 = addConsumptionLine(callProduct, "Calls", 10, "3");
+    ConsumptionLine call2 = addConsumptionLine(callProduct, "Calls", 20, "4");
+    ConsumptionLine unknownReference = addConsumptionLine(callProduct, "MMS", 12, "2");
+    ConsumptionLine unknownProduct = addConsumptionLine(dataProduct, "Calls", 15, "5");
+    ConsumptionLine afterEndDate = addConsumptionLine(callProduct, "Calls", 32, "10");
+    ConsumptionLine alreadyInvoiced = addConsumptionLine(callProduct, "Calls", 5, "8");
+    alreadyInvoiced.setIsInvoiced(true);
+
+    Set<ContractLine> contractLineSet = invoiceConsumptionLines();
+
+    Assert.assertEquals(Collections.singleton(callContractLine), contractLineSet);
+    Assert.assertEquals(new BigDecimal("7"), callContractLine.getQty());
+    Assert.assertEquals(BigDecimal.ZERO, smsContractLine.getQty());
+
+    for (ConsumptionLine consumptionLine : Arrays.asList(call1, call2)) {
+      Assert.assertTrue(consumptionLine.getIsInvoiced());
+      Assert.assertSame(callContractLine, consumptionLine.getContractLine());
+      Assert.assertSame(invoiceLineMap.get(callContractLine), consumptionLine.getInvoiceLine());
+    }
+    for (ConsumptionLine consumptionLine : Arrays.asList(unknownReference, unknownProduct)) {
+      Assert.assertTrue(consumptionLine.getIsError());
+      Assert.assertFalse(consumptionLine.getIsInvoiced());
+      Assert.assertNull(consumptionLine.getInvoiceLine());
+    }
+    Assert.assertFalse(afterEndDate.getIsInvoiced());
+    Assert.assertFalse(afterEndDate.getIsError());
+    Assert.assertNull(afterEndDate.getContractLine());
+    Assert.assertNull(alreadyInvoiced.getInvoiceLine());
+  }
+
+  @Test
+  public void testInvoiceLinesAfterEndDate() {
+    contractVersion.setIsConsumptionBeforeEndDate(false);
+    ConsumptionLine call = addConsumptionLine(callProduct, "Calls", 10, "3");
+    ConsumptionLine afterEndDate = addConsumptionLine(callProduct, "Calls", 32, "10");
+    ConsumptionLine sms = addConsumptionLine(callProduct, "SMS", 40, "2");
+
+    Set<ContractLine> contractLineSet = invoiceConsumptionLines();
+
+    Assert.assertEquals(2, contractLineSet.size());
+    Assert.assertEquals(new BigDecimal("13"), callContractLine.getQty());
+    Assert.assertEquals(new BigDecimal("2"), smsContractLine.getQty());
+    Assert.assertTrue(call.getIsInvoiced());
+    Assert.assertTrue(afterEndDate.getIsInvoiced());
+    Assert.assertSame(invoiceLineMap.get(smsContractLine), sms.getInvoiceLine());
+  }
+
+  @Test
+  public void testInvoiceLinesOfSeveralPages() {
+    int lineCount = ContractServiceImpl.CONSUMPTION_LINE_FETCH_LIMIT * 2 + 1;
+    for (int i = 0; i < lineCount; i++) {
+      addConsumptionLine(callProduct, i % 2 == 0 ? "Calls" : "SMS", 1 + i % 28, "1");
+    }
+
+    invoiceConsumptionLines();
+
+    Assert.assertEquals(
+        BigDecimal.valueOf(ContractServiceImpl.CONSUMPTION_LINE_FETCH_LIMIT + 1),
+        callContractLine.getQty());
+    Assert.assertEquals(
+        BigDecimal.valueOf(ContractServiceImpl.CONSUMPTION_LINE_FETCH_LIMIT),
+        smsContractLine.getQty());
+    Assert.assertTrue(
+        contract.getConsumptionLineList().stream().allMatch(ConsumptionLine::getIsInvoiced));
+  }
+
+  /** Merge the consumption lines and link them to an invoice line, as done when invoicing. */
+  protected Set<ContractLine> invoiceConsumptionLines() {
+    Set<ContractLine> contractLineSet = contractService.mergeConsumptionLines(contract);
+    for (ContractLine contractLine : contractLineSet) {
+      InvoiceLine invoiceLine = new InvoiceLine();
+      invoiceLine.setQty(contractLine.getQty());
+      invoiceLineMap.put(contractLine, invoiceLine);
+      contractService.setConsumptionLinesInvoiced(contractLine, invoiceLine);
+    }
+    return contractLineSet;
+  }
+
+  protected ConsumptionLine addConsumptionLine(
+      Product product, String reference, int dayOfJune, String qty) {
+    ConsumptionLine consumptionLine = new ConsumptionLine();
+    consumptionLine.setId((long) contract.getConsumptionLineList().size() + 1);
+    consumptionLine.setProduct(product);
+    consumptionLine.setReference(reference);
+    consumptionLine.setLineDate(LocalDate.of(2023, 6, 1).plusDays(dayOfJune - 1L));
+    consumptionLine.setQty(new BigDecimal(qty));
+    consumptionLine.setIsInvoiced(false);
+    consumptionLine.setIsError(false);
+    contract.getConsumptionLineList().add(consumptionLine);
+    return consumptionLine;
+  }
+
+  protected ContractLine createContractLine(Product product, String productName) {
+    ContractLine contractLine = new ContractLine();
+    contractLine.setProduct(product);
+    contractLine.setProductName(productName);
+    contractLine.setIsConsumptionLine(true);
+    contractLine.setQty(BigDecimal.ZERO);
+    return contractLine;
+  }
+
+  protected Product createProduct(Long id) {
+    Product product = new Product();
+    product.setId(id);
+    return product;
+  }
+}
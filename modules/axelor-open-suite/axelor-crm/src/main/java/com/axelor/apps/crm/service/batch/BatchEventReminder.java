@@ -255,11 +255,9 @@ public class BatchEventReminder extends BatchStrategy {
     String comment = I18n.get(CrmExceptionMessage.BATCH_EVENT_REMINDER_2) + "\n";
     comment +=
         String.format(
-            "\t* %s " + I18n.get(CrmExceptionMessage.BATCH_EVENT_REMINDER_3) + "\n",
-            batch.getDone());
+            "\t* %s " + I18n.get(CrmExceptionMessage.BATCH_EVENT_REMINDER_3) + "\n", getDone());
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
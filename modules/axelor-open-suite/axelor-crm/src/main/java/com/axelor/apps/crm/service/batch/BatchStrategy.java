@@ -23,6 +23,7 @@ import com.axelor.apps.base.service.administration.AbstractBatch;
 import com.axelor.apps.crm.db.EventReminder;
 import com.axelor.apps.crm.db.repo.EventReminderRepository;
 import com.axelor.apps.crm.message.MessageServiceCrmImpl;
+import com.axelor.db.JPA;
 import com.axelor.message.service.MailAccountService;
 import com.google.inject.Inject;
 
@@ -42,8 +43,11 @@ public abstract class BatchStrategy extends AbstractBatch {
 
   protected void updateEventReminder(EventReminder eventReminder) {
 
-    eventReminder.addBatchSetItem(batchRepo.find(batch.getId()));
-    eventReminder.setIsReminded(true);
+    JPA.runInTransaction(
+        () -> {
+          eventReminder.addBatchSetItem(batchRepo.find(batch.getId()));
+          eventReminder.setIsReminded(true);
+        });
     incrementDone();
     //		eventReminderService.save(eventReminder);
   }
@@ -173,25 +173,12 @@ public class GdprSearchEngineServiceImpl implements GdprSearchEngineService {
   }
 
   public String evalField(Context context, String fieldName) {
-    String[] fields = fieldName.split("\\.");
-    int count = 0;
-    StringBuilder fieldToTest = new StringBuilder();
-    Optional<Object> value = Optional.empty();
-
-    while (count < fields.length) {
-      if (fieldToTest.length() > 0) {
-        fieldToTest.append(".");
-      }
-      fieldToTest.append(fields[count]);
-      value = Optional.ofNullable(new GroovyScriptHelper(context).eval(fieldToTest.toString()));
-
-      if (!value.isPresent()) {
-        break;
-      }
-      count++;
-    }
+    // Null-safe navigation stops on the first empty field in a single evaluation
+    String nullSafeFieldName = String.join("?.", fieldName.split("\\."));
 
-    return value.map(Object::toString).orElse("");
+    return Optional.ofNullable(new GroovyScriptHelper(context).eval(nullSafeFieldName))
+        .map(Object::toString)
+        .orElse("");
   }
 
   /**
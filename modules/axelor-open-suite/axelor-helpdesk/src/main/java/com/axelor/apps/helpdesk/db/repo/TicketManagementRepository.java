@@ -22,6 +22,7 @@ import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.helpdesk.db.Ticket;
+import com.axelor.apps.helpdesk.service.SlaBreachService;
 import com.axelor.apps.helpdesk.service.TicketService;
 import com.google.inject.Inject;
 
@@ -29,6 +30,7 @@ public class TicketManagementRepository extends TicketRepository {
 
   @Inject private TicketService ticketService;
   @Inject private AppBaseService appBaseService;
+  @Inject private SlaBreachService slaBreachService;
 
   @Override
   public Ticket save(Ticket ticket) {
@@ -40,7 +42,9 @@ public class TicketManagementRepository extends TicketRepository {
     }
     ticketService.computeSLA(ticket);
     ticketService.checkSLAcompleted(ticket);
-    return super.save(ticket);
+    ticket = super.save(ticket);
+    slaBreachService.scheduleDeadline(ticket);
+    return ticket;
   }
 
   @Override
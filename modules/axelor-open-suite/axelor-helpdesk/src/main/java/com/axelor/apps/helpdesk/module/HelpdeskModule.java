@@ -22,7 +22,12 @@ import com.axelor.app.AxelorModule;
 import com.axelor.apps.base.service.MailServiceBaseImpl;
 import com.axelor.apps.helpdesk.db.repo.TicketManagementRepository;
 import com.axelor.apps.helpdesk.db.repo.TicketRepository;
+import com.axelor.apps.helpdesk.listener.HelpdeskServerStartListener;
 import com.axelor.apps.helpdesk.service.MailServiceHelpDeskImpl;
+import com.axelor.apps.helpdesk.service.SlaBreachService;
+import com.axelor.apps.helpdesk.service.SlaBreachServiceImpl;
+import com.axelor.apps.helpdesk.service.SlaService;
+import com.axelor.apps.helpdesk.service.SlaServiceImpl;
 import com.axelor.apps.helpdesk.service.TicketService;
 import com.axelor.apps.helpdesk.service.TicketServiceImpl;
 import com.axelor.apps.helpdesk.service.TimerTicketService;
@@ -37,5 +42,8 @@ public class HelpdeskModule extends AxelorModule {
     bind(TicketService.class).to(TicketServiceImpl.class);
     bind(MailServiceBaseImpl.class).to(MailServiceHelpDeskImpl.class);
     bind(TimerTicketService.class).to(TimerTicketServiceImpl.class);
+    bind(SlaService.class).to(SlaServiceImpl.class);
+    bind(SlaBreachService.class).to(SlaBreachServiceImpl.class);
+    bind(HelpdeskServerStartListener.class);
   }
 }
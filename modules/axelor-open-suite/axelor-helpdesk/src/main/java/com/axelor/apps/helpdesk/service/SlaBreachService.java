@@ -0,0 +1,40 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.helpdesk.service;
+
+import com.axelor.apps.helpdesk.db.Ticket;
+
+public interface SlaBreachService {
+
+  /**
+   * Load the deadlines of the tickets whose SLA is still running, and start checking them
+   * periodically.
+   */
+  public void start();
+
+  /** Track the deadline of the ticket, or stop tracking it when its SLA is no longer running. */
+  public void scheduleDeadline(Ticket ticket);
+
+  /**
+   * Mark as breached the tickets whose deadline is passed without reaching the stage of their SLA.
+   *
+   * @return the number of breached tickets
+   */
+  public int markBreachedTickets();
+}
@@ -0,0 +1,183 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.helpdesk.service;
+
+import com.axelor.app.AppSettings;
+import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.helpdesk.db.Ticket;
+import com.axelor.db.JPA;
+import com.axelor.inject.Beans;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Singleton;
+import com.google.inject.persist.Transactional;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Singleton
+public class SlaBreachServiceImpl implements SlaBreachService {
+
+  protected static final String SLA_CHECK_INTERVAL = "aos.helpdesk.sla.check-interval";
+
+  protected static final int WHEEL_SLOT_COUNT = 1440;
+  protected static final int LOAD_BATCH_SIZE = 1000;
+  protected static final int UPDATE_BATCH_SIZE = 500;
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected volatile SlaTimerWheel timerWheel;
+  protected ScheduledExecutorService executor;
+
+  @Override
+  public synchronized void start() {
+    if (timerWheel != null) {
+      return;
+    }
+
+    long tickMillis =
+        TimeUnit.SECONDS.toMillis(Math.max(1, AppSettings.get().getInt(SLA_CHECK_INTERVAL, 60)));
+    SlaTimerWheel wheel =
+        new SlaTimerWheel(WHEEL_SLOT_COUNT, tickMillis, System.currentTimeMillis());
+    loadDeadlines(wheel);
+    timerWheel = wheel;
+    log.info("{} SLA deadlines loaded", wheel.size());
+
+    executor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("sla-breach-%d").setDaemon(true).build());
+    executor.scheduleWithFixedDelay(
+        this::markBreachedTicketsInWorkerContext, 0, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Load the deadlines by batches of ticket ids, the running SLAs being read from the database. */
+  protected void loadDeadlines(SlaTimerWheel wheel) {
+    long lastId = 0;
+    List<Object[]> rowList;
+    do {
+      rowList =
+          JPA.em()
+              .createQuery(
+                  "SELECT self.id, self.deadlineDateT FROM Ticket self "
+                      + "WHERE self.id > :lastId AND self.deadlineDateT IS NOT NULL "
+                      + "AND self.isSlaBreached = false "
+                      + "AND COALESCE(self.statusSelect, 0) < self.slaPolicy.reachStageSelect "
+                      + "ORDER BY self.id",
+                  Object[].class)
+              .setParameter("lastId", lastId)
+              .setMaxResults(LOAD_BATCH_SIZE)
+              .getResultList();
+
+      for (Object[] row : rowList) {
+        lastId = (Long) row[0];
+        wheel.schedule(lastId, toMillis((LocalDateTime) row[1]));
+      }
+    } while (rowList.size() == LOAD_BATCH_SIZE);
+  }
+
+  @Override
+  public void scheduleDeadline(Ticket ticket) {
+    SlaTimerWheel wheel = timerWheel;
+    if (wheel == null || ticket.getId() == null) {
+      return;
+    }
+
+    Integer reachStageSelect =
+        ticket.getSlaPolicy() != null ? ticket.getSlaPolicy().getReachStageSelect() : null;
+    int statusSelect = ticket.getStatusSelect() != null ? ticket.getStatusSelect() : 0;
+
+    if (reachStageSelect == null
+        || ticket.getDeadlineDateT() == null
+        || ticket.getIsSlaBreached()
+        || statusSelect >= reachStageSelect) {
+      wheel.cancel(ticket.getId());
+    } else {
+      wheel.schedule(ticket.getId(), toMillis(ticket.getDeadlineDateT()));
+    }
+  }
+
+  protected void markBreachedTicketsInWorkerContext() {
+    RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+    try (RequestScoper.CloseableScope ignored = scope.open()) {
+      markBreachedTickets();
+    } catch (Exception e) {
+      TraceBackService.trace(e);
+    } finally {
+      Beans.get(UnitOfWork.class).end();
+    }
+  }
+
+  /**
+   * The expired tickets are updated with bulk queries which do not increment their version, so that
+   * the ticket forms opened meanwhile can still be saved.
+   */
+  @Override
+  public int markBreachedTickets() {
+    SlaTimerWheel wheel = timerWheel;
+    if (wheel == null) {
+      return 0;
+    }
+
+    List<Long> expiredTicketIds = wheel.advance(System.currentTimeMillis());
+    if (expiredTicketIds.isEmpty()) {
+      return 0;
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    int breachedCount = 0;
+    for (List<Long> ticketIds : Lists.partition(expiredTicketIds, UPDATE_BATCH_SIZE)) {
+      breachedCount += markBreachedTickets(ticketIds, now);
+    }
+
+    log.debug(
+        "{} expired SLA deadlines, {} tickets breached, {} deadlines left",
+        expiredTicketIds.size(),
+        breachedCount,
+        wheel.size());
+    return breachedCount;
+  }
+
+  @Transactional
+  protected int markBreachedTickets(List<Long> ticketIds, LocalDateTime now) {
+    return JPA.em()
+        .createQuery(
+            "UPDATE Ticket self SET self.isSlaBreached = true "
+                + "WHERE self.id IN (:ticketIds) AND self.isSlaBreached = false "
+                + "AND self.deadlineDateT <= :now "
+                + "AND COALESCE(self.statusSelect, 0) < "
+                + "(SELECT sla.reachStageSelect FROM Sla sla WHERE sla = self.slaPolicy)")
+        .setParameter("ticketIds", ticketIds)
+        .setParameter("now", now)
+        .executeUpdate();
+  }
+
+  protected long toMillis(LocalDateTime dateTime) {
+    return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.helpdesk.service;
+
+import com.axelor.apps.helpdesk.db.Sla;
+import com.axelor.apps.helpdesk.db.TicketType;
+import com.axelor.team.db.Team;
+
+public interface SlaService {
+
+  /**
+   * Find the SLA policy matching the given team, priority and ticket type. An SLA with an empty
+   * field matches any value, the SLA defining the most fields being chosen.
+   *
+   * @param team
+   * @param prioritySelect
+   * @param ticketType
+   * @return the matching SLA, null if there is none
+   */
+  public Sla findSla(Team team, Integer prioritySelect, TicketType ticketType);
+}
@@ -0,0 +1,127 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.helpdesk.service;
+
+import com.axelor.apps.helpdesk.db.Sla;
+import com.axelor.apps.helpdesk.db.TicketType;
+import com.axelor.apps.helpdesk.db.repo.SlaRepository;
+import com.axelor.team.db.Team;
+import com.google.inject.Inject;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class SlaServiceImpl implements SlaService {
+
+  protected static final long TIME_TO_LIVE_MINUTES = 1;
+
+  /*
+   * SLA rules ordered by decreasing number of defined fields, then by id. They are dropped by
+   * SlaListener when an SLA is changed, and reloaded at least every minute to follow the changes
+   * made on other servers.
+   */
+  protected static volatile SlaRules slaRules;
+
+  protected SlaRepository slaRepo;
+
+  @Inject
+  public SlaServiceImpl(SlaRepository slaRepo) {
+    this.slaRepo = slaRepo;
+  }
+
+  public static void invalidateSlaRules() {
+    slaRules = null;
+  }
+
+  @Override
+  public Sla findSla(Team team, Integer prioritySelect, TicketType ticketType) {
+    Long teamId = team != null ? team.getId() : null;
+    Long ticketTypeId = ticketType != null ? ticketType.getId() : null;
+
+    for (SlaRule slaRule : getSlaRules()) {
+      if (slaRule.matches(teamId, prioritySelect, ticketTypeId)) {
+        return slaRepo.find(slaRule.slaId);
+      }
+    }
+    return null;
+  }
+
+  protected List<SlaRule> getSlaRules() {
+    SlaRules rules = slaRules;
+    if (rules == null || rules.isExpired()) {
+      rules = new SlaRules(toSlaRules(slaRepo.all().order("id").fetch()));
+      slaRules = rules;
+    }
+    return rules.ruleList;
+  }
+
+  /**
+   * @param slaList the SLAs, ordered by id
+   * @return the rules of the SLAs, from the most to the least specific
+   */
+  protected static List<SlaRule> toSlaRules(List<Sla> slaList) {
+    return slaList.stream()
+        .map(SlaRule::new)
+        .sorted(Comparator.comparingInt(SlaRule::getSpecificity).reversed())
+        .collect(Collectors.toList());
+  }
+
+  protected static class SlaRules {
+
+    protected final List<SlaRule> ruleList;
+    protected final long loadNanoTime;
+
+    protected SlaRules(List<SlaRule> ruleList) {
+      this.ruleList = ruleList;
+      this.loadNanoTime = System.nanoTime();
+    }
+
+    protected boolean isExpired() {
+      return System.nanoTime() - loadNanoTime > TimeUnit.MINUTES.toNanos(TIME_TO_LIVE_MINUTES);
+    }
+  }
+
+  protected static class SlaRule {
+
+    protected final Long slaId;
+    protected final Long teamId;
+    protected final Integer prioritySelect;
+    protected final Long ticketTypeId;
+
+    protected SlaRule(Sla sla) {
+      this.slaId = sla.getId();
+      this.teamId = sla.getTeam() != null ? sla.getTeam().getId() : null;
+      this.prioritySelect = sla.getPrioritySelect();
+      this.ticketTypeId = sla.getTicketType() != null ? sla.getTicketType().getId() : null;
+    }
+
+    protected int getSpecificity() {
+      return (teamId != null ? 1 : 0)
+          + (prioritySelect != null ? 1 : 0)
+          + (ticketTypeId != null ? 1 : 0);
+    }
+
+    protected boolean matches(Long teamId, Integer prioritySelect, Long ticketTypeId) {
+      return (this.teamId == null || this.teamId.equals(teamId))
+          && (this.prioritySelect == null || this.prioritySelect.equals(prioritySelect))
+          && (this.ticketTypeId == null || this.ticketTypeId.equals(ticketTypeId));
+    }
+  }
+}
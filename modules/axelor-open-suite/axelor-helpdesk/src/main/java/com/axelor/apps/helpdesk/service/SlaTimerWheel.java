@@ -0,0 +1,93 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.helpdesk.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timer wheel holding the SLA deadlines of the tickets. A deadline is put in the slot of its
+ * tick, and stays there for the turns of the wheel ending before it.
+ */
+public class SlaTimerWheel {
+
+  protected final long tickMillis;
+  protected final List<Map<Long, Long>> slots;
+  protected final Map<Long, Integer> slotByTicketId = new HashMap<>();
+  protected long currentTick;
+
+  public SlaTimerWheel(int slotCount, long tickMillis, long startMillis) {
+    this.tickMillis = tickMillis;
+    this.slots = new ArrayList<>(slotCount);
+    for (int i = 0; i < slotCount; i++) {
+      slots.add(new HashMap<>());
+    }
+    this.currentTick = startMillis / tickMillis;
+  }
+
+  /** Schedule the deadline of the ticket, replacing its previous one. */
+  public synchronized void schedule(Long ticketId, long deadlineMillis) {
+    cancel(ticketId);
+    int slot = (int) (Math.max(deadlineMillis / tickMillis, currentTick) % slots.size());
+    slots.get(slot).put(ticketId, deadlineMillis);
+    slotByTicketId.put(ticketId, slot);
+  }
+
+  public synchronized void cancel(Long ticketId) {
+    Integer slot = slotByTicketId.remove(ticketId);
+    if (slot != null) {
+      slots.get(slot).remove(ticketId);
+    }
+  }
+
+  /**
+   * Move the wheel to the given time.
+   *
+   * @param nowMillis
+   * @return the ids of the tickets whose deadline is passed, which are removed from the wheel
+   */
+  public synchronized List<Long> advance(long nowMillis) {
+    long nowTick = nowMillis / tickMillis;
+    long tickCount = Math.min(nowTick - currentTick + 1, slots.size());
+    List<Long> expiredTicketIds = new ArrayList<>();
+
+    for (long tick = nowTick - tickCount + 1; tick <= nowTick; tick++) {
+      Iterator<Map.Entry<Long, Long>> iterator =
+          slots.get((int) (tick % slots.size())).entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<Long, Long> entry = iterator.next();
+        if (entry.getValue() <= nowMillis) {
+          expiredTicketIds.add(entry.getKey());
+          slotByTicketId.remove(entry.getKey());
+          iterator.remove();
+        }
+      }
+    }
+
+    currentTick = Math.max(currentTick, nowTick);
+    return expiredTicketIds;
+  }
+
+  public synchronized int size() {
+    return slotByTicketId.size();
+  }
+}
@@ -26,7 +26,6 @@ import com.axelor.apps.base.service.publicHoliday.PublicHolidayService;
 import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
 import com.axelor.apps.helpdesk.db.Sla;
 import com.axelor.apps.helpdesk.db.Ticket;
-import com.axelor.apps.helpdesk.db.repo.SlaRepository;
 import com.axelor.apps.helpdesk.db.repo.TicketRepository;
 import com.axelor.auth.AuthUtils;
 import com.axelor.studio.db.AppHelpdesk;
@@ -45,7 +44,7 @@ public class TicketServiceImpl implements TicketService {
 
   @Inject private TicketRepository ticketRepo;
 
-  @Inject private SlaRepository slaRepo;
+  @Inject private SlaService slaService;
 
   @Inject private PublicHolidayService publicHolidayService;
 
@@ -77,55 +76,13 @@ public class TicketServiceImpl implements TicketService {
     if (helpdesk.getIsSla()) {
 
       Sla sla =
-          slaRepo
-              .all()
-              .filter(
-                  "self.team = ?1 AND self.prioritySelect = ?2 AND self.ticketType = ?3",
-                  ticket.getAssignedToUser() == null
-                      ? null
-                      : ticket.getAssignedToUser().getActiveTeam(),
-                  ticket.getPrioritySelect(),
-                  ticket.getTicketType())
-              .fetchOne();
-
-      if (sla == null) {
-        sla =
-            slaRepo
-                .all()
-                .filter(
-                    "self.team = ?1 AND self.prioritySelect = ?2 AND self.ticketType = null OR "
-                        + "(self.team = null AND self.prioritySelect = ?2 AND self.ticketType = ?3) OR "
-                        + "(self.team = ?1 AND self.prioritySelect = null AND self.ticketType = ?3)",
-                    ticket.getAssignedToUser() == null
-                        ? null
-                        : ticket.getAssignedToUser().getActiveTeam(),
-                    ticket.getPrioritySelect(),
-                    ticket.getTicketType())
-                .fetchOne();
-      }
-      if (sla == null) {
-        sla =
-            slaRepo
-                .all()
-                .filter(
-                    "self.team = ?1 AND self.prioritySelect = null AND self.ticketType = null OR "
-                        + "(self.team = null AND self.prioritySelect = ?2 AND self.ticketType = null) OR "
-                        + "(self.team = null AND self.prioritySelect = null AND self.ticketType = ?3)",
-                    ticket.getAssignedToUser() == null
-                        ? null
-                        : ticket.getAssignedToUser().getActiveTeam(),
-                    ticket.getPrioritySelect(),
-                    ticket.getTicketType())
-                .fetchOne();
-      }
-      if (sla == null) {
-        sla =
-            slaRepo
-                .all()
-                .filter(
-                    "self.team = null AND self.prioritySelect = null AND self.ticketType = null")
-                .fetchOne();
-      }
+          slaService.findSla(
+              ticket.getAssignedToUser() == null
+                  ? null
+                  : ticket.getAssignedToUser().getActiveTeam(),
+              ticket.getPrioritySelect(),
+              ticket.getTicketType());
+
       if (sla != null) {
         ticket.setSlaPolicy(sla);
         try {
@@ -212,17 +169,30 @@ public class TicketServiceImpl implements TicketService {
     }
   }
 
-  /** Check if SLA is completed or not. */
+  /**
+   * Check if SLA is completed or not. The SLA is breached when the deadline is passed, whether the
+   * stage is reached late or not yet, and stays breached afterwards.
+   */
   @Override
   public void checkSLAcompleted(Ticket ticket) {
 
     if (ticket.getSlaPolicy() != null) {
-      LocalDateTime currentDate = LocalDateTime.now();
       LocalDateTime deadlineDateT = ticket.getDeadlineDateT();
+      boolean isStageReached =
+          ticket.getStatusSelect() >= ticket.getSlaPolicy().getReachStageSelect();
+      if (isStageReached && ticket.getIsSlaCompleted()) {
+        // Reached in time, saving the ticket after the deadline does not breach it
+        return;
+      }
+      boolean isDeadlinePassed =
+          deadlineDateT != null && LocalDateTime.now().isAfter(deadlineDateT);
 
-      ticket.setIsSlaCompleted(
-          ticket.getStatusSelect() >= ticket.getSlaPolicy().getReachStageSelect()
-              && (currentDate.isBefore(deadlineDateT) || currentDate.isEqual(deadlineDateT)));
+      ticket.setIsSlaCompleted(isStageReached && !isDeadlinePassed);
+      if (isDeadlinePassed) {
+        ticket.setIsSlaBreached(true);
+      }
+    } else {
+      ticket.setIsSlaBreached(false);
     }
   }
 
@@ -0,0 +1,89 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.helpdesk.service;
+
+import com.axelor.apps.helpdesk.db.Sla;
+import com.axelor.apps.helpdesk.db.TicketType;
+import com.axelor.apps.helpdesk.service.SlaServiceImpl.SlaRule;
+import com.axelor.team.db.Team;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSlaServiceImpl {
+
+  protected static final Integer PRIORITY_HIGH = 3;
+
+  protected Team team;
+  protected TicketType ticketType;
+  protected List<SlaRule> slaRules;
+
+  @Before
+  public void prepare() {
+    team = new Team();
+    team.setId(10L);
+    ticketType = new TicketType();
+    ticketType.setId(20L);
+
+    slaRules =
+        SlaServiceImpl.toSlaRules(
+            Arrays.asList(
+                createSla(1L, null, null, null),
+                createSla(2L, team, null, null),
+                createSla(3L, null, PRIORITY_HIGH, null),
+                createSla(4L, team, PRIORITY_HIGH, ticketType),
+                createSla(5L, team, PRIORITY_HIGH, null)));
+  }
+
+  @Test
+  public void testRulesFromMostToLeastSpecific() {
+    Assert.assertEquals(
+        Arrays.asList(4L, 5L, 2L, 3L, 1L),
+        slaRules.stream().map(slaRule -> slaRule.slaId).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testFirstMatchingRule() {
+    Assert.assertEquals(Long.valueOf(4L), findSlaId(team.getId(), PRIORITY_HIGH, 20L));
+    Assert.assertEquals(Long.valueOf(5L), findSlaId(team.getId(), PRIORITY_HIGH, 21L));
+    Assert.assertEquals(Long.valueOf(2L), findSlaId(team.getId(), 1, null));
+    Assert.assertEquals(Long.valueOf(3L), findSlaId(11L, PRIORITY_HIGH, 20L));
+    Assert.assertEquals(Long.valueOf(1L), findSlaId(null, null, null));
+  }
+
+  protected Long findSlaId(Long teamId, Integer prioritySelect, Long ticketTypeId) {
+    return slaRules.stream()
+        .filter(slaRule -> slaRule.matches(teamId, prioritySelect, ticketTypeId))
+        .map(slaRule -> slaRule.slaId)
+        .findFirst()
+        .orElse(null);
+  }
+
+  protected Sla createSla(Long id, Team team, Integer prioritySelect, TicketType ticketType) {
+    Sla sla = new Sla();
+    sla.setId(id);
+    sla.setTeam(team);
+    sla.setPrioritySelect(prioritySelect);
+    sla.setTicketType(ticketType);
+    return sla;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.helpdesk.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSlaTimerWheel {
+
+  protected static final int SLOT_COUNT = 4;
+  protected static final long TICK_MILLIS = 1000;
+
+  protected SlaTimerWheel timerWheel;
+
+  @Before
+  public void prepare() {
+    timerWheel = new SlaTimerWheel(SLOT_COUNT, TICK_MILLIS, 0);
+  }
+
+  @Test
+  public void testDeadlineExpiresOnItsTick() {
+    timerWheel.schedule(1L, 2500);
+
+    Assert.assertEquals(Collections.emptyList(), timerWheel.advance(2000));
+    Assert.assertEquals(Collections.emptyList(), timerWheel.advance(2499));
+    Assert.assertEquals(Collections.singletonList(1L), timerWheel.advance(2500));
+    Assert.assertEquals(0, timerWheel.size());
+  }
+
+  @Test
+  public void testDeadlineAfterSeveralTurns() {
+    // Same slot as the deadline at 1500, but three turns later
+    timerWheel.schedule(1L, 1500 + 3 * SLOT_COUNT * TICK_MILLIS);
+    timerWheel.schedule(2L, 1500);
+
+    Assert.assertEquals(Collections.singletonList(2L), timerWheel.advance(1500));
+    for (long now = 2000; now < 13500; now += TICK_MILLIS) {
+      Assert.assertEquals(Collections.emptyList(), timerWheel.advance(now));
+    }
+    Assert.assertEquals(1, timerWheel.size());
+    Assert.assertEquals(Collections.singletonList(1L), timerWheel.advance(13500));
+  }
+
+  @Test
+  public void testAdvanceOverMoreThanOneTurn() {
+    timerWheel.schedule(1L, 1000);
+    timerWheel.schedule(2L, 3000);
+    timerWheel.schedule(3L, 30000);
+
+    Assert.assertEquals(Arrays.asList(1L, 2L), timerWheel.advance(20000));
+    Assert.assertEquals(1, timerWheel.size());
+  }
+
+  @Test
+  public void testPastDeadlineExpiresOnNextAdvance() {
+    timerWheel.advance(5000);
+    timerWheel.schedule(1L, 1000);
+
+    Assert.assertEquals(Collections.singletonList(1L), timerWheel.advance(5000));
+  }
+
+  @Test
+  public void testCancel() {
+    timerWheel.schedule(1L, 1000);
+    timerWheel.schedule(2L, 1000);
+    timerWheel.cancel(1L);
+
+    Assert.assertEquals(1, timerWheel.size());
+    Assert.assertEquals(Collections.singletonList(2L), timerWheel.advance(1000));
+  }
+
+  @Test
+  public void testScheduleReplacesDeadline() {
+    timerWheel.schedule(1L, 1000);
+    timerWheel.schedule(1L, 3000);
+
+    Assert.assertEquals(Collections.emptyList(), timerWheel.advance(2000));
+    Assert.assertEquals(Collections.singletonList(1L), timerWheel.advance(3000));
+  }
+}
@@ -240,4 +240,7 @@ public final class HumanResourceExceptionMessage {
 
   public static final String NO_USER_FOR_EMPLOYEE = /*$$(*/
       "Please fill a user for the employee %s" /*)*/;
+
+  public static final String KILOMETRIC_DISTANCE_NOT_COMPUTED = /*$$(*/
+      "The distance between %s and %s could not be computed." /*)*/;
 }
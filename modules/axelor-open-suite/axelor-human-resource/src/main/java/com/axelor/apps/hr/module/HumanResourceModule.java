@@ -70,6 +70,8 @@ import com.axelor.apps.hr.service.expense.ExpenseService;
 import com.axelor.apps.hr.service.expense.ExpenseServiceImpl;
 import com.axelor.apps.hr.service.extra.hours.ExtraHoursService;
 import com.axelor.apps.hr.service.extra.hours.ExtraHoursServiceImpl;
+import com.axelor.apps.hr.service.kilometric.KilometricDistanceService;
+import com.axelor.apps.hr.service.kilometric.KilometricDistanceServiceImpl;
 import com.axelor.apps.hr.service.leave.LeaveService;
 import com.axelor.apps.hr.service.leave.LeaveServiceImpl;
 import com.axelor.apps.hr.service.lunch.voucher.LunchVoucherAdvanceService;
@@ -150,5 +152,6 @@ public class HumanResourceModule extends AxelorModule {
     bind(MoveReverseServiceBankPaymentImpl.class).to(ExpenseMoveReverseServiceImpl.class);
     bind(ProjectPlanningTimeComputeNameService.class)
         .to(ProjectPlanningTimeComputeNameServiceImpl.class);
+    bind(KilometricDistanceService.class).to(KilometricDistanceServiceImpl.class);
   }
 }
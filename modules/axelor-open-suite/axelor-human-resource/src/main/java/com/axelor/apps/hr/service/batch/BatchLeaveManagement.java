@@ -235,8 +235,7 @@ public class BatchLeaveManagement extends BatchStrategy {
 
     comment +=
         String.format(
-                I18n.get(HumanResourceExceptionMessage.BATCH_LEAVE_MANAGEMENT_ENDING_1),
-                batch.getDone())
+                I18n.get(HumanResourceExceptionMessage.BATCH_LEAVE_MANAGEMENT_ENDING_1), getDone())
             + '\n';
 
     if (confAnomaly > 0) {
@@ -224,7 +224,7 @@ public class BatchPayrollPreparationGeneration extends BatchStrategy {
     comment +=
         String.format(
             I18n.get(HumanResourceExceptionMessage.BATCH_PAYROLL_PREPARATION_SUCCESS_RECAP) + '\n',
-            batch.getDone());
+            getDone());
 
     if (duplicateAnomaly > 0) {
       comment +=
@@ -288,7 +288,7 @@ public class BatchSeniorityLeaveManagement extends BatchStrategy {
     comment +=
         String.format(
             I18n.get(HumanResourceExceptionMessage.BATCH_LEAVE_MANAGEMENT_ENDING_1) + '\n',
-            batch.getDone());
+            getDone());
 
     if (confAnomaly > 0) {
       comment +=
@@ -24,6 +24,7 @@ import com.axelor.apps.hr.db.Employee;
 import com.axelor.apps.hr.db.repo.EmployeeRepository;
 import com.axelor.apps.hr.service.leave.management.LeaveManagementService;
 import com.axelor.apps.hr.service.publicHoliday.PublicHolidayHrService;
+import com.axelor.db.JPA;
 import com.google.inject.Inject;
 
 public abstract class BatchStrategy extends AbstractBatch {
@@ -45,7 +46,7 @@ public abstract class BatchStrategy extends AbstractBatch {
 
   protected void updateEmployee(Employee employee) {
 
-    employee.addBatchSetItem(batchRepo.find(batch.getId()));
+    JPA.runInTransaction(() -> employee.addBatchSetItem(batchRepo.find(batch.getId())));
 
     incrementDone();
   }
@@ -89,12 +89,11 @@ public class BatchTimesheetReminder extends BatchStrategy {
   protected void stop() {
     String comment =
         String.format(
-                I18n.get(HumanResourceExceptionMessage.BATCH_TIMESHEET_REMINDER_DONE),
-                batch.getDone())
+                I18n.get(HumanResourceExceptionMessage.BATCH_TIMESHEET_REMINDER_DONE), getDone())
             + "<br/>"
             + String.format(
                 I18n.get(HumanResourceExceptionMessage.BATCH_TIMESHEET_REMINDER_ANOMALY),
-                batch.getAnomaly());
+                getAnomaly());
 
     addComment(comment);
     super.stop();
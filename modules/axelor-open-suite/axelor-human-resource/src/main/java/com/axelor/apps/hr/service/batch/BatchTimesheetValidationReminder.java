@@ -220,10 +220,9 @@ public class BatchTimesheetValidationReminder extends AbstractBatch {
   @Override
   protected void stop() {
 
-    String comment = String.format("\t* %s Email(s) sent %n", batch.getDone());
+    String comment = String.format("\t* %s Email(s) sent %n", getDone());
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
@@ -0,0 +1,110 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.service.kilometric;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.service.MapService;
+import com.axelor.apps.hr.exception.HumanResourceExceptionMessage;
+import com.axelor.apps.hr.translation.ITranslation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import wslite.json.JSONException;
+import wslite.json.JSONObject;
+
+public abstract class AbstractKilometricDistanceProvider implements KilometricDistanceProvider {
+
+  protected MapService mapService;
+
+  protected AbstractKilometricDistanceProvider(MapService mapService) {
+    this.mapService = mapService;
+  }
+
+  protected Map<String, Object> getLocationMap(String location) throws AxelorException {
+    Map<String, Object> locationMap;
+    try {
+      locationMap = mapService.getMap(location);
+    } catch (Exception e) {
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+          HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_OSM_ERROR,
+          e.getMessage());
+    }
+
+    if (locationMap == null) {
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+          HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_OSM_ERROR,
+          ITranslation.NO_SUCH_PLACE);
+    }
+    return locationMap;
+  }
+
+  protected JSONObject getApiResponse(String urlString, String exceptionMessage)
+      throws IOException, JSONException, AxelorException {
+
+    URL url = new URL(urlString);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    int responseCode = connection.getResponseCode();
+
+    this.checkResponseStatus(responseCode, exceptionMessage);
+
+    StringBuilder sb = new StringBuilder();
+    try (BufferedReader in =
+        new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+      String inputLine;
+      while ((inputLine = in.readLine()) != null) {
+        sb.append(inputLine + "\n");
+      }
+    }
+
+    String response = sb.toString();
+    JSONObject json;
+    // throw exception if response is not json
+    try {
+      json = new JSONObject(response);
+    } catch (Exception e) {
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, exceptionMessage, response);
+    }
+
+    return json;
+  }
+
+  protected void checkResponseStatus(int responseCode, String exceptionMessage)
+      throws AxelorException {
+    if (responseCode == 200) {
+      return;
+    } else if (responseCode == 429) {
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+          exceptionMessage,
+          ITranslation.REQUEST_OVERFLOW);
+    } else {
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+          exceptionMessage,
+          "Server returned status code " + responseCode);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.service.kilometric;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.service.MapService;
+import com.axelor.apps.hr.exception.HumanResourceExceptionMessage;
+import com.axelor.auth.AuthUtils;
+import com.axelor.auth.db.User;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.http.client.utils.URIBuilder;
+import wslite.json.JSONArray;
+import wslite.json.JSONException;
+import wslite.json.JSONObject;
+
+/** Distances computed by Google Maps Distance Matrix API. */
+public class GoogleKilometricDistanceProvider extends AbstractKilometricDistanceProvider {
+
+  /* Arriving cities by request, the Distance Matrix API accepting at most 25 destinations. */
+  protected static final int DESTINATIONS_PER_REQUEST = 25;
+
+  @Inject
+  public GoogleKilometricDistanceProvider(MapService mapService) {
+    super(mapService);
+  }
+
+  @Override
+  public String getName() {
+    return "google";
+  }
+
+  @Override
+  public BigDecimal computeDistance(String fromCity, String toCity) throws AxelorException {
+    try {
+      JSONObject element =
+          getDistanceMatrixElements(fromCity, Collections.singletonList(toCity)).getJSONObject(0);
+      checkStatus(element, element.getString("status"));
+      return getDistance(element);
+    } catch (URISyntaxException | IOException | JSONException e) {
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
+    }
+  }
+
+  /**
+   * Compute the distances with one request by starting city and group of arriving cities. Each
+   * element of the matrix (origin × destination) being billed, a request is never made for a pair
+   * of cities which is not a route.
+   */
+  @Override
+  public List<BigDecimal> computeDistances(List<Pair<String, String>> routeList)
+      throws AxelorException {
+    Map<String, List<Integer>> routeIndexMap = new LinkedHashMap<>();
+    for (int i = 0; i < routeList.size(); i++) {
+      routeIndexMap.computeIfAbsent(routeList.get(i).getLeft(), key -> new ArrayList<>()).add(i);
+    }
+
+    BigDecimal[] distances = new BigDecimal[routeList.size()];
+    try {
+      for (Map.Entry<String, List<Integer>> entry : routeIndexMap.entrySet()) {
+        for (List<Integer> routeIndexes :
+            Lists.partition(entry.getValue(), DESTINATIONS_PER_REQUEST)) {
+          List<String> destinations =
+              routeIndexes.stream()
+                  .map(index -> routeList.get(index).getRight())
+                  .distinct()
+                  .collect(Collectors.toList());
+          JSONArray elements = getDistanceMatrixElements(entry.getKey(), destinations);
+
+          for (Integer index : routeIndexes) {
+            JSONObject element =
+                elements.getJSONObject(destinations.indexOf(routeList.get(index).getRight()));
+            // An element fails alone, for example when no route is found between the cities
+            distances[index] =
+                "OK".equals(element.getString("status")) ? getDistance(element) : null;
+          }
+        }
+      }
+    } catch (URISyntaxException | IOException | JSONException e) {
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
+    }
+    return Arrays.asList(distances);
+  }
+
+  /** Request the distances from one starting city and return the elements of its matrix row. */
+  protected JSONArray getDistanceMatrixElements(String origin, List<String> destinations)
+      throws URISyntaxException, IOException, JSONException, AxelorException {
+    User user = AuthUtils.getUser();
+    String language = user != null ? user.getLanguage() : null;
+
+    JSONObject json =
+        getGoogleMapsDistanceMatrixResponse(origin, String.join("|", destinations), language);
+    checkStatus(json, json.getString("status"));
+    return json.getJSONArray("rows").getJSONObject(0).getJSONArray("elements");
+  }
+
+  protected BigDecimal getDistance(JSONObject element) throws JSONException {
+    return BigDecimal.valueOf(element.getJSONObject("distance").getDouble("value") / 1000);
+  }
+
+  protected void checkStatus(JSONObject json, String status) throws JSONException, AxelorException {
+    if (status.equals("OK")) {
+      return;
+    }
+
+    String msg =
+        json.has("error_message")
+            ? String.format("%s / %s", status, json.getString("error_message"))
+            : status;
+
+    throw new AxelorException(
+        TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+        HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_GOOGLE_MAPS_ERROR,
+        msg);
+  }
+
+  /**
+   * Get JSON response from Google Maps Distance Matrix API.
+   *
+   * @param origins the starting cities, separated by '|'
+   * @param destinations the arriving cities, separated by '|'
+   * @param language
+   * @return
+   * @throws URISyntaxException
+   * @throws IOException
+   * @throws JSONException
+   * @throws AxelorException
+   */
+  protected JSONObject getGoogleMapsDistanceMatrixResponse(
+      String origins, String destinations, String language)
+      throws URISyntaxException, IOException, JSONException, AxelorException {
+
+    URIBuilder ub = new URIBuilder("https://maps.googleapis.com/maps/api/distancematrix/json");
+    ub.addParameter("origins", origins);
+    ub.addParameter("destinations", destinations);
+    if (language != null) {
+      ub.addParameter("language", language);
+    }
+    ub.addParameter("key", mapService.getGoogleMapsApiKey());
+
+    return this.getApiResponse(
+        ub.toString(), HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_GOOGLE_MAPS_ERROR);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.service.kilometric;
+
+import com.axelor.apps.base.AxelorException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.tuple.Pair;
+
+/** Web service computing the distance travelled between two cities. */
+public interface KilometricDistanceProvider {
+
+  /** Name of the provider, the distances of each provider being cached separately. */
+  public String getName();
+
+  public BigDecimal computeDistance(String fromCity, String toCity) throws AxelorException;
+
+  /**
+   * Compute the distances of several routes, one by one unless the web service can compute them
+   * with a single request.
+   *
+   * @param routeList the starting and arriving cities of each route
+   * @return the distances, in the order of the routes, null for a route the web service could not
+   *     compute
+   * @throws AxelorException if a request fails
+   */
+  public default List<BigDecimal> computeDistances(List<Pair<String, String>> routeList)
+      throws AxelorException {
+    List<BigDecimal> distanceList = new ArrayList<>();
+    for (Pair<String, String> route : routeList) {
+      try {
+        distanceList.add(computeDistance(route.getLeft(), route.getRight()));
+      } catch (AxelorException e) {
+        distanceList.add(null);
+      }
+    }
+    return distanceList;
+  }
+}
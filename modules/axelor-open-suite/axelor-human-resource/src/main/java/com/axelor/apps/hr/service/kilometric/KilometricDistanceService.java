@@ -0,0 +1,48 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.service.kilometric;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.hr.db.ExpenseLine;
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface KilometricDistanceService {
+
+  /**
+   * Compute the distance between two cities, reusing the distance computed for the same cities
+   * during the cache duration of the expense app.
+   *
+   * @param fromCity
+   * @param toCity
+   * @return
+   * @throws AxelorException
+   */
+  public BigDecimal computeDistance(String fromCity, String toCity) throws AxelorException;
+
+  /**
+   * Fill the distance of the kilometric expense lines having cities but no distance, the routes
+   * missing in the cache being computed together. A line whose route cannot be computed keeps its
+   * distance and the error is traced, without failing the other lines.
+   *
+   * @param expenseLineList
+   * @throws AxelorException
+   */
+  public void computeDistances(List<ExpenseLine> expenseLineList) throws AxelorException;
+}
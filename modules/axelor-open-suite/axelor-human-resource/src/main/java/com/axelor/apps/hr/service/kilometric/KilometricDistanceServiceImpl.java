@@ -0,0 +1,359 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.service.kilometric;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.hr.db.ExpenseLine;
+import com.axelor.apps.hr.db.KilometricDistance;
+import com.axelor.apps.hr.db.repo.KilometricDistanceRepository;
+import com.axelor.apps.hr.exception.HumanResourceExceptionMessage;
+import com.axelor.apps.hr.service.app.AppHumanResourceService;
+import com.axelor.i18n.I18n;
+import com.axelor.inject.Beans;
+import com.axelor.studio.db.AppBase;
+import com.axelor.studio.db.repo.AppBaseRepository;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+
+public class KilometricDistanceServiceImpl implements KilometricDistanceService {
+
+  /*
+   * Distances being computed, by provider name and normalized cities. The requests asking for the
+   * same route meanwhile wait for the same result instead of calling the web service again.
+   */
+  protected static final ConcurrentMap<List<String>, CompletableFuture<BigDecimal>>
+      PENDING_DISTANCE_MAP = new ConcurrentHashMap<>();
+
+  protected AppBaseService appBaseService;
+  protected AppHumanResourceService appHumanResourceService;
+  protected KilometricDistanceRepository kilometricDistanceRepo;
+
+  @Inject
+  public KilometricDistanceServiceImpl(
+      AppBaseService appBaseService,
+      AppHumanResourceService appHumanResourceService,
+      KilometricDistanceRepository kilometricDistanceRepo) {
+    this.appBaseService = appBaseService;
+    this.appHumanResourceService = appHumanResourceService;
+    this.kilometricDistanceRepo = kilometricDistanceRepo;
+  }
+
+  /** Get the provider selected in the base app, null if none is selected. */
+  protected KilometricDistanceProvider getDistanceProvider() {
+    AppBase appBase = appBaseService.getAppBase();
+
+    if (appBase.getMapApiSelect() == AppBaseRepository.MAP_API_GOOGLE) {
+      return Beans.get(GoogleKilometricDistanceProvider.class);
+    }
+    if (appBase.getMapApiSelect() == AppBaseRepository.MAP_API_OPEN_STREET_MAP) {
+      if (appBase.getOsmRoutingServiceApiSelect() == AppBaseRepository.ROUTING_API_YOURS) {
+        return Beans.get(YoursKilometricDistanceProvider.class);
+      } else if (appBase.getOsmRoutingServiceApiSelect() == AppBaseRepository.ROUTING_API_OSRM) {
+        return Beans.get(OsrmKilometricDistanceProvider.class);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public BigDecimal computeDistance(String fromCity, String toCity) throws AxelorException {
+    if (StringUtils.isEmpty(fromCity)
+        || StringUtils.isEmpty(toCity)
+        || fromCity.equalsIgnoreCase(toCity)) {
+      return BigDecimal.ZERO;
+    }
+
+    KilometricDistanceProvider provider = getDistanceProvider();
+    if (provider == null) {
+      return BigDecimal.ZERO;
+    }
+
+    List<String> route = getRoute(provider, fromCity, toCity);
+    BigDecimal distance = findCachedDistances(provider, Arrays.asList(route)).get(route);
+    if (distance != null) {
+      return distance;
+    }
+
+    CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+    CompletableFuture<BigDecimal> pendingDistance = PENDING_DISTANCE_MAP.putIfAbsent(route, future);
+    if (pendingDistance != null) {
+      return waitForDistance(pendingDistance);
+    }
+
+    try {
+      distance = provider.computeDistance(fromCity, toCity);
+      Map<List<String>, BigDecimal> distanceMap = new HashMap<>();
+      distanceMap.put(route, distance);
+      saveDistances(distanceMap);
+      future.complete(distance);
+      return distance;
+    } catch (AxelorException | RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      PENDING_DISTANCE_MAP.remove(route, future);
+    }
+  }
+
+  protected BigDecimal waitForDistance(CompletableFuture<BigDecimal> pendingDistance)
+      throws AxelorException {
+    try {
+      return pendingDistance.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AxelorException) {
+        throw (AxelorException) e.getCause();
+      }
+      throw new AxelorException(e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
+    }
+  }
+
+  @Override
+  public void computeDistances(List<ExpenseLine> expenseLineList) throws AxelorException {
+    if (expenseLineList == null
+        || !appHumanResourceService.getAppExpense().getComputeDistanceWithWebService()) {
+      return;
+    }
+
+    KilometricDistanceProvider provider = getDistanceProvider();
+    if (provider == null) {
+      return;
+    }
+
+    Map<List<String>, List<ExpenseLine>> expenseLineMap = new LinkedHashMap<>();
+    Map<List<String>, Pair<String, String>> cityMap = new HashMap<>();
+    for (ExpenseLine expenseLine : expenseLineList) {
+      String fromCity = expenseLine.getFromCity();
+      String toCity = expenseLine.getToCity();
+      if ((expenseLine.getDistance() != null && expenseLine.getDistance().signum() != 0)
+          || StringUtils.isEmpty(fromCity)
+          || StringUtils.isEmpty(toCity)
+          || fromCity.equalsIgnoreCase(toCity)) {
+        continue;
+      }
+
+      List<String> route = getRoute(provider, fromCity, toCity);
+      expenseLineMap.computeIfAbsent(route, key -> new ArrayList<>()).add(expenseLine);
+      cityMap.putIfAbsent(route, Pair.of(fromCity, toCity));
+    }
+    if (expenseLineMap.isEmpty()) {
+      return;
+    }
+
+    Map<List<String>, BigDecimal> distanceMap =
+        findCachedDistances(provider, new ArrayList<>(expenseLineMap.keySet()));
+    List<List<String>> missingRouteList =
+        expenseLineMap.keySet().stream()
+            .filter(route -> !distanceMap.containsKey(route))
+            .collect(Collectors.toList());
+
+    if (!missingRouteList.isEmpty()) {
+      Map<List<String>, BigDecimal> computedDistanceMap =
+          computeMissingDistances(provider, missingRouteList, cityMap);
+      saveDistances(computedDistanceMap);
+      distanceMap.putAll(computedDistanceMap);
+    }
+
+    for (Map.Entry<List<String>, List<ExpenseLine>> entry : expenseLineMap.entrySet()) {
+      BigDecimal distance = distanceMap.get(entry.getKey());
+      for (ExpenseLine expenseLine : entry.getValue()) {
+        if (distance != null) {
+          expenseLine.setDistance(distance);
+        } else {
+          traceDistanceError(
+              new AxelorException(
+                  expenseLine,
+                  TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+                  I18n.get(HumanResourceExceptionMessage.KILOMETRIC_DISTANCE_NOT_COMPUTED),
+                  expenseLine.getFromCity(),
+                  expenseLine.getToCity()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute the routes with the requests of the provider. If a request fails, the routes are
+   * computed one by one, so that a wrong route only leaves its own lines without a distance.
+   *
+   * @return the computed distances, without the routes that could not be computed
+   */
+  protected Map<List<String>, BigDecimal> computeMissingDistances(
+      KilometricDistanceProvider provider,
+      List<List<String>> routeList,
+      Map<List<String>, Pair<String, String>> cityMap) {
+    List<Pair<String, String>> cityList =
+        routeList.stream().map(cityMap::get).collect(Collectors.toList());
+
+    List<BigDecimal> distanceList;
+    try {
+      distanceList = provider.computeDistances(cityList);
+    } catch (AxelorException e) {
+      distanceList = new ArrayList<>();
+      for (Pair<String, String> cities : cityList) {
+        try {
+          distanceList.add(provider.computeDistance(cities.getLeft(), cities.getRight()));
+        } catch (AxelorException routeException) {
+          traceDistanceError(routeException);
+          distanceList.add(null);
+        }
+      }
+    }
+
+    Map<List<String>, BigDecimal> distanceMap = new HashMap<>();
+    for (int i = 0; i < routeList.size(); i++) {
+      if (distanceList.get(i) != null) {
+        distanceMap.put(routeList.get(i), distanceList.get(i));
+      }
+    }
+    return distanceMap;
+  }
+
+  protected void traceDistanceError(AxelorException e) {
+    TraceBackService.trace(e);
+  }
+
+  /**
+   * The route is identified by the provider name and the normalized starting and arriving cities.
+   */
+  protected List<String> getRoute(
+      KilometricDistanceProvider provider, String fromCity, String toCity) {
+    return Arrays.asList(provider.getName(), normalizeCity(fromCity), normalizeCity(toCity));
+  }
+
+  protected String normalizeCity(String city) {
+    return StringUtils.stripAccents(city)
+        .trim()
+        .replaceAll("\\s*,\\s*", ",")
+        .replaceAll("\\s+", " ")
+        .toLowerCase(Locale.ROOT);
+  }
+
+  protected int getDistanceCacheDays() {
+    Integer distanceCacheDays = appHumanResourceService.getAppExpense().getDistanceCacheDays();
+    return distanceCacheDays != null ? distanceCacheDays : 0;
+  }
+
+  protected LocalDateTime getNow() {
+    return appBaseService.getTodayDateTime().toLocalDateTime();
+  }
+
+  protected Map<List<String>, BigDecimal> findCachedDistances(
+      KilometricDistanceProvider provider, List<List<String>> routeList) {
+    Map<List<String>, BigDecimal> distanceMap = new HashMap<>();
+    int distanceCacheDays = getDistanceCacheDays();
+    if (distanceCacheDays <= 0) {
+      return distanceMap;
+    }
+
+    LocalDateTime minDateT = getNow().minusDays(distanceCacheDays);
+    for (KilometricDistance kilometricDistance : findKilometricDistances(routeList)) {
+      if (kilometricDistance.getComputationDateT() != null
+          && !kilometricDistance.getComputationDateT().isBefore(minDateT)) {
+        distanceMap.put(getRoute(kilometricDistance), kilometricDistance.getDistance());
+      }
+    }
+    return distanceMap;
+  }
+
+  protected List<String> getRoute(KilometricDistance kilometricDistance) {
+    return Arrays.asList(
+        kilometricDistance.getProviderName(),
+        kilometricDistance.getFromLocation(),
+        kilometricDistance.getToLocation());
+  }
+
+  /** Find the stored distances of the routes, all the routes having the same provider. */
+  protected List<KilometricDistance> findKilometricDistances(List<List<String>> routeList) {
+    List<KilometricDistance> kilometricDistanceList =
+        kilometricDistanceRepo
+            .all()
+            .filter(
+                "self.providerName = :providerName "
+                    + "AND self.fromLocation IN (:fromLocations) "
+                    + "AND self.toLocation IN (:toLocations)")
+            .bind("providerName", routeList.get(0).get(0))
+            .bind(
+                "fromLocations",
+                routeList.stream().map(route -> route.get(1)).collect(Collectors.toList()))
+            .bind(
+                "toLocations",
+                routeList.stream().map(route -> route.get(2)).collect(Collectors.toList()))
+            .fetch();
+
+    return kilometricDistanceList.stream()
+        .filter(kilometricDistance -> routeList.contains(getRoute(kilometricDistance)))
+        .collect(Collectors.toList());
+  }
+
+  /** Save the computed distances, replacing the previous ones of the same routes. */
+  @Transactional
+  protected void saveDistances(Map<List<String>, BigDecimal> distanceMap) {
+    if (getDistanceCacheDays() <= 0 || distanceMap.isEmpty()) {
+      return;
+    }
+
+    Map<List<String>, KilometricDistance> kilometricDistanceMap =
+        findKilometricDistances(new ArrayList<>(distanceMap.keySet())).stream()
+            .collect(
+                Collectors.toMap(this::getRoute, Function.identity(), (first, second) -> first));
+
+    LocalDateTime now = getNow();
+    for (Map.Entry<List<String>, BigDecimal> entry : distanceMap.entrySet()) {
+      List<String> route = entry.getKey();
+      KilometricDistance kilometricDistance = kilometricDistanceMap.get(route);
+
+      if (kilometricDistance == null) {
+        kilometricDistance = new KilometricDistance();
+        kilometricDistance.setProviderName(route.get(0));
+        kilometricDistance.setFromLocation(route.get(1));
+        kilometricDistance.setToLocation(route.get(2));
+      }
+      kilometricDistance.setDistance(entry.getValue());
+      kilometricDistance.setComputationDateT(now);
+      saveKilometricDistance(kilometricDistance);
+    }
+  }
+
+  protected void saveKilometricDistance(KilometricDistance kilometricDistance) {
+    kilometricDistanceRepo.save(kilometricDistance);
+  }
+}
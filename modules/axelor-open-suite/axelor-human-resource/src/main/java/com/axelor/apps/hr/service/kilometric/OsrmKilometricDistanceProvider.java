@@ -0,0 +1,179 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.service.kilometric;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.service.MapService;
+import com.axelor.apps.hr.exception.HumanResourceExceptionMessage;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
+import wslite.json.JSONArray;
+import wslite.json.JSONException;
+import wslite.json.JSONObject;
+
+/** Distances computed by Open Source Routing Machine API. */
+public class OsrmKilometricDistanceProvider extends AbstractKilometricDistanceProvider {
+
+  protected static final int ROUTES_PER_REQUEST = 10;
+
+  @Inject
+  public OsrmKilometricDistanceProvider(MapService mapService) {
+    super(mapService);
+  }
+
+  @Override
+  public String getName() {
+    return "osrm";
+  }
+
+  @Override
+  public BigDecimal computeDistance(String fromCity, String toCity) throws AxelorException {
+    try {
+      JSONObject json = getOSRMApiResponse(fromCity, toCity);
+      checkStatus(json);
+      return BigDecimal.valueOf(
+          json.getJSONArray("routes").getJSONObject(0).getDouble("distance") / 1000);
+    } catch (IOException | JSONException e) {
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
+    }
+  }
+
+  /** Compute the distances with one request to the table service for each group of routes. */
+  @Override
+  public List<BigDecimal> computeDistances(List<Pair<String, String>> routeList)
+      throws AxelorException {
+    if (routeList.size() == 1) {
+      Pair<String, String> route = routeList.get(0);
+      return Collections.singletonList(computeDistance(route.getLeft(), route.getRight()));
+    }
+
+    List<BigDecimal> distanceList = new ArrayList<>();
+    try {
+      for (List<Pair<String, String>> routes : Lists.partition(routeList, ROUTES_PER_REQUEST)) {
+        List<String> origins =
+            routes.stream().map(Pair::getLeft).distinct().collect(Collectors.toList());
+        List<String> destinations =
+            routes.stream().map(Pair::getRight).distinct().collect(Collectors.toList());
+
+        JSONObject json = getOSRMTableApiResponse(origins, destinations);
+        checkStatus(json);
+
+        JSONArray distances = json.getJSONArray("distances");
+        for (Pair<String, String> route : routes) {
+          // The distance is null when no route is found between the two cities
+          JSONArray originDistances = distances.getJSONArray(origins.indexOf(route.getLeft()));
+          int destinationIndex = destinations.indexOf(route.getRight());
+          distanceList.add(
+              originDistances.isNull(destinationIndex)
+                  ? null
+                  : BigDecimal.valueOf(originDistances.getDouble(destinationIndex) / 1000));
+        }
+      }
+    } catch (IOException | JSONException e) {
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
+    }
+    return distanceList;
+  }
+
+  protected void checkStatus(JSONObject json) throws JSONException, AxelorException {
+    String status = json.getString("code");
+    if (status.equals("Ok")) {
+      return;
+    }
+
+    String msg = json.has("message") ? String.format("%s", json.getString("message")) : status;
+
+    throw new AxelorException(
+        TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+        HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_OSM_ERROR,
+        msg);
+  }
+
+  protected String getCoordinates(String location) throws AxelorException {
+    Map<String, Object> locationMap = this.getLocationMap(location);
+    return locationMap.get("longitude") + "," + locationMap.get("latitude");
+  }
+
+  /**
+   * Get JSON response from Open Street Route Machine API.
+   *
+   * @param origins
+   * @param destinations
+   * @return
+   * @throws AxelorException
+   * @throws JSONException
+   * @throws IOException
+   */
+  protected JSONObject getOSRMApiResponse(String origins, String destinations)
+      throws AxelorException, JSONException, IOException {
+
+    String uri =
+        String.format(
+            "https://router.project-osrm.org/route/v1/driving/%s;%s",
+            getCoordinates(origins), getCoordinates(destinations));
+
+    return this.getApiResponse(uri, HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_OSM_ERROR);
+  }
+
+  /**
+   * Get JSON response from the table service of Open Street Route Machine API, giving the distances
+   * from each origin to each destination.
+   *
+   * @param originList
+   * @param destinationList
+   * @return
+   * @throws AxelorException
+   * @throws JSONException
+   * @throws IOException
+   */
+  protected JSONObject getOSRMTableApiResponse(
+      List<String> originList, List<String> destinationList)
+      throws AxelorException, JSONException, IOException {
+
+    List<String> coordinateList = new ArrayList<>();
+    List<String> sourceList = new ArrayList<>();
+    List<String> destinationIndexList = new ArrayList<>();
+    for (String origin : originList) {
+      sourceList.add(String.valueOf(coordinateList.size()));
+      coordinateList.add(getCoordinates(origin));
+    }
+    for (String destination : destinationList) {
+      destinationIndexList.add(String.valueOf(coordinateList.size()));
+      coordinateList.add(getCoordinates(destination));
+    }
+
+    String uri =
+        String.format(
+            "https://router.project-osrm.org/table/v1/driving/%s?sources=%s&destinations=%s&annotations=distance",
+            String.join(";", coordinateList),
+            String.join(";", sourceList),
+            String.join(";", destinationIndexList));
+
+    return this.getApiResponse(uri, HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_OSM_ERROR);
+  }
+}
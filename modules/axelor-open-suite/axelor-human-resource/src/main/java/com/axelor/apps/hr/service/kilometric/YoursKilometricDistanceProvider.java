@@ -0,0 +1,100 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.service.kilometric;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.service.MapService;
+import com.axelor.apps.hr.exception.HumanResourceExceptionMessage;
+import com.axelor.apps.hr.translation.ITranslation;
+import com.google.inject.Inject;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.util.Map;
+import org.apache.http.client.utils.URIBuilder;
+import wslite.json.JSONException;
+import wslite.json.JSONObject;
+
+/** Distances computed by YOURS (Yet Another Openstreetmap Route Service) API. */
+public class YoursKilometricDistanceProvider extends AbstractKilometricDistanceProvider {
+
+  @Inject
+  public YoursKilometricDistanceProvider(MapService mapService) {
+    super(mapService);
+  }
+
+  @Override
+  public String getName() {
+    return "yours";
+  }
+
+  @Override
+  public BigDecimal computeDistance(String fromCity, String toCity) throws AxelorException {
+    BigDecimal distance;
+    try {
+      JSONObject json = getYOURSApiResponse(fromCity, toCity);
+      distance = BigDecimal.valueOf(json.getJSONObject("properties").getDouble("distance"));
+    } catch (URISyntaxException | IOException | JSONException e) {
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
+    }
+
+    if (distance.compareTo(BigDecimal.ZERO) == 0) {
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+          HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_OSM_ERROR,
+          ITranslation.NO_ROUTE);
+    }
+    return distance;
+  }
+
+  /**
+   * Get JSON response from YOURS(Yet Another Openstreetmap Route Service) API.
+   *
+   * @param origins
+   * @param destinations
+   * @return
+   * @throws AxelorException
+   * @throws JSONException
+   * @throws URISyntaxException
+   * @throws IOException
+   */
+  protected JSONObject getYOURSApiResponse(String origins, String destinations)
+      throws AxelorException, JSONException, URISyntaxException, IOException {
+
+    Map<String, Object> originMap = this.getLocationMap(origins);
+    Map<String, Object> destinationMap = this.getLocationMap(destinations);
+
+    String flat = originMap.get("latitude").toString();
+    String flon = originMap.get("longitude").toString();
+    String tlat = destinationMap.get("latitude").toString();
+    String tlon = destinationMap.get("longitude").toString();
+
+    URIBuilder ub = new URIBuilder("http://www.yournavigation.org/api/1.0/gosmore.php");
+    ub.addParameter("format", "geojson");
+    ub.addParameter("flat", flat);
+    ub.addParameter("flon", flon);
+    ub.addParameter("tlat", tlat);
+    ub.addParameter("tlon", tlon);
+    ub.addParameter("v", "motorcar");
+    ub.addParameter("fast", "0");
+    return this.getApiResponse(
+        ub.toString(), HumanResourceExceptionMessage.KILOMETRIC_ALLOWANCE_OSM_ERROR);
+  }
+}
@@ -29,6 +29,7 @@ import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.ical.ICalendarService;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendarService;
 import com.axelor.apps.hr.db.Employee;
 import com.axelor.apps.hr.db.HRConfig;
 import com.axelor.apps.hr.db.LeaveLine;
@@ -69,6 +70,7 @@ public class LeaveServiceImpl implements LeaveService {
   protected TemplateMessageService templateMessageService;
   protected ICalendarEventRepository icalEventRepo;
   protected ICalendarService icalendarService;
+  protected WorkingCalendarService workingCalendarService;
 
   @Inject
   public LeaveServiceImpl(
@@ -80,7 +82,8 @@ public class LeaveServiceImpl implements LeaveService {
       HRConfigService hrConfigService,
       TemplateMessageService templateMessageService,
       ICalendarEventRepository icalEventRepo,
-      ICalendarService icalendarService) {
+      ICalendarService icalendarService,
+      WorkingCalendarService workingCalendarService) {
 
     this.leaveLineRepo = leaveLineRepo;
     this.weeklyPlanningService = weeklyPlanningService;
@@ -91,6 +94,7 @@ public class LeaveServiceImpl implements LeaveService {
     this.templateMessageService = templateMessageService;
     this.icalEventRepo = icalEventRepo;
     this.icalendarService = icalendarService;
+    this.workingCalendarService = workingCalendarService;
   }
 
   /**
@@ -246,13 +250,12 @@ public class LeaveServiceImpl implements LeaveService {
           duration.add(
               BigDecimal.valueOf(computeStartDateWithSelect(fromDate, startOn, weeklyPlanning)));
 
-      LocalDate itDate = fromDate.plusDays(1);
-      while (!itDate.isEqual(toDate) && !itDate.isAfter(toDate)) {
+      // Public holidays are subtracted below
+      if (fromDate.plusDays(1).isBefore(toDate)) {
         duration =
             duration.add(
-                BigDecimal.valueOf(
-                    weeklyPlanningService.getWorkingDayValueInDays(weeklyPlanning, itDate)));
-        itDate = itDate.plusDays(1);
+                workingCalendarService.getWorkingDays(
+                    weeklyPlanning, null, fromDate.plusDays(1), toDate.minusDays(1)));
       }
 
       duration =
@@ -315,13 +318,11 @@ public class LeaveServiceImpl implements LeaveService {
       }
 
       // Daily leave duration of the other days between from and to date
-      for (LocalDate date = fromDate; date.isBefore(toDate); date = date.plusDays(1)) {
-        if (!publicHolidayHrService.checkPublicHolidayDay(date, holidayPlanning)) {
-          duration =
-              duration.add(
-                  weeklyPlanningService.getWorkingDayValueInHours(
-                      weeklyPlanning, date, null, null));
-        }
+      if (fromDate.isBefore(toDate)) {
+        duration =
+            duration.add(
+                workingCalendarService.getWorkingHours(
+                    weeklyPlanning, holidayPlanning, fromDate, toDate.minusDays(1)));
       }
     }
 
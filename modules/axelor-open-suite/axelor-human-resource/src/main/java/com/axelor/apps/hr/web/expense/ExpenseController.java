@@ -435,6 +435,8 @@ public class ExpenseController {
       expense = Beans.get(ExpenseRepository.class).find(expense.getId());
       ExpenseService expenseService = Beans.get(ExpenseService.class);
 
+      // The web service is called before the validation transaction, which it would hold open
+      Beans.get(KilometricService.class).computeDistances(expense.getKilometricExpenseLineList());
       expenseService.validate(expense);
 
       Message message = expenseService.sendValidationEmail(expense);
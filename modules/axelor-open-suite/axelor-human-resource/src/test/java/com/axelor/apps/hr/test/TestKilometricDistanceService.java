@@ -0,0 +1,331 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.hr.test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.hr.db.ExpenseLine;
+import com.axelor.apps.hr.db.KilometricDistance;
+import com.axelor.apps.hr.service.app.AppHumanResourceService;
+import com.axelor.apps.hr.service.kilometric.KilometricDistanceProvider;
+import com.axelor.apps.hr.service.kilometric.KilometricDistanceServiceImpl;
+import com.axelor.studio.db.AppExpense;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestKilometricDistanceService {
+
+  protected static final LocalDateTime NOW = LocalDateTime.of(2023, 6, 15, 10, 0);
+  protected static final String NOWHERE = "Nowhere";
+
+  protected KilometricDistanceServiceImpl kilometricDistanceService;
+  protected AppExpense appExpense;
+  protected List<List<Pair<String, String>>> requestList;
+  protected List<KilometricDistance> storedDistanceList;
+  protected List<AxelorException> tracedErrorList;
+  protected boolean failRequests;
+
+  /* Latches of the concurrent test: the provider waits for the release of its answer. */
+  protected CountDownLatch providerCalled;
+  protected CountDownLatch distanceAwaited;
+  protected CountDownLatch providerReleased;
+
+  /**
+   * Stand-in provider giving the length of the city names as distance. No route is found to {@link
+   * #NOWHERE}.
+   */
+  protected class LocalDistanceProvider implements KilometricDistanceProvider {
+
+    @Override
+    public String getName() {
+      return "local";
+    }
+
+    @Override
+    public BigDecimal computeDistance(String fromCity, String toCity) throws AxelorException {
+      BigDecimal distance = computeDistances(Arrays.asList(Pair.of(fromCity, toCity))).get(0);
+      if (distance == null) {
+        throw new AxelorException(TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, "No route");
+      }
+      return distance;
+    }
+
+    @Override
+    public List<BigDecimal> computeDistances(List<Pair<String, String>> routeList)
+        throws AxelorException {
+      requestList.add(routeList);
+      if (failRequests && routeList.size() > 1) {
+        throw new AxelorException(TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, "Too long");
+      }
+      if (providerReleased != null) {
+        providerCalled.countDown();
+        await(providerReleased);
+      }
+      List<BigDecimal> distanceList = new ArrayList<>();
+      for (Pair<String, String> route : routeList) {
+        distanceList.add(
+            NOWHERE.equals(route.getRight())
+                ? null
+                : BigDecimal.valueOf(route.getLeft().length() + route.getRight().length()));
+      }
+      return distanceList;
+    }
+  }
+
+  @Before
+  public void prepare() {
+    requestList = Collections.synchronizedList(new ArrayList<>());
+    storedDistanceList = Collections.synchronizedList(new ArrayList<>());
+    tracedErrorList = new ArrayList<>();
+    failRequests = false;
+    providerReleased = null;
+
+    appExpense = new AppExpense();
+    appExpense.setComputeDistanceWithWebService(true);
+    appExpense.setDistanceCacheDays(0);
+    AppHumanResourceService appHumanResourceService = mock(AppHumanResourceService.class);
+    when(appHumanResourceService.getAppExpense()).thenReturn(appExpense);
+
+    KilometricDistanceProvider provider = new LocalDistanceProvider();
+    kilometricDistanceService =
+        new KilometricDistanceServiceImpl(null, appHumanResourceService, null) {
+          @Override
+          protected KilometricDistanceProvider getDistanceProvider() {
+            return provider;
+          }
+
+          @Override
+          protected LocalDateTime getNow() {
+            return NOW;
+          }
+
+          @Override
+          protected List<KilometricDistance> findKilometricDistances(List<List<String>> routeList) {
+            synchronized (storedDistanceList) {
+              return storedDistanceList.stream()
+                  .filter(kilometricDistance -> routeList.contains(getRoute(kilometricDistance)))
+                  .collect(Collectors.toList());
+            }
+          }
+
+          @Override
+          protected void saveKilometricDistance(KilometricDistance kilometricDistance) {
+            if (!storedDistanceList.contains(kilometricDistance)) {
+              storedDistanceList.add(kilometricDistance);
+            }
+          }
+
+          @Override
+          protected BigDecimal waitForDistance(CompletableFuture<BigDecimal> pendingDistance)
+              throws AxelorException {
+            if (distanceAwaited != null) {
+              distanceAwaited.countDown();
+            }
+            return super.waitForDistance(pendingDistance);
+          }
+
+          @Override
+          protected void traceDistanceError(AxelorException e) {
+            tracedErrorList.add(e);
+          }
+        };
+  }
+
+  protected static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  public void testComputeDistanceSameCity() throws AxelorException {
+    BigDecimal distance = kilometricDistanceService.computeDistance("Paris", "paris");
+
+    Assert.assertEquals(0, distance.signum());
+    Assert.assertTrue(requestList.isEmpty());
+  }
+
+  @Test
+  public void testComputeDistance() throws AxelorException {
+    BigDecimal distance = kilometricDistanceService.computeDistance("Paris", "Lyon");
+
+    Assert.assertEquals(BigDecimal.valueOf(9), distance);
+    Assert.assertEquals(1, requestList.size());
+  }
+
+  @Test
+  public void testComputeDistancesInOneRequest() throws AxelorException {
+    ExpenseLine line1 = createExpenseLine("Paris", "Lyon", null);
+    ExpenseLine line2 = createExpenseLine(" PARIS ", "lyon", BigDecimal.ZERO);
+    ExpenseLine line3 = createExpenseLine("Lyon", "Évry", null);
+    ExpenseLine line4 = createExpenseLine("Paris", "Nice", BigDecimal.TEN);
+
+    kilometricDistanceService.computeDistances(Arrays.asList(line1, line2, line3, line4));
+
+    Assert.assertEquals(1, requestList.size());
+    Assert.assertEquals(2, requestList.get(0).size());
+    Assert.assertEquals(BigDecimal.valueOf(9), line1.getDistance());
+    Assert.assertEquals(BigDecimal.valueOf(9), line2.getDistance());
+    Assert.assertEquals(BigDecimal.valueOf(8), line3.getDistance());
+    Assert.assertEquals(BigDecimal.TEN, line4.getDistance());
+  }
+
+  @Test
+  public void testCachedDistanceIsReused() throws AxelorException {
+    appExpense.setDistanceCacheDays(30);
+
+    BigDecimal distance = kilometricDistanceService.computeDistance("Paris", "Lyon");
+    BigDecimal cachedDistance = kilometricDistanceService.computeDistance(" PARIS", "lyon ");
+
+    Assert.assertEquals(BigDecimal.valueOf(9), distance);
+    Assert.assertEquals(distance, cachedDistance);
+    Assert.assertEquals(1, requestList.size());
+    Assert.assertEquals(1, storedDistanceList.size());
+    Assert.assertEquals("paris", storedDistanceList.get(0).getFromLocation());
+    Assert.assertEquals(NOW, storedDistanceList.get(0).getComputationDateT());
+  }
+
+  @Test
+  public void testExpiredDistanceIsComputedAgain() throws AxelorException {
+    appExpense.setDistanceCacheDays(30);
+    KilometricDistance expiredDistance =
+        createKilometricDistance("paris", "lyon", BigDecimal.valueOf(99), NOW.minusDays(31));
+    storedDistanceList.add(expiredDistance);
+
+    BigDecimal distance = kilometricDistanceService.computeDistance("Paris", "Lyon");
+
+    Assert.assertEquals(BigDecimal.valueOf(9), distance);
+    Assert.assertEquals(1, requestList.size());
+    Assert.assertEquals(1, storedDistanceList.size());
+    Assert.assertEquals(BigDecimal.valueOf(9), expiredDistance.getDistance());
+    Assert.assertEquals(NOW, expiredDistance.getComputationDateT());
+  }
+
+  @Test
+  public void testComputeDistancesOnlyRequestsMissingRoutes() throws AxelorException {
+    appExpense.setDistanceCacheDays(30);
+    storedDistanceList.add(
+        createKilometricDistance("paris", "lyon", BigDecimal.valueOf(465), NOW.minusDays(2)));
+    ExpenseLine line1 = createExpenseLine("Paris", "Lyon", null);
+    ExpenseLine line2 = createExpenseLine("Lyon", "Évry", null);
+
+    kilometricDistanceService.computeDistances(Arrays.asList(line1, line2));
+
+    Assert.assertEquals(1, requestList.size());
+    Assert.assertEquals(Arrays.asList(Pair.of("Lyon", "Évry")), requestList.get(0));
+    Assert.assertEquals(BigDecimal.valueOf(465), line1.getDistance());
+    Assert.assertEquals(BigDecimal.valueOf(8), line2.getDistance());
+    Assert.assertEquals(2, storedDistanceList.size());
+  }
+
+  @Test
+  public void testConcurrentRequestsShareOneCall() throws Exception {
+    providerCalled = new CountDownLatch(1);
+    distanceAwaited = new CountDownLatch(1);
+    providerReleased = new CountDownLatch(1);
+    List<BigDecimal> distanceList = Collections.synchronizedList(new ArrayList<>());
+    Runnable computation =
+        () -> {
+          try {
+            distanceList.add(kilometricDistanceService.computeDistance("Paris", "Lyon"));
+          } catch (AxelorException e) {
+            throw new IllegalStateException(e);
+          }
+        };
+
+    Thread firstThread = new Thread(computation);
+    firstThread.start();
+    Assert.assertTrue(providerCalled.await(5, TimeUnit.SECONDS));
+    Thread secondThread = new Thread(computation);
+    secondThread.start();
+    Assert.assertTrue(distanceAwaited.await(5, TimeUnit.SECONDS));
+    providerReleased.countDown();
+    firstThread.join(5000);
+    secondThread.join(5000);
+
+    Assert.assertEquals(1, requestList.size());
+    Assert.assertEquals(Arrays.asList(BigDecimal.valueOf(9), BigDecimal.valueOf(9)), distanceList);
+  }
+
+  @Test
+  public void testUnknownRouteOnlyFailsItsLine() throws AxelorException {
+    ExpenseLine line1 = createExpenseLine("Paris", "Lyon", null);
+    ExpenseLine line2 = createExpenseLine("Paris", NOWHERE, null);
+
+    kilometricDistanceService.computeDistances(Arrays.asList(line1, line2));
+
+    Assert.assertEquals(1, requestList.size());
+    Assert.assertEquals(BigDecimal.valueOf(9), line1.getDistance());
+    Assert.assertNull(line2.getDistance());
+    Assert.assertEquals(1, tracedErrorList.size());
+  }
+
+  @Test
+  public void testFailedRequestIsSplitByRoute() throws AxelorException {
+    failRequests = true;
+    ExpenseLine line1 = createExpenseLine("Paris", "Lyon", null);
+    ExpenseLine line2 = createExpenseLine("Paris", NOWHERE, null);
+    ExpenseLine line3 = createExpenseLine("Lyon", "Évry", null);
+
+    kilometricDistanceService.computeDistances(Arrays.asList(line1, line2, line3));
+
+    Assert.assertEquals(4, requestList.size());
+    Assert.assertEquals(BigDecimal.valueOf(9), line1.getDistance());
+    Assert.assertNull(line2.getDistance());
+    Assert.assertEquals(BigDecimal.valueOf(8), line3.getDistance());
+    // The route error, then the line error
+    Assert.assertEquals(2, tracedErrorList.size());
+  }
+
+  protected KilometricDistance createKilometricDistance(
+      String fromLocation, String toLocation, BigDecimal distance, LocalDateTime computationDateT) {
+    KilometricDistance kilometricDistance = new KilometricDistance();
+    kilometricDistance.setProviderName("local");
+    kilometricDistance.setFromLocation(fromLocation);
+    kilometricDistance.setToLocation(toLocation);
+    kilometricDistance.setDistance(distance);
+    kilometricDistance.setComputationDateT(computationDateT);
+    return kilometricDistance;
+  }
+
+  protected ExpenseLine createExpenseLine(String fromCity, String toCity, BigDecimal distance) {
+    ExpenseLine expenseLine = new ExpenseLine();
+    expenseLine.setFromCity(fromCity);
+    expenseLine.setToCity(toCity);
+    expenseLine.setDistance(distance);
+    return expenseLine;
+  }
+}
@@ -62,6 +62,7 @@ import com.axelor.apps.supplychain.service.MrpLineService;
 import com.axelor.apps.supplychain.service.MrpLineTypeService;
 import com.axelor.apps.supplychain.service.MrpSaleOrderCheckLateSaleService;
 import com.axelor.apps.supplychain.service.MrpServiceImpl;
+import com.axelor.apps.supplychain.service.app.AppSupplychainService;
 import com.axelor.db.JPA;
 import com.axelor.i18n.I18n;
 import com.axelor.message.service.MailMessageService;
@@ -114,6 +115,7 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
       StockHistoryLineRepository stockHistoryLineRepository,
       MrpSaleOrderCheckLateSaleService mrpSaleOrderCheckLateSaleService,
       MrpLineTypeService mrpLineTypeService,
+      AppSupplychainService appSupplychainService,
       ManufOrderRepository manufOrderRepository,
       ProductCompanyService productCompanyService,
       BillOfMaterialService billOfMaterialService,
@@ -140,7 +142,8 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
         appPurchaseService,
         stockHistoryLineRepository,
         mrpSaleOrderCheckLateSaleService,
-        mrpLineTypeService);
+        mrpLineTypeService,
+        appSupplychainService);
     this.manufOrderRepository = manufOrderRepository;
     this.productCompanyService = productCompanyService;
     this.billOfMaterialService = billOfMaterialService;
@@ -196,7 +199,7 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
     for (ManufOrder manufOrder : manufOrderList) {
 
       this.createManufOrderMrpLines(
-          mrpRepository.find(mrp.getId()),
+          this.findMrp(mrp),
           manufOrderRepository.find(manufOrder.getId()),
           mrpLineTypeRepository.find(manufOrderMrpLineType.getId()),
           mrpLineTypeRepository.find(manufOrderNeedMrpLineType.getId()));
@@ -247,7 +250,7 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
                 stockLocation,
                 manufOrder);
         if (mrpLine != null) {
-          mrpLineRepository.save(mrpLine);
+          this.saveMrpLine(mrpLine);
         }
       }
     }
@@ -291,7 +294,7 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
                     stockLocation,
                     operationOrder);
             if (mrpLine != null) {
-              mrpLineRepository.save(mrpLine);
+              this.saveMrpLine(mrpLine);
             }
           }
         }
@@ -332,7 +335,7 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
                   stockLocation,
                   manufOrder);
           if (mrpLine != null) {
-            mrpLineRepository.save(mrpLine);
+            this.saveMrpLine(mrpLine);
           }
         }
       }
@@ -693,12 +696,11 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
       return;
     }
 
-    mrpLineRepository.save(
-        this.createAvailableStockMrpLine(
-            mrpRepository.find(mrp.getId()),
-            productRepository.find(product.getId()),
-            stockLocation,
-            availableStockMrpLineType));
+    this.createAvailableStockMrpLine(
+        this.findMrp(mrp),
+        productRepository.find(product.getId()),
+        stockLocation,
+        availableStockMrpLineType);
   }
 
   @Override
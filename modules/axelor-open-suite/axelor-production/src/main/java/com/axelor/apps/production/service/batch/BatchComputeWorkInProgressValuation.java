@@ -113,11 +113,9 @@ public class BatchComputeWorkInProgressValuation extends AbstractBatch {
   protected void stop() {
 
     String comment =
-        String.format(
-            I18n.get(ProductionExceptionMessage.BATCH_COMPUTE_VALUATION), batch.getDone());
+        String.format(I18n.get(ProductionExceptionMessage.BATCH_COMPUTE_VALUATION), getDone());
     comment += "\n";
-    comment +=
-        String.format(I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+    comment += String.format(I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     addComment(comment);
     super.stop();
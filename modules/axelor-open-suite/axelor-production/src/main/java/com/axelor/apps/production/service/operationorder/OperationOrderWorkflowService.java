@@ -23,6 +23,7 @@ import com.axelor.apps.base.db.DayPlanning;
 import com.axelor.apps.base.db.WeeklyPlanning;
 import com.axelor.apps.base.db.repo.TraceBackRepository;
 import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendarService;
 import com.axelor.apps.production.db.Machine;
 import com.axelor.apps.production.db.MachineTool;
 import com.axelor.apps.production.db.ManufOrder;
@@ -53,6 +54,7 @@ import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -68,6 +70,7 @@ public class OperationOrderWorkflowService {
   protected MachineToolRepository machineToolRepo;
   protected WeeklyPlanningService weeklyPlanningService;
   protected ProdProcessLineService prodProcessLineService;
+  protected WorkingCalendarService workingCalendarService;
 
   @Inject
   public OperationOrderWorkflowService(
@@ -77,7 +80,8 @@ public class OperationOrderWorkflowService {
       AppProductionService appProductionService,
       MachineToolRepository machineToolRepo,
       WeeklyPlanningService weeklyPlanningService,
-      ProdProcessLineService prodProcessLineService) {
+      ProdProcessLineService prodProcessLineService,
+      WorkingCalendarService workingCalendarService) {
     this.operationOrderStockMoveService = operationOrderStockMoveService;
     this.operationOrderRepo = operationOrderRepo;
     this.operationOrderDurationRepo = operationOrderDurationRepo;
@@ -85,6 +89,7 @@ public class OperationOrderWorkflowService {
     this.machineToolRepo = machineToolRepo;
     this.weeklyPlanningService = weeklyPlanningService;
     this.prodProcessLineService = prodProcessLineService;
+    this.workingCalendarService = workingCalendarService;
   }
 
   @Transactional(rollbackOn = {Exception.class})
@@ -188,31 +193,25 @@ public class OperationOrderWorkflowService {
 
   public void searchForNextWorkingDay(
       OperationOrder operationOrder, WeeklyPlanning weeklyPlanning, LocalDateTime startDate) {
-    int daysToAddNbr = 0;
-    DayPlanning nextDayPlanning;
-    /* We will find the next DayPlanning with at least one working period. */
-    do {
-
-      daysToAddNbr++;
-      nextDayPlanning =
-          weeklyPlanningService.findDayPlanning(
-              weeklyPlanning, startDate.toLocalDate().plusDays(daysToAddNbr));
-    } while (nextDayPlanning.getAfternoonFrom() == null
-        && nextDayPlanning.getMorningFrom() == null);
+    /* We will find the next day with at least one working period. */
+    LocalDate nextWorkingDay =
+        workingCalendarService.getNextWorkingDay(
+            weeklyPlanning, null, startDate.toLocalDate().plusDays(1));
+    if (nextWorkingDay == null) {
+      return;
+    }
+    DayPlanning nextDayPlanning =
+        weeklyPlanningService.findDayPlanning(weeklyPlanning, nextWorkingDay);
 
     /*
-     * We will add the nbr of days to retrieve the working day, and set the time to either the first
-     * morning period or the first afternoon period.
+     * We set the time to either the first morning period or the first afternoon period of the
+     * working day.
      */
     if (nextDayPlanning.getMorningFrom() != null) {
-      operationOrder.setPlannedStartDateT(
-          startDate.toLocalDate().plusDays(daysToAddNbr).atTime(nextDayPlanning.getMorningFrom()));
+      operationOrder.setPlannedStartDateT(nextWorkingDay.atTime(nextDayPlanning.getMorningFrom()));
     } else if (nextDayPlanning.getAfternoonFrom() != null) {
       operationOrder.setPlannedStartDateT(
-          startDate
-              .toLocalDate()
-              .plusDays(daysToAddNbr)
-              .atTime(nextDayPlanning.getAfternoonFrom()));
+          nextWorkingDay.atTime(nextDayPlanning.getAfternoonFrom()));
     }
   }
 
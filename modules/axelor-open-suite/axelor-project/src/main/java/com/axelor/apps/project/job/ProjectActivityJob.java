@@ -0,0 +1,51 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.project.job;
+
+import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.project.service.ProjectActivityDashboardService;
+import com.google.inject.Inject;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fill the project activity feed with the messages created since the last run. On a new database
+ * the first run also indexes the existing message history.
+ */
+@DisallowConcurrentExecution
+public class ProjectActivityJob implements Job {
+
+  private final Logger log = LoggerFactory.getLogger(ProjectActivityJob.class);
+
+  @Inject ProjectActivityDashboardService projectActivityDashboardService;
+
+  @Override
+  public void execute(JobExecutionContext context) throws JobExecutionException {
+    try {
+      int count = projectActivityDashboardService.indexActivities();
+      log.debug("{} project activities indexed", count);
+    } catch (Exception e) {
+      TraceBackService.trace(e);
+    }
+  }
+}
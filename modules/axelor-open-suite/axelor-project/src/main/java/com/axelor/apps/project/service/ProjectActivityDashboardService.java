@@ -28,4 +28,26 @@ public interface ProjectActivityDashboardService {
   Map<String, Object> getPreviousData(String date, Long projectId);
 
   Map<String, Object> getNextData(String date, Long projectId);
+
+  /**
+   * Next page of the activities of the period, starting after the last displayed activity.
+   *
+   * @param lastActivityDateT the date of the last displayed activity, in ISO format
+   * @param lastMailMessageId the message id of the last displayed activity
+   */
+  Map<String, Object> getMoreData(
+      String startDate,
+      String endDate,
+      String lastActivityDateT,
+      Long lastMailMessageId,
+      Long projectId);
+
+  /**
+   * Add the notification messages created since the last run to the project activity feed read by
+   * the dashboard. The first run indexes the whole message history. The recent messages that are
+   * not indexed yet are read again, so that a message committed late is indexed too.
+   *
+   * @return the number of activities added
+   */
+  int indexActivities();
 }
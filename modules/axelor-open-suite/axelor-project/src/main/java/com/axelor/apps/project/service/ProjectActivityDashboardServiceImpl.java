@@ -19,13 +19,18 @@
 package com.axelor.apps.project.service;
 
 import com.axelor.apps.project.db.Project;
+import com.axelor.apps.project.db.ProjectActivity;
 import com.axelor.apps.project.db.ProjectTask;
 import com.axelor.apps.project.db.Wiki;
+import com.axelor.apps.project.db.repo.ProjectActivityRepository;
 import com.axelor.apps.project.db.repo.ProjectRepository;
 import com.axelor.apps.project.db.repo.ProjectTaskRepository;
 import com.axelor.apps.project.db.repo.WikiRepository;
 import com.axelor.auth.AuthUtils;
+import com.axelor.common.ObjectUtils;
 import com.axelor.common.StringUtils;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
 import com.axelor.i18n.I18n;
@@ -37,6 +42,7 @@ import com.axelor.meta.schema.views.Selection;
 import com.axelor.meta.schema.views.Selection.Option;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -50,6 +56,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class ProjectActivityDashboardServiceImpl implements ProjectActivityDashboardService {
 
@@ -59,14 +67,55 @@ public class ProjectActivityDashboardServiceImpl implements ProjectActivityDashb
   @Inject protected ProjectService projectService;
   @Inject protected ObjectMapper objectMapper;
   @Inject protected ProjectRepository projectRepo;
+  @Inject protected ProjectActivityRepository projectActivityRepo;
 
   private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
 
+  /** Number of activities displayed by page of the dashboard. */
+  protected static final int ACTIVITY_LIMIT = 500;
+
+  protected static final int INDEX_FETCH_LIMIT = 500;
+
+  /**
+   * Messages created during this number of last minutes are read again when they are not indexed,
+   * so that a message committed after a message with a greater id is not skipped.
+   */
+  protected static final long RESCAN_WINDOW_MINUTES = 60;
+
+  /** Greatest message id read by the indexer, including messages not related to any project. */
+  private static volatile long lastIndexedMessageId;
+
   @Override
   public Map<String, Object> getData(LocalDate startDate, LocalDate endDate, Long projectId) {
-    Map<String, Object> dataMap = new HashMap<>();
+    return getData(startDate, endDate, projectId, null, null);
+  }
 
-    List<MailMessage> mailMessageList = getMailMessages(startDate, endDate);
+  @Override
+  public Map<String, Object> getMoreData(
+      String startDate,
+      String endDate,
+      String lastActivityDateT,
+      Long lastMailMessageId,
+      Long projectId) {
+    return getData(
+        LocalDate.parse(startDate, DATE_FORMATTER),
+        LocalDate.parse(endDate, DATE_FORMATTER),
+        projectId,
+        LocalDateTime.parse(lastActivityDateT),
+        lastMailMessageId);
+  }
+
+  /**
+   * Activities of the period, by pages of {@link #ACTIVITY_LIMIT} activities. The next page starts
+   * after the last activity of the previous page, given by its date and message id.
+   */
+  protected Map<String, Object> getData(
+      LocalDate startDate,
+      LocalDate endDate,
+      Long projectId,
+      LocalDateTime lastActivityDateT,
+      Long lastMailMessageId) {
+    Map<String, Object> dataMap = new HashMap<>();
 
     Map<String, List<Map<String, List<Map<String, Object>>>>> activityDataMap =
         new LinkedHashMap<>();
@@ -82,15 +131,37 @@ public class ProjectActivityDashboardServiceImpl implements ProjectActivityDashb
       projectIdSet = projectService.getContextProjectIds();
     }
 
-    for (MailMessage message : mailMessageList) {
+    List<ProjectActivity> projectActivityList =
+        getProjectActivities(
+            startDate,
+            endDate,
+            project == null ? null : projectIdSet,
+            lastActivityDateT,
+            lastMailMessageId);
+    boolean hasMoreActivities = projectActivityList.size() > ACTIVITY_LIMIT;
+    if (hasMoreActivities) {
+      projectActivityList = projectActivityList.subList(0, ACTIVITY_LIMIT);
+      ProjectActivity lastProjectActivity = projectActivityList.get(ACTIVITY_LIMIT - 1);
+      dataMap.put("$lastActivityDateT", lastProjectActivity.getActivityDateT().toString());
+      dataMap.put("$lastMailMessageId", lastProjectActivity.getMailMessageId());
+    } else {
+      dataMap.put("$lastActivityDateT", null);
+      dataMap.put("$lastMailMessageId", null);
+    }
+    dataMap.put("$hasMoreActivities", hasMoreActivities);
+    Map<Long, MailMessage> mailMessageMap = getMailMessageMap(projectActivityList);
+    Map<Long, Project> projectMap = getProjectMap(projectActivityList);
+
+    for (ProjectActivity projectActivity : projectActivityList) {
+      MailMessage message = mailMessageMap.get(projectActivity.getMailMessageId());
+      Project activityProject = projectMap.get(projectActivity.getProjectId());
+      if (message == null || activityProject == null) {
+        continue;
+      }
       LocalDateTime createdOn = message.getCreatedOn();
       String date = getActivityDate(createdOn);
 
       Map<String, Object> activityMap = new HashMap<>();
-      Project activityProject = getActivityProject(project, message, projectIdSet);
-      if (activityProject == null) {
-        continue;
-      }
       activityMap.put(
           "objectLink", getActionLink(message.getRelatedModel()) + message.getRelatedId());
       if (project == null
@@ -169,7 +240,8 @@ public class ProjectActivityDashboardServiceImpl implements ProjectActivityDashb
     if (ProjectTask.class.getName().equals(model)) {
       ProjectTask projectTask = projectTaskRepo.find(message.getRelatedId());
       String modelName =
-          Optional.ofNullable(projectTask.getTypeSelect())
+          Optional.ofNullable(projectTask)
+              .map(ProjectTask::getTypeSelect)
               .map(typeSelect -> MetaStore.getSelectionItem("project.task.type.select", typeSelect))
               .map(Option::getTitle)
               .orElse("Project task");
@@ -217,17 +289,167 @@ public class ProjectActivityDashboardServiceImpl implements ProjectActivityDashb
     return LocalDate.now().equals(date) ? I18n.get("Today") : date.format(DATE_FORMATTER);
   }
 
-  protected List<MailMessage> getMailMessages(LocalDate startDate, LocalDate endDate) {
-    return mailMessageRepo
-        .all()
-        .filter(
-            "self.type = :type AND self.relatedModel IN :relatedModels AND self.createdOn <= :endDate AND self.createdOn >= :startDate")
-        .bind("type", MailConstants.MESSAGE_TYPE_NOTIFICATION)
-        .bind("relatedModels", getRelatedModels())
-        .bind("startDate", startDate.atTime(LocalTime.MIN))
-        .bind("endDate", endDate.atTime(LocalTime.MAX))
-        .order("-id")
-        .fetch();
+  /**
+   * Activities of the period ordered from the most recent one, starting after the given last
+   * activity if any. One more activity than a page is read to know if there is a next page.
+   */
+  protected List<ProjectActivity> getProjectActivities(
+      LocalDate startDate,
+      LocalDate endDate,
+      Set<Long> projectIdSet,
+      LocalDateTime lastActivityDateT,
+      Long lastMailMessageId) {
+    if (projectIdSet != null && projectIdSet.isEmpty()) {
+      return new ArrayList<>();
+    }
+    String filter = "self.activityDateT <= :endDate AND self.activityDateT >= :startDate";
+    if (projectIdSet != null) {
+      filter += " AND self.projectId IN :projectIds";
+    }
+    if (lastActivityDateT != null && lastMailMessageId != null) {
+      filter +=
+          " AND (self.activityDateT < :lastActivityDateT"
+              + " OR (self.activityDateT = :lastActivityDateT"
+              + " AND self.mailMessageId < :lastMailMessageId))";
+    }
+    Query<ProjectActivity> query =
+        projectActivityRepo
+            .all()
+            .filter(filter)
+            .bind("startDate", startDate.atTime(LocalTime.MIN))
+            .bind("endDate", endDate.atTime(LocalTime.MAX));
+    if (projectIdSet != null) {
+      query.bind("projectIds", projectIdSet);
+    }
+    if (lastActivityDateT != null && lastMailMessageId != null) {
+      query
+          .bind("lastActivityDateT", lastActivityDateT)
+          .bind("lastMailMessageId", lastMailMessageId);
+    }
+    return query.order("-activityDateT").order("-mailMessageId").fetch(ACTIVITY_LIMIT + 1);
+  }
+
+  protected Map<Long, MailMessage> getMailMessageMap(List<ProjectActivity> projectActivityList) {
+    if (ObjectUtils.isEmpty(projectActivityList)) {
+      return new HashMap<>();
+    }
+    return mailMessageRepo.all().filter("self.id IN :ids")
+        .bind(
+            "ids",
+            projectActivityList.stream()
+                .map(ProjectActivity::getMailMessageId)
+                .collect(Collectors.toList()))
+        .fetch().stream()
+        .collect(Collectors.toMap(MailMessage::getId, Function.identity()));
+  }
+
+  protected Map<Long, Project> getProjectMap(List<ProjectActivity> projectActivityList) {
+    if (ObjectUtils.isEmpty(projectActivityList)) {
+      return new HashMap<>();
+    }
+    return projectRepo.all().filter("self.id IN :ids")
+        .bind(
+            "ids",
+            projectActivityList.stream()
+                .map(ProjectActivity::getProjectId)
+                .collect(Collectors.toSet()))
+        .fetch().stream()
+        .collect(Collectors.toMap(Project::getId, Function.identity()));
+  }
+
+  @Override
+  public int indexActivities() {
+    Long lastActivityMessageId =
+        JPA.em()
+            .createQuery("SELECT MAX(self.mailMessageId) FROM ProjectActivity self", Long.class)
+            .getSingleResult();
+    long lastMessageId =
+        Math.max(lastIndexedMessageId, lastActivityMessageId == null ? 0 : lastActivityMessageId);
+
+    // Messages committed after the last run although a message with a greater id was indexed
+    Map<String, Object> rescanParams = new HashMap<>();
+    rescanParams.put("lastMessageId", lastMessageId);
+    rescanParams.put("rescanDateT", LocalDateTime.now().minusMinutes(RESCAN_WINDOW_MINUTES));
+    int count =
+        indexMessages(
+            "self.id <= :lastMessageId AND self.createdOn >= :rescanDateT"
+                + " AND NOT EXISTS (SELECT activity.id FROM ProjectActivity activity"
+                + " WHERE activity.mailMessageId = self.id)",
+            rescanParams,
+            0);
+
+    count += indexMessages(null, new HashMap<>(), lastMessageId);
+    return count;
+  }
+
+  /**
+   * Index the notification messages of the related models matching the filter, by pages of {@link
+   * #INDEX_FETCH_LIMIT} messages ordered by id, starting after the given message id.
+   */
+  protected int indexMessages(String filter, Map<String, Object> params, long fromMessageId) {
+    String messageFilter =
+        "self.id > :fromMessageId AND self.type = :type AND self.relatedModel IN :relatedModels";
+    if (filter != null) {
+      messageFilter += " AND " + filter;
+    }
+    List<String> relatedModels = getRelatedModels();
+    long lastMessageId = fromMessageId;
+    int count = 0;
+
+    List<MailMessage> mailMessageList;
+    do {
+      mailMessageList =
+          mailMessageRepo
+              .all()
+              .filter(messageFilter)
+              .bind(params)
+              .bind("fromMessageId", lastMessageId)
+              .bind("type", MailConstants.MESSAGE_TYPE_NOTIFICATION)
+              .bind("relatedModels", relatedModels)
+              .order("id")
+              .fetch(INDEX_FETCH_LIMIT);
+      if (mailMessageList.isEmpty()) {
+        break;
+      }
+
+      List<ProjectActivity> projectActivityList = new ArrayList<>();
+      Map<String, Project> relatedProjectMap = new HashMap<>();
+      for (MailMessage message : mailMessageList) {
+        String relatedKey = message.getRelatedModel() + ":" + message.getRelatedId();
+        if (!relatedProjectMap.containsKey(relatedKey)) {
+          relatedProjectMap.put(relatedKey, getActivityProject(null, message, new HashSet<>()));
+        }
+        Project activityProject = relatedProjectMap.get(relatedKey);
+        if (activityProject != null) {
+          projectActivityList.add(createProjectActivity(message, activityProject));
+        }
+      }
+
+      saveProjectActivities(projectActivityList);
+      count += projectActivityList.size();
+      lastMessageId = mailMessageList.get(mailMessageList.size() - 1).getId();
+      if (lastMessageId > lastIndexedMessageId) {
+        lastIndexedMessageId = lastMessageId;
+      }
+      JPA.clear();
+    } while (mailMessageList.size() == INDEX_FETCH_LIMIT);
+
+    return count;
+  }
+
+  protected ProjectActivity createProjectActivity(MailMessage message, Project activityProject) {
+    ProjectActivity projectActivity = new ProjectActivity();
+    projectActivity.setProjectId(activityProject.getId());
+    projectActivity.setMailMessageId(message.getId());
+    projectActivity.setRelatedModel(message.getRelatedModel());
+    projectActivity.setRelatedId(message.getRelatedId());
+    projectActivity.setActivityDateT(message.getCreatedOn());
+    return projectActivity;
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected void saveProjectActivities(List<ProjectActivity> projectActivityList) {
+    projectActivityList.forEach(projectActivityRepo::save);
   }
 
   @SuppressWarnings({"unchecked", "rawtypes"})
@@ -23,6 +23,7 @@ import com.axelor.apps.project.service.ProjectActivityDashboardService;
 import com.axelor.inject.Beans;
 import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
+import com.axelor.rpc.Context;
 import com.google.inject.Singleton;
 import java.time.LocalDate;
 
@@ -64,4 +65,20 @@ public class ProjectActivityDashboardController {
       TraceBackService.trace(response, e);
     }
   }
+
+  public void getMoreData(ActionRequest request, ActionResponse response) {
+    try {
+      Context context = request.getContext();
+      String startDate = context.get("startDate").toString();
+      String endDate = context.get("endDate").toString();
+      String lastActivityDateT = context.get("lastActivityDateT").toString();
+      Long lastMailMessageId = Long.valueOf(context.get("lastMailMessageId").toString());
+      Long projectId = (Long) context.get("id");
+      response.setValues(
+          Beans.get(ProjectActivityDashboardService.class)
+              .getMoreData(startDate, endDate, lastActivityDateT, lastMailMessageId, projectId));
+    } catch (Exception e) {
+      TraceBackService.trace(response, e);
+    }
+  }
 }
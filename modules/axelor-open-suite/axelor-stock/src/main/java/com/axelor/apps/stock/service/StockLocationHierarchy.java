@@ -0,0 +1,170 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import com.axelor.apps.stock.db.repo.StockLocationRepository;
+import com.axelor.db.JPA;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In memory copy of the stock location tree, so that the sub locations of a stock location are
+ * found without a query per location.
+ *
+ * <p>The copy is dropped when a stock location is created, modified or removed, and reloaded at
+ * least every {@link #TIME_TO_LIVE_MINUTES} minutes to follow the changes made on other servers.
+ */
+public class StockLocationHierarchy {
+
+  protected static final long TIME_TO_LIVE_MINUTES = 1;
+
+  private static volatile StockLocationHierarchy instance;
+
+  protected final Map<Long, List<Long>> childrenIdMap;
+  protected final Map<Long, Integer> typeSelectMap;
+  protected final long loadNanoTime;
+
+  protected StockLocationHierarchy(
+      Map<Long, List<Long>> childrenIdMap, Map<Long, Integer> typeSelectMap) {
+    this.childrenIdMap = childrenIdMap;
+    this.typeSelectMap = typeSelectMap;
+    this.loadNanoTime = System.nanoTime();
+  }
+
+  public static StockLocationHierarchy get() {
+    StockLocationHierarchy hierarchy = instance;
+    if (hierarchy == null || hierarchy.isExpired()) {
+      hierarchy = load();
+      instance = hierarchy;
+    }
+    return hierarchy;
+  }
+
+  /**
+   * Get the hierarchy containing the given stock location, reloading it if the location was created
+   * after the last load.
+   */
+  public static StockLocationHierarchy get(Long stockLocationId) {
+    StockLocationHierarchy hierarchy = get();
+    if (!hierarchy.contains(stockLocationId)) {
+      hierarchy = load();
+      instance = hierarchy;
+    }
+    return hierarchy;
+  }
+
+  public static void invalidate() {
+    instance = null;
+  }
+
+  protected boolean isExpired() {
+    return System.nanoTime() - loadNanoTime > TimeUnit.MINUTES.toNanos(TIME_TO_LIVE_MINUTES);
+  }
+
+  protected static StockLocationHierarchy load() {
+    return build(
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, parentStockLocation.id, self.typeSelect"
+                    + " FROM StockLocation self"
+                    + " LEFT JOIN self.parentStockLocation parentStockLocation",
+                Object[].class)
+            .getResultList());
+  }
+
+  /**
+   * Build the hierarchy from rows made of the stock location id, its parent id and its type.
+   *
+   * @param rows the rows of all the stock locations
+   */
+  protected static StockLocationHierarchy build(List<Object[]> rows) {
+    Map<Long, List<Long>> childrenIdMap = new HashMap<>();
+    Map<Long, Integer> typeSelectMap = new HashMap<>();
+    for (Object[] row : rows) {
+      Long id = (Long) row[0];
+      Long parentId = (Long) row[1];
+      typeSelectMap.put(id, (Integer) row[2]);
+      if (parentId != null) {
+        childrenIdMap.computeIfAbsent(parentId, key -> new ArrayList<>()).add(id);
+      }
+    }
+    return new StockLocationHierarchy(childrenIdMap, typeSelectMap);
+  }
+
+  public boolean contains(Long stockLocationId) {
+    return typeSelectMap.containsKey(stockLocationId);
+  }
+
+  public List<Long> getChildrenIds(Long stockLocationId) {
+    return Collections.unmodifiableList(
+        childrenIdMap.getOrDefault(stockLocationId, Collections.emptyList()));
+  }
+
+  /**
+   * Get the ids of the stock location and of all its sub locations, sub locations first.
+   *
+   * @param stockLocationId the root stock location id, always included in the result
+   * @param isVirtualInclude when false, virtual sub locations and their own sub locations are
+   *     excluded
+   */
+  public List<Long> getLocationAndSubLocationIds(Long stockLocationId, boolean isVirtualInclude) {
+    List<Long> resultList = new ArrayList<>();
+    Deque<Iterator<Long>> stack = new ArrayDeque<>();
+    Deque<Long> path = new ArrayDeque<>();
+
+    path.push(stockLocationId);
+    stack.push(this.getIncludedChildrenIds(stockLocationId, isVirtualInclude).iterator());
+
+    while (!stack.isEmpty()) {
+      Iterator<Long> childrenIterator = stack.peek();
+      if (childrenIterator.hasNext()) {
+        Long childId = childrenIterator.next();
+        path.push(childId);
+        stack.push(this.getIncludedChildrenIds(childId, isVirtualInclude).iterator());
+      } else {
+        stack.pop();
+        resultList.add(path.pop());
+      }
+    }
+
+    return resultList;
+  }
+
+  protected List<Long> getIncludedChildrenIds(Long stockLocationId, boolean isVirtualInclude) {
+    List<Long> childrenIds = childrenIdMap.getOrDefault(stockLocationId, Collections.emptyList());
+    if (isVirtualInclude) {
+      return childrenIds;
+    }
+    List<Long> includedChildrenIds = new ArrayList<>();
+    for (Long childId : childrenIds) {
+      Integer typeSelect = typeSelectMap.get(childId);
+      if (typeSelect == null || typeSelect != StockLocationRepository.TYPE_VIRTUAL) {
+        includedChildrenIds.add(childId);
+      }
+    }
+    return includedChildrenIds;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import com.axelor.apps.base.AxelorException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Recompute the quantities of stock location lines from the sum of the stock moves, instead of
+ * replaying the stock moves one by one.
+ */
+public interface StockLocationLineRecomputeService {
+
+  /**
+   * Get the products of the stock move lines created or updated since the given date, either
+   * directly or through their stock move.
+   *
+   * @param dateTime
+   * @return the ids of the products.
+   */
+  List<Long> getProductIdsMovedSince(LocalDateTime dateTime);
+
+  /**
+   * Get the id of the last created stock move line.
+   *
+   * @return the greatest stock move line id, <code>null</code> if there is no stock move line.
+   */
+  Long getLastStockMoveLineId();
+
+  /**
+   * Count the stock move lines created up to the given one. A different count than at the last
+   * recompute means that some of them were deleted since, which the update dates can not show.
+   *
+   * @param lastStockMoveLineId
+   * @return the number of stock move lines whose id is lower or equal to the given one.
+   */
+  long countStockMoveLines(Long lastStockMoveLineId);
+
+  /**
+   * Recompute the current and future quantities of the lines and detail lines of a stock location
+   * from its planned and realized stock moves. Average prices and histories are not modified.
+   *
+   * @param stockLocationId
+   * @param productIds the products to recompute, <code>null</code> for all of them.
+   * @throws AxelorException if a line has no unit or ends with a negative quantity.
+   */
+  void recomputeQuantities(Long stockLocationId, List<Long> productIds) throws AxelorException;
+}
@@ -0,0 +1,282 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.Unit;
+import com.axelor.apps.base.db.repo.ProductRepository;
+import com.axelor.apps.base.db.repo.TraceBackRepository;
+import com.axelor.apps.base.db.repo.UnitRepository;
+import com.axelor.apps.base.service.UnitConversionService;
+import com.axelor.apps.stock.db.StockLocation;
+import com.axelor.apps.stock.db.StockLocationLine;
+import com.axelor.apps.stock.db.TrackingNumber;
+import com.axelor.apps.stock.db.repo.StockLocationLineRepository;
+import com.axelor.apps.stock.db.repo.StockLocationRepository;
+import com.axelor.apps.stock.db.repo.StockMoveRepository;
+import com.axelor.apps.stock.db.repo.TrackingNumberRepository;
+import com.axelor.apps.stock.exception.StockExceptionMessage;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.i18n.I18n;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.TypedQuery;
+
+public class StockLocationLineRecomputeServiceImpl implements StockLocationLineRecomputeService {
+
+  protected static final String STOCK_MOVE_LINE_SUM_QUERY =
+      "SELECT product.id, unit.id, trackingNumber.id, stockMove.statusSelect, SUM(self.realQty)"
+          + " FROM StockMoveLine self"
+          + " JOIN self.stockMove stockMove"
+          + " JOIN self.product product"
+          + " LEFT JOIN self.unit unit"
+          + " LEFT JOIN self.trackingNumber trackingNumber"
+          + " WHERE stockMove.%s.id = :stockLocationId"
+          + " AND stockMove.statusSelect IN (:statusSelectList)"
+          + " AND (self.archived IS NULL OR self.archived = FALSE)"
+          + " AND product.productTypeSelect = :storable"
+          + " AND product.stockManaged = TRUE"
+          + "%s"
+          + " GROUP BY product.id, unit.id, trackingNumber.id, stockMove.statusSelect";
+
+  protected StockLocationRepository stockLocationRepo;
+  protected StockLocationLineRepository stockLocationLineRepo;
+  protected StockLocationLineService stockLocationLineService;
+  protected ProductRepository productRepo;
+  protected UnitRepository unitRepo;
+  protected TrackingNumberRepository trackingNumberRepo;
+  protected UnitConversionService unitConversionService;
+
+  @Inject
+  public StockLocationLineRecomputeServiceImpl(
+      StockLocationRepository stockLocationRepo,
+      StockLocationLineRepository stockLocationLineRepo,
+      StockLocationLineService stockLocationLineService,
+      ProductRepository productRepo,
+      UnitRepository unitRepo,
+      TrackingNumberRepository trackingNumberRepo,
+      UnitConversionService unitConversionService) {
+    this.stockLocationRepo = stockLocationRepo;
+    this.stockLocationLineRepo = stockLocationLineRepo;
+    this.stockLocationLineService = stockLocationLineService;
+    this.productRepo = productRepo;
+    this.unitRepo = unitRepo;
+    this.trackingNumberRepo = trackingNumberRepo;
+    this.unitConversionService = unitConversionService;
+  }
+
+  @Override
+  public List<Long> getProductIdsMovedSince(LocalDateTime dateTime) {
+    return JPA.em()
+        .createQuery(
+            "SELECT DISTINCT self.product.id FROM StockMoveLine self"
+                + " WHERE COALESCE(self.updatedOn, self.createdOn) >= :dateTime"
+                + " OR COALESCE(self.stockMove.updatedOn, self.stockMove.createdOn) >= :dateTime",
+            Long.class)
+        .setParameter("dateTime", dateTime)
+        .getResultList();
+  }
+
+  @Override
+  public Long getLastStockMoveLineId() {
+    return JPA.em()
+        .createQuery("SELECT MAX(self.id) FROM StockMoveLine self", Long.class)
+        .getSingleResult();
+  }
+
+  @Override
+  public long countStockMoveLines(Long lastStockMoveLineId) {
+    return JPA.em()
+        .createQuery(
+            "SELECT COUNT(self.id) FROM StockMoveLine self WHERE self.id <= :lastStockMoveLineId",
+            Long.class)
+        .setParameter("lastStockMoveLineId", lastStockMoveLineId)
+        .getSingleResult();
+  }
+
+  @Override
+  @Transactional(rollbackOn = {Exception.class})
+  public void recomputeQuantities(Long stockLocationId, List<Long> productIds)
+      throws AxelorException {
+    StockLocation stockLocation = stockLocationRepo.find(stockLocationId);
+
+    Map<Long, StockLocationLine> stockLocationLineMap = new HashMap<>();
+    Map<Long, Map<Long, StockLocationLine>> detailLocationLineMap = new HashMap<>();
+    resetStockLocationLines(stockLocation, productIds, stockLocationLineMap, detailLocationLineMap);
+
+    for (Object[] row : sumStockMoveLines(stockLocation, productIds, true)) {
+      addQty(stockLocation, row, BigDecimal.ONE, stockLocationLineMap, detailLocationLineMap);
+    }
+    for (Object[] row : sumStockMoveLines(stockLocation, productIds, false)) {
+      addQty(
+          stockLocation, row, BigDecimal.ONE.negate(), stockLocationLineMap, detailLocationLineMap);
+    }
+
+    for (StockLocationLine stockLocationLine : stockLocationLineMap.values()) {
+      stockLocationLineService.checkStockMin(stockLocationLine, false);
+      stockLocationLineRepo.save(stockLocationLine);
+    }
+    for (Map<Long, StockLocationLine> detailLines : detailLocationLineMap.values()) {
+      for (StockLocationLine detailLocationLine : detailLines.values()) {
+        stockLocationLineService.checkStockMin(detailLocationLine, true);
+        stockLocationLineRepo.save(detailLocationLine);
+      }
+    }
+  }
+
+  /** Set the quantities of the existing lines to zero, and index them by product. */
+  protected void resetStockLocationLines(
+      StockLocation stockLocation,
+      List<Long> productIds,
+      Map<Long, StockLocationLine> stockLocationLineMap,
+      Map<Long, Map<Long, StockLocationLine>> detailLocationLineMap) {
+    Query<StockLocationLine> query =
+        stockLocationLineRepo
+            .all()
+            .filter(
+                "(self.stockLocation.id = :stockLocationId"
+                    + " OR self.detailsStockLocation.id = :stockLocationId)"
+                    + (productIds != null ? " AND self.product.id IN (:productIds)" : ""))
+            .bind("stockLocationId", stockLocation.getId());
+    if (productIds != null) {
+      query.bind("productIds", productIds);
+    }
+
+    for (StockLocationLine stockLocationLine : query.fetch()) {
+      stockLocationLine.setCurrentQty(BigDecimal.ZERO);
+      stockLocationLine.setFutureQty(BigDecimal.ZERO);
+
+      Long productId = stockLocationLine.getProduct().getId();
+      if (stockLocationLine.getStockLocation() != null) {
+        stockLocationLineMap.put(productId, stockLocationLine);
+      } else if (stockLocationLine.getTrackingNumber() != null) {
+        detailLocationLineMap
+            .computeIfAbsent(productId, key -> new HashMap<>())
+            .put(stockLocationLine.getTrackingNumber().getId(), stockLocationLine);
+      }
+    }
+  }
+
+  /**
+   * Sum the real quantities of the planned and realized stock move lines of a stock location, by
+   * product, unit, tracking number and status.
+   *
+   * @param incoming whether to sum the incoming or the outgoing stock move lines.
+   */
+  @SuppressWarnings("unchecked")
+  protected List<Object[]> sumStockMoveLines(
+      StockLocation stockLocation, List<Long> productIds, boolean incoming) {
+    TypedQuery<Object[]> query =
+        JPA.em()
+            .createQuery(
+                String.format(
+                    STOCK_MOVE_LINE_SUM_QUERY,
+                    incoming ? "toStockLocation" : "fromStockLocation",
+                    productIds != null ? " AND product.id IN (:productIds)" : ""),
+                Object[].class)
+            .setParameter("stockLocationId", stockLocation.getId())
+            .setParameter(
+                "statusSelectList",
+                Arrays.asList(
+                    StockMoveRepository.STATUS_PLANNED, StockMoveRepository.STATUS_REALIZED))
+            .setParameter("storable", ProductRepository.PRODUCT_TYPE_STORABLE);
+    if (productIds != null) {
+      query.setParameter("productIds", productIds);
+    }
+    return query.getResultList();
+  }
+
+  protected void addQty(
+      StockLocation stockLocation,
+      Object[] row,
+      BigDecimal sign,
+      Map<Long, StockLocationLine> stockLocationLineMap,
+      Map<Long, Map<Long, StockLocationLine>> detailLocationLineMap)
+      throws AxelorException {
+    if (row[4] == null) {
+      return;
+    }
+
+    Long productId = (Long) row[0];
+    Unit unit = row[1] != null ? unitRepo.find((Long) row[1]) : null;
+    Long trackingNumberId = (Long) row[2];
+    boolean realized = StockMoveRepository.STATUS_REALIZED == (Integer) row[3];
+    BigDecimal qty = ((BigDecimal) row[4]).multiply(sign);
+    Product product = productRepo.find(productId);
+
+    StockLocationLine stockLocationLine = stockLocationLineMap.get(productId);
+    if (stockLocationLine == null) {
+      stockLocationLine =
+          stockLocationLineService.getOrCreateStockLocationLine(stockLocation, product);
+      stockLocationLineMap.put(productId, stockLocationLine);
+    }
+    addQty(stockLocationLine, product, unit, qty, realized);
+
+    if (trackingNumberId != null) {
+      Map<Long, StockLocationLine> detailLines =
+          detailLocationLineMap.computeIfAbsent(productId, key -> new HashMap<>());
+      StockLocationLine detailLocationLine = detailLines.get(trackingNumberId);
+      if (detailLocationLine == null) {
+        TrackingNumber trackingNumber = trackingNumberRepo.find(trackingNumberId);
+        detailLocationLine =
+            stockLocationLineService.getOrCreateDetailLocationLine(
+                stockLocation, product, trackingNumber);
+        detailLines.put(trackingNumberId, detailLocationLine);
+      }
+      addQty(detailLocationLine, product, unit, qty, realized);
+    }
+  }
+
+  protected void addQty(
+      StockLocationLine stockLocationLine,
+      Product product,
+      Unit unit,
+      BigDecimal qty,
+      boolean realized)
+      throws AxelorException {
+    Unit stockLocationLineUnit = stockLocationLine.getUnit();
+    if (stockLocationLineUnit == null) {
+      StockLocation stockLocation =
+          stockLocationLine.getStockLocation() != null
+              ? stockLocationLine.getStockLocation()
+              : stockLocationLine.getDetailsStockLocation();
+      throw new AxelorException(
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+          I18n.get(StockExceptionMessage.LOCATION_LINE_MISSING_UNIT),
+          stockLocation.getName(),
+          product.getFullName());
+    }
+    if (unit != null && !stockLocationLineUnit.equals(unit)) {
+      qty = unitConversionService.convert(unit, stockLocationLineUnit, qty, qty.scale(), product);
+    }
+
+    if (realized) {
+      stockLocationLine.setCurrentQty(stockLocationLine.getCurrentQty().add(qty));
+    }
+    stockLocationLine.setFutureQty(stockLocationLine.getFutureQty().add(qty));
+  }
+}
@@ -42,7 +42,6 @@ import com.axelor.auth.db.User;
 import com.axelor.db.Query;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
-import com.axelor.utils.StringTool;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import com.google.inject.servlet.RequestScoped;
@@ -53,6 +52,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -782,13 +782,16 @@ public class StockLocationLineServiceImpl implements StockLocationLineService {
       if (stockLocationId != 0L) {
         StockLocation stockLocation =
             Beans.get(StockLocationRepository.class).find(stockLocationId);
-        List<StockLocation> stockLocationList =
+        List<Long> stockLocationIdList =
             Beans.get(StockLocationService.class)
-                .getAllLocationAndSubLocation(stockLocation, false);
-        if (!stockLocationList.isEmpty() && stockLocation.getCompany().getId().equals(companyId)) {
+                .getAllLocationAndSubLocationId(stockLocation, false);
+        if (!stockLocationIdList.isEmpty()
+            && stockLocation.getCompany().getId().equals(companyId)) {
           query +=
               " AND self.stockLocation.id IN ("
-                  + StringTool.getIdListString(stockLocationList)
+                  + stockLocationIdList.stream()
+                      .map(String::valueOf)
+                      .collect(Collectors.joining(","))
                   + ") ";
         }
       }
@@ -48,6 +48,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.persistence.Query;
 
@@ -214,10 +215,7 @@ public class StockLocationServiceImpl implements StockLocationService {
   public Set<Long> getContentStockLocationIds(StockLocation stockLocation) {
     locationIdSet = new HashSet<>();
     if (stockLocation != null) {
-      List<StockLocation> stockLocations = getAllLocationAndSubLocation(stockLocation, true);
-      for (StockLocation item : stockLocations) {
-        locationIdSet.add(item.getId());
-      }
+      locationIdSet.addAll(getAllLocationAndSubLocationId(stockLocation, true));
     } else {
       locationIdSet.add(0L);
     }
@@ -232,30 +230,24 @@ public class StockLocationServiceImpl implements StockLocationService {
     if (stockLocation == null) {
       return resultList;
     }
-    if (isVirtualInclude) {
-      for (StockLocation subLocation :
-          stockLocationRepo
-              .all()
-              .filter("self.parentStockLocation.id = :stockLocationId")
-              .bind("stockLocationId", stockLocation.getId())
-              .fetch()) {
 
-        resultList.addAll(this.getAllLocationAndSubLocation(subLocation, isVirtualInclude));
-      }
-    } else {
-      for (StockLocation subLocation :
-          stockLocationRepo
-              .all()
-              .filter(
-                  "self.parentStockLocation.id = :stockLocationId AND self.typeSelect != :virtual")
-              .bind("stockLocationId", stockLocation.getId())
-              .bind("virtual", StockLocationRepository.TYPE_VIRTUAL)
-              .fetch()) {
+    List<Long> stockLocationIdList =
+        getAllLocationAndSubLocationId(stockLocation, isVirtualInclude);
+    if (stockLocationIdList.size() == 1) {
+      resultList.add(stockLocation);
+      return resultList;
+    }
 
-        resultList.addAll(this.getAllLocationAndSubLocation(subLocation, isVirtualInclude));
+    Map<Long, StockLocation> stockLocationMap =
+        stockLocationRepo.all().filter("self.id IN (:ids)").bind("ids", stockLocationIdList).fetch()
+            .stream()
+            .collect(Collectors.toMap(StockLocation::getId, Function.identity()));
+    for (Long stockLocationId : stockLocationIdList) {
+      StockLocation subLocation = stockLocationMap.get(stockLocationId);
+      if (subLocation != null) {
+        resultList.add(subLocation);
       }
     }
-    resultList.add(stockLocation);
 
     return resultList;
   }
@@ -289,14 +281,11 @@ public class StockLocationServiceImpl implements StockLocationService {
   @Override
   public List<Long> getAllLocationAndSubLocationId(
       StockLocation stockLocation, boolean isVirtualInclude) {
-    List<StockLocation> stockLocationList =
-        getAllLocationAndSubLocation(stockLocation, isVirtualInclude);
-    List<Long> stockLocationListId = null;
-    if (stockLocationList != null) {
-      stockLocationListId =
-          stockLocationList.stream().map(StockLocation::getId).collect(Collectors.toList());
+    if (stockLocation == null) {
+      return new ArrayList<>();
     }
-    return stockLocationListId;
+    return StockLocationHierarchy.get(stockLocation.getId())
+        .getLocationAndSubLocationIds(stockLocation.getId(), isVirtualInclude);
   }
 
   @Override
@@ -64,8 +64,10 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -484,6 +486,9 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
       throws AxelorException {
 
     stockMoveLineList = MoreObjects.firstNonNull(stockMoveLineList, Collections.emptyList());
+    // Average prices only depend on the final stock location lines, so they are computed once
+    // per product after all the lines are processed.
+    Set<Product> productsToComputeAvgPrice = new LinkedHashSet<>();
 
     for (StockMoveLine stockMoveLine : stockMoveLineList) {
 
@@ -521,7 +526,7 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
             this.updateAveragePriceAndLocationLineHistory(
                 toStockLocation, stockMoveLine, fromStatus, toStatus, date, origin);
           }
-          weightedAveragePriceService.computeAvgPriceForProduct(stockMoveLine.getProduct());
+          productsToComputeAvgPrice.add(stockMoveLine.getProduct());
         }
         if (fromStatus == StockMoveRepository.STATUS_REALIZED
             && toStatus == StockMoveRepository.STATUS_CANCELED) {
@@ -537,6 +542,8 @@ public class StockMoveLineServiceImpl implements StockMoveLineService {
         }
       }
     }
+
+    weightedAveragePriceService.computeAvgPriceForProducts(productsToComputeAvgPrice);
   }
 
   @Override
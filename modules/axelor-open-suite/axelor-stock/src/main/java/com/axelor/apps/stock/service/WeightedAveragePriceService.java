@@ -22,10 +22,19 @@ import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Product;
 import java.math.BigDecimal;
+import java.util.Collection;
 
 public interface WeightedAveragePriceService {
 
   void computeAvgPriceForProduct(Product product) throws AxelorException;
 
+  /**
+   * Compute the average price of the given products, once per product.
+   *
+   * @param products the products whose stock location lines were updated
+   * @throws AxelorException
+   */
+  void computeAvgPriceForProducts(Collection<Product> products) throws AxelorException;
+
   BigDecimal computeAvgPriceForCompany(Product product, Company company);
 }
@@ -34,8 +34,13 @@ import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import com.google.inject.servlet.RequestScoped;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import javax.persistence.TypedQuery;
 
 @RequestScoped
 public class WeightedAveragePriceServiceImpl implements WeightedAveragePriceService {
@@ -57,22 +62,45 @@ public class WeightedAveragePriceServiceImpl implements WeightedAveragePriceServ
   @Override
   @Transactional(rollbackOn = {Exception.class})
   public void computeAvgPriceForProduct(Product product) throws AxelorException {
+    this.computeAvgPriceForProduct(product, this.isAvgPriceHandledByCompany());
+  }
+
+  @Override
+  @Transactional(rollbackOn = {Exception.class})
+  public void computeAvgPriceForProducts(Collection<Product> products) throws AxelorException {
+    if (products.isEmpty()) {
+      return;
+    }
+    boolean avgPriceHandledByCompany = this.isAvgPriceHandledByCompany();
+    for (Product product : products) {
+      this.computeAvgPriceForProduct(product, avgPriceHandledByCompany);
+    }
+  }
 
-    Boolean avgPriceHandledByCompany = false;
+  protected boolean isAvgPriceHandledByCompany() {
     Set<MetaField> companySpecificFields =
         appBaseService.getAppBase().getCompanySpecificProductFieldsSet();
     for (MetaField field : companySpecificFields) {
       if (field.getName().equals("avgPrice")) {
-        avgPriceHandledByCompany = true;
-        break;
+        return true;
       }
     }
+    return false;
+  }
+
+  protected void computeAvgPriceForProduct(Product product, boolean avgPriceHandledByCompany)
+      throws AxelorException {
+
     if (avgPriceHandledByCompany
         && product.getProductCompanyList() != null
         && !product.getProductCompanyList().isEmpty()) {
+      Map<Long, BigDecimal> avgPriceByCompany = this.computeAvgPriceByCompany(product);
       for (ProductCompany productCompany : product.getProductCompanyList()) {
         Company company = productCompany.getCompany();
-        BigDecimal productAvgPrice = this.computeAvgPriceForCompany(product, company);
+        BigDecimal productAvgPrice =
+            company == null
+                ? BigDecimal.ZERO
+                : avgPriceByCompany.getOrDefault(company.getId(), BigDecimal.ZERO);
         if (productAvgPrice.compareTo(BigDecimal.ZERO) == 0) {
           continue;
         }
@@ -106,35 +134,64 @@ public class WeightedAveragePriceServiceImpl implements WeightedAveragePriceServ
 
   @Override
   public BigDecimal computeAvgPriceForCompany(Product product, Company company) {
-    Long productId = product.getId();
     String query =
-        "SELECT new list(self.id, self.avgPrice, self.currentQty) FROM StockLocationLine as self "
-            + "WHERE self.product.id = "
-            + productId
-            + " AND self.stockLocation.typeSelect != "
-            + StockLocationRepository.TYPE_VIRTUAL;
+        "SELECT SUM(self.avgPrice * self.currentQty), SUM(self.currentQty)"
+            + " FROM StockLocationLine as self"
+            + " WHERE self.product.id = :productId"
+            + " AND self.stockLocation.typeSelect != :virtualTypeSelect";
 
     if (company != null) {
-      query += " AND self.stockLocation.company = " + company.getId();
+      query += " AND self.stockLocation.company.id = :companyId";
     }
 
-    int scale = appBaseService.getNbDecimalDigitForUnitPrice();
-    BigDecimal productAvgPrice = BigDecimal.ZERO;
-    BigDecimal qtyTot = BigDecimal.ZERO;
-    List<List<Object>> results = JPA.em().createQuery(query).getResultList();
-    if (results.isEmpty()) {
-      return BigDecimal.ZERO;
+    TypedQuery<Object[]> avgPriceQuery =
+        JPA.em()
+            .createQuery(query, Object[].class)
+            .setParameter("productId", product.getId())
+            .setParameter("virtualTypeSelect", StockLocationRepository.TYPE_VIRTUAL);
+    if (company != null) {
+      avgPriceQuery.setParameter("companyId", company.getId());
     }
-    for (List<Object> result : results) {
-      BigDecimal avgPrice = (BigDecimal) result.get(1);
-      BigDecimal qty = (BigDecimal) result.get(2);
-      productAvgPrice = productAvgPrice.add(avgPrice.multiply(qty));
-      qtyTot = qtyTot.add(qty);
+
+    Object[] result = avgPriceQuery.getSingleResult();
+    return this.computeAvgPrice((BigDecimal) result[0], (BigDecimal) result[1]);
+  }
+
+  /**
+   * Compute the average price of the product in each company, with a single query.
+   *
+   * @return the average prices mapped by company id
+   */
+  protected Map<Long, BigDecimal> computeAvgPriceByCompany(Product product) {
+    List<Object[]> results =
+        JPA.em()
+            .createQuery(
+                "SELECT stockLocation.company.id, SUM(self.avgPrice * self.currentQty),"
+                    + " SUM(self.currentQty)"
+                    + " FROM StockLocationLine as self"
+                    + " JOIN self.stockLocation stockLocation"
+                    + " WHERE self.product.id = :productId"
+                    + " AND stockLocation.typeSelect != :virtualTypeSelect"
+                    + " AND stockLocation.company IS NOT NULL"
+                    + " GROUP BY stockLocation.company.id",
+                Object[].class)
+            .setParameter("productId", product.getId())
+            .setParameter("virtualTypeSelect", StockLocationRepository.TYPE_VIRTUAL)
+            .getResultList();
+
+    Map<Long, BigDecimal> avgPriceByCompany = new HashMap<>();
+    for (Object[] result : results) {
+      avgPriceByCompany.put(
+          (Long) result[0], this.computeAvgPrice((BigDecimal) result[1], (BigDecimal) result[2]));
     }
-    if (qtyTot.compareTo(BigDecimal.ZERO) == 0) {
+    return avgPriceByCompany;
+  }
+
+  protected BigDecimal computeAvgPrice(BigDecimal totalValue, BigDecimal totalQty) {
+    if (totalValue == null || totalQty == null || totalQty.compareTo(BigDecimal.ZERO) == 0) {
       return BigDecimal.ZERO;
     }
-    productAvgPrice = productAvgPrice.divide(qtyTot, scale, BigDecimal.ROUND_HALF_UP);
-    return productAvgPrice;
+    int scale = appBaseService.getNbDecimalDigitForUnitPrice();
+    return totalValue.divide(totalQty, scale, RoundingMode.HALF_UP);
   }
 }
@@ -19,29 +19,41 @@
 package com.axelor.apps.stock.service.batch;
 
 import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Product;
 import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.apps.base.service.administration.BatchPartitionProgress;
+import com.axelor.apps.base.service.administration.BatchPartitionWork;
+import com.axelor.apps.base.service.administration.KeysetPager;
 import com.axelor.apps.base.service.exception.TraceBackService;
+import com.axelor.apps.stock.db.StockBatch;
+import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.apps.stock.db.StockMove;
+import com.axelor.apps.stock.db.repo.StockBatchRepository;
 import com.axelor.apps.stock.db.repo.StockLocationRepository;
 import com.axelor.apps.stock.db.repo.StockMoveLineRepository;
 import com.axelor.apps.stock.db.repo.StockMoveRepository;
+import com.axelor.apps.stock.service.StockLocationLineRecomputeService;
 import com.axelor.apps.stock.service.StockMoveLineService;
 import com.axelor.apps.stock.service.StockMoveService;
 import com.axelor.apps.stock.service.batch.model.StockMoveGroup;
 import com.axelor.apps.stock.service.batch.model.StockMoveLineOrigin;
 import com.axelor.apps.stock.service.batch.model.TrackProduct;
+import com.axelor.common.ObjectUtils;
 import com.axelor.db.JPA;
 import com.axelor.db.Query;
 import com.google.inject.Inject;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class BatchRecomputeStockLocationLines extends AbstractBatch {
 
@@ -50,6 +62,8 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
   protected StockMoveLineService stockMoveLineService;
   protected StockMoveLineRepository stockMoveLineRepository;
   protected StockLocationRepository stockLocationRepository;
+  protected StockLocationLineRecomputeService stockLocationLineRecomputeService;
+  protected StockBatchRepository stockBatchRepository;
 
   @Inject
   public BatchRecomputeStockLocationLines(
@@ -57,17 +71,43 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
       StockMoveService stockMoveService,
       StockMoveLineService stockMoveLineService,
       StockMoveLineRepository stockMoveLineRepository,
-      StockLocationRepository stockLocationRepository) {
+      StockLocationRepository stockLocationRepository,
+      StockLocationLineRecomputeService stockLocationLineRecomputeService,
+      StockBatchRepository stockBatchRepository) {
 
     this.stockMoveLineRepository = stockMoveLineRepository;
     this.stockMoveRepository = stockMoveRepository;
     this.stockMoveService = stockMoveService;
     this.stockMoveLineService = stockMoveLineService;
     this.stockLocationRepository = stockLocationRepository;
+    this.stockLocationLineRecomputeService = stockLocationLineRecomputeService;
+    this.stockBatchRepository = stockBatchRepository;
   }
 
   @Override
   protected void process() {
+    LocalDateTime startDateTime = LocalDateTime.now();
+    Long lastStockMoveLineId = stockLocationLineRecomputeService.getLastStockMoveLineId();
+    long stockMoveLineCount =
+        lastStockMoveLineId != null
+            ? stockLocationLineRecomputeService.countStockMoveLines(lastStockMoveLineId)
+            : 0;
+    StockBatch stockBatch = batch.getStockBatch();
+
+    if (stockBatch.getRecomputeModeSelect() == StockBatchRepository.RECOMPUTE_MODE_INCREMENTAL) {
+      recomputeIncrementally(stockBatch);
+    } else {
+      recomputeFully();
+    }
+
+    // Stock moves updated during a failed recompute will be taken again by the next one
+    if (getAnomaly() == 0) {
+      updateLastRecompute(
+          stockBatch.getId(), startDateTime, lastStockMoveLineId, stockMoveLineCount);
+    }
+  }
+
+  protected void recomputeFully() {
     clearWapHistoryLines();
     resetStockLocations();
     List<StockMoveGroup> groups = fetchStockMoveGroup();
@@ -109,6 +149,106 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
             });
   }
 
+  /**
+   * Recompute the quantities of the selected products and stock locations, or of the products moved
+   * since the last recompute, from the sum of their stock moves. Stock locations are processed in
+   * parallel when several worker threads are configured.
+   */
+  protected void recomputeIncrementally(StockBatch stockBatch) {
+    List<Long> productIds = getProductIdsToRecompute(stockBatch);
+    if (productIds != null && productIds.isEmpty()) {
+      return;
+    }
+
+    String filter = getStockLocationFilter(stockBatch, productIds);
+    Map<String, Object> params = new HashMap<>();
+    params.put("productIds", productIds);
+    params.put(
+        "stockLocationIds",
+        stockBatch.getStockLocationSet().stream()
+            .map(StockLocation::getId)
+            .collect(Collectors.toList()));
+
+    processInPartitions(
+        new BatchPartitionWork() {
+          @Override
+          public List<Long> fetchNextIds(Long lastId, int limit) {
+            return BatchRecomputeStockLocationLines.this.fetchNextIds(
+                StockLocation.class, filter, params, lastId, limit);
+          }
+
+          @Override
+          public void process(Long stockLocationId, BatchPartitionProgress progress)
+              throws AxelorException {
+            stockLocationLineRecomputeService.recomputeQuantities(stockLocationId, productIds);
+            progress.incrementDone();
+          }
+        });
+  }
+
+  /**
+   * @return the selected products, else the products moved since the last recompute, else <code>
+   *     null</code> for every product.
+   */
+  protected List<Long> getProductIdsToRecompute(StockBatch stockBatch) {
+    if (ObjectUtils.notEmpty(stockBatch.getProductSet())) {
+      return stockBatch.getProductSet().stream().map(Product::getId).collect(Collectors.toList());
+    }
+    if (stockBatch.getLastRecomputeDateT() != null && !isStockMoveLineDeleted(stockBatch)) {
+      return stockLocationLineRecomputeService.getProductIdsMovedSince(
+          stockBatch.getLastRecomputeDateT());
+    }
+    return null;
+  }
+
+  /**
+   * Whether stock move lines existing at the last recompute were deleted since. Their products can
+   * not be found from the remaining stock moves, so every product has to be recomputed.
+   */
+  protected boolean isStockMoveLineDeleted(StockBatch stockBatch) {
+    Long lastStockMoveLineId = stockBatch.getLastRecomputeStockMoveLineId();
+    if (lastStockMoveLineId == null) {
+      return true;
+    }
+    return stockLocationLineRecomputeService.countStockMoveLines(lastStockMoveLineId)
+        != stockBatch.getLastRecomputeStockMoveLineCount();
+  }
+
+  protected String getStockLocationFilter(StockBatch stockBatch, List<Long> productIds) {
+    List<String> filterList = new ArrayList<>();
+
+    if (ObjectUtils.notEmpty(stockBatch.getStockLocationSet())) {
+      filterList.add("self.id IN (:stockLocationIds)");
+    }
+
+    if (productIds != null) {
+      filterList.add(
+          "(EXISTS (SELECT line.id FROM StockLocationLine line"
+              + " WHERE (line.stockLocation = self OR line.detailsStockLocation = self)"
+              + " AND line.product.id IN (:productIds))"
+              + " OR EXISTS (SELECT stockMoveLine.id FROM StockMoveLine stockMoveLine"
+              + " WHERE (stockMoveLine.stockMove.fromStockLocation = self"
+              + " OR stockMoveLine.stockMove.toStockLocation = self)"
+              + " AND stockMoveLine.product.id IN (:productIds)))");
+    }
+
+    return String.join(" AND ", filterList);
+  }
+
+  protected void updateLastRecompute(
+      Long stockBatchId,
+      LocalDateTime dateTime,
+      Long lastStockMoveLineId,
+      long stockMoveLineCount) {
+    JPA.runInTransaction(
+        () -> {
+          StockBatch stockBatch = stockBatchRepository.find(stockBatchId);
+          stockBatch.setLastRecomputeDateT(dateTime);
+          stockBatch.setLastRecomputeStockMoveLineId(lastStockMoveLineId);
+          stockBatch.setLastRecomputeStockMoveLineCount(stockMoveLineCount);
+        });
+  }
+
   protected void resetStockLocations() {
 
     javax.persistence.Query clearWapHistoryLinesQuery =
@@ -125,9 +265,8 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
   protected void updatePlannedQty(StockMoveGroup stockMoveGroup) throws AxelorException {
 
     List<StockMove> stockMoves;
-    Query<StockMove> query = buildQueryFetchStockMoveFromGroup(stockMoveGroup).order("id");
-    int offSet = 0;
-    while (!(stockMoves = query.fetch(FETCH_LIMIT, offSet)).isEmpty()) {
+    KeysetPager<StockMove> pager = buildPagerFetchStockMoveFromGroup(stockMoveGroup);
+    while (!(stockMoves = pager.fetchNext(FETCH_LIMIT)).isEmpty()) {
 
       for (StockMove stockMove : stockMoves) {
         stockMoveService.updateLocations(
@@ -136,10 +275,8 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
             stockMove.getToStockLocation(),
             StockMoveRepository.STATUS_DRAFT);
       }
-
-      offSet += FETCH_LIMIT;
-      JPA.clear();
     }
+    JPA.clear();
   }
 
   protected String getOrigin(StockMove stockMove) {
@@ -148,11 +285,12 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
 
   protected void recomputeStockMoves(StockMoveGroup group) throws AxelorException {
     List<StockMove> stockMoves;
-    Query<StockMove> query = buildQueryFetchStockMoveFromGroup(group).order("id");
+    // Lines are merged across chunks, so the session must not be cleared in between
+    KeysetPager<StockMove> pager =
+        buildPagerFetchStockMoveFromGroup(group).clearBetweenChunks(false);
     HashMap<TrackProduct, StockMoveLineOrigin> stockMoveLinesMap = new HashMap<>();
-    int offSet = 0;
 
-    while (!(stockMoves = query.fetch(FETCH_LIMIT, offSet)).isEmpty()) {
+    while (!(stockMoves = pager.fetchNext(FETCH_LIMIT)).isEmpty()) {
 
       stockMoves.stream()
           .forEach(
@@ -177,8 +315,6 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
                           }
                         });
               });
-
-      offSet += FETCH_LIMIT;
     }
 
     for (Entry<TrackProduct, StockMoveLineOrigin> entry : stockMoveLinesMap.entrySet()) {
@@ -214,6 +350,20 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
   }
 
   protected Query<StockMove> buildQueryFetchStockMoveFromGroup(StockMoveGroup stockMoveGroup) {
+    return stockMoveRepository
+        .all()
+        .filter(buildFilterFetchStockMoveFromGroup(stockMoveGroup))
+        .bind(buildParamsFetchStockMoveFromGroup(stockMoveGroup));
+  }
+
+  protected KeysetPager<StockMove> buildPagerFetchStockMoveFromGroup(
+      StockMoveGroup stockMoveGroup) {
+    return KeysetPager.of(StockMove.class)
+        .filter(buildFilterFetchStockMoveFromGroup(stockMoveGroup))
+        .bind(buildParamsFetchStockMoveFromGroup(stockMoveGroup));
+  }
+
+  protected String buildFilterFetchStockMoveFromGroup(StockMoveGroup stockMoveGroup) {
 
     StringBuilder query =
         new StringBuilder(
@@ -227,13 +377,16 @@ public class BatchRecomputeStockLocationLines extends AbstractBatch {
       query.append(" AND self.realDate = :realDate");
     }
 
-    return stockMoveRepository
-        .all()
-        .filter(query.toString())
-        .bind("realDate", stockMoveGroup.getRealDate())
-        .bind("fromStockLocation", stockMoveGroup.getFromStockLocation())
-        .bind("toStockLocation", stockMoveGroup.getToStockLocation())
-        .bind("status", stockMoveGroup.getStatusSelect());
+    return query.toString();
+  }
+
+  protected Map<String, Object> buildParamsFetchStockMoveFromGroup(StockMoveGroup stockMoveGroup) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("realDate", stockMoveGroup.getRealDate());
+    params.put("fromStockLocation", stockMoveGroup.getFromStockLocation());
+    params.put("toStockLocation", stockMoveGroup.getToStockLocation());
+    params.put("status", stockMoveGroup.getStatusSelect());
+    return params;
   }
 
   protected List<StockMoveGroup> fetchStockMoveGroup() {
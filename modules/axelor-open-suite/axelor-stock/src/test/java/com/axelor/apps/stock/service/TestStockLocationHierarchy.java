@@ -0,0 +1,77 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service;
+
+import com.axelor.apps.stock.db.repo.StockLocationRepository;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestStockLocationHierarchy {
+
+  protected StockLocationHierarchy hierarchy;
+
+  @Before
+  public void prepare() {
+    // 1 -> (2 -> (4, 5 virtual -> 6), 3)
+    List<Object[]> rows =
+        Arrays.asList(
+            new Object[] {1L, null, StockLocationRepository.TYPE_INTERNAL},
+            new Object[] {2L, 1L, StockLocationRepository.TYPE_INTERNAL},
+            new Object[] {3L, 1L, StockLocationRepository.TYPE_EXTERNAL},
+            new Object[] {4L, 2L, StockLocationRepository.TYPE_INTERNAL},
+            new Object[] {5L, 2L, StockLocationRepository.TYPE_VIRTUAL},
+            new Object[] {6L, 5L, StockLocationRepository.TYPE_INTERNAL});
+    hierarchy = StockLocationHierarchy.build(rows);
+  }
+
+  @Test
+  public void testSubLocationsWithVirtual() {
+    Assert.assertEquals(
+        Arrays.asList(4L, 6L, 5L, 2L, 3L, 1L), hierarchy.getLocationAndSubLocationIds(1L, true));
+  }
+
+  @Test
+  public void testSubLocationsWithoutVirtual() {
+    Assert.assertEquals(
+        Arrays.asList(4L, 2L, 3L, 1L), hierarchy.getLocationAndSubLocationIds(1L, false));
+  }
+
+  @Test
+  public void testVirtualRootIsIncluded() {
+    Assert.assertEquals(Arrays.asList(6L, 5L), hierarchy.getLocationAndSubLocationIds(5L, false));
+  }
+
+  @Test
+  public void testLeafLocation() {
+    Assert.assertEquals(
+        Collections.singletonList(4L), hierarchy.getLocationAndSubLocationIds(4L, true));
+    Assert.assertTrue(hierarchy.getChildrenIds(4L).isEmpty());
+  }
+
+  @Test
+  public void testUnknownLocation() {
+    Assert.assertFalse(hierarchy.contains(7L));
+    Assert.assertEquals(
+        Collections.singletonList(7L), hierarchy.getLocationAndSubLocationIds(7L, true));
+  }
+}
@@ -0,0 +1,296 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.stock.service.batch;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.Unit;
+import com.axelor.apps.base.db.repo.ProductRepository;
+import com.axelor.apps.stock.db.StockBatch;
+import com.axelor.apps.stock.db.StockLocation;
+import com.axelor.apps.stock.db.StockLocationLine;
+import com.axelor.apps.stock.db.repo.StockLocationLineRepository;
+import com.axelor.apps.stock.db.repo.StockLocationRepository;
+import com.axelor.apps.stock.db.repo.StockMoveRepository;
+import com.axelor.apps.stock.service.StockLocationLineRecomputeServiceImpl;
+import com.axelor.apps.stock.service.StockLocationLineService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Check that the incremental recompute gives the same quantities as a recompute of every product,
+ * the stock move lines being given by a fixture instead of the database.
+ */
+public class TestBatchRecomputeStockLocationLines {
+
+  protected static final LocalDateTime LAST_RECOMPUTE_DATE_T = LocalDateTime.of(2023, 6, 1, 0, 0);
+
+  /** A stock move line of the fixture, with the fields read by the recompute. */
+  protected static class MoveLine {
+    protected final Long id;
+    protected final Long productId;
+    protected final Long fromStockLocationId;
+    protected final Long toStockLocationId;
+    protected final int statusSelect;
+    protected final BigDecimal realQty;
+    protected final LocalDateTime updatedOn;
+
+    protected MoveLine(
+        Long id,
+        Long productId,
+        Long fromStockLocationId,
+        Long toStockLocationId,
+        int statusSelect,
+        String realQty,
+        LocalDateTime updatedOn) {
+      this.id = id;
+      this.productId = productId;
+      this.fromStockLocationId = fromStockLocationId;
+      this.toStockLocationId = toStockLocationId;
+      this.statusSelect = statusSelect;
+      this.realQty = new BigDecimal(realQty);
+      this.updatedOn = updatedOn;
+    }
+  }
+
+  protected Unit unit;
+  protected StockLocation stockLocation;
+  protected List<MoveLine> moveLineList;
+  protected StockBatch stockBatch;
+
+  @Before
+  public void prepare() {
+    unit = new Unit();
+    stockLocation = new StockLocation();
+    stockLocation.setId(1L);
+
+    LocalDateTime before = LAST_RECOMPUTE_DATE_T.minusDays(1);
+    moveLineList =
+        new ArrayList<>(
+            Arrays.asList(
+                new MoveLine(1L, 1L, 9L, 1L, StockMoveRepository.STATUS_REALIZED, "10", before),
+                new MoveLine(2L, 1L, 1L, 9L, StockMoveRepository.STATUS_REALIZED, "3", before),
+                new MoveLine(3L, 2L, 9L, 1L, StockMoveRepository.STATUS_REALIZED, "5", before),
+                new MoveLine(4L, 2L, 9L, 1L, StockMoveRepository.STATUS_PLANNED, "2", before)));
+
+    // Last recompute done after these four lines
+    stockBatch = new StockBatch();
+    stockBatch.setLastRecomputeDateT(LAST_RECOMPUTE_DATE_T);
+    stockBatch.setLastRecomputeStockMoveLineId(4L);
+    stockBatch.setLastRecomputeStockMoveLineCount(4L);
+  }
+
+  @Test
+  public void testIncrementalRecomputeOfMovedProduct() throws AxelorException {
+    moveLineList.add(
+        new MoveLine(
+            5L,
+            2L,
+            1L,
+            9L,
+            StockMoveRepository.STATUS_REALIZED,
+            "1",
+            LAST_RECOMPUTE_DATE_T.plusHours(1)));
+
+    Assert.assertEquals(Arrays.asList(2L), createBatch().getProductIdsToRecompute(stockBatch));
+    Assert.assertEquals("{1=7/7, 2=4/6}", recomputeIncrementally());
+    Assert.assertEquals(recomputeEveryProduct(), recomputeIncrementally());
+  }
+
+  @Test
+  public void testDeletedStockMoveLineRecomputesEveryProduct() throws AxelorException {
+    moveLineList.removeIf(moveLine -> moveLine.id == 2L);
+
+    Assert.assertNull(createBatch().getProductIdsToRecompute(stockBatch));
+    Assert.assertEquals("{1=10/10, 2=5/7}", recomputeIncrementally());
+    Assert.assertEquals(recomputeEveryProduct(), recomputeIncrementally());
+  }
+
+  @Test
+  public void testUnknownLastStockMoveLineRecomputesEveryProduct() {
+    stockBatch.setLastRecomputeStockMoveLineId(null);
+
+    Assert.assertNull(createBatch().getProductIdsToRecompute(stockBatch));
+  }
+
+  /**
+   * Recompute the quantities left by the last recompute, on the products chosen by the batch.
+   *
+   * @return the quantities as "product id=current qty/future qty"
+   */
+  protected String recomputeIncrementally() throws AxelorException {
+    // The quantities of the last recompute, including the ones of the deleted line 2
+    List<StockLocationLine> stockLocationLineList =
+        Arrays.asList(createStockLocationLine(1L, "7", "7"), createStockLocationLine(2L, "5", "7"));
+    List<Long> productIds = createBatch().getProductIdsToRecompute(stockBatch);
+    createRecomputeService(stockLocationLineList)
+        .recomputeQuantities(stockLocation.getId(), productIds);
+    return toString(stockLocationLineList);
+  }
+
+  protected String recomputeEveryProduct() throws AxelorException {
+    List<StockLocationLine> stockLocationLineList = new ArrayList<>();
+    createRecomputeService(stockLocationLineList).recomputeQuantities(stockLocation.getId(), null);
+    return toString(stockLocationLineList);
+  }
+
+  protected BatchRecomputeStockLocationLines createBatch() {
+    return new BatchRecomputeStockLocationLines(
+        null, null, null, null, null, createRecomputeService(new ArrayList<>()), null);
+  }
+
+  protected StockLocationLineRecomputeServiceImpl createRecomputeService(
+      List<StockLocationLine> stockLocationLineList) {
+    StockLocationRepository stockLocationRepo = mock(StockLocationRepository.class);
+    when(stockLocationRepo.find(stockLocation.getId())).thenReturn(stockLocation);
+
+    ProductRepository productRepo = mock(ProductRepository.class);
+    when(productRepo.find(anyLong()))
+        .thenAnswer(
+            invocation -> {
+              Product product = new Product();
+              product.setId(invocation.getArgument(0));
+              return product;
+            });
+
+    StockLocationLineService stockLocationLineService = mock(StockLocationLineService.class);
+    try {
+      when(stockLocationLineService.getOrCreateStockLocationLine(
+              any(StockLocation.class), any(Product.class)))
+          .thenAnswer(
+              invocation -> {
+                StockLocationLine stockLocationLine =
+                    createStockLocationLine(invocation.<Product>getArgument(1).getId(), "0", "0");
+                stockLocationLineList.add(stockLocationLine);
+                return stockLocationLine;
+              });
+    } catch (AxelorException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return new StockLocationLineRecomputeServiceImpl(
+        stockLocationRepo,
+        mock(StockLocationLineRepository.class),
+        stockLocationLineService,
+        productRepo,
+        null,
+        null,
+        null) {
+
+      @Override
+      public List<Long> getProductIdsMovedSince(LocalDateTime dateTime) {
+        return moveLineList.stream()
+            .filter(moveLine -> !moveLine.updatedOn.isBefore(dateTime))
+            .map(moveLine -> moveLine.productId)
+            .distinct()
+            .collect(Collectors.toList());
+      }
+
+      @Override
+      public Long getLastStockMoveLineId() {
+        return moveLineList.stream().map(moveLine -> moveLine.id).max(Long::compare).orElse(null);
+      }
+
+      @Override
+      public long countStockMoveLines(Long lastStockMoveLineId) {
+        return moveLineList.stream().filter(moveLine -> moveLine.id <= lastStockMoveLineId).count();
+      }
+
+      @Override
+      protected void resetStockLocationLines(
+          StockLocation stockLocation,
+          List<Long> productIds,
+          Map<Long, StockLocationLine> stockLocationLineMap,
+          Map<Long, Map<Long, StockLocationLine>> detailLocationLineMap) {
+        for (StockLocationLine stockLocationLine : stockLocationLineList) {
+          Long productId = stockLocationLine.getProduct().getId();
+          if (productIds == null || productIds.contains(productId)) {
+            stockLocationLine.setCurrentQty(BigDecimal.ZERO);
+            stockLocationLine.setFutureQty(BigDecimal.ZERO);
+            stockLocationLineMap.put(productId, stockLocationLine);
+          }
+        }
+      }
+
+      @Override
+      protected List<Object[]> sumStockMoveLines(
+          StockLocation stockLocation, List<Long> productIds, boolean incoming) {
+        Map<List<Object>, BigDecimal> sumMap = new HashMap<>();
+        for (MoveLine moveLine : moveLineList) {
+          Long stockLocationId =
+              incoming ? moveLine.toStockLocationId : moveLine.fromStockLocationId;
+          if (stockLocation.getId().equals(stockLocationId)
+              && (productIds == null || productIds.contains(moveLine.productId))) {
+            sumMap.merge(
+                Arrays.asList(moveLine.productId, moveLine.statusSelect),
+                moveLine.realQty,
+                BigDecimal::add);
+          }
+        }
+        return sumMap.entrySet().stream()
+            .map(
+                entry ->
+                    new Object[] {
+                      entry.getKey().get(0), null, null, entry.getKey().get(1), entry.getValue()
+                    })
+            .collect(Collectors.toList());
+      }
+    };
+  }
+
+  protected StockLocationLine createStockLocationLine(
+      Long productId, String currentQty, String futureQty) {
+    Product product = new Product();
+    product.setId(productId);
+    StockLocationLine stockLocationLine = new StockLocationLine();
+    stockLocationLine.setProduct(product);
+    stockLocationLine.setStockLocation(stockLocation);
+    stockLocationLine.setUnit(unit);
+    stockLocationLine.setCurrentQty(new BigDecimal(currentQty));
+    stockLocationLine.setFutureQty(new BigDecimal(futureQty));
+    return stockLocationLine;
+  }
+
+  protected String toString(List<StockLocationLine> stockLocationLineList) {
+    Map<Long, String> qtyMap = new TreeMap<>();
+    for (StockLocationLine stockLocationLine : stockLocationLineList) {
+      qtyMap.put(
+          stockLocationLine.getProduct().getId(),
+          stockLocationLine.getCurrentQty().toPlainString()
+              + "/"
+              + stockLocationLine.getFutureQty().toPlainString());
+    }
+    return qtyMap.toString();
+  }
+}
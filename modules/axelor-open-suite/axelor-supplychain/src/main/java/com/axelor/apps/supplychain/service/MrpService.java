@@ -23,7 +23,9 @@ import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Product;
 import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.apps.supplychain.db.Mrp;
+import com.axelor.apps.supplychain.db.MrpLine;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 public interface MrpService extends Callable<Mrp> {
@@ -59,6 +61,21 @@ public interface MrpService extends Callable<Mrp> {
       Mrp mrp, Product product, Company company, StockLocation stockLocation)
       throws AxelorException;
 
+  /**
+   * Compute the projected stock of a product without saving the mrp nor its lines.
+   *
+   * @param mrp a transient mrp giving the stock location and the mrp type
+   * @param product the product to project
+   * @param company the company, may be null
+   * @param stockLocation the stock location, may be null
+   * @return the transient mrp lines of the product, sorted by maturity date and with their
+   *     cumulative quantity
+   * @throws AxelorException
+   */
+  List<MrpLine> computeProjectedStock(
+      Mrp mrp, Product product, Company company, StockLocation stockLocation)
+      throws AxelorException;
+
   /**
    * Called when an exception occurred during the mrp computation. Save the exception message.
    *
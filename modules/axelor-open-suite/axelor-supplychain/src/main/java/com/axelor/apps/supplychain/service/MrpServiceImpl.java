@@ -65,6 +65,7 @@ import com.axelor.apps.supplychain.db.repo.MrpLineRepository;
 import com.axelor.apps.supplychain.db.repo.MrpLineTypeRepository;
 import com.axelor.apps.supplychain.db.repo.MrpRepository;
 import com.axelor.apps.supplychain.exception.SupplychainExceptionMessage;
+import com.axelor.apps.supplychain.service.app.AppSupplychainService;
 import com.axelor.auth.AuthUtils;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
@@ -72,6 +73,7 @@ import com.axelor.db.Query;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
 import com.axelor.message.service.MailMessageService;
+import com.axelor.studio.db.AppSupplychain;
 import com.axelor.utils.StringTool;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -106,6 +108,9 @@ public class MrpServiceImpl implements MrpService {
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final Integer ITERATIONS = 100;
 
+  /** Number of records loaded and written per transaction by the set-based calculation. */
+  protected static final int SET_BASED_CHUNK_SIZE = 500;
+
   protected MrpRepository mrpRepository;
   protected StockLocationRepository stockLocationRepository;
   protected ProductRepository productRepository;
@@ -128,12 +133,19 @@ public class MrpServiceImpl implements MrpService {
   protected AppBaseService appBaseService;
   protected AppSaleService appSaleService;
   protected AppPurchaseService appPurchaseService;
+  protected AppSupplychainService appSupplychainService;
 
   protected List<StockLocation> stockLocationList;
   protected Map<Long, Integer> productMap;
   protected Mrp mrp;
   protected LocalDate today;
 
+  /**
+   * Lines created while computing a projected stock in memory, null when the lines are saved in
+   * database.
+   */
+  protected List<MrpLine> transientMrpLineList;
+
   @Inject
   public MrpServiceImpl(
       MrpRepository mrpRepository,
@@ -156,7 +168,8 @@ public class MrpServiceImpl implements MrpService {
       AppPurchaseService appPurchaseService,
       StockHistoryLineRepository stockHistoryLineRepository,
       MrpSaleOrderCheckLateSaleService mrpSaleOrderCheckLateSaleService,
-      MrpLineTypeService mrpLineTypeService) {
+      MrpLineTypeService mrpLineTypeService,
+      AppSupplychainService appSupplychainService) {
 
     this.mrpRepository = mrpRepository;
     this.stockLocationRepository = stockLocationRepository;
@@ -179,6 +192,7 @@ public class MrpServiceImpl implements MrpService {
     this.stockHistoryLineRepository = stockHistoryLineRepository;
     this.mrpLineTypeService = mrpLineTypeService;
     this.mrpSaleOrderCheckLateSaleService = mrpSaleOrderCheckLateSaleService;
+    this.appSupplychainService = appSupplychainService;
   }
 
   @Override
@@ -295,8 +309,17 @@ public class MrpServiceImpl implements MrpService {
 
   protected void checkInsufficientCumulativeQty() throws AxelorException {
 
+    boolean setBasedCalculation = this.isSetBasedCalculation();
+
     for (int level = 0; level <= this.getMaxLevel(); level++) {
 
+      if (setBasedCalculation) {
+        for (Long productId : this.getProductIdList(level)) {
+          this.checkInsufficientCumulativeQtyInBulk(productId, 0);
+        }
+        continue;
+      }
+
       for (Product product : this.getProductList(level)) {
 
         this.checkInsufficientCumulativeQty(product);
@@ -304,6 +327,32 @@ public class MrpServiceImpl implements MrpService {
     }
   }
 
+  /**
+   * Whether the MRP input data has to be loaded with grouped queries and the lines written in
+   * chunks instead of one transaction per record.
+   *
+   * @return true if the set-based calculation is enabled in the supplychain app
+   */
+  protected boolean isSetBasedCalculation() {
+    AppSupplychain appSupplychain = appSupplychainService.getAppSupplychain();
+    return appSupplychain != null && appSupplychain.getMrpSetBasedCalculation();
+  }
+
+  /**
+   * Get the list of product ids for a level, without loading the products.
+   *
+   * @param level
+   * @return
+   */
+  protected List<Long> getProductIdList(int level) {
+
+    return this.productMap.entrySet().stream()
+        .filter(entry -> entry.getValue() == level)
+        .map(Map.Entry::getKey)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
   /**
    * Get the list of product for a level
    *
@@ -357,7 +406,7 @@ public class MrpServiceImpl implements MrpService {
 
     this.computeCumulativeQty(productRepository.find(product.getId()));
 
-    JPA.clear();
+    this.clear();
 
     List<MrpLine> mrpLineList =
         mrpLineRepository
@@ -375,7 +424,7 @@ public class MrpServiceImpl implements MrpService {
               mrpLineRepository.find(mrpLine.getId()),
               productRepository.find(product.getId()),
               counter == 0);
-      JPA.clear();
+      this.clear();
       if (doASecondPass) {
         break;
       }
@@ -387,6 +436,72 @@ public class MrpServiceImpl implements MrpService {
     }
   }
 
+  /**
+   * Set-based version of {@link #checkInsufficientCumulativeQty(Product, int)}: each pass fetches
+   * the product timeline once, computes the cumulative quantities in memory and checks every line
+   * in a single transaction.
+   */
+  protected void checkInsufficientCumulativeQtyInBulk(Long productId, int counter)
+      throws AxelorException {
+
+    final int MAX_ITERATION = 1000;
+
+    boolean doASecondPass = true;
+
+    while (doASecondPass) {
+      if (counter > MAX_ITERATION) {
+        throw new AxelorException(
+            TraceBackRepository.CATEGORY_INCONSISTENCY,
+            I18n.get(SupplychainExceptionMessage.MRP_TOO_MANY_ITERATIONS));
+      }
+
+      doASecondPass =
+          this.checkInsufficientCumulativeQtyInBulk(
+              mrpRepository.find(mrp.getId()), productRepository.find(productId), counter == 0);
+      this.clear();
+      counter++;
+    }
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected boolean checkInsufficientCumulativeQtyInBulk(
+      Mrp mrp, Product product, boolean firstPass) throws AxelorException {
+
+    this.mrp = mrp;
+
+    List<MrpLine> mrpLineList = this.getSortedMrpLineList(product);
+    MrpTool.computeCumulativeQty(mrpLineList);
+
+    for (MrpLine mrpLine : mrpLineList) {
+      if (this.checkInsufficientCumulativeQty(mrpLine, product, firstPass)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  protected List<MrpLine> getSortedMrpLineList(Product product) {
+    if (transientMrpLineList != null) {
+      return transientMrpLineList.stream()
+          .filter(mrpLine -> product.getId().equals(mrpLine.getProduct().getId()))
+          .sorted(
+              Comparator.comparing(
+                      MrpLine::getMaturityDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                  .thenComparing(mrpLine -> mrpLine.getMrpLineType().getTypeSelect())
+                  .thenComparing(mrpLine -> mrpLine.getMrpLineType().getSequence()))
+          .collect(Collectors.toList());
+    }
+    return mrpLineRepository
+        .all()
+        .filter("self.mrp.id = ?1 AND self.product.id = ?2", mrp.getId(), product.getId())
+        .order("maturityDate")
+        .order("mrpLineType.typeSelect")
+        .order("mrpLineType.sequence")
+        .order("id")
+        .fetch();
+  }
+
   @Transactional(rollbackOn = {Exception.class})
   protected boolean checkInsufficientCumulativeQty(
       MrpLine mrpLine, Product product, boolean firstPass) throws AxelorException {
@@ -716,35 +831,19 @@ public class MrpServiceImpl implements MrpService {
   @Transactional
   protected void computeCumulativeQty(Product product) {
 
-    List<MrpLine> mrpLineList =
-        mrpLineRepository
-            .all()
-            .filter("self.mrp.id = ?1 AND self.product.id = ?2", mrp.getId(), product.getId())
-            .order("maturityDate")
-            .order("mrpLineType.typeSelect")
-            .order("mrpLineType.sequence")
-            .order("id")
-            .fetch();
+    List<MrpLine> mrpLineList = this.getSortedMrpLineList(product);
 
-    BigDecimal previousCumulativeQty = BigDecimal.ZERO;
-    for (MrpLine mrpLine : mrpLineList) {
+    MrpTool.computeCumulativeQty(mrpLineList);
 
-      if (mrpLine.getMrpLineType() != null
-          && mrpLine.getMrpLineType().getElementSelect()
-              == MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL
-          && mrpLine.getEstimatedDeliveryMrpLine() != null) {
-        mrpLine.setCumulativeQty(previousCumulativeQty);
-      } else {
-        mrpLine.setCumulativeQty(previousCumulativeQty.add(mrpLine.getQty()));
+    if (log.isDebugEnabled()) {
+      for (MrpLine mrpLine : mrpLineList) {
+        log.debug(
+            "Cumulative qty is ({}) for product ({}) and move ({}) at the maturity date ({})",
+            mrpLine.getCumulativeQty(),
+            mrpLine.getProduct().getFullName(),
+            mrpLine.getMrpLineType().getName(),
+            mrpLine.getMaturityDate());
       }
-      previousCumulativeQty = mrpLine.getCumulativeQty();
-
-      log.debug(
-          "Cumulative qty is ({}) for product ({}) and move ({}) at the maturity date ({})",
-          previousCumulativeQty,
-          mrpLine.getProduct().getFullName(),
-          mrpLine.getMrpLineType().getName(),
-          mrpLine.getMaturityDate());
     }
   }
 
@@ -777,13 +876,44 @@ public class MrpServiceImpl implements MrpService {
                 statusList)
             .fetch();
 
+    if (this.isSetBasedCalculation()) {
+      List<Long> purchaseOrderLineIdList =
+          purchaseOrderLineList.stream().map(PurchaseOrderLine::getId).collect(Collectors.toList());
+      this.clear();
+      for (List<Long> idList : Lists.partition(purchaseOrderLineIdList, SET_BASED_CHUNK_SIZE)) {
+        this.createPurchaseMrpLines(
+            this.findMrp(mrp),
+            idList,
+            mrpLineTypeRepository.find(purchaseOrderMrpLineType.getId()));
+        this.clear();
+      }
+      return;
+    }
+
     for (PurchaseOrderLine purchaseOrderLine : purchaseOrderLineList) {
 
       this.createPurchaseMrpLines(
-          mrpRepository.find(mrp.getId()),
+          this.findMrp(mrp),
           purchaseOrderLineRepository.find(purchaseOrderLine.getId()),
           mrpLineTypeRepository.find(purchaseOrderMrpLineType.getId()));
-      JPA.clear();
+      this.clear();
+    }
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createPurchaseMrpLines(
+      Mrp mrp, List<Long> purchaseOrderLineIdList, MrpLineType purchaseOrderMrpLineType)
+      throws AxelorException {
+
+    List<PurchaseOrderLine> purchaseOrderLineList =
+        purchaseOrderLineRepository
+            .all()
+            .filter("self.id IN (:idList)")
+            .bind("idList", purchaseOrderLineIdList)
+            .fetch();
+
+    for (PurchaseOrderLine purchaseOrderLine : purchaseOrderLineList) {
+      this.createPurchaseMrpLines(mrp, purchaseOrderLine, purchaseOrderMrpLineType);
     }
   }
 
@@ -829,7 +959,7 @@ public class MrpServiceImpl implements MrpService {
               purchaseOrderLine);
       if (mrpLine != null) {
         mrpLine.setSupplierPartner(purchaseOrder.getSupplierPartner());
-        mrpLineRepository.save(mrpLine);
+        this.saveMrpLine(mrpLine);
       }
     }
   }
@@ -842,7 +972,7 @@ public class MrpServiceImpl implements MrpService {
       return;
     }
 
-    mrp = mrpRepository.find(mrp.getId());
+    mrp = this.findMrp(mrp);
 
     List<SaleOrderLine> saleOrderLineList = new ArrayList<>();
 
@@ -880,17 +1010,32 @@ public class MrpServiceImpl implements MrpService {
                     statusList)
                 .fetch());
 
+        if (this.isSetBasedCalculation()) {
+          List<Long> saleOrderLineIdList =
+              saleOrderLineList.stream().map(SaleOrderLine::getId).collect(Collectors.toList());
+          this.clear();
+          for (List<Long> idList : Lists.partition(saleOrderLineIdList, SET_BASED_CHUNK_SIZE)) {
+            this.createSaleOrderMrpLines(
+                this.findMrp(mrp),
+                idList,
+                mrpLineTypeRepository.find(saleOrderMrpLineType.getId()),
+                statusList);
+            this.clear();
+          }
+          continue;
+        }
+
         for (SaleOrderLine saleOrderLine : saleOrderLineList) {
 
           if (saleOrderLine.getSaleOrder() != null
               && mrpSaleOrderCheckLateSaleService.checkLateSalesParameter(
                   saleOrderLine, saleOrderMrpLineType)) {
             this.createSaleOrderMrpLines(
-                mrpRepository.find(mrp.getId()),
+                this.findMrp(mrp),
                 saleOrderLineRepository.find(saleOrderLine.getId()),
                 mrpLineTypeRepository.find(saleOrderMrpLineType.getId()),
                 statusList);
-            JPA.clear();
+            this.clear();
           }
         }
       }
@@ -925,11 +1070,11 @@ public class MrpServiceImpl implements MrpService {
                 if (mrpSaleOrderCheckLateSaleService.checkLateSalesParameter(
                     saleOrderLine, saleOrderMrpLineType)) {
                   this.createSaleOrderMrpLines(
-                      mrpRepository.find(mrp.getId()),
+                      this.findMrp(mrp),
                       saleOrderLine,
                       mrpLineTypeRepository.find(saleOrderMrpLineType.getId()),
                       statusList);
-                  JPA.clear();
+                  this.clear();
                 }
               }
             }
@@ -939,6 +1084,30 @@ public class MrpServiceImpl implements MrpService {
     }
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createSaleOrderMrpLines(
+      Mrp mrp,
+      List<Long> saleOrderLineIdList,
+      MrpLineType saleOrderMrpLineType,
+      List<Integer> statusList)
+      throws AxelorException {
+
+    List<SaleOrderLine> saleOrderLineList =
+        saleOrderLineRepository
+            .all()
+            .filter("self.id IN (:idList)")
+            .bind("idList", saleOrderLineIdList)
+            .fetch();
+
+    for (SaleOrderLine saleOrderLine : saleOrderLineList) {
+      if (saleOrderLine.getSaleOrder() != null
+          && mrpSaleOrderCheckLateSaleService.checkLateSalesParameter(
+              saleOrderLine, saleOrderMrpLineType)) {
+        this.createSaleOrderMrpLines(mrp, saleOrderLine, saleOrderMrpLineType, statusList);
+      }
+    }
+  }
+
   @Transactional(rollbackOn = {Exception.class})
   protected void createSaleOrderMrpLines(
       Mrp mrp,
@@ -992,7 +1161,7 @@ public class MrpServiceImpl implements MrpService {
               saleOrder.getStockLocation(),
               saleOrderLine);
       if (mrpLine != null) {
-        mrpLineRepository.save(mrpLine);
+        this.saveMrpLine(mrpLine);
       }
     }
   }
@@ -1028,13 +1197,27 @@ public class MrpServiceImpl implements MrpService {
       mrpForecastList.addAll(mrp.getMrpForecastSet());
     }
 
+    if (this.isSetBasedCalculation()) {
+      List<Long> mrpForecastIdList =
+          mrpForecastList.stream().map(MrpForecast::getId).collect(Collectors.toList());
+      this.clear();
+      for (List<Long> idList : Lists.partition(mrpForecastIdList, SET_BASED_CHUNK_SIZE)) {
+        this.createSaleForecastMrpLines(
+            mrpRepository.find(mrp.getId()),
+            idList,
+            mrpLineTypeRepository.find(saleForecastMrpLineType.getId()));
+        this.clear();
+      }
+      return;
+    }
+
     for (MrpForecast mrpForecast : mrpForecastList) {
 
       this.createSaleForecastMrpLines(
           mrpRepository.find(mrp.getId()),
           mrpForecastRepository.find(mrpForecast.getId()),
           mrpLineTypeRepository.find(saleForecastMrpLineType.getId()));
-      JPA.clear();
+      this.clear();
     }
   }
 
@@ -1057,7 +1240,7 @@ public class MrpServiceImpl implements MrpService {
           mrp,
           mrpLineTypeRepository.find(stockHistoryMrpLineType.getId()),
           stockLocationRepository.find(mrp.getStockLocation().getId()));
-      JPA.clear();
+      this.clear();
     }
   }
 
@@ -1224,6 +1407,23 @@ public class MrpServiceImpl implements MrpService {
     return query;
   }
 
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createSaleForecastMrpLines(
+      Mrp mrp, List<Long> mrpForecastIdList, MrpLineType saleForecastMrpLineType)
+      throws AxelorException {
+
+    List<MrpForecast> mrpForecastList =
+        mrpForecastRepository
+            .all()
+            .filter("self.id IN (:idList)")
+            .bind("idList", mrpForecastIdList)
+            .fetch();
+
+    for (MrpForecast mrpForecast : mrpForecastList) {
+      this.createSaleForecastMrpLines(mrp, mrpForecast, saleForecastMrpLineType);
+    }
+  }
+
   @Transactional(rollbackOn = {Exception.class})
   protected void createSaleForecastMrpLines(
       Mrp mrp, MrpForecast mrpForecast, MrpLineType saleForecastMrpLineType)
@@ -1280,8 +1480,13 @@ public class MrpServiceImpl implements MrpService {
       return;
     }
 
+    if (this.isSetBasedCalculation()) {
+      this.createAvailableStockMrpLinesInBulk(availableStockMrpLineType);
+      return;
+    }
+
     for (Long productId : this.productMap.keySet()) {
-      Mrp mrp = mrpRepository.find(this.mrp.getId());
+      Mrp mrp = this.findMrp(this.mrp);
       if (mrp.getComputeWithSubStockLocation()) {
         for (StockLocation stockLocation : this.stockLocationList) {
           this.createAvailableStockMrpLine(
@@ -1301,7 +1506,102 @@ public class MrpServiceImpl implements MrpService {
             stockLocationRepository.find(stockLocation.getId()),
             mrpLineTypeRepository.find(availableStockMrpLineType.getId()));
       }
-      JPA.clear();
+      this.clear();
+    }
+  }
+
+  /**
+   * Create the available stock lines of every product with a single grouped query on the stock
+   * location lines, writing the MRP lines by chunks of products.
+   */
+  protected void createAvailableStockMrpLinesInBulk(MrpLineType availableStockMrpLineType)
+      throws AxelorException {
+
+    List<Long> productIdList = new ArrayList<>(this.productMap.keySet());
+    Collections.sort(productIdList);
+    List<Long> stockLocationIdList =
+        this.stockLocationList.stream().map(StockLocation::getId).collect(Collectors.toList());
+
+    for (List<Long> idList : Lists.partition(productIdList, SET_BASED_CHUNK_SIZE)) {
+      Map<Long, Map<Long, BigDecimal>> currentQtyMap =
+          this.getCurrentQtyPerProductAndStockLocation(idList, stockLocationIdList);
+      this.createAvailableStockMrpLines(
+          this.findMrp(mrp),
+          idList,
+          stockLocationIdList,
+          currentQtyMap,
+          mrpLineTypeRepository.find(availableStockMrpLineType.getId()));
+      this.clear();
+    }
+  }
+
+  /**
+   * Fetch the current quantity of the given products in the given stock locations.
+   *
+   * @return a map product id -> (stock location id -> current quantity)
+   */
+  protected Map<Long, Map<Long, BigDecimal>> getCurrentQtyPerProductAndStockLocation(
+      List<Long> productIdList, List<Long> stockLocationIdList) {
+
+    Map<Long, Map<Long, BigDecimal>> currentQtyMap = new HashMap<>();
+
+    List<Object[]> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.product.id, self.stockLocation.id, SUM(self.currentQty) "
+                    + "FROM StockLocationLine self "
+                    + "WHERE self.product.id IN (:productIdList) "
+                    + "AND self.stockLocation.id IN (:stockLocationIdList) "
+                    + "GROUP BY self.product.id, self.stockLocation.id",
+                Object[].class)
+            .setParameter("productIdList", productIdList)
+            .setParameter("stockLocationIdList", stockLocationIdList)
+            .getResultList();
+
+    for (Object[] result : resultList) {
+      currentQtyMap
+          .computeIfAbsent((Long) result[0], productId -> new HashMap<>())
+          .put((Long) result[1], (BigDecimal) result[2]);
+    }
+
+    return currentQtyMap;
+  }
+
+  @Transactional(rollbackOn = {Exception.class})
+  protected void createAvailableStockMrpLines(
+      Mrp mrp,
+      List<Long> productIdList,
+      List<Long> stockLocationIdList,
+      Map<Long, Map<Long, BigDecimal>> currentQtyMap,
+      MrpLineType availableStockMrpLineType)
+      throws AxelorException {
+
+    List<Product> productList =
+        productRepository
+            .all()
+            .filter("self.id IN (:idList)")
+            .bind("idList", productIdList)
+            .fetch();
+
+    for (Product product : productList) {
+      Map<Long, BigDecimal> qtyPerStockLocation =
+          currentQtyMap.getOrDefault(product.getId(), Collections.emptyMap());
+
+      if (mrp.getComputeWithSubStockLocation()) {
+        for (Long stockLocationId : stockLocationIdList) {
+          this.createAvailableStockMrpLine(
+              mrp,
+              product,
+              qtyPerStockLocation.getOrDefault(stockLocationId, BigDecimal.ZERO),
+              stockLocationRepository.find(stockLocationId),
+              availableStockMrpLineType);
+        }
+      } else {
+        BigDecimal qty =
+            qtyPerStockLocation.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        this.createAvailableStockMrpLine(
+            mrp, product, qty, mrp.getStockLocation(), availableStockMrpLineType);
+      }
     }
   }
 
@@ -1345,7 +1645,7 @@ public class MrpServiceImpl implements MrpService {
       MrpLineType availableStockMrpLineType)
       throws AxelorException {
 
-    return mrpLineRepository.save(
+    return this.saveMrpLine(
         this.createMrpLine(
             mrp, product, availableStockMrpLineType, qty, today, qty, stockLocation, null));
   }
@@ -1528,7 +1828,7 @@ public class MrpServiceImpl implements MrpService {
       mrp = mrpRepository.find(mrp.getId());
       generateProposals(
           isProposalPerSupplier, purchaseOrders, purchaseOrdersPerSupplier, mrpLineList);
-      JPA.clear();
+      this.clear();
     }
   }
 
@@ -1557,7 +1857,7 @@ public class MrpServiceImpl implements MrpService {
       mrp = mrpRepository.find(mrp.getId());
       generateProposals(
           isProposalsPerSupplier, purchaseOrders, purchaseOrdersPerSupplier, mrpLineList);
-      JPA.clear();
+      this.clear();
     }
   }
 
@@ -1627,6 +1927,44 @@ public class MrpServiceImpl implements MrpService {
     return mrp;
   }
 
+  @Override
+  public List<MrpLine> computeProjectedStock(
+      Mrp mrp, Product product, Company company, StockLocation stockLocation)
+      throws AxelorException {
+    this.transientMrpLineList = new ArrayList<>();
+    try {
+      this.completeProjectedStock(mrp, product, company, stockLocation);
+      this.computeCumulativeQty(product);
+      return this.getSortedMrpLineList(product);
+    } finally {
+      this.transientMrpLineList = null;
+    }
+  }
+
+  /** Detach the records loaded by a step of the calculation, before the next one. */
+  protected void clear() {
+    JPA.clear();
+  }
+
+  /**
+   * Reload the given mrp, unless it is a transient mrp used to compute a projected stock in memory.
+   */
+  protected Mrp findMrp(Mrp mrp) {
+    if (mrp.getId() == null) {
+      return mrp;
+    }
+    return mrpRepository.find(mrp.getId());
+  }
+
+  /** Save the given mrp line, or keep it in memory when computing a projected stock. */
+  protected MrpLine saveMrpLine(MrpLine mrpLine) {
+    if (transientMrpLineList != null) {
+      transientMrpLineList.add(mrpLine);
+      return mrpLine;
+    }
+    return mrpLineRepository.save(mrpLine);
+  }
+
   protected Mrp completeProjectedStock(
       Mrp mrp, Product product, Company company, StockLocation stockLocation)
       throws AxelorException {
@@ -1651,8 +1989,12 @@ public class MrpServiceImpl implements MrpService {
               .filter("self.typeSelect != ?1", StockLocationRepository.TYPE_VIRTUAL)
               .fetch();
     }
-    reset(mrpRepository.find(mrp.getId()));
-    this.startMrp(mrpRepository.find(mrp.getId()));
+    if (transientMrpLineList != null) {
+      today = appBaseService.getTodayDate(mrp.getStockLocation().getCompany());
+    } else {
+      reset(mrpRepository.find(mrp.getId()));
+      this.startMrp(mrpRepository.find(mrp.getId()));
+    }
     this.assignProductAndLevel(this.getProductList());
 
     // Get the stock for each product on each stock location
@@ -1734,7 +2076,7 @@ public class MrpServiceImpl implements MrpService {
         mrpLineService.updateProposalToProcess(mrpLine, true);
       }
 
-      JPA.clear();
+      this.clear();
     }
   }
 }
@@ -19,6 +19,10 @@
 package com.axelor.apps.supplychain.service;
 
 import com.axelor.apps.supplychain.db.Mrp;
+import com.axelor.apps.supplychain.db.MrpLine;
+import com.axelor.apps.supplychain.db.repo.MrpLineTypeRepository;
+import java.math.BigDecimal;
+import java.util.List;
 
 /** Utility class for computing MRP fields. */
 public class MrpTool {
@@ -45,4 +49,31 @@ public class MrpTool {
     }
     return fullName;
   }
+
+  /**
+   * Compute the cumulative quantity of each line of a product timeline. The given list must be
+   * sorted by maturity date, line type and sequence, the same way MRP lines are displayed.
+   *
+   * <p>A purchase proposal having an estimated delivery line does not change the cumulative
+   * quantity, the stock only increases when the estimated delivery line is reached.
+   *
+   * @param mrpLineList the sorted MRP lines of a product
+   * @return the cumulative quantity after the last line
+   */
+  public static BigDecimal computeCumulativeQty(List<MrpLine> mrpLineList) {
+    BigDecimal previousCumulativeQty = BigDecimal.ZERO;
+    for (MrpLine mrpLine : mrpLineList) {
+
+      if (mrpLine.getMrpLineType() != null
+          && mrpLine.getMrpLineType().getElementSelect()
+              == MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL
+          && mrpLine.getEstimatedDeliveryMrpLine() != null) {
+        mrpLine.setCumulativeQty(previousCumulativeQty);
+      } else {
+        mrpLine.setCumulativeQty(previousCumulativeQty.add(mrpLine.getQty()));
+      }
+      previousCumulativeQty = mrpLine.getCumulativeQty();
+    }
+    return previousCumulativeQty;
+  }
 }
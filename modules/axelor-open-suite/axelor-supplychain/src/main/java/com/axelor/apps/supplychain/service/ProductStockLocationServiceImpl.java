@@ -37,6 +37,7 @@ import com.axelor.apps.stock.db.repo.StockLocationRepository;
 import com.axelor.apps.stock.service.StockLocationLineService;
 import com.axelor.apps.stock.service.StockLocationService;
 import com.axelor.apps.supplychain.service.app.AppSupplychainService;
+import com.axelor.db.JPA;
 import com.axelor.inject.Beans;
 import com.google.inject.Inject;
 import java.math.BigDecimal;
@@ -92,9 +93,9 @@ public class ProductStockLocationServiceImpl implements ProductStockLocationServ
     StockLocation stockLocation = stockLocationRepository.find(stockLocationId);
     int scale = appBaseService.getNbDecimalDigitForQty();
     if (stockLocationId != 0L && companyId != 0L) {
-      List<StockLocation> stockLocationList =
-          stockLocationService.getAllLocationAndSubLocation(stockLocation, false);
-      if (!stockLocationList.isEmpty()) {
+      List<Long> stockLocationIdList =
+          stockLocationService.getAllLocationAndSubLocationId(stockLocation, false);
+      if (!stockLocationIdList.isEmpty()) {
         BigDecimal realQty = BigDecimal.ZERO;
         BigDecimal futureQty = BigDecimal.ZERO;
         BigDecimal reservedQty = BigDecimal.ZERO;
@@ -108,14 +109,11 @@ public class ProductStockLocationServiceImpl implements ProductStockLocationServ
         availableQty = this.getAvailableQty(product, company, stockLocation);
         requestedReservedQty = this.getRequestedReservedQty(product, company, stockLocation);
 
-        for (StockLocation sl : stockLocationList) {
-          realQty = realQty.add(stockLocationService.getRealQty(productId, sl.getId(), companyId));
-          futureQty =
-              futureQty.add(stockLocationService.getFutureQty(productId, sl.getId(), companyId));
-          reservedQty =
-              reservedQty.add(
-                  stockLocationServiceSupplychain.getReservedQty(productId, sl.getId(), companyId));
-        }
+        BigDecimal[] stockLocationLineQties =
+            this.getStockLocationLineQties(product, stockLocationIdList);
+        realQty = stockLocationLineQties[0];
+        futureQty = stockLocationLineQties[1];
+        reservedQty = stockLocationLineQties[2];
 
         map.put("$realQty", realQty.setScale(scale, RoundingMode.HALF_UP));
         map.put("$futureQty", futureQty.setScale(scale, RoundingMode.HALF_UP));
@@ -163,6 +161,46 @@ public class ProductStockLocationServiceImpl implements ProductStockLocationServ
     return map;
   }
 
+  /**
+   * Sum the real, future and reserved quantities of the product in the given stock locations with
+   * one query grouped by unit, converted to the unit of the product.
+   *
+   * @return the real, future and reserved quantities
+   */
+  protected BigDecimal[] getStockLocationLineQties(Product product, List<Long> stockLocationIdList)
+      throws AxelorException {
+    BigDecimal[] qties = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
+    if (product == null || !product.getStockManaged()) {
+      return qties;
+    }
+
+    List<?> resultList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.unit.id, SUM(self.currentQty), SUM(self.futureQty), "
+                    + "SUM(self.reservedQty) FROM StockLocationLine self "
+                    + "WHERE self.product.id = :productId "
+                    + "AND self.stockLocation.id IN (:stockLocationIdList) "
+                    + "GROUP BY self.unit.id")
+            .setParameter("productId", product.getId())
+            .setParameter("stockLocationIdList", stockLocationIdList)
+            .getResultList();
+
+    Unit productUnit = product.getUnit();
+    for (Object result : resultList) {
+      Object[] row = (Object[]) result;
+      Unit unit = row[0] != null ? JPA.find(Unit.class, (Long) row[0]) : null;
+      for (int i = 0; i < qties.length; i++) {
+        BigDecimal qty = row[i + 1] != null ? (BigDecimal) row[i + 1] : BigDecimal.ZERO;
+        if (productUnit != null && unit != null && !productUnit.equals(unit)) {
+          qty = unitConversionService.convert(unit, productUnit, qty, qty.scale(), product);
+        }
+        qties[i] = qties[i].add(qty);
+      }
+    }
+    return qties;
+  }
+
   protected BigDecimal getRequestedReservedQty(
       Product product, Company company, StockLocation stockLocation) throws AxelorException {
     if (product == null || product.getUnit() == null) {
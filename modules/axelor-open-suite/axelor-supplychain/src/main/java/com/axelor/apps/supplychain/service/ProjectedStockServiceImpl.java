@@ -27,26 +27,65 @@ import com.axelor.apps.stock.db.StockLocation;
 import com.axelor.apps.stock.db.repo.StockLocationRepository;
 import com.axelor.apps.supplychain.db.Mrp;
 import com.axelor.apps.supplychain.db.MrpLine;
+import com.axelor.apps.supplychain.db.MrpLineType;
 import com.axelor.apps.supplychain.db.repo.MrpLineRepository;
 import com.axelor.apps.supplychain.db.repo.MrpRepository;
+import com.axelor.db.EntityHelper;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
 import com.axelor.inject.Beans;
 import com.axelor.rpc.Context;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class ProjectedStockServiceImpl implements ProjectedStockService {
 
+  /** How long a computed projected stock is reused for the same product and location. */
+  protected static final long PROJECTED_STOCK_CACHE_DURATION_SECONDS = 30;
+
+  protected static final Cache<List<Long>, List<Map<String, Object>>> PROJECTED_STOCK_CACHE =
+      CacheBuilder.newBuilder()
+          .expireAfterWrite(PROJECTED_STOCK_CACHE_DURATION_SECONDS, TimeUnit.SECONDS)
+          .maximumSize(1000)
+          .build();
+
   @Inject StockLocationRepository stockLocationRepository;
 
-  @Transactional(rollbackOn = {Exception.class})
   @Override
   public List<MrpLine> createProjectedStock(Long productId, Long companyId, Long stockLocationId)
       throws AxelorException {
+    List<Long> key = Arrays.asList(productId, companyId, stockLocationId);
+    List<Map<String, Object>> mrpLineMapList = PROJECTED_STOCK_CACHE.getIfPresent(key);
+    if (mrpLineMapList == null) {
+      mrpLineMapList = computeProjectedStock(productId, companyId, stockLocationId);
+      PROJECTED_STOCK_CACHE.put(key, mrpLineMapList);
+    }
+    return mrpLineMapList.stream()
+        .map(mrpLineMap -> Mapper.toBean(MrpLine.class, mrpLineMap))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Compute the projected stock lines in memory with a transient mrp, nothing is saved in database.
+   *
+   * @return the lines with a quantity, as maps only holding the fields shown in the projected stock
+   */
+  protected List<Map<String, Object>> computeProjectedStock(
+      Long productId, Long companyId, Long stockLocationId) throws AxelorException {
     Product product = Beans.get(ProductRepository.class).find(productId);
     Company company = Beans.get(CompanyRepository.class).find(companyId);
     StockLocation stockLocation = stockLocationRepository.find(stockLocationId);
@@ -57,32 +96,61 @@ public class ProjectedStockServiceImpl implements ProjectedStockService {
       return Collections.emptyList();
     }
     mrp.addProductSetItem(product);
+    mrp.setSaleOrderLineSet(new HashSet<>());
+    mrp.setMrpForecastSet(new HashSet<>());
     mrp.setMrpTypeSelect(MrpRepository.MRP_TYPE_MRP);
-    mrp = Beans.get(MrpRepository.class).save(mrp);
-    mrp = Beans.get(MrpService.class).createProjectedStock(mrp, product, company, stockLocation);
 
     List<MrpLine> mrpLineList =
-        Beans.get(MrpLineRepository.class)
-            .all()
-            .filter("self.mrp = ?1 AND self.product = ?2 AND self.qty != 0", mrp, product)
-            .order("maturityDate")
-            .order("mrpLineType.typeSelect")
-            .order("mrpLineType.sequence")
-            .order("id")
-            .fetch();
-
-    if (mrpLineList.isEmpty()) {
-      List<MrpLine> mrpLineListToDelete =
-          Beans.get(MrpLineRepository.class).all().filter("self.mrp = ?1", mrp).fetch();
-      removeMrpAndMrpLine(mrpLineListToDelete);
-      return Collections.emptyList();
-    }
+        Beans.get(MrpService.class).computeProjectedStock(mrp, product, company, stockLocation);
 
+    List<Map<String, Object>> mrpLineMapList = new ArrayList<>();
     for (MrpLine mrpLine : mrpLineList) {
-      mrpLine.setCompany(mrpLine.getStockLocation().getCompany());
-      mrpLine.setUnit(mrpLine.getProduct().getUnit());
+      if (mrpLine.getQty().signum() != 0) {
+        mrpLineMapList.add(toMap(mrpLine));
+      }
+    }
+    return mrpLineMapList;
+  }
+
+  /**
+   * Copy the fields shown in the projected stock. The computation clears the persistence context,
+   * so the referenced records are reloaded to read their name.
+   */
+  protected Map<String, Object> toMap(MrpLine mrpLine) {
+    StockLocation stockLocation = stockLocationRepository.find(mrpLine.getStockLocation().getId());
+    Product product = Beans.get(ProductRepository.class).find(mrpLine.getProduct().getId());
+
+    Map<String, Object> mrpLineMap = new HashMap<>();
+    mrpLineMap.put("maturityDate", mrpLine.getMaturityDate());
+    mrpLineMap.put("qty", mrpLine.getQty());
+    mrpLineMap.put("cumulativeQty", mrpLine.getCumulativeQty());
+    mrpLineMap.put("relatedToSelectName", mrpLine.getRelatedToSelectName());
+    mrpLineMap.put("product", toReference(product));
+    mrpLineMap.put("stockLocation", toReference(stockLocation));
+    mrpLineMap.put("company", toReference(stockLocation.getCompany()));
+    mrpLineMap.put("unit", toReference(product.getUnit()));
+    mrpLineMap.put("partner", toReference(mrpLine.getPartner()));
+
+    MrpLineType mrpLineType = JPA.find(MrpLineType.class, mrpLine.getMrpLineType().getId());
+    Map<String, Object> mrpLineTypeMap = toReference(mrpLineType);
+    mrpLineTypeMap.put("elementSelect", mrpLineType.getElementSelect());
+    mrpLineMap.put("mrpLineType", mrpLineTypeMap);
+    return mrpLineMap;
+  }
+
+  protected Map<String, Object> toReference(Model model) {
+    if (model == null) {
+      return null;
+    }
+    Class<? extends Model> modelClass = EntityHelper.getEntityClass(model);
+    Model record = JPA.find(modelClass, model.getId());
+    Map<String, Object> referenceMap = new HashMap<>();
+    referenceMap.put("id", record.getId());
+    Property nameField = Mapper.of(modelClass).getNameField();
+    if (nameField != null) {
+      referenceMap.put(nameField.getName(), nameField.get(record));
     }
-    return mrpLineList;
+    return referenceMap;
   }
 
   protected StockLocation findStockLocation(Company company, StockLocation stockLocation) {
@@ -147,7 +215,10 @@ public class ProjectedStockServiceImpl implements ProjectedStockService {
   @Transactional(rollbackOn = {Exception.class})
   @Override
   public void removeMrpAndMrpLine(List<MrpLine> mrpLineList) {
-    if (mrpLineList != null && !mrpLineList.isEmpty()) {
+    if (mrpLineList != null
+        && !mrpLineList.isEmpty()
+        && mrpLineList.get(0).getMrp() != null
+        && mrpLineList.get(0).getMrp().getId() != null) {
       Long mrpId = mrpLineList.get(0).getMrp().getId();
       Beans.get(MrpLineRepository.class).all().filter("self.mrp.id = ?1", mrpId).remove();
       Beans.get(MrpRepository.class).all().filter("self.id = ?1", mrpId).remove();
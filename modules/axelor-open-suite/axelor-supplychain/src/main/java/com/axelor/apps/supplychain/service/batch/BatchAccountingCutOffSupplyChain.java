@@ -217,7 +217,8 @@ public class BatchAccountingCutOffSupplyChain extends BatchAccountingCutOff {
 
   protected void updateStockMove(StockMove stockMove) {
 
-    stockMove.addBatchSetItem(Beans.get(BatchRepository.class).find(batch.getId()));
+    JPA.runInTransaction(
+        () -> stockMove.addBatchSetItem(Beans.get(BatchRepository.class).find(batch.getId())));
 
     incrementDone();
   }
@@ -22,8 +22,11 @@ import com.axelor.apps.base.AxelorException;
 import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.db.repo.ExceptionOriginRepository;
 import com.axelor.apps.base.exceptions.BaseExceptionMessage;
+import com.axelor.apps.base.service.administration.BatchPartitionProgress;
+import com.axelor.apps.base.service.administration.BatchPartitionWork;
 import com.axelor.apps.base.service.exception.TraceBackService;
 import com.axelor.apps.sale.db.SaleOrder;
+import com.axelor.apps.sale.db.repo.SaleOrderRepository;
 import com.axelor.apps.supplychain.exception.SupplychainExceptionMessage;
 import com.axelor.apps.supplychain.service.SaleOrderInvoiceService;
 import com.axelor.apps.supplychain.service.invoice.SubscriptionInvoiceService;
@@ -41,6 +44,8 @@ public class BatchInvoicing extends BatchStrategy {
 
   @Inject private SubscriptionInvoiceService subscriptionInvoiceService;
 
+  @Inject private SaleOrderRepository saleOrderRepo;
+
   @Inject
   public BatchInvoicing(SaleOrderInvoiceService saleOrderInvoiceService) {
 
@@ -50,6 +55,22 @@ public class BatchInvoicing extends BatchStrategy {
   @Override
   protected void process() {
 
+    if (isPartitionedProcessing()) {
+      processInPartitions(
+          new BatchPartitionWork() {
+            @Override
+            public List<Long> fetchNextIds(Long lastId, int limit) {
+              return subscriptionInvoiceService.getSubscriptionOrderIds(lastId, limit);
+            }
+
+            @Override
+            public void process(Long id, BatchPartitionProgress progress) {
+              invoiceSubscriptionOrder(id, progress);
+            }
+          });
+      return;
+    }
+
     List<SaleOrder> saleOrders = subscriptionInvoiceService.getSubscriptionOrders(FETCH_LIMIT);
 
     while (!saleOrders.isEmpty()) {
@@ -79,6 +100,41 @@ public class BatchInvoicing extends BatchStrategy {
     }
   }
 
+  /**
+   * Generate the invoices of a subscription order, from a worker thread. As with the sequential
+   * processing, an order late by several periods is invoiced for each of them.
+   */
+  protected void invoiceSubscriptionOrder(Long saleOrderId, BatchPartitionProgress progress) {
+    SaleOrder saleOrder = saleOrderRepo.find(saleOrderId);
+
+    try {
+      do {
+        if (subscriptionInvoiceService.generateSubscriptionInvoice(saleOrder) == null) {
+          break;
+        }
+        JPA.runInTransaction(() -> saleOrder.addBatchSetItem(batchRepo.find(getCurrentBatchId())));
+        progress.incrementDone();
+      } while (subscriptionInvoiceService
+          .getSubscriptionOrderIds(saleOrderId - 1, 1)
+          .contains(saleOrderId));
+    } catch (AxelorException e) {
+      TraceBackService.trace(
+          new AxelorException(
+              e, e.getCategory(), I18n.get("Order %s"), saleOrder.getSaleOrderSeq()),
+          ExceptionOriginRepository.INVOICE_ORIGIN,
+          getCurrentBatchId());
+      progress.incrementAnomaly();
+    } catch (Exception e) {
+      TraceBackService.trace(
+          new Exception(String.format(I18n.get("Order %s"), saleOrder.getSaleOrderSeq()), e),
+          ExceptionOriginRepository.INVOICE_ORIGIN,
+          getCurrentBatchId());
+      progress.incrementAnomaly();
+
+      LOG.error("Bug(Anomalie) généré(e) pour le devis {}", saleOrder.getSaleOrderSeq());
+    }
+  }
+
   /**
    * As {@code batch} entity can be detached from the session, call {@code Batch.find()} get the
    * entity in the persistent context. Warning : {@code batch} entity have to be saved before.
@@ -89,11 +145,9 @@ public class BatchInvoicing extends BatchStrategy {
     String comment = I18n.get(SupplychainExceptionMessage.BATCH_INVOICING_1) + " ";
     comment +=
         String.format(
-            "\t* %s " + I18n.get(SupplychainExceptionMessage.BATCH_INVOICING_2) + "\n",
-            batch.getDone());
+            "\t* %s " + I18n.get(SupplychainExceptionMessage.BATCH_INVOICING_2) + "\n", getDone());
     comment +=
-        String.format(
-            "\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), batch.getAnomaly());
+        String.format("\t" + I18n.get(BaseExceptionMessage.ALARM_ENGINE_BATCH_4), getAnomaly());
 
     super.stop();
     addComment(comment);
@@ -35,15 +35,15 @@ public abstract class BatchOrderInvoicing extends AbstractBatch {
             I18n.get(
                 SupplychainExceptionMessage.BATCH_ORDER_INVOICING_DONE_SINGULAR,
                 SupplychainExceptionMessage.BATCH_ORDER_INVOICING_DONE_PLURAL,
-                batch.getDone()),
-            batch.getDone()));
+                getDone()),
+            getDone()));
     sb.append(
         String.format(
             I18n.get(
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_SINGULAR,
                 BaseExceptionMessage.ABSTRACT_BATCH_ANOMALY_PLURAL,
-                batch.getAnomaly()),
-            batch.getAnomaly()));
+                getAnomaly()),
+            getAnomaly()));
     addComment(sb.toString());
     super.stop();
   }
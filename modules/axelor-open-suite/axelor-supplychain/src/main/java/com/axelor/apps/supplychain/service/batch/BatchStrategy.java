@@ -24,6 +24,7 @@ import com.axelor.apps.base.service.administration.AbstractBatch;
 import com.axelor.apps.sale.db.SaleOrder;
 import com.axelor.apps.stock.db.StockMove;
 import com.axelor.apps.supplychain.service.SaleOrderInvoiceService;
+import com.axelor.db.JPA;
 import com.axelor.inject.Beans;
 
 public abstract class BatchStrategy extends AbstractBatch {
@@ -41,21 +42,24 @@ public abstract class BatchStrategy extends AbstractBatch {
 
   protected void updateSaleOrder(SaleOrder saleOrder) {
 
-    saleOrder.addBatchSetItem(Beans.get(BatchRepository.class).find(batch.getId()));
+    JPA.runInTransaction(
+        () -> saleOrder.addBatchSetItem(Beans.get(BatchRepository.class).find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updateStockMove(StockMove stockMove) {
 
-    stockMove.addBatchSetItem(Beans.get(BatchRepository.class).find(batch.getId()));
+    JPA.runInTransaction(
+        () -> stockMove.addBatchSetItem(Beans.get(BatchRepository.class).find(batch.getId())));
 
     incrementDone();
   }
 
   protected void updateAccountMove(Move move, boolean incrementDone) {
 
-    move.addBatchSetItem(Beans.get(BatchRepository.class).find(batch.getId()));
+    JPA.runInTransaction(
+        () -> move.addBatchSetItem(Beans.get(BatchRepository.class).find(batch.getId())));
 
     if (incrementDone) {
       incrementDone();
@@ -29,5 +29,14 @@ public interface SubscriptionInvoiceService {
 
   public List<SaleOrder> getSubscriptionOrders(Integer limit);
 
+  /**
+   * Get the ids of the subscription orders to invoice, paginated on their id.
+   *
+   * @param lastId only ids greater than this one are returned, <code>null</code> for the first page
+   * @param limit the maximum number of ids to return
+   * @return the ids, in ascending order
+   */
+  public List<Long> getSubscriptionOrderIds(Long lastId, int limit);
+
   public Invoice generateSubscriptionInvoice(SaleOrder saleOrder) throws AxelorException;
 }
@@ -36,6 +36,7 @@ import java.time.temporal.TemporalUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class SubscriptionInvoiceServiceImpl implements SubscriptionInvoiceService {
 
@@ -61,22 +62,7 @@ public class SubscriptionInvoiceServiceImpl implements SubscriptionInvoiceServic
   @Override
   public List<SaleOrder> getSubscriptionOrders(Integer limit) {
 
-    Query<SaleOrder> query =
-        saleOrderRepo
-            .all()
-            .filter(
-                "self.saleOrderTypeSelect = :saleOrderType "
-                    + "AND self.statusSelect = :saleOrderStatus "
-                    + "AND :subScriptionDate >= self.nextInvoicingDate "
-                    + "AND (self.contractEndDate IS NULL OR self.contractEndDate >= :subScriptionDate)")
-            .bind("saleOrderType", SaleOrderRepository.SALE_ORDER_TYPE_SUBSCRIPTION)
-            .bind("saleOrderStatus", SaleOrderRepository.STATUS_ORDER_CONFIRMED)
-            .bind(
-                "subScriptionDate",
-                appBaseService.getTodayDate(
-                    Optional.ofNullable(AuthUtils.getUser())
-                        .map(User::getActiveCompany)
-                        .orElse(null)));
+    Query<SaleOrder> query = getSubscriptionOrderQuery("");
 
     if (limit != null) {
       return query.fetch(limit);
@@ -85,6 +71,34 @@ public class SubscriptionInvoiceServiceImpl implements SubscriptionInvoiceServic
     return query.fetch();
   }
 
+  @Override
+  public List<Long> getSubscriptionOrderIds(Long lastId, int limit) {
+
+    return getSubscriptionOrderQuery(" AND self.id > :lastId")
+        .bind("lastId", lastId != null ? lastId : 0L).order("id").select("id").fetch(limit, 0)
+        .stream()
+        .map(values -> (Long) values.get("id"))
+        .collect(Collectors.toList());
+  }
+
+  protected Query<SaleOrder> getSubscriptionOrderQuery(String additionalFilter) {
+
+    return saleOrderRepo
+        .all()
+        .filter(
+            "self.saleOrderTypeSelect = :saleOrderType "
+                + "AND self.statusSelect = :saleOrderStatus "
+                + "AND :subScriptionDate >= self.nextInvoicingDate "
+                + "AND (self.contractEndDate IS NULL OR self.contractEndDate >= :subScriptionDate)"
+                + additionalFilter)
+        .bind("saleOrderType", SaleOrderRepository.SALE_ORDER_TYPE_SUBSCRIPTION)
+        .bind("saleOrderStatus", SaleOrderRepository.STATUS_ORDER_CONFIRMED)
+        .bind(
+            "subScriptionDate",
+            appBaseService.getTodayDate(
+                Optional.ofNullable(AuthUtils.getUser()).map(User::getActiveCompany).orElse(null)));
+  }
+
   @Override
   @Transactional(rollbackOn = {Exception.class})
   public Invoice generateSubscriptionInvoice(SaleOrder saleOrder) throws AxelorException {
@@ -0,0 +1,252 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2023 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.supplychain.service;
+
+import static org.mockito.Answers.RETURNS_SELF;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.axelor.apps.base.AxelorException;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.repo.ProductRepository;
+import com.axelor.apps.stock.db.StockLocation;
+import com.axelor.apps.stock.db.StockLocationLine;
+import com.axelor.apps.stock.db.repo.StockLocationRepository;
+import com.axelor.apps.supplychain.db.Mrp;
+import com.axelor.apps.supplychain.db.MrpLine;
+import com.axelor.apps.supplychain.db.MrpLineType;
+import com.axelor.apps.supplychain.db.repo.MrpLineTypeRepository;
+import com.axelor.db.Query;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Check that the set-based calculation creates the same available stock lines as the per-record
+ * calculation, the stock location lines being given by a fixture instead of the database.
+ */
+public class TestMrpServiceSetBasedCalculation {
+
+  protected Map<Long, Product> productMap;
+  protected Map<Long, StockLocation> stockLocationMap;
+  protected List<StockLocationLine> stockLocationLineList;
+  protected MrpLineType availableStockMrpLineType;
+
+  @Before
+  public void prepare() {
+    productMap = new HashMap<>();
+    for (long id = 1; id <= 3; id++) {
+      Product product = new Product();
+      product.setId(id);
+      productMap.put(id, product);
+    }
+    stockLocationMap = new HashMap<>();
+    for (long id = 10; id <= 12; id++) {
+      StockLocation stockLocation = new StockLocation();
+      stockLocation.setId(id);
+      stockLocationMap.put(id, stockLocation);
+    }
+
+    // Product 3 has no stock, product 2 has stock in a location outside of the MRP
+    stockLocationLineList =
+        Arrays.asList(
+            createStockLocationLine(1L, 10L, "5"),
+            createStockLocationLine(1L, 11L, "3.5"),
+            createStockLocationLine(2L, 11L, "7"),
+            createStockLocationLine(2L, 12L, "100"));
+
+    availableStockMrpLineType = new MrpLineType();
+    availableStockMrpLineType.setId(1L);
+    availableStockMrpLineType.setElementSelect(MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK);
+  }
+
+  @Test
+  public void testAvailableStockLinesBySubStockLocation() throws AxelorException {
+    List<String> legacyLineList = computeAvailableStockLines(false, true);
+    List<String> setBasedLineList = computeAvailableStockLines(true, true);
+
+    Assert.assertEquals(
+        Arrays.asList("1/10/5", "1/11/3.5", "2/10/0", "2/11/7", "3/10/0", "3/11/0"),
+        legacyLineList);
+    Assert.assertEquals(legacyLineList, setBasedLineList);
+  }
+
+  @Test
+  public void testAvailableStockLinesOnMrpStockLocation() throws AxelorException {
+    List<String> legacyLineList = computeAvailableStockLines(false, false);
+    List<String> setBasedLineList = computeAvailableStockLines(true, false);
+
+    Assert.assertEquals(Arrays.asList("1/10/8.5", "2/10/7", "3/10/0"), legacyLineList);
+    Assert.assertEquals(legacyLineList, setBasedLineList);
+  }
+
+  /**
+   * Create the available stock lines of the three products on the stock locations 10 and 11.
+   *
+   * @return the created lines as "product id/stock location id/quantity", sorted
+   */
+  protected List<String> computeAvailableStockLines(
+      boolean setBasedCalculation, boolean computeWithSubStockLocation) throws AxelorException {
+    List<String> createdLineList = new ArrayList<>();
+    MrpServiceImpl mrpService = createMrpService(setBasedCalculation, createdLineList);
+
+    Mrp mrp = new Mrp();
+    mrp.setComputeWithSubStockLocation(computeWithSubStockLocation);
+    mrp.setStockLocation(stockLocationMap.get(10L));
+    mrpService.setMrp(mrp);
+    mrpService.stockLocationList =
+        Arrays.asList(stockLocationMap.get(10L), stockLocationMap.get(11L));
+    mrpService.productMap = new HashMap<>();
+    for (Long productId : productMap.keySet()) {
+      mrpService.productMap.put(productId, 0);
+    }
+
+    mrpService.createAvailableStockMrpLines();
+
+    Collections.sort(createdLineList);
+    return createdLineList;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected MrpServiceImpl createMrpService(
+      boolean setBasedCalculation, List<String> createdLineList) {
+    ProductRepository productRepository = mock(ProductRepository.class);
+    when(productRepository.find(anyLong()))
+        .thenAnswer(invocation -> productMap.get(invocation.<Long>getArgument(0)));
+    Query<Product> productQuery = mock(Query.class, RETURNS_SELF);
+    when(productRepository.all()).thenReturn(productQuery);
+    when(productQuery.fetch()).thenReturn(new ArrayList<>(productMap.values()));
+
+    StockLocationRepository stockLocationRepository = mock(StockLocationRepository.class);
+    when(stockLocationRepository.find(anyLong()))
+        .thenAnswer(invocation -> stockLocationMap.get(invocation.<Long>getArgument(0)));
+
+    MrpLineTypeRepository mrpLineTypeRepository = mock(MrpLineTypeRepository.class);
+    when(mrpLineTypeRepository.find(anyLong())).thenReturn(availableStockMrpLineType);
+
+    MrpLineTypeService mrpLineTypeService = mock(MrpLineTypeService.class);
+    when(mrpLineTypeService.getMrpLineType(anyInt(), anyInt()))
+        .thenReturn(availableStockMrpLineType);
+
+    return new MrpServiceImpl(
+        null,
+        stockLocationRepository,
+        productRepository,
+        null,
+        mrpLineTypeRepository,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        mrpLineTypeService,
+        null) {
+
+      @Override
+      protected boolean isSetBasedCalculation() {
+        return setBasedCalculation;
+      }
+
+      @Override
+      protected void clear() {}
+
+      @Override
+      protected StockLocationLine getStockLocationLine(
+          Product product, StockLocation stockLocation) {
+        return stockLocationLineList.stream()
+            .filter(
+                stockLocationLine ->
+                    stockLocationLine.getProduct() == product
+                        && stockLocationLine.getStockLocation() == stockLocation)
+            .findFirst()
+            .orElse(null);
+      }
+
+      @Override
+      protected BigDecimal computeTotalQuantityFromSubStockLocations(Product product) {
+        return stockLocationLineList.stream()
+            .filter(
+                stockLocationLine ->
+                    stockLocationLine.getProduct() == product
+                        && this.stockLocationList.contains(stockLocationLine.getStockLocation()))
+            .map(StockLocationLine::getCurrentQty)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+      }
+
+      @Override
+      protected Map<Long, Map<Long, BigDecimal>> getCurrentQtyPerProductAndStockLocation(
+          List<Long> productIdList, List<Long> stockLocationIdList) {
+        return stockLocationLineList.stream()
+            .filter(
+                stockLocationLine ->
+                    productIdList.contains(stockLocationLine.getProduct().getId())
+                        && stockLocationIdList.contains(
+                            stockLocationLine.getStockLocation().getId()))
+            .collect(
+                Collectors.groupingBy(
+                    stockLocationLine -> stockLocationLine.getProduct().getId(),
+                    Collectors.groupingBy(
+                        stockLocationLine -> stockLocationLine.getStockLocation().getId(),
+                        Collectors.reducing(
+                            BigDecimal.ZERO, StockLocationLine::getCurrentQty, BigDecimal::add))));
+      }
+
+      @Override
+      protected MrpLine createAvailableStockMrpLine(
+          Mrp mrp,
+          Product product,
+          BigDecimal qty,
+          StockLocation stockLocation,
+          MrpLineType availableStockMrpLineType) {
+        createdLineList.add(
+            String.format("%s/%s/%s", product.getId(), stockLocation.getId(), qty.toPlainString()));
+        return null;
+      }
+    };
+  }
+
+  protected StockLocationLine createStockLocationLine(
+      Long productId, Long stockLocationId, String currentQty) {
+    StockLocationLine stockLocationLine = new StockLocationLine();
+    stockLocationLine.setProduct(productMap.get(productId));
+    stockLocationLine.setStockLocation(stockLocationMap.get(stockLocationId));
+    stockLocationLine.setCurrentQty(new BigDecimal(currentQty));
+    return stockLocationLine;
+  }
+}
@@ -19,6 +19,12 @@
 package com.axelor.apps.supplychain.service;
 
 import com.axelor.apps.supplychain.db.Mrp;
+import com.axelor.apps.supplychain.db.MrpLine;
+import com.axelor.apps.supplychain.db.MrpLineType;
+import com.axelor.apps.supplychain.db.repo.MrpLineTypeRepository;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -66,6 +72,53 @@ public class TestMrpTool {
     Assert.assertEquals("", MrpTool.computeFullName(mrp));
   }
 
+  @Test
+  public void testComputeCumulativeQty() {
+    List<MrpLine> mrpLineList =
+        Arrays.asList(
+            createMrpLine(MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK, "10"),
+            createMrpLine(MrpLineTypeRepository.ELEMENT_SALE_ORDER, "-4"),
+            createMrpLine(MrpLineTypeRepository.ELEMENT_PURCHASE_ORDER, "6"),
+            createMrpLine(MrpLineTypeRepository.ELEMENT_SALE_ORDER, "-15"));
+
+    Assert.assertEquals(new BigDecimal("-3"), MrpTool.computeCumulativeQty(mrpLineList));
+    Assert.assertEquals(new BigDecimal("10"), mrpLineList.get(0).getCumulativeQty());
+    Assert.assertEquals(new BigDecimal("6"), mrpLineList.get(1).getCumulativeQty());
+    Assert.assertEquals(new BigDecimal("12"), mrpLineList.get(2).getCumulativeQty());
+    Assert.assertEquals(new BigDecimal("-3"), mrpLineList.get(3).getCumulativeQty());
+  }
+
+  @Test
+  public void testComputeCumulativeQtyPurchaseProposalWithEstimatedDelivery() {
+    MrpLine estimatedDeliveryMrpLine =
+        createMrpLine(MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL_ESTIMATED_DELIVERY, "5");
+    MrpLine purchaseProposalMrpLine =
+        createMrpLine(MrpLineTypeRepository.ELEMENT_PURCHASE_PROPOSAL, "5");
+    purchaseProposalMrpLine.setEstimatedDeliveryMrpLine(estimatedDeliveryMrpLine);
+    List<MrpLine> mrpLineList =
+        Arrays.asList(
+            createMrpLine(MrpLineTypeRepository.ELEMENT_AVAILABLE_STOCK, "2"),
+            purchaseProposalMrpLine,
+            estimatedDeliveryMrpLine);
+
+    Assert.assertEquals(new BigDecimal("7"), MrpTool.computeCumulativeQty(mrpLineList));
+    Assert.assertEquals(new BigDecimal("2"), purchaseProposalMrpLine.getCumulativeQty());
+  }
+
+  @Test
+  public void testComputeCumulativeQtyEmptyList() {
+    Assert.assertEquals(BigDecimal.ZERO, MrpTool.computeCumulativeQty(Arrays.asList()));
+  }
+
+  protected MrpLine createMrpLine(int elementSelect, String qty) {
+    MrpLineType mrpLineType = new MrpLineType();
+    mrpLineType.setElementSelect(elementSelect);
+    MrpLine mrpLine = new MrpLine();
+    mrpLine.setMrpLineType(mrpLineType);
+    mrpLine.setQty(new BigDecimal(qty));
+    return mrpLine;
+  }
+
   protected Mrp createMrp(String name, String mrpSeq) {
     Mrp mrp = new Mrp();
     mrp.setName(name);